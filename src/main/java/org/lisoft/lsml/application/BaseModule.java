@@ -33,6 +33,9 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.lisoft.lsml.messages.MessageXBar;
+import org.lisoft.lsml.model.database.Database;
+import org.lisoft.lsml.model.database.DatabaseIndex;
+import org.lisoft.lsml.model.database.DatabaseProvider;
 import org.lisoft.lsml.model.loadout.DefaultLoadoutFactory;
 import org.lisoft.lsml.model.loadout.LoadoutFactory;
 import org.lisoft.lsml.view_fx.LiSongMechLab;
@@ -99,6 +102,26 @@ public abstract class BaseModule {
         return settings;
     }
 
+    @Provides
+    @Named("gameindex")
+    static File provideGameArchiveIndexFile() {
+        return new File(Settings.getDefaultSettingsFile().getParentFile(), "gamefiles.idx");
+    }
+
+    // Not scoped: the index follows the database that the provider currently has, which changes when a background
+    // update swaps in a new database. Database#getIndex() builds the index only once per database.
+    @Provides
+    static DatabaseIndex provideDatabaseIndex(DatabaseProvider aDatabaseProvider) {
+        return aDatabaseProvider.getDatabase().map(Database::getIndex)
+                .orElseThrow(() -> new RuntimeException("Cannot run without database"));
+    }
+
+    @Provides
+    @Named("localisation")
+    static File provideLocalisationFile() {
+        return new File(Settings.getDefaultSettingsFile().getParentFile(), "localisation.dat");
+    }
+
     @Provides
     @Named("version")
     static String provideVersionNumber() {
@@ -19,6 +19,8 @@
 //@formatter:on
 package org.lisoft.lsml.command;
 
+import java.util.Optional;
+
 import org.lisoft.lsml.messages.ItemMessage.Type;
 import org.lisoft.lsml.messages.MessageDelivery;
 import org.lisoft.lsml.messages.NotificationMessage;
@@ -47,6 +49,47 @@ public class CmdAddItem extends CmdItemBase {
     private boolean oldHAState;
     private boolean oldLAAState;
 
+    /**
+     * Checks if adding the given item to the loadout deserves a warning about C.A.S.E. having no effect.
+     * 
+     * @param aLoadout
+     *            The {@link Loadout} that the item is about to be added to.
+     * @param aItem
+     *            The {@link Item} that is about to be added.
+     * @return A warning message if C.A.S.E. is added together with an XL engine.
+     */
+    public static Optional<NotificationMessage> caseXLWarning(Loadout aLoadout, Item aItem) {
+        Engine engine = aLoadout.getEngine();
+        if (aItem == ItemDB.CASE && engine != null && engine.getSidesToLive() == 2) {
+            return Optional.of(new NotificationMessage(Severity.WARNING, aLoadout, XLCASE_WARNING));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Checks if adding the given item to the loadout deserves a warning about too many gauss rifles.
+     * 
+     * @param aLoadout
+     *            The {@link Loadout} that the item is about to be added to.
+     * @param aItem
+     *            The {@link Item} that is about to be added.
+     * @return A warning message if the loadout already has two or more gauss rifles and another one is added.
+     */
+    public static Optional<NotificationMessage> manyGaussWarning(Loadout aLoadout, Item aItem) {
+        if (aItem instanceof BallisticWeapon && aItem.getName().contains("GAUSS")) {
+            int rifles = 0;
+            for (BallisticWeapon weapon : aLoadout.items(BallisticWeapon.class)) {
+                if (weapon.getName().contains("GAUSS")) {
+                    rifles++;
+                    if (rifles >= 2) {
+                        return Optional.of(new NotificationMessage(Severity.WARNING, aLoadout, MANY_GAUSS_WARNING));
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
     /**
      * Creates a new operation.
      * 
@@ -79,8 +122,8 @@ public class CmdAddItem extends CmdItemBase {
 
         applyForcedToggles(item);
 
-        checkCaseXLWarning(item);
-        checkManyGaussWarning(item);
+        caseXLWarning(loadout, item).ifPresent(this::post);
+        manyGaussWarning(loadout, item).ifPresent(this::post);
 
         add(component, item);
     }
@@ -158,28 +201,6 @@ public class CmdAddItem extends CmdItemBase {
         }
     }
 
-    private void checkCaseXLWarning(Item aItem) {
-        Engine engine = loadout.getEngine();
-        if (aItem == ItemDB.CASE && engine != null && engine.getSidesToLive() == 2) {
-            post(new NotificationMessage(Severity.WARNING, loadout, XLCASE_WARNING));
-        }
-    }
-
-    private void checkManyGaussWarning(Item aItem) {
-        if (aItem instanceof BallisticWeapon && aItem.getName().contains("GAUSS")) {
-            int rifles = 0;
-            for (BallisticWeapon weapon : loadout.items(BallisticWeapon.class)) {
-                if (weapon.getName().contains("GAUSS")) {
-                    rifles++;
-                    if (rifles >= 2) {
-                        post(new NotificationMessage(Severity.WARNING, loadout, MANY_GAUSS_WARNING));
-                        return;
-                    }
-                }
-            }
-        }
-    }
-
     private void restoreForcedToggles(Item aItem) {
         if (!(aItem instanceof Weapon) || !(component instanceof ConfiguredComponentOmniMech))
             return;
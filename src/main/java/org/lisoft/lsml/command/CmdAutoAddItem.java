@@ -20,18 +20,29 @@
 package org.lisoft.lsml.command;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 import org.lisoft.lsml.messages.MessageDelivery;
 import org.lisoft.lsml.model.chassi.HardPointType;
 import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.database.ItemDB;
+import org.lisoft.lsml.model.database.UpgradeDB;
+import org.lisoft.lsml.model.item.ECM;
 import org.lisoft.lsml.model.item.Engine;
 import org.lisoft.lsml.model.item.HeatSink;
 import org.lisoft.lsml.model.item.Internal;
 import org.lisoft.lsml.model.item.Item;
+import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.ConfiguredComponent;
+import org.lisoft.lsml.model.loadout.ConfiguredComponentOmniMech;
 import org.lisoft.lsml.model.loadout.EquipException;
 import org.lisoft.lsml.model.loadout.EquipResult;
 import org.lisoft.lsml.model.loadout.EquipResult.EquipResultType;
@@ -43,102 +54,452 @@ import org.lisoft.lsml.util.CommandStack.Command;
 
 /**
  * This operation automatically places an item at a suitable location on the {@link LoadoutStandard}.
+ * <p>
+ * If the item doesn't fit anywhere directly, an A* search over moves and swaps of the equipped items finds the
+ * shortest sequence of item moves that makes room for it. The states of the search only model what the moves change,
+ * see {@link State}. A copy of the loadout is only made for the chosen solution, to check it before the commands for
+ * it are created on the real loadout.
  *
  * @author Emily Björk
  */
 public class CmdAutoAddItem extends CmdLoadoutBase {
+    /**
+     * The parts of a loadout that moving items between components changes: the equipped items, free slots and free
+     * hard points of each component, the number of heat sinks that may go into an engine and the slots of the
+     * actuators that adding a large bore weapon toggles off. Moves don't change the mass or any other global
+     * constraint, those are checked once on the real loadout before the search starts.
+     * <p>
+     * All arrays are indexed by {@link Location#ordinal()}.
+     */
+    private class State {
+        final List<List<Item>> items;
+        final int[] slotsFree;
+        final int[][] hardPointsFree;
+        final int[] heatSinks;
+        final int[] toggleSlots;
+
+        State(Loadout aLoadout) {
+            items = new ArrayList<>(LOCATIONS.length);
+            slotsFree = new int[LOCATIONS.length];
+            hardPointsFree = new int[LOCATIONS.length][HARD_POINT_TYPES.length];
+            heatSinks = new int[LOCATIONS.length];
+            toggleSlots = new int[LOCATIONS.length];
+
+            for (final Location location : LOCATIONS) {
+                final int i = location.ordinal();
+                final ConfiguredComponent component = aLoadout.getComponent(location);
+                final List<Item> equipped = new ArrayList<>();
+                for (final Item item : component.getItemsEquipped()) {
+                    if (item instanceof HeatSink) {
+                        heatSinks[i]++;
+                    }
+                    if (!(item instanceof Internal)) {
+                        equipped.add(item);
+                    }
+                }
+                for (final Item item : component.getItemsFixed()) {
+                    if (item instanceof HeatSink) {
+                        heatSinks[i]++;
+                    }
+                }
+                items.add(equipped);
+                slotsFree[i] = component.getSlotsFree();
+                for (final HardPointType type : HARD_POINT_TYPES) {
+                    hardPointsFree[i][type.ordinal()] = component.getHardPointCount(type)
+                            - component.getItemsOfHardpointType(type);
+                }
+                if (omniComponent[i]) {
+                    final ConfiguredComponentOmniMech omniComponent = (ConfiguredComponentOmniMech) component;
+                    if (omniComponent.getToggleState(ItemDB.LAA)) {
+                        toggleSlots[i] = omniComponent.getToggleState(ItemDB.HA) ? 2 : 1;
+                    }
+                }
+            }
+        }
+
+        State(State aState) {
+            items = new ArrayList<>(aState.items);
+            slotsFree = aState.slotsFree.clone();
+            hardPointsFree = new int[LOCATIONS.length][];
+            for (int i = 0; i < LOCATIONS.length; ++i) {
+                hardPointsFree[i] = aState.hardPointsFree[i].clone();
+            }
+            heatSinks = aState.heatSinks.clone();
+            toggleSlots = aState.toggleSlots.clone();
+        }
+
+        /**
+         * Adds the item the same way {@link CmdAddItem} would, {@link #canEquip(Location, Item)} must be checked
+         * first.
+         *
+         * @param aLocation
+         *            The location to add the item to.
+         * @param aItem
+         *            The item to add.
+         */
+        void add(Location aLocation, Item aItem) {
+            final int i = aLocation.ordinal();
+            if (aItem instanceof Weapon && ((Weapon) aItem).isLargeBore()) {
+                slotsFree[i] += toggleSlots[i];
+                toggleSlots[i] = 0;
+            }
+            // The first heat sinks go into the engine, if any, and don't use any slots.
+            final boolean intoEngine = aItem instanceof HeatSink && heatSinks[i] < engineHeatSinksMax[i];
+            if (aItem instanceof HeatSink) {
+                heatSinks[i]++;
+            }
+            if (!intoEngine) {
+                slotsFree[i] -= aItem.getSlots();
+            }
+            final List<Item> equipped = new ArrayList<>(items.get(i));
+            equipped.add(aItem);
+            items.set(i, equipped);
+            hardPointsFree[i][aItem.getHardpointType().ordinal()]--;
+        }
+
+        /**
+         * Checks the same local conditions as {@link ConfiguredComponent#canEquip(Item)} does on the modelled
+         * component.
+         *
+         * @param aLocation
+         *            The location to check.
+         * @param aItem
+         *            The item to check.
+         * @return <code>true</code> if the item can be added to the given location.
+         */
+        boolean canEquip(Location aLocation, Item aItem) {
+            final int i = aLocation.ordinal();
+            if (!loadout.getComponent(aLocation).getInternalComponent().isAllowed(aItem, null)) {
+                return false;
+            }
+            final HardPointType type = aItem.getHardpointType();
+            if (type != HardPointType.NONE && hardPointsFree[i][type.ordinal()] <= 0) {
+                return false;
+            }
+
+            int slotsAvailable = slotsFree[i];
+            if (omniComponent[i]) {
+                if (aItem instanceof Weapon && ((Weapon) aItem).isLargeBore()) {
+                    slotsAvailable += toggleSlots[i];
+                }
+            }
+            else {
+                if (aItem instanceof HeatSink && heatSinks[i] < engineHeatSinksMax[i]) {
+                    return true;
+                }
+                if (items.get(i).contains(aItem) && aItem == ItemDB.CASE) {
+                    return false;
+                }
+                if (aItem instanceof Engine) {
+                    slotsAvailable += engineHeatSinkDiscount(i, (Engine) aItem);
+                }
+            }
+            return slotsAvailable >= aItem.getSlots();
+        }
+
+        /**
+         * @return A key that is equal for all states that only differ in the order of the items in their components.
+         */
+        StateKey key() {
+            final List<Integer> data = new ArrayList<>();
+            for (int i = 0; i < LOCATIONS.length; ++i) {
+                final List<Item> equipped = items.get(i);
+                final int[] ids = new int[equipped.size()];
+                for (int j = 0; j < ids.length; ++j) {
+                    ids[j] = equipped.get(j).getId();
+                }
+                Arrays.sort(ids);
+                data.add(toggleSlots[i]);
+                data.add(ids.length);
+                for (final int id : ids) {
+                    data.add(id);
+                }
+            }
+            return new StateKey(data);
+        }
+
+        /**
+         * Removes the item the same way {@link CmdRemoveItem} would, {@link CmdAutoAddItem#canMove(Item)} must be
+         * checked first.
+         *
+         * @param aLocation
+         *            The location to remove the item from.
+         * @param aItem
+         *            The item to remove.
+         */
+        void remove(Location aLocation, Item aItem) {
+            final int i = aLocation.ordinal();
+            if (aItem instanceof HeatSink) {
+                heatSinks[i]--;
+            }
+            if (!(aItem instanceof HeatSink) || heatSinks[i] >= engineHeatSinksMax[i]) {
+                slotsFree[i] += aItem.getSlots();
+            }
+            final List<Item> equipped = new ArrayList<>(items.get(i));
+            equipped.remove(aItem);
+            items.set(i, equipped);
+            hardPointsFree[i][aItem.getHardpointType().ordinal()]++;
+        }
+
+        private int engineHeatSinkDiscount(int aIndex, Engine aEngine) {
+            int heatSinkCount = 0;
+            HeatSink heatSinkType = null;
+            for (final Item item : items.get(aIndex)) {
+                if (item instanceof HeatSink) {
+                    heatSinkCount++;
+                    heatSinkType = (HeatSink) item;
+                }
+            }
+            if (null == heatSinkType) {
+                return 0;
+            }
+            return Math.min(heatSinkCount, aEngine.getNumHeatsinkSlots()) * heatSinkType.getSlots();
+        }
+    }
+
+    /**
+     * Identifies a {@link State} in the closed and open sets of the search.
+     *
+     * @author Emily Björk
+     */
+    private static final class StateKey {
+        private final int[] data;
+        private final int hash;
+
+        StateKey(List<Integer> aData) {
+            data = new int[aData.size()];
+            for (int i = 0; i < data.length; ++i) {
+                data[i] = aData.get(i);
+            }
+            hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object aObject) {
+            if (this == aObject) {
+                return true;
+            }
+            if (!(aObject instanceof StateKey)) {
+                return false;
+            }
+            final StateKey that = (StateKey) aObject;
+            return hash == that.hash && Arrays.equals(data, that.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     private class Node implements Comparable<Node> {
-        final Loadout data;
+        final State state;
+        final StateKey key;
         final Location source;
         final Location target;
         final Item item;
         final Node parent;
         final int score;
+        /** The number of items moved to get here from the root. */
+        final int cost;
+        /** <code>true</code> if the item to place can be equipped directly on this node. */
+        final boolean goal;
+        /** A lower bound of the total number of moves of any solution through this node. */
+        final int estimate;
+        /** Keeps the order of nodes that are otherwise equal stable. */
+        final int sequence = nodesCreated++;
 
         final Item targetItem;
 
-        Node(Loadout aRoot, Item aItem) {
-            parent = null;
-            item = aItem;
-            source = null;
-            target = null;
-            targetItem = null;
-            data = aRoot;
-            score = score();
+        Node(State aRoot, Item aItem) {
+            this(aRoot, null, null, null, aItem, null, 0);
         }
 
-        Node(Node aParent, Location aSource, Location aTarget, Item aItem) throws Exception {
-            data = loadoutFactory.produceClone(aParent.data);
+        /**
+         * Creates a node from a state that the parent has been moved to.
+         *
+         * @param aState
+         *            The state after the move.
+         * @param aParent
+         *            The node that was moved from.
+         * @param aSource
+         *            The location that the item was moved from.
+         * @param aTarget
+         *            The location that the item was moved to.
+         * @param aItem
+         *            The item that was moved.
+         * @param aTargetItem
+         *            The item that was moved from the target to the source for swaps, <code>null</code> otherwise.
+         * @param aCost
+         *            The number of items moved to get here from the root.
+         */
+        Node(State aState, Node aParent, Location aSource, Location aTarget, Item aItem, Item aTargetItem,
+                int aCost) {
+            state = aState;
+            key = state.key();
             parent = aParent;
             source = aSource;
             target = aTarget;
-            targetItem = null;
             item = aItem;
-            stack.pushAndApply(new CmdRemoveItem(null, data, data.getComponent(source), item));
-            stack.pushAndApply(new CmdAddItem(null, data, data.getComponent(target), item));
-            score = score();
-        }
-
-        Node(Node aParent, Location aSourcePart, Location aTargetPart, Item aSourceItem, Item aTargetItem)
-                throws Exception {
-            data = loadoutFactory.produceClone(aParent.data);
-            parent = aParent;
-            source = aSourcePart;
-            target = aTargetPart;
             targetItem = aTargetItem;
-            item = aSourceItem;
-
-            stack.pushAndApply(new CmdRemoveItem(null, data, data.getComponent(target), aTargetItem));
-            stack.pushAndApply(new CmdRemoveItem(null, data, data.getComponent(source), aSourceItem));
-            stack.pushAndApply(new CmdAddItem(null, data, data.getComponent(target), aSourceItem));
-            stack.pushAndApply(new CmdAddItem(null, data, data.getComponent(source), aTargetItem));
+            cost = aCost;
+            goal = isGoal();
+            estimate = cost + remainingMovesBound();
             score = score();
         }
 
+        /**
+         * Orders by the estimated total cost first, see {@link #remainingMovesBound()}. Among nodes with equal
+         * estimates goals come first and then the nodes with the most free space where the item could go, this keeps
+         * the search as greedy as the old best-first search while still finding a shortest solution.
+         */
         @Override
         public int compareTo(Node aRhs) {
-            return Integer.compare(aRhs.score, score);
+            int ans = Integer.compare(estimate, aRhs.estimate);
+            if (ans == 0) {
+                ans = Boolean.compare(aRhs.goal, goal);
+            }
+            if (ans == 0) {
+                ans = Integer.compare(aRhs.score, score);
+            }
+            if (ans == 0) {
+                ans = Integer.compare(sequence, aRhs.sequence);
+            }
+            return ans;
         }
 
-        @Override
-        public boolean equals(Object aObject) {
-            if (aObject == null || !(aObject instanceof Node)) {
+        /**
+         * The local part of {@link Loadout#canEquipDirectly(Item)}, the global part doesn't change with the moves.
+         */
+        private boolean isGoal() {
+            if (itemToPlace instanceof Engine) {
+                final Engine engine = (Engine) itemToPlace;
+                if (engine.getSide().isPresent()) {
+                    final int sideSlots = engine.getSide().get().getSlots();
+                    if (slotsFree(Location.LeftTorso) < sideSlots || slotsFree(Location.RightTorso) < sideSlots) {
+                        return false;
+                    }
+                }
+                return state.canEquip(Location.CenterTorso, engine);
+            }
+
+            if (state.items.get(Location.LeftTorso.ordinal()).contains(itemToPlace)
+                    && state.items.get(Location.RightTorso.ordinal()).contains(itemToPlace)
+                    && itemToPlace == ItemDB.CASE) {
                 return false;
             }
-            return data.equals(((Node) aObject).data);
+
+            return null != goalLocation();
         }
 
-        @Override
-        public int hashCode() {
-            return data.hashCode();
+        /**
+         * @return The first location in traversal order that the item to place can be equipped on, <code>null</code>
+         *         if there is none.
+         */
+        Location goalLocation() {
+            for (final Location location : partTraversalOrder) {
+                if (state.canEquip(location, itemToPlace)) {
+                    return location;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Moving an item changes the free slots of any set of components by at most the size of the item, and a swap
+         * costs two moves. So the slots missing in the most promising location divided by the size of the largest
+         * movable item, rounded up, never overestimates the number of moves left. A location without a free hard
+         * point of the right type needs at least one move and so does any node that isn't a goal.
+         * <p>
+         * The bound changes by at most the cost of each step so it is consistent and nodes never have to be expanded
+         * twice.
+         *
+         * @return A lower bound of the number of moves needed to get from this node to a goal.
+         */
+        private int remainingMovesBound() {
+            if (goal) {
+                return 0;
+            }
+
+            int best = Integer.MAX_VALUE;
+            if (itemToPlace instanceof Engine) {
+                final Engine engine = (Engine) itemToPlace;
+                int missing = missingSlots(Location.CenterTorso, engine.getSlots());
+                if (engine.getSide().isPresent()) {
+                    final int sideSlots = engine.getSide().get().getSlots();
+                    missing += missingSlots(Location.LeftTorso, sideSlots);
+                    missing += missingSlots(Location.RightTorso, sideSlots);
+                }
+                best = movesToFree(missing);
+            }
+            else {
+                final HardPointType hardPointType = itemToPlace.getHardpointType();
+                for (final Location location : validLocations) {
+                    int moves = movesToFree(missingSlots(location, itemToPlace.getSlots()));
+                    if (hardPointType != HardPointType.NONE
+                            && state.hardPointsFree[location.ordinal()][hardPointType.ordinal()] <= 0) {
+                        moves = Math.max(moves, 1);
+                    }
+                    best = Math.min(best, moves);
+                }
+            }
+            // Nothing can be moved or there are no candidates, the search will exhaust without finding a goal.
+            if (best == Integer.MAX_VALUE) {
+                return 1;
+            }
+            return Math.max(best, 1);
+        }
+
+        private int missingSlots(Location aLocation, int aSlots) {
+            return Math.max(0, aSlots - slotsFree(aLocation));
+        }
+
+        private int movesToFree(int aSlots) {
+            if (aSlots == 0) {
+                return 0;
+            }
+            if (largestMovableSlots == 0) {
+                return Integer.MAX_VALUE;
+            }
+            return (aSlots + largestMovableSlots - 1) / largestMovableSlots;
         }
 
         private int score() {
             if (itemToPlace instanceof Engine && ((Engine) itemToPlace).getSide().isPresent()) {
-                final int slotsFreeCt = Math.min(itemToPlace.getSlots(),
-                        data.getComponent(Location.CenterTorso).getSlotsFree());
-                int sideSlots = ((Engine) itemToPlace).getSide().get().getSlots();
-                final int slotsFreeLt = Math.min(sideSlots, data.getComponent(Location.LeftTorso).getSlotsFree());
-                final int slotsFreeRt = Math.min(sideSlots, data.getComponent(Location.RightTorso).getSlotsFree());
+                final int slotsFreeCt = Math.min(itemToPlace.getSlots(), slotsFree(Location.CenterTorso));
+                final int sideSlots = ((Engine) itemToPlace).getSide().get().getSlots();
+                final int slotsFreeLt = Math.min(sideSlots, slotsFree(Location.LeftTorso));
+                final int slotsFreeRt = Math.min(sideSlots, slotsFree(Location.RightTorso));
                 return slotsFreeCt + slotsFreeLt + slotsFreeRt;
             }
             int maxFree = 0;
             for (final Location location : validLocations) {
-                maxFree = Math.max(maxFree, data.getComponent(location).getSlotsFree()
-                        * (data.getComponent(location).getInternalComponent().isAllowed(item, data.getEngine()) ? 1
-                                : 0));
+                if (loadout.getComponent(location).getInternalComponent().isAllowed(item, loadout.getEngine())) {
+                    maxFree = Math.max(maxFree, slotsFree(location));
+                }
             }
             return maxFree;
+        }
 
+        private int slotsFree(Location aLocation) {
+            return state.slotsFree[aLocation.ordinal()];
         }
     }
 
+    private static final Location[] LOCATIONS = Location.values();
+    private static final HardPointType[] HARD_POINT_TYPES = HardPointType.values();
+
     private final Item itemToPlace;
     private final List<Location> validLocations = new ArrayList<>();
     private final List<Location> partTraversalOrder;
     private final CommandStack stack = new CommandStack(0);
     private final boolean quiet;
     private final LoadoutFactory loadoutFactory;
+    private final int[] engineHeatSinksMax = new int[LOCATIONS.length];
+    private final boolean[] omniComponent = new boolean[LOCATIONS.length];
+    private int nodesCreated = 0;
+    /** The number of slots of the largest item that the search may move, moves don't change it. */
+    private int largestMovableSlots = 0;
 
     public CmdAutoAddItem(Loadout aLoadout, MessageDelivery aMessageDelivery, Item aItem, boolean aQuiet,
             LoadoutFactory aLoadoutFactory) {
@@ -175,38 +536,54 @@ public class CmdAutoAddItem extends CmdLoadoutBase {
             return;
         }
 
-        final List<Node> closed = new ArrayList<>();
-        final List<Node> open = new ArrayList<>();
+        for (final Location location : LOCATIONS) {
+            final ConfiguredComponent component = loadout.getComponent(location);
+            engineHeatSinksMax[location.ordinal()] = component.getEngineHeatSinksMax();
+            omniComponent[location.ordinal()] = component instanceof ConfiguredComponentOmniMech;
+            for (final Item item : component.getItemsEquipped()) {
+                if (canMove(item)) {
+                    largestMovableSlots = Math.max(largestMovableSlots, item.getSlots());
+                }
+            }
+        }
+
+        final Set<StateKey> closed = new HashSet<>();
+        final Map<StateKey, Integer> openCost = new HashMap<>();
+        final PriorityQueue<Node> open = new PriorityQueue<>();
 
         // Initial node
-        open.add(new Node(loadout, itemToPlace));
+        final Node root = new Node(new State(loadout), itemToPlace);
+        open.add(root);
+        openCost.put(root.key, root.cost);
         while (!open.isEmpty()) {
-            final Node node = open.remove(0);
-            closed.add(node);
+            final Node node = open.poll();
+            if (!closed.add(node.key)) {
+                continue; // Already expanded through a cheaper path
+            }
 
             // Are we there yet?
-            if (EquipResult.SUCCESS == node.data.canEquipDirectly(itemToPlace)) {
-                applySolution(node);
+            if (node.goal && applySolution(node)) {
                 return; // Yes we are!
             }
 
             // Not yet sweetie
             for (final Location part : partTraversalOrder) {
-                final ConfiguredComponent component = node.data.getComponent(part);
-                for (final Item i : component.getItemsEquipped()) {
-                    if (i instanceof Internal) {
+                for (final Item i : node.state.items.get(part.ordinal())) {
+                    if (!canMove(i)) {
                         continue;
                     }
-                    final List<Node> branches = getBranches(node, part, i);
-                    for (final Node branch : branches) {
-                        if (!closed.contains(branch) && !open.contains(branch)) {
+                    for (final Node branch : getBranches(node, part, i)) {
+                        if (closed.contains(branch.key)) {
+                            continue;
+                        }
+                        final Integer previousCost = openCost.get(branch.key);
+                        if (null == previousCost || branch.cost < previousCost) {
+                            openCost.put(branch.key, branch.cost);
                             open.add(branch);
                         }
                     }
                 }
             }
-            Collections.sort(open); // Greedy search, I need *a* solution, not
-                                    // the best one.
         }
 
         if (!quiet) {
@@ -214,34 +591,84 @@ public class CmdAutoAddItem extends CmdLoadoutBase {
         }
     }
 
-    private void applySolution(Node node) {
+    /**
+     * Replays the moves of the solution on a copy of the loadout and, if they all succeed and the item can be
+     * equipped afterwards, adds the commands for them and for the item to this operation.
+     *
+     * @param aNode
+     *            The goal {@link Node} to apply.
+     * @return <code>true</code> if the solution was applied, <code>false</code> if it didn't hold on the copy.
+     */
+    private boolean applySolution(Node aNode) {
+        final Loadout result = loadoutFactory.produceClone(loadout);
+        try {
+            for (final Command op : pathCommands(aNode, result, null)) {
+                stack.pushAndApply(op);
+            }
+        }
+        catch (final Exception e) {
+            return false;
+        }
+        if (EquipResult.SUCCESS != result.canEquipDirectly(itemToPlace)) {
+            return false;
+        }
+
+        // Look at the solution to find which part in the original loadout the item should be added to.
+        for (final Location part : partTraversalOrder) {
+            if (EquipResult.SUCCESS == result.getComponent(part).canEquip(itemToPlace)) {
+                for (final Command op : pathCommands(aNode, loadout, messageBuffer)) {
+                    addOp(op);
+                }
+                addOp(new CmdAddItem(messageBuffer, loadout, loadout.getComponent(part), itemToPlace));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param aNode
+     *            The {@link Node} to get the moves to.
+     * @param aLoadout
+     *            The {@link Loadout} to create the commands for.
+     * @param aMessageDelivery
+     *            The {@link MessageDelivery} for the commands, may be <code>null</code>.
+     * @return The commands that move the items from the root to the given {@link Node}, in order.
+     */
+    private List<Command> pathCommands(Node aNode, Loadout aLoadout, MessageDelivery aMessageDelivery) {
         final List<Command> ops = new LinkedList<>();
-        Node n = node;
+        Node n = aNode;
         while (n.parent != null) {
+            final ConfiguredComponent source = aLoadout.getComponent(n.source);
+            final ConfiguredComponent target = aLoadout.getComponent(n.target);
             if (n.targetItem != null) {
-                ops.add(0, new CmdAddItem(messageBuffer, loadout, loadout.getComponent(n.target), n.item));
-                ops.add(0, new CmdAddItem(messageBuffer, loadout, loadout.getComponent(n.source), n.targetItem));
-                ops.add(0, new CmdRemoveItem(messageBuffer, loadout, loadout.getComponent(n.target), n.targetItem));
-                ops.add(0, new CmdRemoveItem(messageBuffer, loadout, loadout.getComponent(n.source), n.item));
+                ops.add(0, new CmdAddItem(aMessageDelivery, aLoadout, target, n.item));
+                ops.add(0, new CmdAddItem(aMessageDelivery, aLoadout, source, n.targetItem));
+                ops.add(0, new CmdRemoveItem(aMessageDelivery, aLoadout, target, n.targetItem));
+                ops.add(0, new CmdRemoveItem(aMessageDelivery, aLoadout, source, n.item));
             }
             else {
-                ops.add(0, new CmdAddItem(messageBuffer, loadout, loadout.getComponent(n.target), n.item));
-                ops.add(0, new CmdRemoveItem(messageBuffer, loadout, loadout.getComponent(n.source), n.item));
+                ops.add(0, new CmdAddItem(aMessageDelivery, aLoadout, target, n.item));
+                ops.add(0, new CmdRemoveItem(aMessageDelivery, aLoadout, source, n.item));
             }
             n = n.parent;
         }
-        // Look at the solution node to find which part in the original loadout
-        // the item should be added to.
-        for (final Location part : partTraversalOrder) {
-            final ConfiguredComponent loadoutPart = node.data.getComponent(part);
-            if (EquipResult.SUCCESS == loadoutPart.canEquip(itemToPlace)) {
-                ops.add(new CmdAddItem(messageBuffer, loadout, loadout.getComponent(part), itemToPlace));
-                break;
-            }
-        }
-        while (!ops.isEmpty()) {
-            addOp(ops.remove(0));
+        return ops;
+    }
+
+    /**
+     * The same conditions as {@link CmdRemoveItem} has, except that engines are never moved as they can only be in the
+     * centre torso.
+     *
+     * @param aItem
+     *            The {@link Item} to check.
+     * @return <code>true</code> if the search may move the item.
+     */
+    private boolean canMove(Item aItem) {
+        if (aItem instanceof Internal || aItem instanceof Engine) {
+            return false;
         }
+        return !(aItem instanceof ECM) || loadout.getUpgrades().getArmour() != UpgradeDB.IS_STEALTH_ARMOUR;
     }
 
     /**
@@ -252,97 +679,86 @@ public class CmdAutoAddItem extends CmdLoadoutBase {
      * @param aSourcePart
      *            The source part that we shall remove the {@link Item} from.
      * @param aItem
-     *            The {@link Item} to be removed.
+     *            The {@link Item} to be removed, it must be movable, see {@link #canMove(Item)}.
      * @return A {@link List} of {@link Node}s with all possible ways to move the item out of the given node.
      */
     private List<Node> getBranches(Node aParent, Location aSourcePart, Item aItem) {
         final List<Node> ans = new ArrayList<>();
+        final State scratch = new State(aParent.state);
+        scratch.remove(aSourcePart, aItem);
 
-        // Create a temporary loadout where the item has been removed and find
-        // all
-        // ways it can be placed on another part.
-        final Loadout tempLoadout = loadoutFactory.produceClone(aParent.data);
-        try {
-            stack.pushAndApply(new CmdRemoveItem(null, tempLoadout, tempLoadout.getComponent(aSourcePart), aItem));
-        }
-        catch (final Exception e) {
-            // Item can't be removed? Just skip the branch entirely.
-            return ans;
-        }
-
-        final ConfiguredComponent srcPart = tempLoadout.getComponent(aSourcePart);
-        for (final Location targetPart : Location.values()) {
+        for (final Location targetPart : LOCATIONS) {
             if (aSourcePart == targetPart) {
                 continue;
             }
 
-            final ConfiguredComponent dstPart = tempLoadout.getComponent(targetPart);
-            if (EquipResult.SUCCESS == dstPart.canEquip(aItem)) {
+            if (scratch.canEquip(targetPart, aItem)) {
                 // Don't consider swaps if the item can be directly moved. A
                 // swap will be generated in another point
                 // of the search tree anyway when we move an item from that
                 // component back to this.
-                try {
-                    ans.add(new Node(aParent, aSourcePart, targetPart, aItem));
-                }
-                catch (final Exception e) {
-                    /*
-                     * If creating the node failed for some reason we just skip the branch.
-                     */
-                }
+                final State moved = new State(scratch);
+                moved.add(targetPart, aItem);
+                ans.add(new Node(moved, aParent, aSourcePart, targetPart, aItem, null, aParent.cost + 1));
             }
-            else if (dstPart.getInternalComponent().isAllowed(aItem, tempLoadout.getEngine())) {
-                // The part couldn't take the item directly, see if we can swap
-                // with some item in the part.
-                final int minItemSize = aItem.getSlots() - dstPart.getSlotsFree();
-                HardPointType requiredType = aItem.getHardpointType();
-                if (requiredType != HardPointType.NONE
-                        && dstPart.getItemsOfHardpointType(requiredType) < dstPart.getHardPointCount(requiredType)) {
-                    requiredType = HardPointType.NONE; // There is at least one
-                                                       // free hard point, we
-                                                       // don't need to swap
-                                                       // with a
-                                                       // item of the required
-                                                       // type.
-                }
-                for (final Item item : dstPart.getItemsEquipped()) {
-                    // The item has to clear enough room to make our item fit.
-                    if (item instanceof HeatSink && dstPart.getEngineHeatSinks() > 0) {
-                        continue; // Engine HS will not clear slots...
-                    }
-                    if (item.getSlots() < minItemSize) {
-                        continue;
-                    }
+            else if (loadout.getComponent(targetPart).getInternalComponent().isAllowed(aItem, loadout.getEngine())) {
+                addSwaps(ans, aParent, scratch, aSourcePart, targetPart, aItem);
+            }
+        }
+        return ans;
+    }
 
-                    // The item has to free a hard point of the required type if
-                    // applicable.
-                    if (requiredType != HardPointType.NONE && item.getHardpointType() != requiredType) {
-                        continue;
-                    }
-                    // Skip NOPs
-                    if (item == aItem) {
-                        continue;
-                    }
+    /**
+     * The target part couldn't take the item directly, adds the swaps with items in the target part that make it fit.
+     */
+    private void addSwaps(List<Node> aBranches, Node aParent, State aScratch, Location aSourcePart,
+            Location aTargetPart, Item aItem) {
+        final int dst = aTargetPart.ordinal();
+        final int minItemSize = aItem.getSlots() - aScratch.slotsFree[dst];
+        HardPointType requiredType = aItem.getHardpointType();
+        if (requiredType != HardPointType.NONE && aScratch.hardPointsFree[dst][requiredType.ordinal()] > 0) {
+            requiredType = HardPointType.NONE; // There is at least one
+                                               // free hard point, we
+                                               // don't need to swap
+                                               // with a
+                                               // item of the required
+                                               // type.
+        }
+        final boolean engineHeatSinks = aScratch.heatSinks[dst] > 0 && engineHeatSinksMax[dst] > 0;
+        for (final Item item : aScratch.items.get(dst)) {
+            // The item has to clear enough room to make our item fit.
+            if (item instanceof HeatSink && engineHeatSinks) {
+                continue; // Engine HS will not clear slots...
+            }
+            if (item.getSlots() < minItemSize) {
+                continue;
+            }
 
-                    // We can't move engine internals
-                    if (item instanceof Internal) {
-                        continue;
-                    }
+            // The item has to free a hard point of the required type if
+            // applicable.
+            if (requiredType != HardPointType.NONE && item.getHardpointType() != requiredType) {
+                continue;
+            }
+            // Skip NOPs
+            if (item == aItem) {
+                continue;
+            }
 
-                    if (EquipResult.SUCCESS == srcPart.canEquip(item)) {
-                        try {
-                            ans.add(new Node(aParent, aSourcePart, targetPart, aItem, item));
-                        }
-                        catch (final Exception e) {
-                            /*
-                             * If creating the node failed for some reason we just skip the branch.
-                             */
-                        }
-                    }
+            // We can't move engines, engine internals or ECM on stealth armour
+            if (!canMove(item)) {
+                continue;
+            }
+
+            if (aScratch.canEquip(aSourcePart, item)) {
+                final State swapped = new State(aScratch);
+                swapped.remove(aTargetPart, item);
+                if (swapped.canEquip(aTargetPart, aItem)) {
+                    swapped.add(aTargetPart, aItem);
+                    swapped.add(aSourcePart, item);
+                    aBranches.add(new Node(swapped, aParent, aSourcePart, aTargetPart, aItem, item, aParent.cost + 2));
                 }
             }
         }
-        return ans;
     }
 
     private List<Location> getPartTraversalOrder() {
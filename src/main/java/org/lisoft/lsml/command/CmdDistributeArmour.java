@@ -19,19 +19,16 @@
 //@formatter:on
 package org.lisoft.lsml.command;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.SortedMap;
-import java.util.TreeMap;
-
+import org.lisoft.lsml.messages.ArmourMessage;
+import org.lisoft.lsml.messages.ArmourMessage.Type;
 import org.lisoft.lsml.messages.MessageDelivery;
 import org.lisoft.lsml.model.chassi.ArmourSide;
 import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.item.Engine;
 import org.lisoft.lsml.model.loadout.ConfiguredComponent;
+import org.lisoft.lsml.model.loadout.EquipException;
+import org.lisoft.lsml.model.loadout.EquipResult;
+import org.lisoft.lsml.model.loadout.EquipResult.EquipResultType;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.upgrades.ArmourUpgrade;
 import org.lisoft.lsml.util.CommandStack.Command;
@@ -40,12 +37,88 @@ import org.lisoft.lsml.util.CommandStack.CompositeCommand;
 /**
  * This operation will distribute a number of points of armour (rounded down to the closest half ton) on a loadout,
  * respecting manually set values.
+ * <p>
+ * The armour is computed by {@link #calculateArmours(Loadout, int, double, int[])} which doesn't allocate and can be
+ * used directly when many loadouts need to be re-armoured. The result is applied as a single update of all components.
  *
  * @author Emily Björk
  */
 public class CmdDistributeArmour extends CompositeCommand {
+    /**
+     * Sets the armour of all automatically armoured components at once.
+     */
+    private class ArmourUpdate implements Command {
+        private final int[] newArmours;
+        private final int[] oldArmours = new int[ARMOURS_LENGTH];
+
+        ArmourUpdate(int[] aArmours) {
+            newArmours = aArmours;
+        }
+
+        @Override
+        public void apply() throws EquipException {
+            int totalArmour = 0;
+            for (final Location location : Location.values()) {
+                final ConfiguredComponent component = loadout.getComponent(location);
+                final int armour = newArmours[armourIndex(location, ArmourSide.FRONT)]
+                        + newArmours[armourIndex(location, ArmourSide.BACK)];
+                if (!component.hasManualArmour() && armour > component.getInternalComponent().getArmourMax()) {
+                    EquipException.checkAndThrow(EquipResult.make(location, EquipResultType.ExceededMaxArmour));
+                }
+                totalArmour += armour;
+            }
+            final double armourTons = loadout.getUpgrades().getArmour().getArmourMass(totalArmour);
+            if (loadout.getChassis().getMassMax() - (loadout.getMassStructItems() + armourTons) < 0) {
+                EquipException.checkAndThrow(EquipResult.make(EquipResultType.TooHeavy));
+            }
+
+            for (final Location location : Location.values()) {
+                final ConfiguredComponent component = loadout.getComponent(location);
+                if (!component.hasManualArmour()) {
+                    for (final ArmourSide side : ArmourSide.allSides(component.getInternalComponent())) {
+                        oldArmours[armourIndex(location, side)] = component.getArmour(side);
+                    }
+                }
+            }
+            set(newArmours, oldArmours);
+        }
+
+        @Override
+        public String describe() {
+            return "set armour";
+        }
+
+        @Override
+        public void undo() {
+            set(oldArmours, newArmours);
+        }
+
+        private void set(int[] aArmours, int[] aPrevious) {
+            for (final Location location : Location.values()) {
+                final ConfiguredComponent component = loadout.getComponent(location);
+                if (component.hasManualArmour()) {
+                    continue;
+                }
+                boolean changed = false;
+                for (final ArmourSide side : ArmourSide.allSides(component.getInternalComponent())) {
+                    final int index = armourIndex(location, side);
+                    component.setArmour(side, aArmours[index], false);
+                    changed |= aArmours[index] != aPrevious[index];
+                }
+                if (changed) {
+                    messageBuffer.post(new ArmourMessage(component, Type.ARMOUR_CHANGED, false));
+                }
+            }
+        }
+    }
+
     public static final double MASS_QUANTA = 0.25;
-    private final Map<Location, Integer> armours = new HashMap<>(Location.values().length);
+
+    /**
+     * The length of the armour arrays used by {@link #calculateArmours(Loadout, int, double, int[])}.
+     */
+    public static final int ARMOURS_LENGTH = 2 * Location.values().length;
+
     private final Loadout loadout;
     private final int totalPointsOfArmour;
     private final double frontRearRatio;
@@ -69,72 +142,128 @@ public class CmdDistributeArmour extends CompositeCommand {
     }
 
     /**
-     * @see org.lisoft.lsml.util.CommandStack.Command#canCoalesce(org.lisoft.lsml.util.CommandStack.Command)
+     * @param aLocation
+     *            The {@link Location} to get the index for.
+     * @param aSide
+     *            The {@link ArmourSide} to get the index for. {@link ArmourSide#ONLY} shares index with
+     *            {@link ArmourSide#FRONT}.
+     * @return The index of the given side in an armour array, see
+     *         {@link #calculateArmours(Loadout, int, double, int[])}.
      */
-    @Override
-    public boolean canCoalesce(Command aOperation) {
-        if (this == aOperation) {
-            return false;
-        }
-        if (aOperation == null) {
-            return false;
-        }
-        if (!(aOperation instanceof CmdDistributeArmour)) {
-            return false;
-        }
-        final CmdDistributeArmour operation = (CmdDistributeArmour) aOperation;
-        return loadout == operation.loadout;
+    public static int armourIndex(Location aLocation, ArmourSide aSide) {
+        return 2 * aLocation.ordinal() + (aSide == ArmourSide.BACK ? 1 : 0);
     }
 
-    @Override
-    protected void buildCommand() {
-        final int armourLeft = calculateArmourToDistribute(loadout, totalPointsOfArmour);
-        if (armourLeft > 0) {
-            final Map<Location, Integer> prioMap = prioritize(loadout);
-            distribute(loadout, armourLeft, prioMap);
+    /**
+     * Calculates how the armour would be distributed on the given loadout.
+     * <p>
+     * Components with manually set armour keep their armour. The remaining armour is first shared out by priority
+     * (engine carrying torsos first) and then evenly over the components that still have room. Components that have
+     * front and back armour get it split by the given ratio.
+     *
+     * @param aLoadout
+     *            The {@link Loadout} to distribute armour on. It is not changed.
+     * @param aPointsOfArmour
+     *            The wanted amount of total armour.
+     * @param aFrontRearRatio
+     *            The ratio of front/back on armour.
+     * @param aArmours
+     *            An array of length {@link #ARMOURS_LENGTH} that will receive the armour of every side of every
+     *            component, indexed by {@link #armourIndex(Location, ArmourSide)}. Unused back sides are set to 0.
+     */
+    public static void calculateArmours(Loadout aLoadout, int aPointsOfArmour, double aFrontRearRatio,
+            int[] aArmours) {
+        if (aArmours.length != ARMOURS_LENGTH) {
+            throw new IllegalArgumentException("Armour array must have length " + ARMOURS_LENGTH);
         }
-        applyArmours(loadout, frontRearRatio, messageBuffer);
-    }
 
-    private void applyArmours(Loadout aLoadout, double aFrontRearRatio, MessageDelivery aMessageDelivery) {
-        for (final Location part : Location.values()) {
-            final ConfiguredComponent component = aLoadout.getComponent(part);
+        // While distributing, the total armour of each component is kept at its front index.
+        int prioSum = 0;
+        for (final Location location : Location.values()) {
+            aArmours[armourIndex(location, ArmourSide.FRONT)] = 0;
+            aArmours[armourIndex(location, ArmourSide.BACK)] = 0;
+            prioSum += Math.max(0, priority(aLoadout, location));
+        }
 
-            if (component.hasManualArmour()) {
-                continue;
-            }
-            for (final ArmourSide side : ArmourSide.allSides(component.getInternalComponent())) {
-                addOp(new CmdSetArmour(aMessageDelivery, loadout, component, side, 0, false));
+        int armourLeft = calculateArmourToDistribute(aLoadout, aPointsOfArmour);
+        if (armourLeft > 0) {
+            // Give each component its share, highest priority first.
+            int done = 0;
+            Location next;
+            while (null != (next = nextByPriority(aLoadout, done))) {
+                done |= 1 << next.ordinal();
+                final int prio = priority(aLoadout, next);
+                if (prio == 0) {
+                    continue;
+                }
+                final int armour = Math.min(armourMax(aLoadout, next), armourLeft * prio / prioSum);
+                aArmours[armourIndex(next, ArmourSide.FRONT)] = armour;
+                armourLeft -= armour;
+                prioSum -= prio;
             }
-        }
 
-        for (final Location part : Location.values()) {
-            final ConfiguredComponent loadoutPart = aLoadout.getComponent(part);
+            // Spread what is left evenly over the components that aren't full yet.
+            int full = 0;
+            while (armourLeft > 0) {
+                int partsLeft = 0;
+                for (final Location location : Location.values()) {
+                    if (aLoadout.getComponent(location).hasManualArmour()
+                            || aArmours[armourIndex(location, ArmourSide.FRONT)] == armourMax(aLoadout, location)) {
+                        full |= 1 << location.ordinal();
+                    }
+                    if ((full & 1 << location.ordinal()) == 0) {
+                        partsLeft++;
+                    }
+                }
+                if (partsLeft == 0) {
+                    break;
+                }
 
-            if (loadoutPart.hasManualArmour()) {
-                continue;
+                for (final Location location : Location.values()) {
+                    if ((full & 1 << location.ordinal()) != 0) {
+                        continue;
+                    }
+                    final int index = armourIndex(location, ArmourSide.FRONT);
+                    final int additionalArmour = Math.min(armourMax(aLoadout, location) - aArmours[index],
+                            armourLeft / partsLeft);
+                    aArmours[index] += additionalArmour;
+                    armourLeft -= additionalArmour;
+                    partsLeft--;
+                }
             }
+        }
 
-            final int armour = getArmour(loadoutPart);
-            if (loadoutPart.getInternalComponent().getLocation().isTwoSided()) {
+        for (final Location location : Location.values()) {
+            final ConfiguredComponent component = aLoadout.getComponent(location);
+            final int front = armourIndex(location, ArmourSide.FRONT);
+            final int back = armourIndex(location, ArmourSide.BACK);
+            if (component.hasManualArmour()) {
+                if (location.isTwoSided()) {
+                    aArmours[front] = component.getArmour(ArmourSide.FRONT);
+                    aArmours[back] = component.getArmour(ArmourSide.BACK);
+                }
+                else {
+                    aArmours[front] = component.getArmour(ArmourSide.ONLY);
+                }
+            }
+            else if (location.isTwoSided()) {
                 // 1) front + back = max
                 // 2) front / back = ratio
                 // front = back * ratio
                 // front = max - back
                 // = > back * ratio = max - back
-                final int back = (int) (armour / (aFrontRearRatio + 1));
-                final int front = armour - back;
-
-                addOp(new CmdSetArmour(aMessageDelivery, loadout, loadoutPart, ArmourSide.FRONT, front, false));
-                addOp(new CmdSetArmour(aMessageDelivery, loadout, loadoutPart, ArmourSide.BACK, back, false));
-            }
-            else {
-                addOp(new CmdSetArmour(aMessageDelivery, loadout, loadoutPart, ArmourSide.ONLY, armour, false));
+                final int armour = aArmours[front];
+                aArmours[back] = (int) (armour / (aFrontRearRatio + 1));
+                aArmours[front] = armour - aArmours[back];
             }
         }
     }
 
-    private int calculateArmourToDistribute(Loadout aLoadout, int aPointsOfArmour) {
+    private static int armourMax(Loadout aLoadout, Location aLocation) {
+        return aLoadout.getComponent(aLocation).getInternalComponent().getArmourMax();
+    }
+
+    private static int calculateArmourToDistribute(Loadout aLoadout, int aPointsOfArmour) {
         final ArmourUpgrade armourUpgrade = aLoadout.getUpgrades().getArmour();
         final double unarmouredMass = aLoadout.getMassStructItems();
         final double requestedArmourMass = aPointsOfArmour / armourUpgrade.getArmourPerTon();
@@ -164,126 +293,83 @@ public class CmdDistributeArmour extends CompositeCommand {
         return armourLeft;
     }
 
-    private void distribute(final Loadout aLoadout, int aArmourAmount, final Map<Location, Integer> aPriorities) {
-        int prioSum = 0;
-        for (final double prio : aPriorities.values()) {
-            prioSum += prio;
-        }
-
-        final SortedMap<Location, Integer> byPriority = new TreeMap<>((aO1, aO2) -> {
-            final int c = aPriorities.get(aO2).compareTo(aPriorities.get(aO1));
-            if (c == 0) {
-                final int d = Integer.compare(aLoadout.getComponent(aO1).getInternalComponent().getArmourMax(),
-                        aLoadout.getComponent(aO2).getInternalComponent().getArmourMax());
-                if (d == 0) {
-                    return aO1.compareTo(aO2);
-                }
-                return d;
-            }
-            return c;
-        });
-        byPriority.putAll(aPriorities);
-
-        int armourLeft = aArmourAmount;
-        for (final Entry<Location, Integer> entry : byPriority.entrySet()) {
-            final Location part = entry.getKey();
-            final int prio = entry.getValue();
-            if (prio == 0) {
+    /**
+     * Finds the component to give armour to next. Higher priority first, then smaller maximal armour, then
+     * {@link Location} order.
+     */
+    private static Location nextByPriority(Loadout aLoadout, int aDone) {
+        Location best = null;
+        int bestPrio = 0;
+        int bestMax = 0;
+        for (final Location location : Location.values()) {
+            if ((aDone & 1 << location.ordinal()) != 0) {
                 continue;
             }
-
-            final ConfiguredComponent loadoutPart = aLoadout.getComponent(part);
-            final int armour = Math.min(loadoutPart.getInternalComponent().getArmourMax(), armourLeft * prio / prioSum);
-            setArmour(loadoutPart, armour);
-            armourLeft -= armour;
-            prioSum -= prio;
-        }
-
-        final List<ConfiguredComponent> parts = new ArrayList<>(aLoadout.getComponents());
-        while (armourLeft > 0 && !parts.isEmpty()) {
-            final Iterator<ConfiguredComponent> it = parts.iterator();
-            while (it.hasNext()) {
-                final ConfiguredComponent part = it.next();
-                if (part.hasManualArmour() || getArmour(part) == part.getInternalComponent().getArmourMax()) {
-                    it.remove();
-                }
+            final int prio = priority(aLoadout, location);
+            if (prio < 0) {
+                continue;
             }
-
-            int partsLeft = parts.size();
-            for (final ConfiguredComponent loadoutPart : parts) {
-                final int additionalArmour = Math.min(
-                        loadoutPart.getInternalComponent().getArmourMax() - getArmour(loadoutPart),
-                        armourLeft / partsLeft);
-                setArmour(loadoutPart, getArmour(loadoutPart) + additionalArmour);
-                armourLeft -= additionalArmour;
-                partsLeft--;
+            final int max = armourMax(aLoadout, location);
+            if (best == null || prio > bestPrio || prio == bestPrio && max < bestMax) {
+                best = location;
+                bestPrio = prio;
+                bestMax = max;
             }
         }
+        return best;
     }
 
-    private int getArmour(ConfiguredComponent aPart) {
-        final Integer stored = armours.get(aPart.getInternalComponent().getLocation());
-        if (stored != null) {
-            return stored;
+    /**
+     * @return The priority of the given component when distributing armour, -1 if it has manual armour.
+     */
+    private static int priority(Loadout aLoadout, Location aLocation) {
+        final ConfiguredComponent loadoutPart = aLoadout.getComponent(aLocation);
+        if (loadoutPart.hasManualArmour()) {
+            return -1;
         }
-        return 0;
-    }
 
-    private Map<Location, Integer> prioritize(Loadout aLoadout) {
-        final Map<Location, Integer> ans = new HashMap<>(Location.values().length);
-
-        for (final Location location : Location.values()) {
-            final ConfiguredComponent loadoutPart = aLoadout.getComponent(location);
-            if (loadoutPart.hasManualArmour()) {
-                continue;
-            }
+        switch (aLocation) {
+            case CenterTorso:
+                // Protect engine at all costs
+                return 2000;
+            case LeftTorso:
+            case RightTorso:
+                final Engine engine = aLoadout.getEngine();
+                return engine != null && engine.getSidesToLive() > 0 ? 1000 : 20;
+            case LeftLeg:
+            case RightLeg:
+                // Legs and head are high priority too
+                return 10;
+            case Head:
+                return 7;
+            default:
+                // Arms without items need no armour
+                return loadoutPart.getItemMass() == 0.0 ? 0 : 10;
+        }
+    }
 
-            // Protect engine at all costs
-            if (location == Location.CenterTorso) {
-                ans.put(location, 2000);
-            }
-            else if (location == Location.LeftTorso || location == Location.RightTorso) {
-                if (loadout.getEngine() != null && loadout.getEngine().getSidesToLive() > 0) {
-                    ans.put(location, 1000);
-                }
-                else {
-                    ans.put(location, 20);
-                }
-            }
-            // Legs and head are high priority too
-            else if (location == Location.LeftLeg || location == Location.RightLeg) {
-                ans.put(location, 10);
-            }
-            else if (location == Location.Head) {
-                ans.put(location, 7);
-            }
-            else if (loadoutPart.getItemMass() == 0.0 && !ans.containsKey(location)) {
-                ans.put(location, 0);
-            }
-            else {
-                if (location == Location.LeftArm) {
-                    ans.put(Location.LeftArm, 10);
-                    if (!aLoadout.getComponent(Location.LeftTorso).hasManualArmour()
-                            && (!ans.containsKey(Location.LeftTorso) || ans.get(Location.LeftTorso) < 10)) {
-                        ans.put(Location.LeftTorso, 10);
-                    }
-                }
-                else if (location == Location.RightArm) {
-                    ans.put(Location.RightArm, 10);
-                    if (!aLoadout.getComponent(Location.RightTorso).hasManualArmour()
-                            && (!ans.containsKey(Location.RightTorso) || ans.get(Location.RightTorso) < 10)) {
-                        ans.put(Location.RightTorso, 10);
-                    }
-                }
-                else {
-                    ans.put(location, 10);
-                }
-            }
+    /**
+     * @see org.lisoft.lsml.util.CommandStack.Command#canCoalesce(org.lisoft.lsml.util.CommandStack.Command)
+     */
+    @Override
+    public boolean canCoalesce(Command aOperation) {
+        if (this == aOperation) {
+            return false;
+        }
+        if (aOperation == null) {
+            return false;
+        }
+        if (!(aOperation instanceof CmdDistributeArmour)) {
+            return false;
         }
-        return ans;
+        final CmdDistributeArmour operation = (CmdDistributeArmour) aOperation;
+        return loadout == operation.loadout;
     }
 
-    private void setArmour(ConfiguredComponent aComponent, int aArmour) {
-        armours.put(aComponent.getInternalComponent().getLocation(), aArmour);
+    @Override
+    protected void buildCommand() {
+        final int[] armours = new int[ARMOURS_LENGTH];
+        calculateArmours(loadout, totalPointsOfArmour, frontRearRatio, armours);
+        addOp(new ArmourUpdate(armours));
     }
 }
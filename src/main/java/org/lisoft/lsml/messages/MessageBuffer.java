@@ -50,14 +50,20 @@ public class MessageBuffer implements MessageDelivery {
      *            clear the buffer.
      */
     public void deliverTo(MessageDelivery aMessageDelivery) {
-        Iterator<Message> it = messages.iterator();
-        while (it.hasNext()) {
-            Message message = it.next();
-            it.remove();
-            if (null != aMessageDelivery) {
-                aMessageDelivery.post(message);
+        if (aMessageDelivery instanceof MessageXBar && messages.size() > 1) {
+            // Let the receivers that can, handle all the messages at once.
+            final MessageXBar xBar = (MessageXBar) aMessageDelivery;
+            xBar.beginTransaction();
+            try {
+                deliverEach(aMessageDelivery);
+            }
+            finally {
+                xBar.commitTransaction();
             }
         }
+        else {
+            deliverEach(aMessageDelivery);
+        }
     }
 
     /**
@@ -66,4 +72,15 @@ public class MessageBuffer implements MessageDelivery {
     public boolean hasMessages() {
         return !messages.isEmpty();
     }
+
+    private void deliverEach(MessageDelivery aMessageDelivery) {
+        Iterator<Message> it = messages.iterator();
+        while (it.hasNext()) {
+            Message message = it.next();
+            it.remove();
+            if (null != aMessageDelivery) {
+                aMessageDelivery.post(message);
+            }
+        }
+    }
 }
@@ -27,5 +27,16 @@ package org.lisoft.lsml.messages;
  */
 @FunctionalInterface
 public interface MessageReceiver {
+    /**
+     * Receivers that only need to know that something changed, not every individual change, can return
+     * <code>true</code> here. Messages posted during a transaction on a {@link MessageXBar} are then delivered to this
+     * receiver as one {@link TransactionMessage} instead of one by one.
+     *
+     * @return <code>true</code> if this receiver accepts {@link TransactionMessage}s.
+     */
+    default boolean acceptsTransactionMessages() {
+        return false;
+    }
+
     void receive(Message aMsg);
 }
\ No newline at end of file
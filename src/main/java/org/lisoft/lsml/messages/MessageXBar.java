@@ -27,6 +27,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.function.Predicate;
 
 /**
  * Implements a message passing framework for an UI where the components don't have to know about each other, only about
@@ -42,6 +43,8 @@ public class MessageXBar implements MessageReception, MessageDelivery {
     private transient final List<WeakReference<MessageReceiver>> readers = new ArrayList<>();
     private boolean dispatching = false;
     private transient final Queue<Message> messages = new ArrayDeque<>();
+    private transient final List<Message> transactionMessages = new ArrayList<>();
+    private int transactionDepth = 0;
 
     @Override
     public void attach(MessageReceiver aReader) {
@@ -65,6 +68,50 @@ public class MessageXBar implements MessageReception, MessageDelivery {
         readers.add(aWeakReference);
     }
 
+    /**
+     * Starts a transaction. Messages posted until the matching call to {@link #commitTransaction()} are held back and
+     * then delivered together. Receivers that accept {@link TransactionMessage}s get a single message summarising the
+     * transaction, all other receivers get the individual messages in order. Transactions may be nested, only the
+     * outermost commit delivers.
+     */
+    public void beginTransaction() {
+        transactionDepth++;
+    }
+
+    /**
+     * Ends a transaction started by {@link #beginTransaction()} and delivers the messages that were posted during it.
+     */
+    public void commitTransaction() {
+        if (transactionDepth <= 0) {
+            throw new IllegalStateException("No transaction to commit!");
+        }
+        transactionDepth--;
+        if (transactionDepth > 0 || transactionMessages.isEmpty()) {
+            return;
+        }
+
+        final List<Message> posted = new ArrayList<>(transactionMessages);
+        transactionMessages.clear();
+        if (posted.size() == 1) {
+            post(posted.get(0));
+            return;
+        }
+
+        if (dispatching) {
+            // Committed from a receiver, deliver as if posted one by one after the current message.
+            messages.addAll(posted);
+            return;
+        }
+
+        for (final Message message : posted) {
+            dispatchMessage(message, aReader -> !aReader.acceptsTransactionMessages());
+        }
+        dispatchMessage(new TransactionMessage(posted), aReader -> aReader.acceptsTransactionMessages());
+        while (!messages.isEmpty()) {
+            dispatchMessage(messages.remove());
+        }
+    }
+
     @Override
     public void detach(MessageReceiver aReader) {
         if (dispatching) {
@@ -86,6 +133,9 @@ public class MessageXBar implements MessageReception, MessageDelivery {
         if (dispatching) {
             messages.add(aMessage);
         }
+        else if (transactionDepth > 0) {
+            transactionMessages.add(aMessage);
+        }
         else {
             dispatchMessage(aMessage);
             while (!messages.isEmpty()) {
@@ -95,6 +145,10 @@ public class MessageXBar implements MessageReception, MessageDelivery {
     }
 
     private void dispatchMessage(Message aMessage) {
+        dispatchMessage(aMessage, aReader -> true);
+    }
+
+    private void dispatchMessage(Message aMessage, Predicate<MessageReceiver> aReaderFilter) {
         if (dispatching) {
             throw new IllegalStateException("Recursive dispatch!");
         }
@@ -108,6 +162,9 @@ public class MessageXBar implements MessageReception, MessageDelivery {
                     it.remove();
                     continue;
                 }
+                if (!aReaderFilter.test(reader)) {
+                    continue;
+                }
                 if (debug) {
                     final long startNs = System.nanoTime();
                     reader.receive(aMessage);
@@ -0,0 +1,138 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.messages;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.lisoft.lsml.model.loadout.Loadout;
+
+/**
+ * This message summarises all messages that were posted during a transaction on a {@link MessageXBar}, see
+ * {@link MessageXBar#beginTransaction()}. It is only delivered to receivers that ask for it through
+ * {@link MessageReceiver#acceptsTransactionMessages()}, all other receivers get the individual messages.
+ *
+ * @author Emily Björk
+ */
+public class TransactionMessage implements Message {
+    /**
+     * The kinds of changes that a transaction can contain.
+     */
+    public enum Change {
+        ITEMS, ARMOUR, UPGRADES, OMNIPODS, LOADOUT, HEAT_OR_DAMAGE, OTHER
+    }
+
+    /**
+     * Tests a predicate against a message that may be a {@link TransactionMessage}.
+     *
+     * @param aMessage
+     *            The message to test.
+     * @param aPredicate
+     *            The {@link Predicate} to apply to the message or to each of the summarised messages.
+     * @return <code>true</code> if the message, or any of the summarised messages if it is a
+     *         {@link TransactionMessage}, matches the predicate.
+     */
+    public static boolean test(Message aMessage, Predicate<Message> aPredicate) {
+        if (aMessage instanceof TransactionMessage) {
+            return ((TransactionMessage) aMessage).anyMatch(aPredicate);
+        }
+        return aPredicate.test(aMessage);
+    }
+
+    private final List<Message> messages;
+    private final Set<Change> changes = EnumSet.noneOf(Change.class);
+
+    /**
+     * @param aMessages
+     *            The messages that were posted during the transaction, in order.
+     */
+    public TransactionMessage(List<Message> aMessages) {
+        messages = Collections.unmodifiableList(aMessages);
+        for (final Message message : aMessages) {
+            if (message instanceof ItemMessage) {
+                changes.add(Change.ITEMS);
+            }
+            else if (message instanceof ArmourMessage) {
+                changes.add(Change.ARMOUR);
+            }
+            else if (message instanceof UpgradesMessage) {
+                changes.add(Change.UPGRADES);
+            }
+            else if (message instanceof OmniPodMessage) {
+                changes.add(Change.OMNIPODS);
+            }
+            else if (message instanceof LoadoutMessage) {
+                changes.add(Change.LOADOUT);
+            }
+            else {
+                changes.add(Change.OTHER);
+            }
+            if (message.affectsHeatOrDamage()) {
+                changes.add(Change.HEAT_OR_DAMAGE);
+            }
+        }
+    }
+
+    @Override
+    public boolean affectsHeatOrDamage() {
+        return changes.contains(Change.HEAT_OR_DAMAGE);
+    }
+
+    /**
+     * @param aPredicate
+     *            The {@link Predicate} to test the messages with.
+     * @return <code>true</code> if any of the summarised messages matches the predicate.
+     */
+    public boolean anyMatch(Predicate<Message> aPredicate) {
+        for (final Message message : messages) {
+            if (aPredicate.test(message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The kinds of changes in this transaction.
+     */
+    public Set<Change> getChanges() {
+        return Collections.unmodifiableSet(changes);
+    }
+
+    /**
+     * @return An unmodifiable {@link List} of the summarised messages in the order they were posted.
+     */
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    @Override
+    public boolean isForMe(Loadout aLoadout) {
+        return anyMatch(aMessage -> aMessage.isForMe(aLoadout));
+    }
+
+    @Override
+    public String toString() {
+        return "Transaction of " + messages.size() + " messages " + changes;
+    }
+}
@@ -19,6 +19,7 @@
 //@formatter:on
 package org.lisoft.lsml.model.database;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
 
@@ -31,6 +32,9 @@ import org.lisoft.lsml.application.ErrorReporter;
  * @author Emily Björk
  */
 public abstract class AbstractDatabaseProvider implements DatabaseProvider {
+    private static final String BUNDLED_XML = "database.xml";
+    private static final String BUNDLED_SNAPSHOT = "database" + DatabaseSnapshot.FILE_EXTENSION;
+
     private final ErrorReporter errorReporter;
     private final String currentVersion;
 
@@ -39,10 +43,28 @@ public abstract class AbstractDatabaseProvider implements DatabaseProvider {
         errorReporter = aErrorReporter;
     }
 
+    /**
+     * Points the static *DB classes at the given database, and with that all loadouts that are created or resolved
+     * from now on. Loadouts that already exist keep referring to the items of the previous database.
+     *
+     * @param aDatabase
+     *            The {@link Database} that replaces the one in use.
+     */
+    protected static void useInFacades(Database aDatabase) {
+        ItemDB.use(aDatabase);
+        UpgradeDB.use(aDatabase);
+        ModifiersDB.use(aDatabase);
+        ConsumableDB.use(aDatabase);
+        OmniPodDB.use(aDatabase);
+        ChassisDB.use(aDatabase);
+        StockLoadoutDB.use(aDatabase);
+        EnvironmentDB.use(aDatabase);
+    }
+
     protected Optional<Database> getBundled() {
-        try (InputStream is = ClassLoader.getSystemClassLoader().getResourceAsStream("database.xml")) {
+        try {
             // Let this throw as this is fatal.
-            final Database database = (Database) Database.makeDatabaseXStream().fromXML(is);
+            final Database database = readBundled();
             if (!database.getVersion().equals(currentVersion)) {
                 return Optional.empty();
             }
@@ -54,4 +76,22 @@ public abstract class AbstractDatabaseProvider implements DatabaseProvider {
             return Optional.empty();
         }
     }
+
+    /**
+     * Reads the bundled database, preferring the binary snapshot produced by the build and falling back on the XML
+     * database if there is no usable snapshot (for example when running from an IDE).
+     */
+    private Database readBundled() throws IOException {
+        try (InputStream is = ClassLoader.getSystemClassLoader().getResourceAsStream(BUNDLED_SNAPSHOT)) {
+            if (is != null) {
+                final DatabaseSnapshot snapshot = DatabaseSnapshot.read(is);
+                if (snapshot.getVersion().equals(currentVersion)) {
+                    return snapshot.getDatabase();
+                }
+            }
+        }
+        try (InputStream is = ClassLoader.getSystemClassLoader().getResourceAsStream(BUNDLED_XML)) {
+            return (Database) Database.makeDatabaseXStream().fromXML(is);
+        }
+    }
 }
@@ -19,11 +19,8 @@
 //@formatter:on
 package org.lisoft.lsml.model.database;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.lisoft.lsml.model.NoSuchItemException;
 import org.lisoft.lsml.model.chassi.Chassis;
@@ -37,38 +34,19 @@ import org.lisoft.lsml.view_fx.LiSongMechLab;
  * @author Emily Björk
  */
 public class ChassisDB {
-    static private final Map<String, Chassis> name2chassis;
-    static private final Map<String, List<Chassis>> series2chassis;
-    static private final Map<Integer, Chassis> id2chassis;
-    static private final Map<Integer, List<Chassis>> chassis2variant;
+    static private volatile DatabaseIndex index;
 
     /**
      * A decision has been made to rely on static initializers for *DB classes. The motivation is that all items are
-     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS.
+     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS. A database
+     * that replaces the active one at run time is passed to {@link #use(Database)}.
      */
     static {
-        final Database database = LiSongMechLab.getDatabase()
-                .orElseThrow(() -> new RuntimeException("Cannot run without database"));
-        name2chassis = new HashMap<>();
-        series2chassis = new HashMap<>();
-        id2chassis = new HashMap<>();
-        chassis2variant = new HashMap<>();
-
-        for (final Chassis chassis : database.getChassis()) {
-            final String model = canonize(chassis.getName());
-            final String modelShort = canonize(chassis.getShortName());
-
-            addToVariationDb(chassis.getBaseVariantId(), chassis);
-            name2chassis.put(modelShort, chassis);
-            name2chassis.put(model, chassis);
-            id2chassis.put(chassis.getId(), chassis);
+        use(LiSongMechLab.getDatabase().orElseThrow(() -> new RuntimeException("Cannot run without database")));
+    }
 
-            if (!series2chassis.containsKey(chassis.getSeriesName())) {
-                final List<Chassis> chassilist = new ArrayList<>();
-                series2chassis.put(chassis.getSeriesName(), chassilist);
-            }
-            series2chassis.get(chassis.getSeriesName()).add(chassis);
-        }
+    static void use(Database aDatabase) {
+        index = aDatabase.getIndex();
     }
 
     /**
@@ -76,16 +54,10 @@ public class ChassisDB {
      *
      * @param aChassiClass
      *            The {@link ChassisClass} to look up.
-     * @return An {@link List} of all {@link ChassisStandard} with the given {@link ChassisClass}.
+     * @return An unmodifiable {@link List} of all {@link ChassisStandard} with the given {@link ChassisClass}.
      */
     public static Collection<Chassis> lookup(ChassisClass aChassiClass) {
-        final List<Chassis> chassii = new ArrayList<>(4 * 4);
-        for (final Chassis chassis : name2chassis.values()) {
-            if (chassis.getChassisClass() == aChassiClass && !chassii.contains(chassis)) {
-                chassii.add(chassis);
-            }
-        }
-        return chassii;
+        return index.lookupChassis(aChassiClass);
     }
 
     /**
@@ -96,11 +68,7 @@ public class ChassisDB {
      *             If no chassis exists by that ID.
      */
     public static Chassis lookup(int aChassiId) throws NoSuchItemException {
-        final Chassis c = id2chassis.get(aChassiId);
-        if (null == c) {
-            throw new NoSuchItemException("No chassis by ID: " + aChassiId);
-        }
-        return c;
+        return index.lookupChassis(aChassiId);
     }
 
     /**
@@ -111,15 +79,11 @@ public class ChassisDB {
      * @return The chassis that matches the lookup string.
      */
     public static Chassis lookup(String aChassisName) {
-        final String keyShortName = canonize(aChassisName);
-        if (!name2chassis.containsKey(keyShortName)) {
-            throw new IllegalArgumentException("No chassi variation named: " + aChassisName + " !");
-        }
-        return name2chassis.get(keyShortName);
+        return index.lookupChassis(aChassisName);
     }
 
     public static Collection<Chassis> lookupAll() {
-        return id2chassis.values();
+        return index.allChassis();
     }
 
     /**
@@ -130,11 +94,7 @@ public class ChassisDB {
      * @return A {@link List} of all chassis that are part of that series.
      */
     public static Collection<Chassis> lookupSeries(String aSeries) {
-        final String keyShortName = canonize(aSeries);
-        if (!series2chassis.containsKey(keyShortName)) {
-            throw new IllegalArgumentException("No chassi variation by that name!");
-        }
-        return series2chassis.get(keyShortName);
+        return index.lookupSeries(aSeries);
     }
 
     /**
@@ -143,28 +103,6 @@ public class ChassisDB {
      * @return A {@link List} of all variants of this chassis (normal, champion, phoenix etc)
      */
     public static Collection<Chassis> lookupVariations(Chassis aChassis) {
-        return chassis2variant.get(aChassis.getId());
-    }
-
-    private static void addToVariationDb(int aBaseID, Chassis aChassis) {
-        int baseId = aBaseID;
-        if (baseId < 0) {
-            baseId = aChassis.getId();
-        }
-
-        List<Chassis> list = chassis2variant.get(baseId);
-        if (null == list) {
-            list = new ArrayList<>();
-            chassis2variant.put(baseId, list);
-        }
-        if (baseId != aChassis.getId()) {
-            chassis2variant.put(aChassis.getId(), list);
-        }
-
-        list.add(aChassis);
-    }
-
-    static private String canonize(String aName) {
-        return aName.toLowerCase().trim();
+        return index.lookupVariations(aChassis);
     }
 }
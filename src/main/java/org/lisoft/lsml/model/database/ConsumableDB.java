@@ -21,9 +21,7 @@ package org.lisoft.lsml.model.database;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.lisoft.lsml.model.NoSuchItemException;
 import org.lisoft.lsml.model.item.Consumable;
@@ -39,52 +37,31 @@ import org.lisoft.lsml.view_fx.LiSongMechLab;
  * @author Emily Björk
  */
 public class ConsumableDB {
-    private final static Map<Integer, Consumable> mwoidx2module;
-    private final static Map<String, Consumable> name2module;
+    private static volatile DatabaseIndex index;
 
     /**
      * A decision has been made to rely on static initializers for *DB classes. The motivation is that all items are
-     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS.
+     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS. A database
+     * that replaces the active one at run time is passed to {@link #use(Database)}.
      */
     static {
-        final Database database = LiSongMechLab.getDatabase()
-                .orElseThrow(() -> new RuntimeException("Cannot run without database"));
-
-        mwoidx2module = new HashMap<>();
-        name2module = new HashMap<>();
+        use(LiSongMechLab.getDatabase().orElseThrow(() -> new RuntimeException("Cannot run without database")));
+    }
 
-        for (final Consumable module : database.getPilotModules()) {
-            mwoidx2module.put(module.getId(), module);
-            name2module.put(module.getName(), module);
-        }
+    static void use(Database aDatabase) {
+        index = aDatabase.getIndex();
     }
 
     public static List<Consumable> lookup(Class<? extends Consumable> aClass) {
-        final List<Consumable> ans = new ArrayList<>();
-        for (final Consumable module : mwoidx2module.values()) {
-            if (aClass.isAssignableFrom(module.getClass())) {
-                ans.add(module);
-            }
-        }
-        return ans;
+        return new ArrayList<>(index.lookupConsumables(aClass));
     }
 
     public static Collection<Consumable> lookup(ConsumableType aType) {
-        final List<Consumable> ans = new ArrayList<>();
-        for (final Consumable consumable : mwoidx2module.values()) {
-            if (consumable.getType() == aType) {
-                ans.add(consumable);
-            }
-        }
-        return ans;
+        return new ArrayList<>(index.lookupConsumables(aType));
     }
 
     public static Consumable lookup(int aId) throws NoSuchItemException {
-        final Consumable module = mwoidx2module.get(aId);
-        if (null == module) {
-            throw new NoSuchItemException("No module found with ID: " + aId);
-        }
-        return module;
+        return index.lookupConsumable(aId);
     }
 
     /**
@@ -97,10 +74,6 @@ public class ConsumableDB {
      *             if no {@link Consumable} could be found with the given name.
      */
     public static Consumable lookup(String aName) throws NoSuchItemException {
-        final Consumable module = name2module.get(aName);
-        if (module == null) {
-            throw new NoSuchItemException("No module by name: " + aName);
-        }
-        return module;
+        return index.lookupConsumable(aName);
     }
 }
@@ -153,6 +153,9 @@ public class Database {
     /** Filename - CRC */
     private final Map<String, Long> checksums;
 
+    /** Entity - The names of the files it was parsed from. May be missing in databases from older versions. */
+    private final Map<String, List<String>> sources;
+
     private final Map<String, ModifierDescription> modifierDescriptions;
 
     private final List<Item> items;
@@ -163,11 +166,50 @@ public class Database {
     private final List<Environment> environments;
     private final List<StockLoadout> stockLoadouts;
 
+    /** Built on first use, never serialised. */
+    private transient volatile DatabaseIndex index;
+
     public Database(String aLsmlVersion, Map<String, Long> aChecksums, List<Item> aItems, List<Upgrade> aUpgrades,
             List<OmniPod> aOmniPods, List<Consumable> aModules, List<Chassis> aChassis, List<Environment> aEnvironments,
             List<StockLoadout> aStockLoadouts, Map<String, ModifierDescription> aModifierDescriptions) {
+        this(aLsmlVersion, aChecksums, new HashMap<>(), aItems, aUpgrades, aOmniPods, aModules, aChassis,
+                aEnvironments, aStockLoadouts, aModifierDescriptions);
+    }
+
+    /**
+     * Creates a new {@link Database} that knows which game files each of its entities were parsed from.
+     *
+     * @param aLsmlVersion
+     *            The LSML version that this database is compatible with.
+     * @param aChecksums
+     *            The CRCs of all the game files the database was parsed from, indexed by file name.
+     * @param aSources
+     *            For each parsed entity, the names of the game files it was parsed from. See
+     *            {@link #getSources()}.
+     * @param aItems
+     *            All {@link Item}s.
+     * @param aUpgrades
+     *            All {@link Upgrade}s.
+     * @param aOmniPods
+     *            All {@link OmniPod}s.
+     * @param aModules
+     *            All {@link Consumable}s.
+     * @param aChassis
+     *            All {@link Chassis}.
+     * @param aEnvironments
+     *            All {@link Environment}s.
+     * @param aStockLoadouts
+     *            All {@link StockLoadout}s.
+     * @param aModifierDescriptions
+     *            All {@link ModifierDescription}s indexed by their keys.
+     */
+    public Database(String aLsmlVersion, Map<String, Long> aChecksums, Map<String, List<String>> aSources,
+            List<Item> aItems, List<Upgrade> aUpgrades, List<OmniPod> aOmniPods, List<Consumable> aModules,
+            List<Chassis> aChassis, List<Environment> aEnvironments, List<StockLoadout> aStockLoadouts,
+            Map<String, ModifierDescription> aModifierDescriptions) {
         lsmlVersion = aLsmlVersion;
         checksums = aChecksums;
+        sources = aSources;
         items = aItems;
         upgrades = aUpgrades;
         omniPods = aOmniPods;
@@ -199,6 +241,23 @@ public class Database {
         return Collections.unmodifiableList(environments);
     }
 
+    /**
+     * @return The {@link DatabaseIndex} of this database, it is created on the first call.
+     */
+    public DatabaseIndex getIndex() {
+        DatabaseIndex ans = index;
+        if (null == ans) {
+            synchronized (this) {
+                ans = index;
+                if (null == ans) {
+                    ans = new DatabaseIndex(this);
+                    index = ans;
+                }
+            }
+        }
+        return ans;
+    }
+
     /**
      * @return An unmodifiable {@link List} of all {@link Item}s.
      */
@@ -227,6 +286,20 @@ public class Database {
         return Collections.unmodifiableList(modules);
     }
 
+    /**
+     * The game files that each entity in the database was parsed from. The keys are opaque identifiers assigned by the
+     * parser, the values are file names that can be found in {@link #getChecksums()}.
+     *
+     * @return An unmodifiable {@link Map} of entity to source file names, empty if the database doesn't track its
+     *         sources.
+     */
+    public Map<String, List<String>> getSources() {
+        if (null == sources) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(sources);
+    }
+
     /**
      * @return An unmodifiable {@link List} of all {@link StockLoadout}s.
      */
@@ -0,0 +1,480 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.chassi.OmniPod;
+import org.lisoft.lsml.model.environment.Environment;
+import org.lisoft.lsml.model.garage.GarageDirectory;
+import org.lisoft.lsml.model.item.Consumable;
+import org.lisoft.lsml.model.item.Item;
+import org.lisoft.lsml.model.item.MwoObject;
+import org.lisoft.lsml.model.item.WeaponRangeProfile;
+import org.lisoft.lsml.model.loadout.Loadout;
+import org.lisoft.lsml.model.loadout.LoadoutOmniMech;
+import org.lisoft.lsml.model.modifiers.Modifier;
+import org.lisoft.lsml.model.upgrades.Upgrade;
+import org.lisoft.lsml.model.upgrades.Upgrades;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.converters.reflection.ReflectionConverter;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+
+/**
+ * The differences between two {@link Database}s, for example from two game patches.
+ * <p>
+ * Entities are matched by their MWO ID (by name for environments, by chassis ID for stock loadouts and by key for
+ * modifier descriptions). Each entity is flattened into property paths the same way it is written to the database
+ * file, for example <code>coolDown@value</code> or <code>rangeProfile/nodes/rangenode[1]/start@value</code>, and the
+ * paths are compared. References to other entities are compared by ID only, so a changed item shows up on the item and
+ * not on every chassis that has it as a fixed item.
+ * <p>
+ * The diff can tell which {@link Loadout}s may have different metrics between the two databases, see
+ * {@link #affects(Loadout)}.
+ *
+ * @author Emily Björk
+ */
+public class DatabaseDiff {
+    /**
+     * The kinds of entities in a {@link Database}.
+     */
+    public static enum Category {
+        CHASSIS, CONSUMABLE, ENVIRONMENT, ITEM, MODIFIER, OMNIPOD, STOCK_LOADOUT, UPGRADE
+    }
+
+    /**
+     * A changed property of an entity.
+     *
+     * @author Emily Björk
+     */
+    public static class Change {
+        /** The path of the property in the entity. */
+        public final String path;
+        /** The old value, or <code>null</code> if the property was added. */
+        public final String before;
+        /** The new value, or <code>null</code> if the property was removed. */
+        public final String after;
+
+        Change(String aPath, String aBefore, String aAfter) {
+            path = aPath;
+            before = aBefore;
+            after = aAfter;
+        }
+
+        @Override
+        public String toString() {
+            return path + ": " + before + " -> " + after;
+        }
+    }
+
+    /**
+     * The difference of one entity between the two databases.
+     *
+     * @author Emily Björk
+     */
+    public static class EntityDelta {
+        /** What kind of entity this is. */
+        public final Category category;
+        /** The key that the entity was matched by. For {@link MwoObject}s this is the MWO ID. */
+        public final String key;
+        /** How the entity changed. */
+        public final Kind kind;
+        /** The changed properties, empty unless <code>kind</code> is {@link Kind#CHANGED}. */
+        public final List<Change> changes;
+
+        EntityDelta(Category aCategory, String aKey, Kind aKind, List<Change> aChanges) {
+            category = aCategory;
+            key = aKey;
+            kind = aKind;
+            changes = Collections.unmodifiableList(aChanges);
+        }
+
+        @Override
+        public String toString() {
+            return category + " " + key + " " + kind + (changes.isEmpty() ? "" : " " + changes);
+        }
+    }
+
+    /**
+     * How an entity differs between the two databases.
+     */
+    public static enum Kind {
+        ADDED, CHANGED, REMOVED
+    }
+
+    /**
+     * Writes {@link MwoObject}s as their ID, except for the root object that is being flattened.
+     */
+    private static class ReferenceConverter implements Converter {
+        private final ReflectionConverter reflectionConverter;
+        private Object root;
+
+        ReferenceConverter(ReflectionConverter aReflectionConverter) {
+            reflectionConverter = aReflectionConverter;
+        }
+
+        @Override
+        public boolean canConvert(@SuppressWarnings("rawtypes") Class aType) {
+            return MwoObject.class.isAssignableFrom(aType);
+        }
+
+        @Override
+        public void marshal(Object aSource, HierarchicalStreamWriter aWriter, MarshallingContext aContext) {
+            if (aSource == root) {
+                reflectionConverter.marshal(aSource, aWriter, aContext);
+            }
+            else {
+                aWriter.addAttribute("id", Integer.toString(((MwoObject) aSource).getId()));
+            }
+        }
+
+        @Override
+        public Object unmarshal(HierarchicalStreamReader aReader, UnmarshallingContext aContext) {
+            throw new UnsupportedOperationException("Only used for writing!");
+        }
+    }
+
+    /**
+     * A {@link HierarchicalStreamWriter} that records the values of all nodes and attributes by path. Repeated child
+     * nodes with the same name are numbered from the second one.
+     */
+    private static class FlatteningWriter implements HierarchicalStreamWriter {
+        final Map<String, String> values = new LinkedHashMap<>();
+        private final Deque<String> paths = new ArrayDeque<>();
+        private final Deque<Map<String, Integer>> siblings = new ArrayDeque<>();
+
+        FlatteningWriter() {
+            siblings.push(new HashMap<>());
+        }
+
+        @Override
+        public void addAttribute(String aName, String aValue) {
+            values.put(currentPath() + "@" + aName, aValue);
+        }
+
+        @Override
+        public void close() {
+            // No-op
+        }
+
+        @Override
+        public void endNode() {
+            paths.pop();
+            siblings.pop();
+        }
+
+        @Override
+        public void flush() {
+            // No-op
+        }
+
+        @Override
+        public void setValue(String aText) {
+            values.put(currentPath(), aText);
+        }
+
+        @Override
+        public void startNode(String aName) {
+            final int index = siblings.peek().merge(aName, 1, Integer::sum) - 1;
+            final String node = index == 0 ? aName : aName + "[" + index + "]";
+            // The root node is the entity itself and isn't part of the paths.
+            paths.push(paths.isEmpty() ? "" : currentPath().isEmpty() ? node : currentPath() + "/" + node);
+            siblings.push(new HashMap<>());
+        }
+
+        @Override
+        public HierarchicalStreamWriter underlyingWriter() {
+            return this;
+        }
+
+        private String currentPath() {
+            return paths.peek();
+        }
+    }
+
+    /**
+     * Computes the differences between two databases.
+     *
+     * @param aOld
+     *            The old {@link Database}.
+     * @param aNew
+     *            The new {@link Database}.
+     * @return A new {@link DatabaseDiff}.
+     */
+    public static DatabaseDiff compute(Database aOld, Database aNew) {
+        final XStream xstream = Database.makeDatabaseXStream();
+        xstream.setMode(XStream.NO_REFERENCES);
+        xstream.alias("rangenode", WeaponRangeProfile.RangeNode.class);
+        final ReferenceConverter references = new ReferenceConverter(
+                new ReflectionConverter(xstream.getMapper(), xstream.getReflectionProvider()));
+        xstream.registerConverter(references, XStream.PRIORITY_VERY_HIGH);
+
+        final Function<Object, Map<String, String>> flattener = aEntity -> {
+            final FlatteningWriter writer = new FlatteningWriter();
+            references.root = aEntity;
+            xstream.marshal(aEntity, writer);
+            return writer.values;
+        };
+
+        final DatabaseDiff diff = new DatabaseDiff();
+        diff.compare(Category.ITEM, byId(aOld.getItems()), byId(aNew.getItems()), flattener);
+        diff.compare(Category.UPGRADE, byId(aOld.getUpgrades()), byId(aNew.getUpgrades()), flattener);
+        diff.compare(Category.CHASSIS, byId(aOld.getChassis()), byId(aNew.getChassis()), flattener);
+        diff.compare(Category.OMNIPOD, byId(aOld.getOmniPods()), byId(aNew.getOmniPods()), flattener);
+        diff.compare(Category.CONSUMABLE, byId(aOld.getPilotModules()), byId(aNew.getPilotModules()), flattener);
+        diff.compare(Category.STOCK_LOADOUT, byKey(aOld.getStockLoadouts(), s -> Integer.toString(s.getChassisId())),
+                byKey(aNew.getStockLoadouts(), s -> Integer.toString(s.getChassisId())), flattener);
+        diff.compare(Category.ENVIRONMENT, byKey(aOld.getEnvironments(), Environment::getName),
+                byKey(aNew.getEnvironments(), Environment::getName), flattener);
+        diff.compare(Category.MODIFIER, new TreeMap<>(aOld.getModifierDescriptions()),
+                new TreeMap<>(aNew.getModifierDescriptions()), flattener);
+        return diff;
+    }
+
+    private static <T extends MwoObject> Map<String, Object> byId(Collection<T> aEntities) {
+        return byKey(aEntities, e -> Integer.toString(e.getId()));
+    }
+
+    private static <T> Map<String, Object> byKey(Collection<T> aEntities, Function<T, String> aKey) {
+        final Map<String, Object> ans = new LinkedHashMap<>();
+        for (final T entity : aEntities) {
+            ans.put(aKey.apply(entity), entity);
+        }
+        return ans;
+    }
+
+    private final Map<Category, Map<String, EntityDelta>> deltas = new EnumMap<>(Category.class);
+
+    private DatabaseDiff() {
+        for (final Category category : Category.values()) {
+            deltas.put(category, new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Determines if the metrics of a {@link Loadout} can differ between the two databases. This is the case if the
+     * chassis, any omnipod, item, upgrade or consumable of the loadout has changed, or if any of the modifiers that
+     * affect the loadout have a changed description.
+     *
+     * @param aLoadout
+     *            The {@link Loadout} to check.
+     * @return <code>true</code> if the loadout must be re-evaluated.
+     */
+    public boolean affects(Loadout aLoadout) {
+        if (isChanged(Category.CHASSIS, aLoadout.getChassis().getId())) {
+            return true;
+        }
+        if (aLoadout instanceof LoadoutOmniMech) {
+            final LoadoutOmniMech omniMech = (LoadoutOmniMech) aLoadout;
+            for (final Location location : Location.values()) {
+                final OmniPod omniPod = omniMech.getComponent(location).getOmniPod();
+                if (null != omniPod && isChanged(Category.OMNIPOD, omniPod.getId())) {
+                    return true;
+                }
+            }
+        }
+        for (final Item item : aLoadout.items()) {
+            if (isChanged(Category.ITEM, item.getId())) {
+                return true;
+            }
+        }
+        final Upgrades upgrades = aLoadout.getUpgrades();
+        for (final Upgrade upgrade : new Upgrade[] { upgrades.getArmour(), upgrades.getStructure(),
+                upgrades.getHeatSink(), upgrades.getGuidance() }) {
+            if (isChanged(Category.UPGRADE, upgrade.getId())) {
+                return true;
+            }
+        }
+        for (final Consumable consumable : aLoadout.getConsumables()) {
+            if (isChanged(Category.CONSUMABLE, consumable.getId())) {
+                return true;
+            }
+        }
+        if (!deltas.get(Category.MODIFIER).isEmpty()) {
+            final List<Modifier> modifiers = new ArrayList<>(aLoadout.getAllModifiers());
+            modifiers.addAll(aLoadout.getQuirks());
+            for (final Modifier modifier : modifiers) {
+                final String key = modifier.getDescription().getKey();
+                if (null != key && isChanged(Category.MODIFIER, key)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds all the loadouts in a garage whose metrics can differ between the two databases, see
+     * {@link #affects(Loadout)}.
+     *
+     * @param aRoot
+     *            The garage directory to search, including sub directories.
+     * @return A {@link List} of affected {@link Loadout}s in depth first order.
+     */
+    public List<Loadout> findAffected(GarageDirectory<Loadout> aRoot) {
+        final List<Loadout> ans = new ArrayList<>();
+        findAffected(aRoot, ans);
+        return ans;
+    }
+
+    /**
+     * @return All the {@link EntityDelta}s, grouped by {@link Category}.
+     */
+    public List<EntityDelta> getDeltas() {
+        final List<EntityDelta> ans = new ArrayList<>();
+        for (final Map<String, EntityDelta> category : deltas.values()) {
+            ans.addAll(category.values());
+        }
+        return ans;
+    }
+
+    /**
+     * @param aCategory
+     *            The {@link Category} to get the deltas of.
+     * @return The {@link EntityDelta}s of the given category.
+     */
+    public List<EntityDelta> getDeltas(Category aCategory) {
+        return new ArrayList<>(deltas.get(aCategory).values());
+    }
+
+    /**
+     * @param aCategory
+     *            The {@link Category} of the entity.
+     * @param aId
+     *            The MWO ID of the entity.
+     * @return The {@link EntityDelta} of the entity or <code>null</code> if it hasn't changed.
+     */
+    public EntityDelta getDelta(Category aCategory, int aId) {
+        return getDelta(aCategory, Integer.toString(aId));
+    }
+
+    /**
+     * @param aCategory
+     *            The {@link Category} of the entity.
+     * @param aKey
+     *            The key of the entity, see {@link EntityDelta#key}.
+     * @return The {@link EntityDelta} of the entity or <code>null</code> if it hasn't changed.
+     */
+    public EntityDelta getDelta(Category aCategory, String aKey) {
+        return deltas.get(aCategory).get(aKey);
+    }
+
+    /**
+     * @param aCategory
+     *            The {@link Category} of the entity.
+     * @param aId
+     *            The MWO ID of the entity.
+     * @return <code>true</code> if the entity was added, removed or changed.
+     */
+    public boolean isChanged(Category aCategory, int aId) {
+        return null != getDelta(aCategory, aId);
+    }
+
+    /**
+     * @param aCategory
+     *            The {@link Category} of the entity.
+     * @param aKey
+     *            The key of the entity, see {@link EntityDelta#key}.
+     * @return <code>true</code> if the entity was added, removed or changed.
+     */
+    public boolean isChanged(Category aCategory, String aKey) {
+        return null != getDelta(aCategory, aKey);
+    }
+
+    /**
+     * @return <code>true</code> if the databases have the same contents.
+     */
+    public boolean isEmpty() {
+        return deltas.values().stream().allMatch(Map::isEmpty);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (final EntityDelta delta : getDeltas()) {
+            sb.append(delta).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    private void compare(Category aCategory, Map<String, Object> aOld, Map<String, Object> aNew,
+            Function<Object, Map<String, String>> aFlattener) {
+        final Map<String, EntityDelta> ans = deltas.get(aCategory);
+        for (final Map.Entry<String, Object> entry : aNew.entrySet()) {
+            final Object oldEntity = aOld.get(entry.getKey());
+            if (null == oldEntity) {
+                ans.put(entry.getKey(), new EntityDelta(aCategory, entry.getKey(), Kind.ADDED, new ArrayList<>()));
+                continue;
+            }
+
+            final Map<String, String> before = aFlattener.apply(oldEntity);
+            final Map<String, String> after = aFlattener.apply(entry.getValue());
+            final List<Change> changes = new ArrayList<>();
+            for (final Map.Entry<String, String> property : after.entrySet()) {
+                final String oldValue = before.get(property.getKey());
+                if (!Objects.equals(oldValue, property.getValue())) {
+                    changes.add(new Change(property.getKey(), oldValue, property.getValue()));
+                }
+            }
+            for (final Map.Entry<String, String> property : before.entrySet()) {
+                if (!after.containsKey(property.getKey())) {
+                    changes.add(new Change(property.getKey(), property.getValue(), null));
+                }
+            }
+            if (!changes.isEmpty()) {
+                ans.put(entry.getKey(), new EntityDelta(aCategory, entry.getKey(), Kind.CHANGED, changes));
+            }
+        }
+        for (final String key : aOld.keySet()) {
+            if (!aNew.containsKey(key)) {
+                ans.put(key, new EntityDelta(aCategory, key, Kind.REMOVED, new ArrayList<>()));
+            }
+        }
+    }
+
+    private void findAffected(GarageDirectory<Loadout> aDirectory, List<Loadout> aOutput) {
+        for (final Loadout loadout : aDirectory.getValues()) {
+            if (affects(loadout)) {
+                aOutput.add(loadout);
+            }
+        }
+        for (final GarageDirectory<Loadout> child : aDirectory.getDirectories()) {
+            findAffected(child, aOutput);
+        }
+    }
+}
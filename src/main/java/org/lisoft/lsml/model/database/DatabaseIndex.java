@@ -0,0 +1,565 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.lisoft.lsml.model.NoSuchItemException;
+import org.lisoft.lsml.model.chassi.Chassis;
+import org.lisoft.lsml.model.chassi.ChassisClass;
+import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.chassi.OmniPod;
+import org.lisoft.lsml.model.environment.Environment;
+import org.lisoft.lsml.model.item.Consumable;
+import org.lisoft.lsml.model.item.ConsumableType;
+import org.lisoft.lsml.model.item.Item;
+import org.lisoft.lsml.model.loadout.StockLoadout;
+import org.lisoft.lsml.model.loadout.StockLoadout.StockComponent;
+import org.lisoft.lsml.model.modifiers.ModifierDescription;
+import org.lisoft.lsml.model.upgrades.Upgrade;
+
+/**
+ * An immutable index of the contents of one {@link Database}.
+ * <p>
+ * Everything that can be looked up is computed once when the index is created: objects by MWO ID are kept in sorted
+ * primitive <code>int</code> arrays, and items by class, chassis by class and omnipods by series and location are
+ * kept in precomputed lists. None of the lookups allocate. The lists returned are unmodifiable.
+ * <p>
+ * Use {@link Database#getIndex()} to get the index of a database, the index holds no global state so indices of
+ * different databases can be used side by side.
+ *
+ * @author Emily Björk
+ */
+public class DatabaseIndex {
+    /**
+     * A map from MWO ID to object that doesn't box its keys.
+     *
+     * @author Emily Björk
+     */
+    private static class IdMap<T> {
+        private final int[] ids;
+        private final Object[] values;
+
+        IdMap(Map<Integer, T> aMap) {
+            final int[] sortedIds = new int[aMap.size()];
+            int i = 0;
+            for (final Integer id : aMap.keySet()) {
+                sortedIds[i++] = id;
+            }
+            Arrays.sort(sortedIds);
+            ids = sortedIds;
+            values = new Object[ids.length];
+            for (i = 0; i < ids.length; ++i) {
+                values[i] = aMap.get(ids[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int aId) {
+            final int index = Arrays.binarySearch(ids, aId);
+            return index >= 0 ? (T) values[index] : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> values() {
+            return Collections.unmodifiableList(Arrays.asList((T[]) values));
+        }
+    }
+
+    private final IdMap<Item> id2item;
+    private final Map<String, Item> locname2item = new HashMap<>();
+    private final Map<String, Item> mwoname2item = new HashMap<>();
+    private final Map<Class<?>, List<Item>> class2items;
+
+    private final IdMap<Chassis> id2chassis;
+    private final Map<String, Chassis> name2chassis = new HashMap<>();
+    private final Map<String, List<Chassis>> series2chassis;
+    private final IdMap<List<Chassis>> id2variations;
+    private final Map<ChassisClass, List<Chassis>> class2chassis;
+
+    private final IdMap<OmniPod> id2pod;
+    private final Map<String, Map<Location, List<OmniPod>>> series2pods;
+    private final Map<String, OmniPod> chassisLocation2stockPod = new HashMap<>();
+
+    private final IdMap<Upgrade> id2upgrade;
+
+    private final IdMap<Consumable> id2consumable;
+    private final Map<String, Consumable> name2consumable = new HashMap<>();
+    private final Map<ConsumableType, List<Consumable>> type2consumables;
+    private final Map<Class<?>, List<Consumable>> class2consumables;
+
+    private final IdMap<StockLoadout> chassisId2stock;
+
+    private final List<Environment> environments;
+    private final Map<String, Environment> name2environment = new HashMap<>();
+
+    private final Map<String, ModifierDescription> key2modifier = new HashMap<>();
+
+    /**
+     * Creates a new index of the given database.
+     *
+     * @param aDatabase
+     *            The {@link Database} to index.
+     */
+    public DatabaseIndex(Database aDatabase) {
+        final Map<Integer, Item> items = new HashMap<>();
+        for (final Item item : aDatabase.getItems()) {
+            mwoname2item.put(canonize(item.getKey()), item);
+            locname2item.put(canonize(item.getName()), item);
+            locname2item.put(canonize(item.getShortName()), item);
+            if (item.getId() >= 0) {
+                items.put(item.getId(), item);
+            }
+        }
+        id2item = new IdMap<>(items);
+        class2items = groupByClass(id2item.values());
+
+        final Map<Integer, Chassis> chassis = new HashMap<>();
+        final Map<String, List<Chassis>> series = new HashMap<>();
+        final Map<Integer, List<Chassis>> variations = new HashMap<>();
+        final Map<ChassisClass, List<Chassis>> chassisClasses = new EnumMap<>(ChassisClass.class);
+        for (final Chassis c : aDatabase.getChassis()) {
+            name2chassis.put(canonizeChassis(c.getShortName()), c);
+            name2chassis.put(canonizeChassis(c.getName()), c);
+            chassis.put(c.getId(), c);
+            series.computeIfAbsent(c.getSeriesName(), k -> new ArrayList<>()).add(c);
+
+            final int baseId = c.getBaseVariantId() < 0 ? c.getId() : c.getBaseVariantId();
+            final List<Chassis> variationList = variations.computeIfAbsent(baseId, k -> new ArrayList<>());
+            if (baseId != c.getId()) {
+                variations.put(c.getId(), variationList);
+            }
+            variationList.add(c);
+        }
+        id2chassis = new IdMap<>(chassis);
+        for (final Chassis c : id2chassis.values()) {
+            chassisClasses.computeIfAbsent(c.getChassisClass(), k -> new ArrayList<>()).add(c);
+        }
+        series2chassis = unmodifiableValues(series);
+        id2variations = new IdMap<>(unmodifiableValues(variations));
+        class2chassis = unmodifiableValues(chassisClasses);
+
+        final Map<Integer, OmniPod> pods = new HashMap<>();
+        final Map<String, Map<Location, List<OmniPod>>> podsBySeries = new HashMap<>();
+        for (final OmniPod pod : aDatabase.getOmniPods()) {
+            pods.put(pod.getId(), pod);
+            podsBySeries.computeIfAbsent(canonizeSeries(pod.getChassisSeries()), k -> new EnumMap<>(Location.class))
+                    .computeIfAbsent(pod.getLocation(), k -> new ArrayList<>()).add(pod);
+        }
+        id2pod = new IdMap<>(pods);
+        for (final Map.Entry<String, Map<Location, List<OmniPod>>> entry : podsBySeries.entrySet()) {
+            entry.setValue(unmodifiableValues(entry.getValue()));
+        }
+        series2pods = podsBySeries;
+
+        final Map<Integer, Upgrade> upgrades = new HashMap<>();
+        for (final Upgrade upgrade : aDatabase.getUpgrades()) {
+            upgrades.put(upgrade.getId(), upgrade);
+        }
+        id2upgrade = new IdMap<>(upgrades);
+
+        final Map<Integer, Consumable> consumables = new HashMap<>();
+        for (final Consumable consumable : aDatabase.getPilotModules()) {
+            consumables.put(consumable.getId(), consumable);
+            name2consumable.put(consumable.getName(), consumable);
+        }
+        id2consumable = new IdMap<>(consumables);
+        final Map<ConsumableType, List<Consumable>> consumableTypes = new EnumMap<>(ConsumableType.class);
+        for (final Consumable consumable : id2consumable.values()) {
+            consumableTypes.computeIfAbsent(consumable.getType(), k -> new ArrayList<>()).add(consumable);
+        }
+        type2consumables = unmodifiableValues(consumableTypes);
+        class2consumables = groupByClass(id2consumable.values());
+
+        final Map<Integer, StockLoadout> stocks = new LinkedHashMap<>();
+        for (final StockLoadout stock : aDatabase.getStockLoadouts()) {
+            stocks.put(stock.getChassisId(), stock);
+            final Chassis stockChassis = id2chassis.get(stock.getChassisId());
+            if (null == stockChassis) {
+                continue;
+            }
+            for (final StockComponent component : stock.getComponents()) {
+                component.getOmniPod().ifPresent(pod -> chassisLocation2stockPod
+                        .put(chassisLocationOf(stockChassis, component.getLocation()), id2pod.get(pod)));
+            }
+        }
+        chassisId2stock = new IdMap<>(stocks);
+
+        final List<Environment> allEnvironments = new ArrayList<>(aDatabase.getEnvironments());
+        allEnvironments.add(Environment.NEUTRAL);
+        for (final Environment environment : allEnvironments) {
+            name2environment.putIfAbsent(canonize(environment.getName()), environment);
+        }
+        environments = Collections.unmodifiableList(allEnvironments);
+
+        for (final ModifierDescription description : aDatabase.getModifierDescriptions().values()) {
+            key2modifier.put(canonize(description.getKey()), description);
+        }
+    }
+
+    /**
+     * @return All {@link Chassis} in the database.
+     */
+    public List<Chassis> allChassis() {
+        return id2chassis.values();
+    }
+
+    /**
+     * @return All {@link Environment}s in the database, including {@link Environment#NEUTRAL}.
+     */
+    public List<Environment> allEnvironments() {
+        return environments;
+    }
+
+    /**
+     * @return All {@link OmniPod}s in the database.
+     */
+    public List<OmniPod> allOmniPods() {
+        return id2pod.values();
+    }
+
+    /**
+     * @return All {@link StockLoadout}s in the database.
+     */
+    public List<StockLoadout> allStockLoadouts() {
+        return chassisId2stock.values();
+    }
+
+    /**
+     * @return All {@link Upgrade}s in the database.
+     */
+    public List<Upgrade> allUpgrades() {
+        return id2upgrade.values();
+    }
+
+    /**
+     * @param aChassisClass
+     *            The {@link ChassisClass} to look up.
+     * @return All {@link Chassis} of the given class.
+     */
+    public List<Chassis> lookupChassis(ChassisClass aChassisClass) {
+        return class2chassis.getOrDefault(aChassisClass, Collections.emptyList());
+    }
+
+    /**
+     * @param aId
+     *            The MWO ID of the chassis to look up.
+     * @return The {@link Chassis} with the given ID.
+     * @throws NoSuchItemException
+     *             if no chassis exists by that ID.
+     */
+    public Chassis lookupChassis(int aId) throws NoSuchItemException {
+        final Chassis chassis = id2chassis.get(aId);
+        if (null == chassis) {
+            throw new NoSuchItemException("No chassis by ID: " + aId);
+        }
+        return chassis;
+    }
+
+    /**
+     * @param aName
+     *            A name such as "AS7-D-DC" or "DAISHI PRIME", case insensitive.
+     * @return The {@link Chassis} with the given name.
+     * @throws IllegalArgumentException
+     *             if no chassis exists by that name.
+     */
+    public Chassis lookupChassis(String aName) {
+        final Chassis chassis = name2chassis.get(canonizeChassis(aName));
+        if (null == chassis) {
+            throw new IllegalArgumentException("No chassi variation named: " + aName + " !");
+        }
+        return chassis;
+    }
+
+    /**
+     * @param aId
+     *            The MWO ID of the consumable to look up.
+     * @return The {@link Consumable} with the given ID.
+     * @throws NoSuchItemException
+     *             if no consumable exists by that ID.
+     */
+    public Consumable lookupConsumable(int aId) throws NoSuchItemException {
+        final Consumable consumable = id2consumable.get(aId);
+        if (null == consumable) {
+            throw new NoSuchItemException("No module found with ID: " + aId);
+        }
+        return consumable;
+    }
+
+    /**
+     * @param aName
+     *            The name of the consumable to look up.
+     * @return The {@link Consumable} with the given name.
+     * @throws NoSuchItemException
+     *             if no consumable exists by that name.
+     */
+    public Consumable lookupConsumable(String aName) throws NoSuchItemException {
+        final Consumable consumable = name2consumable.get(aName);
+        if (null == consumable) {
+            throw new NoSuchItemException("No module by name: " + aName);
+        }
+        return consumable;
+    }
+
+    /**
+     * @param aClass
+     *            The class of consumables to look up.
+     * @return All {@link Consumable}s that are instances of the given class.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Consumable> List<T> lookupConsumables(Class<T> aClass) {
+        return (List<T>) class2consumables.getOrDefault(aClass, Collections.emptyList());
+    }
+
+    /**
+     * @param aType
+     *            The {@link ConsumableType} to look up.
+     * @return All {@link Consumable}s of the given type.
+     */
+    public List<Consumable> lookupConsumables(ConsumableType aType) {
+        return type2consumables.getOrDefault(aType, Collections.emptyList());
+    }
+
+    /**
+     * @param aName
+     *            The name of the environment to look up, case insensitive.
+     * @return The {@link Environment} with the given name.
+     * @throws NoSuchItemException
+     *             if no environment exists by that name.
+     */
+    public Environment lookupEnvironment(String aName) throws NoSuchItemException {
+        final Environment environment = name2environment.get(canonize(aName));
+        if (null == environment) {
+            throw new NoSuchItemException("No environmet by the name: " + aName);
+        }
+        return environment;
+    }
+
+    /**
+     * @param aId
+     *            The MWO ID of the item to look up.
+     * @return The {@link Item} with the given ID.
+     * @throws NoSuchItemException
+     *             if no item exists by that ID.
+     */
+    public Item lookupItem(int aId) throws NoSuchItemException {
+        final Item item = id2item.get(aId);
+        if (null == item) {
+            throw new NoSuchItemException("No item with ID: " + aId);
+        }
+        return item;
+    }
+
+    /**
+     * @param aName
+     *            The name, short name or MWO key of the item to look up, case insensitive.
+     * @return The {@link Item} with the given name.
+     * @throws NoSuchItemException
+     *             if no item exists by that name.
+     */
+    public Item lookupItem(String aName) throws NoSuchItemException {
+        final String key = canonize(aName);
+        Item item = locname2item.get(key);
+        if (null == item) {
+            item = mwoname2item.get(key);
+            if (null == item) {
+                throw new NoSuchItemException("No item with name:" + aName);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * @param aClass
+     *            The class of items to look up.
+     * @return All {@link Item}s that are instances of the given class, ordered by ID.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Item> List<T> lookupItems(Class<T> aClass) {
+        return (List<T>) class2items.getOrDefault(aClass, Collections.emptyList());
+    }
+
+    /**
+     * @param aKey
+     *            The MWO key of the modifier, case insensitive.
+     * @return The {@link ModifierDescription} with the given key.
+     * @throws NoSuchItemException
+     *             if no modifier exists by that key.
+     */
+    public ModifierDescription lookupModifier(String aKey) throws NoSuchItemException {
+        final ModifierDescription description = key2modifier.get(canonize(aKey));
+        if (null == description) {
+            throw new NoSuchItemException("Unknown key!");
+        }
+        return description;
+    }
+
+    /**
+     * @param aId
+     *            The MWO ID of the omnipod to look up.
+     * @return The {@link OmniPod} with the given ID.
+     * @throws NoSuchItemException
+     *             if no omnipod exists by that ID.
+     */
+    public OmniPod lookupOmniPod(int aId) throws NoSuchItemException {
+        final OmniPod pod = id2pod.get(aId);
+        if (null == pod) {
+            throw new NoSuchItemException("No omnipod with ID: " + aId);
+        }
+        return pod;
+    }
+
+    /**
+     * @param aSeries
+     *            The chassis series to get the omnipods for, case insensitive.
+     * @param aLocation
+     *            The {@link Location} to get the omnipods for.
+     * @return All {@link OmniPod}s that fit the given series and location.
+     */
+    public List<OmniPod> lookupOmniPods(String aSeries, Location aLocation) {
+        final Map<Location, List<OmniPod>> pods = series2pods.get(canonizeSeries(aSeries));
+        if (null == pods) {
+            return Collections.emptyList();
+        }
+        return pods.getOrDefault(aLocation, Collections.emptyList());
+    }
+
+    /**
+     * @param aSeries
+     *            The name of a chassis series, case insensitive. For example "Cataphract".
+     * @return All {@link Chassis} in the series.
+     * @throws IllegalArgumentException
+     *             if there is no such series.
+     */
+    public List<Chassis> lookupSeries(String aSeries) {
+        final List<Chassis> chassis = series2chassis.get(canonizeChassis(aSeries));
+        if (null == chassis) {
+            throw new IllegalArgumentException("No chassi variation by that name!");
+        }
+        return chassis;
+    }
+
+    /**
+     * @param aChassis
+     *            The chassis to get the stock loadout for.
+     * @return The {@link StockLoadout} of the given chassis.
+     * @throws NoSuchItemException
+     *             if the chassis has no stock loadout.
+     */
+    public StockLoadout lookupStockLoadout(Chassis aChassis) throws NoSuchItemException {
+        final StockLoadout stock = chassisId2stock.get(aChassis.getId());
+        if (null == stock) {
+            throw new NoSuchItemException("No stock loadouts found for: " + aChassis);
+        }
+        return stock;
+    }
+
+    /**
+     * @param aChassis
+     *            An omnimech chassis.
+     * @param aLocation
+     *            The {@link Location} to get the stock omnipod for.
+     * @return The {@link OmniPod} that the given chassis has in the given location in its stock loadout.
+     */
+    public Optional<OmniPod> lookupStockOmniPod(Chassis aChassis, Location aLocation) {
+        return Optional.ofNullable(chassisLocation2stockPod.get(chassisLocationOf(aChassis, aLocation)));
+    }
+
+    /**
+     * @param aId
+     *            The MWO ID of the upgrade to look up.
+     * @return The {@link Upgrade} with the given ID.
+     * @throws NoSuchItemException
+     *             if no upgrade exists by that ID.
+     */
+    public Upgrade lookupUpgrade(int aId) throws NoSuchItemException {
+        final Upgrade upgrade = id2upgrade.get(aId);
+        if (null == upgrade) {
+            throw new NoSuchItemException("The ID: " + aId + " is not a valid MWO upgrade ID!");
+        }
+        return upgrade;
+    }
+
+    /**
+     * @param aChassis
+     *            A {@link Chassis} to get the variations of.
+     * @return All variations (normal, champion, phoenix etc) of the given chassis, or <code>null</code> if the
+     *         chassis isn't in the database.
+     */
+    public List<Chassis> lookupVariations(Chassis aChassis) {
+        return id2variations.get(aChassis.getId());
+    }
+
+    private static <T> Map<Class<?>, List<T>> groupByClass(List<T> aObjects) {
+        final Map<Class<?>, List<T>> ans = new HashMap<>();
+        for (final T object : aObjects) {
+            for (final Class<?> clazz : typesOf(object.getClass())) {
+                ans.computeIfAbsent(clazz, k -> new ArrayList<>()).add(object);
+            }
+        }
+        return unmodifiableValues(ans);
+    }
+
+    private static List<Class<?>> typesOf(Class<?> aClass) {
+        final List<Class<?>> ans = new ArrayList<>();
+        final List<Class<?>> open = new ArrayList<>();
+        open.add(aClass);
+        while (!open.isEmpty()) {
+            final Class<?> clazz = open.remove(open.size() - 1);
+            if (null != clazz && !ans.contains(clazz)) {
+                ans.add(clazz);
+                open.add(clazz.getSuperclass());
+                open.addAll(Arrays.asList(clazz.getInterfaces()));
+            }
+        }
+        return ans;
+    }
+
+    private static <K, T> Map<K, List<T>> unmodifiableValues(Map<K, List<T>> aMap) {
+        for (final Map.Entry<K, List<T>> entry : aMap.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return aMap;
+    }
+
+    private static String canonize(String aName) {
+        return aName.toLowerCase();
+    }
+
+    private static String canonizeChassis(String aName) {
+        return aName.toLowerCase().trim();
+    }
+
+    private static String canonizeSeries(String aSeries) {
+        return aSeries.toUpperCase();
+    }
+
+    private static String chassisLocationOf(Chassis aChassis, Location aLocation) {
+        return aChassis.getKey() + aLocation.shortName();
+    }
+}
@@ -0,0 +1,1071 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.lisoft.lsml.model.chassi.Chassis;
+import org.lisoft.lsml.model.chassi.HardPoint;
+import org.lisoft.lsml.model.chassi.HardPointType;
+import org.lisoft.lsml.model.chassi.OmniPod;
+import org.lisoft.lsml.model.item.Item;
+import org.lisoft.lsml.model.loadout.StockLoadout;
+import org.lisoft.lsml.model.modifiers.Attribute;
+import org.lisoft.lsml.model.modifiers.ModifierDescription;
+import org.lisoft.lsml.model.modifiers.ModifierType;
+import org.lisoft.lsml.model.modifiers.Operation;
+import org.lisoft.lsml.model.upgrades.Upgrade;
+import org.lisoft.lsml.view_fx.LiSongMechLab;
+
+import com.thoughtworks.xstream.converters.reflection.FieldDictionary;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+import com.thoughtworks.xstream.core.JVM;
+
+/**
+ * A compact, versioned binary snapshot of a {@link Database}.
+ * <p>
+ * The XML format produced by {@link Database#makeDatabaseXStream()} is the import/export format of the database but it
+ * is slow to parse and creates a lot of garbage. A snapshot stores the same object graph as a string table, a class
+ * table with field layouts and an ID indexed object table. The snapshot can be memory mapped from disk and objects are
+ * decoded on demand the first time they are reached, so for example the LSML version can be checked without decoding
+ * anything else.
+ * <p>
+ * {@link Attribute}s, {@link ModifierDescription}s and {@link HardPoint}s are stored by value and re-created through
+ * their constructors, just like the XStream converters do. All other objects are stored field by field using the same
+ * reflection provider as XStream.
+ *
+ * @author Emily Björk
+ */
+public class DatabaseSnapshot {
+    /**
+     * The file extension used for snapshot files.
+     */
+    public static final String FILE_EXTENSION = ".bin";
+
+    /**
+     * Bump this whenever the binary layout changes. Snapshots with a different format version are rejected.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x4C534D4C; // "LSML"
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_REF = 1;
+    private static final byte TAG_STRING = 2;
+    private static final byte TAG_ENUM = 3;
+    private static final byte TAG_INT = 4;
+    private static final byte TAG_LONG = 5;
+    private static final byte TAG_DOUBLE = 6;
+    private static final byte TAG_FLOAT = 7;
+    private static final byte TAG_BOOLEAN = 8;
+    private static final byte TAG_SHORT = 9;
+    private static final byte TAG_BYTE = 10;
+    private static final byte TAG_CHAR = 11;
+
+    private static final byte KIND_OBJECT = 0;
+    private static final byte KIND_ENUM = 1;
+    private static final byte KIND_COLLECTION = 2;
+    private static final byte KIND_MAP = 3;
+    private static final byte KIND_ARRAY = 4;
+    private static final byte KIND_ATTRIBUTE = 5;
+    private static final byte KIND_MODIFIER_DESCRIPTION = 6;
+    private static final byte KIND_HARDPOINT = 7;
+
+    private static final byte WRAP_NONE = 0;
+    private static final byte WRAP_COLLECTION = 1;
+    private static final byte WRAP_LIST = 2;
+    private static final byte WRAP_SET = 3;
+    private static final byte WRAP_SORTED_SET = 4;
+    private static final byte WRAP_MAP = 5;
+    private static final byte WRAP_SORTED_MAP = 6;
+
+    private static final Set<Class<?>> MUTABLE_CONTAINERS = new HashSet<>(
+            Arrays.asList(ArrayList.class, LinkedList.class, HashSet.class, LinkedHashSet.class, TreeSet.class,
+                    HashMap.class, LinkedHashMap.class, TreeMap.class));
+
+    private static final Set<String> ALLOWED_JDK_CLASSES = new HashSet<>(
+            Arrays.asList("java.lang.String", "java.lang.Integer", "java.lang.Long", "java.lang.Double",
+                    "java.lang.Float", "java.lang.Boolean", "java.lang.Short", "java.lang.Byte", "java.lang.Character",
+                    "java.lang.Object"));
+
+    /**
+     * Converts a database XML file into a snapshot. Used by the build to produce the bundled snapshot.
+     *
+     * @param aArgs
+     *            The input XML file, the output snapshot file and optionally the version to stamp into the database
+     *            instead of the development version.
+     * @throws Exception
+     *             if the conversion failed.
+     */
+    public static void main(String[] aArgs) throws Exception {
+        if (aArgs.length < 2) {
+            System.err.println("Usage: DatabaseSnapshot <database.xml> <database.bin> [version]");
+            System.exit(1);
+        }
+        String xml = new String(Files.readAllBytes(new File(aArgs[0]).toPath()), StandardCharsets.UTF_8);
+        if (aArgs.length > 2) {
+            xml = xml.replace(LiSongMechLab.DEVELOP_VERSION, aArgs[2]);
+        }
+        final Database database = (Database) Database.makeDatabaseXStream().fromXML(xml);
+        try (OutputStream os = Files.newOutputStream(new File(aArgs[1]).toPath())) {
+            write(database, os);
+        }
+    }
+
+    /**
+     * Memory maps a snapshot file. Nothing but the header is decoded until requested.
+     *
+     * @param aPath
+     *            The {@link Path} to the snapshot.
+     * @return A {@link DatabaseSnapshot}.
+     * @throws IOException
+     *             if the file couldn't be read or isn't a valid snapshot.
+     */
+    public static DatabaseSnapshot open(Path aPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(aPath, StandardOpenOption.READ)) {
+            return new DatabaseSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a snapshot from a stream into memory, for when the snapshot can't be mapped (for example a bundled
+     * resource).
+     *
+     * @param aInputStream
+     *            The {@link InputStream} to read the snapshot from.
+     * @return A {@link DatabaseSnapshot}.
+     * @throws IOException
+     *             if the stream couldn't be read or doesn't contain a valid snapshot.
+     */
+    public static DatabaseSnapshot read(InputStream aInputStream) throws IOException {
+        return new DatabaseSnapshot(ByteBuffer.wrap(aInputStream.readAllBytes()));
+    }
+
+    /**
+     * Writes a snapshot of the given {@link Database} to a stream.
+     *
+     * @param aDatabase
+     *            The {@link Database} to write.
+     * @param aOutputStream
+     *            The {@link OutputStream} to write to.
+     * @throws IOException
+     *             if writing to the stream failed.
+     */
+    public static void write(Database aDatabase, OutputStream aOutputStream) throws IOException {
+        new Writer().write(aDatabase, aOutputStream);
+    }
+
+    private static boolean isAllowed(String aClassName) {
+        String name = aClassName;
+        while (name.startsWith("[")) {
+            name = name.substring(1);
+        }
+        if (name.length() == 1) {
+            return true; // Primitive array component
+        }
+        if (name.startsWith("L") && name.endsWith(";")) {
+            name = name.substring(1, name.length() - 1);
+        }
+        return name.startsWith("org.lisoft.lsml.model.") || ALLOWED_JDK_CLASSES.contains(name)
+                || MUTABLE_CONTAINERS.stream().anyMatch(c -> c.getName().equals(aClassName));
+    }
+
+    private static byte primitiveTag(Class<?> aType) {
+        if (aType == int.class) {
+            return TAG_INT;
+        }
+        else if (aType == long.class) {
+            return TAG_LONG;
+        }
+        else if (aType == double.class) {
+            return TAG_DOUBLE;
+        }
+        else if (aType == float.class) {
+            return TAG_FLOAT;
+        }
+        else if (aType == boolean.class) {
+            return TAG_BOOLEAN;
+        }
+        else if (aType == short.class) {
+            return TAG_SHORT;
+        }
+        else if (aType == byte.class) {
+            return TAG_BYTE;
+        }
+        else if (aType == char.class) {
+            return TAG_CHAR;
+        }
+        return TAG_REF;
+    }
+
+    /**
+     * Describes one entry in the class table.
+     */
+    private static class ClassEntry {
+        final String name;
+        final byte kind;
+        byte wrap = WRAP_NONE;
+        String[] fieldNames;
+        String[] fieldOwners;
+        byte[] fieldTypes;
+
+        // Only used by the writer
+        Field[] fields;
+
+        // Only used by the reader, resolved lazily
+        Class<?> type;
+        Class<?>[] owners;
+
+        ClassEntry(String aName, byte aKind) {
+            name = aName;
+            kind = aKind;
+        }
+    }
+
+    /**
+     * A read position in the snapshot buffer. Absolute reads are used so that nested lazy decoding doesn't disturb
+     * the position of the caller.
+     */
+    private static class Cursor {
+        private final ByteBuffer buffer;
+        private int pos;
+
+        Cursor(ByteBuffer aBuffer, int aPosition) {
+            buffer = aBuffer;
+            pos = aPosition;
+        }
+
+        byte readByte() {
+            return buffer.get(pos++);
+        }
+
+        char readChar() {
+            final char ans = buffer.getChar(pos);
+            pos += Character.BYTES;
+            return ans;
+        }
+
+        double readDouble() {
+            final double ans = buffer.getDouble(pos);
+            pos += Double.BYTES;
+            return ans;
+        }
+
+        float readFloat() {
+            final float ans = buffer.getFloat(pos);
+            pos += Float.BYTES;
+            return ans;
+        }
+
+        int readInt() {
+            final int ans = buffer.getInt(pos);
+            pos += Integer.BYTES;
+            return ans;
+        }
+
+        long readLong() {
+            final long ans = buffer.getLong(pos);
+            pos += Long.BYTES;
+            return ans;
+        }
+
+        short readShort() {
+            final short ans = buffer.getShort(pos);
+            pos += Short.BYTES;
+            return ans;
+        }
+    }
+
+    /**
+     * Encodes a {@link Database} object graph. All objects are given IDs in the order they are first reached from the
+     * root and each object is written exactly once.
+     */
+    private static class Writer {
+        private final FieldDictionary fieldDictionary = new FieldDictionary();
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<Class<?>, Integer> classIds = new HashMap<>();
+        private final List<ClassEntry> classes = new ArrayList<>();
+        private final Map<Object, Integer> objectIds = new IdentityHashMap<>();
+        private final Deque<Object> pending = new ArrayDeque<>();
+        private final List<Integer> offsets = new ArrayList<>();
+        private final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(1 << 20);
+        private final DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        void write(Database aDatabase, OutputStream aOutputStream) throws IOException {
+            final int versionId = intern(aDatabase.getVersion());
+            final int rootId = objectId(aDatabase);
+            while (!pending.isEmpty()) {
+                final Object object = pending.removeFirst();
+                offsets.add(body.size());
+                writeRecord(object);
+            }
+            body.flush();
+
+            // The top level tables of the database become named sections that can be decoded individually.
+            final Map<Integer, Integer> sections = new LinkedHashMap<>();
+            final ClassEntry rootEntry = classes.get(classIds.get(Database.class));
+            for (int i = 0; i < rootEntry.fields.length; ++i) {
+                final Integer id = objectIds.get(get(rootEntry.fields[i], aDatabase));
+                if (id != null) {
+                    sections.put(intern(rootEntry.fieldNames[i]), id);
+                }
+            }
+            for (final ClassEntry entry : classes) {
+                intern(entry.name);
+                if (entry.fieldNames != null) {
+                    for (int i = 0; i < entry.fieldNames.length; ++i) {
+                        intern(entry.fieldNames[i]);
+                        intern(entry.fieldOwners[i]);
+                    }
+                }
+            }
+
+            final DataOutputStream out = new DataOutputStream(aOutputStream);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(versionId);
+
+            final ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+            final DataOutputStream stringData = new DataOutputStream(stringBytes);
+            out.writeInt(strings.size());
+            for (final String string : strings) {
+                out.writeInt(stringData.size());
+                final byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+                stringData.writeInt(utf8.length);
+                stringData.write(utf8);
+            }
+            out.writeInt(stringData.size());
+            stringBytes.writeTo(out);
+
+            out.writeInt(classes.size());
+            for (final ClassEntry entry : classes) {
+                out.writeInt(stringIds.get(entry.name));
+                out.writeByte(entry.kind);
+                out.writeByte(entry.wrap);
+                final int fields = entry.fieldNames == null ? 0 : entry.fieldNames.length;
+                out.writeInt(fields);
+                for (int i = 0; i < fields; ++i) {
+                    out.writeInt(stringIds.get(entry.fieldNames[i]));
+                    out.writeInt(stringIds.get(entry.fieldOwners[i]));
+                    out.writeByte(entry.fieldTypes[i]);
+                }
+            }
+
+            out.writeInt(offsets.size());
+            for (final int offset : offsets) {
+                out.writeInt(offset);
+            }
+            out.writeInt(rootId);
+            out.writeInt(sections.size());
+            for (final Entry<Integer, Integer> section : sections.entrySet()) {
+                out.writeInt(section.getKey());
+                out.writeInt(section.getValue());
+            }
+            out.writeInt(body.size());
+            bodyBytes.writeTo(out);
+            out.flush();
+        }
+
+        private int classId(Class<?> aClass) {
+            final Integer id = classIds.get(aClass);
+            if (id != null) {
+                return id;
+            }
+
+            final ClassEntry entry;
+            if (aClass.isEnum()) {
+                entry = new ClassEntry(aClass.getName(), KIND_ENUM);
+            }
+            else if (aClass.isArray()) {
+                entry = new ClassEntry(aClass.getName(), KIND_ARRAY);
+            }
+            else if (Attribute.class == aClass) {
+                entry = new ClassEntry(aClass.getName(), KIND_ATTRIBUTE);
+            }
+            else if (ModifierDescription.class == aClass) {
+                entry = new ClassEntry(aClass.getName(), KIND_MODIFIER_DESCRIPTION);
+            }
+            else if (HardPoint.class == aClass) {
+                entry = new ClassEntry(aClass.getName(), KIND_HARDPOINT);
+            }
+            else if (Collection.class.isAssignableFrom(aClass) || Map.class.isAssignableFrom(aClass)) {
+                entry = containerEntry(aClass);
+            }
+            else if (aClass.getName().startsWith("org.lisoft.lsml.model.")) {
+                entry = new ClassEntry(aClass.getName(), KIND_OBJECT);
+                final List<Field> fields = new ArrayList<>();
+                final Iterator<?> it = fieldDictionary.fieldsFor(aClass);
+                while (it.hasNext()) {
+                    final Field field = (Field) it.next();
+                    final int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+                entry.fields = fields.toArray(new Field[fields.size()]);
+                entry.fieldNames = new String[fields.size()];
+                entry.fieldOwners = new String[fields.size()];
+                entry.fieldTypes = new byte[fields.size()];
+                for (int i = 0; i < fields.size(); ++i) {
+                    entry.fieldNames[i] = fields.get(i).getName();
+                    entry.fieldOwners[i] = fields.get(i).getDeclaringClass().getName();
+                    entry.fieldTypes[i] = primitiveTag(fields.get(i).getType());
+                }
+            }
+            else {
+                throw new IllegalArgumentException("Type not supported in database snapshots: " + aClass.getName());
+            }
+
+            classIds.put(aClass, classes.size());
+            classes.add(entry);
+            return classes.size() - 1;
+        }
+
+        private ClassEntry containerEntry(Class<?> aClass) {
+            if (MUTABLE_CONTAINERS.contains(aClass)) {
+                final boolean isMap = Map.class.isAssignableFrom(aClass);
+                return new ClassEntry(aClass.getName(), isMap ? KIND_MAP : KIND_COLLECTION);
+            }
+
+            // Unmodifiable views, immutable collections and fixed size lists (Arrays.asList) are rebuilt from a
+            // mutable backing container, re-wrapped when the original was read-only.
+            final String name = aClass.getName();
+            final boolean readOnly = name.contains("Unmodifiable") || name.contains("Immutable")
+                    || name.contains("Empty") || name.contains("Singleton");
+            final ClassEntry entry;
+            if (SortedMap.class.isAssignableFrom(aClass)) {
+                entry = new ClassEntry(TreeMap.class.getName(), KIND_MAP);
+                entry.wrap = WRAP_SORTED_MAP;
+            }
+            else if (Map.class.isAssignableFrom(aClass)) {
+                entry = new ClassEntry(LinkedHashMap.class.getName(), KIND_MAP);
+                entry.wrap = WRAP_MAP;
+            }
+            else if (SortedSet.class.isAssignableFrom(aClass)) {
+                entry = new ClassEntry(TreeSet.class.getName(), KIND_COLLECTION);
+                entry.wrap = WRAP_SORTED_SET;
+            }
+            else if (Set.class.isAssignableFrom(aClass)) {
+                entry = new ClassEntry(LinkedHashSet.class.getName(), KIND_COLLECTION);
+                entry.wrap = WRAP_SET;
+            }
+            else if (List.class.isAssignableFrom(aClass)) {
+                entry = new ClassEntry(ArrayList.class.getName(), KIND_COLLECTION);
+                entry.wrap = WRAP_LIST;
+            }
+            else {
+                entry = new ClassEntry(ArrayList.class.getName(), KIND_COLLECTION);
+                entry.wrap = WRAP_COLLECTION;
+            }
+            if (!readOnly) {
+                entry.wrap = WRAP_NONE;
+            }
+            return entry;
+        }
+
+        private Object get(Field aField, Object aObject) {
+            try {
+                return aField.get(aObject);
+            }
+            catch (final IllegalAccessException e) {
+                throw new IllegalArgumentException("Unable to read field: " + aField, e);
+            }
+        }
+
+        private int intern(String aString) {
+            final Integer id = stringIds.get(aString);
+            if (id != null) {
+                return id;
+            }
+            stringIds.put(aString, strings.size());
+            strings.add(aString);
+            return strings.size() - 1;
+        }
+
+        private int objectId(Object aObject) {
+            final Integer id = objectIds.get(aObject);
+            if (id != null) {
+                return id;
+            }
+            objectIds.put(aObject, objectIds.size());
+            pending.addLast(aObject);
+            return objectIds.size() - 1;
+        }
+
+        private void writePrimitive(byte aTag, Object aValue) throws IOException {
+            switch (aTag) {
+                case TAG_INT:
+                    body.writeInt((Integer) aValue);
+                    break;
+                case TAG_LONG:
+                    body.writeLong((Long) aValue);
+                    break;
+                case TAG_DOUBLE:
+                    body.writeDouble((Double) aValue);
+                    break;
+                case TAG_FLOAT:
+                    body.writeFloat((Float) aValue);
+                    break;
+                case TAG_BOOLEAN:
+                    body.writeBoolean((Boolean) aValue);
+                    break;
+                case TAG_SHORT:
+                    body.writeShort((Short) aValue);
+                    break;
+                case TAG_BYTE:
+                    body.writeByte((Byte) aValue);
+                    break;
+                case TAG_CHAR:
+                    body.writeChar((Character) aValue);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Not a primitive tag: " + aTag);
+            }
+        }
+
+        private void writeRecord(Object aObject) throws IOException {
+            final Class<?> type = aObject.getClass();
+            final int classId = classId(type);
+            final ClassEntry entry = classes.get(classId);
+            body.writeInt(classId);
+
+            switch (entry.kind) {
+                case KIND_OBJECT:
+                    for (int i = 0; i < entry.fields.length; ++i) {
+                        final Object value = get(entry.fields[i], aObject);
+                        if (entry.fieldTypes[i] == TAG_REF) {
+                            writeValue(value);
+                        }
+                        else {
+                            writePrimitive(entry.fieldTypes[i], value);
+                        }
+                    }
+                    break;
+                case KIND_COLLECTION: {
+                    if (aObject instanceof SortedSet && ((SortedSet<?>) aObject).comparator() != null) {
+                        throw new IllegalArgumentException("Sorted sets with comparators are not supported");
+                    }
+                    final Collection<?> collection = (Collection<?>) aObject;
+                    body.writeInt(collection.size());
+                    for (final Object value : collection) {
+                        writeValue(value);
+                    }
+                    break;
+                }
+                case KIND_MAP: {
+                    if (aObject instanceof SortedMap && ((SortedMap<?, ?>) aObject).comparator() != null) {
+                        throw new IllegalArgumentException("Sorted maps with comparators are not supported");
+                    }
+                    final Map<?, ?> map = (Map<?, ?>) aObject;
+                    body.writeInt(map.size());
+                    for (final Entry<?, ?> value : map.entrySet()) {
+                        writeValue(value.getKey());
+                        writeValue(value.getValue());
+                    }
+                    break;
+                }
+                case KIND_ARRAY: {
+                    final int length = Array.getLength(aObject);
+                    final byte componentTag = primitiveTag(type.getComponentType());
+                    body.writeInt(length);
+                    for (int i = 0; i < length; ++i) {
+                        if (componentTag == TAG_REF) {
+                            writeValue(Array.get(aObject, i));
+                        }
+                        else {
+                            writePrimitive(componentTag, Array.get(aObject, i));
+                        }
+                    }
+                    break;
+                }
+                case KIND_ATTRIBUTE: {
+                    final Attribute attribute = (Attribute) aObject;
+                    body.writeDouble(attribute.getBaseValue());
+                    writeValue(attribute.getSpecifier());
+                    writeStrings(attribute.getSelectors());
+                    break;
+                }
+                case KIND_MODIFIER_DESCRIPTION: {
+                    final ModifierDescription description = (ModifierDescription) aObject;
+                    writeValue(description.getUiName());
+                    writeValue(description.getKey());
+                    writeValue(description.getOperation());
+                    writeValue(description.getSpecifier());
+                    writeValue(description.getModifierType());
+                    writeStrings(description.getSelectors());
+                    break;
+                }
+                case KIND_HARDPOINT: {
+                    final HardPoint hardPoint = (HardPoint) aObject;
+                    writeValue(hardPoint.getType());
+                    body.writeInt(hardPoint.getNumMissileTubes());
+                    body.writeBoolean(hardPoint.hasMissileBayDoor());
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unexpected record kind: " + entry.kind);
+            }
+        }
+
+        private void writeStrings(Collection<String> aStrings) throws IOException {
+            body.writeInt(aStrings.size());
+            for (final String string : aStrings) {
+                body.writeInt(intern(string));
+            }
+        }
+
+        private void writeValue(Object aValue) throws IOException {
+            if (aValue == null) {
+                body.writeByte(TAG_NULL);
+            }
+            else if (aValue instanceof String) {
+                body.writeByte(TAG_STRING);
+                body.writeInt(intern((String) aValue));
+            }
+            else if (aValue instanceof Enum) {
+                final Enum<?> value = (Enum<?>) aValue;
+                body.writeByte(TAG_ENUM);
+                body.writeInt(classId(value.getDeclaringClass()));
+                body.writeInt(intern(value.name()));
+            }
+            else if (aValue instanceof Integer) {
+                body.writeByte(TAG_INT);
+                body.writeInt((Integer) aValue);
+            }
+            else if (aValue instanceof Long) {
+                body.writeByte(TAG_LONG);
+                body.writeLong((Long) aValue);
+            }
+            else if (aValue instanceof Double) {
+                body.writeByte(TAG_DOUBLE);
+                body.writeDouble((Double) aValue);
+            }
+            else if (aValue instanceof Float) {
+                body.writeByte(TAG_FLOAT);
+                body.writeFloat((Float) aValue);
+            }
+            else if (aValue instanceof Boolean) {
+                body.writeByte(TAG_BOOLEAN);
+                body.writeBoolean((Boolean) aValue);
+            }
+            else if (aValue instanceof Short) {
+                body.writeByte(TAG_SHORT);
+                body.writeShort((Short) aValue);
+            }
+            else if (aValue instanceof Byte) {
+                body.writeByte(TAG_BYTE);
+                body.writeByte((Byte) aValue);
+            }
+            else if (aValue instanceof Character) {
+                body.writeByte(TAG_CHAR);
+                body.writeChar((Character) aValue);
+            }
+            else {
+                body.writeByte(TAG_REF);
+                body.writeInt(objectId(aValue));
+            }
+        }
+    }
+
+    private final ReflectionProvider reflection = JVM.newReflectionProvider();
+    private final ByteBuffer buffer;
+    private final String version;
+    private final int[] stringOffsets;
+    private final int stringDataStart;
+    private final String[] stringCache;
+    private final ClassEntry[] classes;
+    private final int[] objectOffsets;
+    private final Object[] objectCache;
+    private final int rootId;
+    private final Map<String, Integer> sections = new HashMap<>();
+
+    private DatabaseSnapshot(ByteBuffer aBuffer) throws IOException {
+        buffer = aBuffer;
+        try {
+            final Cursor cursor = new Cursor(buffer, 0);
+            if (cursor.readInt() != MAGIC) {
+                throw new IOException("Not a database snapshot");
+            }
+            final int formatVersion = cursor.readInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported database snapshot format: " + formatVersion);
+            }
+            final int versionId = cursor.readInt();
+
+            stringOffsets = new int[cursor.readInt()];
+            for (int i = 0; i < stringOffsets.length; ++i) {
+                stringOffsets[i] = cursor.readInt();
+            }
+            final int stringDataLength = cursor.readInt();
+            stringDataStart = cursor.pos;
+            stringCache = new String[stringOffsets.length];
+            cursor.pos += stringDataLength;
+
+            classes = new ClassEntry[cursor.readInt()];
+            for (int i = 0; i < classes.length; ++i) {
+                final String name = string(cursor.readInt());
+                final ClassEntry entry = new ClassEntry(name, cursor.readByte());
+                entry.wrap = cursor.readByte();
+                final int fields = cursor.readInt();
+                if (entry.kind == KIND_OBJECT) {
+                    entry.fieldNames = new String[fields];
+                    entry.fieldOwners = new String[fields];
+                    entry.fieldTypes = new byte[fields];
+                    for (int j = 0; j < fields; ++j) {
+                        entry.fieldNames[j] = string(cursor.readInt());
+                        entry.fieldOwners[j] = string(cursor.readInt());
+                        entry.fieldTypes[j] = cursor.readByte();
+                    }
+                }
+                classes[i] = entry;
+            }
+
+            objectOffsets = new int[cursor.readInt()];
+            for (int i = 0; i < objectOffsets.length; ++i) {
+                objectOffsets[i] = cursor.readInt();
+            }
+            objectCache = new Object[objectOffsets.length];
+            rootId = cursor.readInt();
+
+            final int numSections = cursor.readInt();
+            for (int i = 0; i < numSections; ++i) {
+                final String name = string(cursor.readInt());
+                sections.put(name, cursor.readInt());
+            }
+            final int bodyLength = cursor.readInt();
+            final int bodyStart = cursor.pos;
+            if (bodyStart + bodyLength != buffer.limit()) {
+                throw new IOException("Truncated database snapshot");
+            }
+            for (int i = 0; i < objectOffsets.length; ++i) {
+                objectOffsets[i] += bodyStart;
+            }
+            version = string(versionId);
+        }
+        catch (final IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt database snapshot", e);
+        }
+    }
+
+    /**
+     * Decodes the complete {@link Database}.
+     *
+     * @return A {@link Database}.
+     */
+    public synchronized Database getDatabase() {
+        return (Database) resolve(rootId);
+    }
+
+    /**
+     * @return The {@link Chassis} table of the snapshot, decoded on first use.
+     */
+    public List<Chassis> getChassis() {
+        return section("chassis");
+    }
+
+    /**
+     * @return The {@link Item} table of the snapshot, decoded on first use.
+     */
+    public List<Item> getItems() {
+        return section("items");
+    }
+
+    /**
+     * @return The {@link ModifierDescription} table of the snapshot, decoded on first use.
+     */
+    public Map<String, ModifierDescription> getModifierDescriptions() {
+        return section("modifierDescriptions");
+    }
+
+    /**
+     * @return The {@link OmniPod} table of the snapshot, decoded on first use.
+     */
+    public List<OmniPod> getOmniPods() {
+        return section("omniPods");
+    }
+
+    /**
+     * @return The {@link StockLoadout} table of the snapshot, decoded on first use.
+     */
+    public List<StockLoadout> getStockLoadouts() {
+        return section("stockLoadouts");
+    }
+
+    /**
+     * @return The {@link Upgrade} table of the snapshot, decoded on first use.
+     */
+    public List<Upgrade> getUpgrades() {
+        return section("upgrades");
+    }
+
+    /**
+     * @return The LSML version of the database in the snapshot. Doesn't require decoding the database.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    private Class<?> classOf(ClassEntry aEntry) {
+        if (aEntry.type == null) {
+            if (!isAllowed(aEntry.name)) {
+                throw new IllegalArgumentException("Type not allowed in database snapshots: " + aEntry.name);
+            }
+            try {
+                aEntry.type = Class.forName(aEntry.name, false, DatabaseSnapshot.class.getClassLoader());
+                if (aEntry.kind == KIND_OBJECT) {
+                    aEntry.owners = new Class<?>[aEntry.fieldOwners.length];
+                    for (int i = 0; i < aEntry.owners.length; ++i) {
+                        aEntry.owners[i] = Class.forName(aEntry.fieldOwners[i], false,
+                                DatabaseSnapshot.class.getClassLoader());
+                    }
+                }
+            }
+            catch (final ClassNotFoundException e) {
+                throw new IllegalArgumentException("Unknown type in database snapshot: " + aEntry.name, e);
+            }
+        }
+        return aEntry.type;
+    }
+
+    private Object readPrimitive(Cursor aCursor, byte aTag) {
+        switch (aTag) {
+            case TAG_INT:
+                return aCursor.readInt();
+            case TAG_LONG:
+                return aCursor.readLong();
+            case TAG_DOUBLE:
+                return aCursor.readDouble();
+            case TAG_FLOAT:
+                return aCursor.readFloat();
+            case TAG_BOOLEAN:
+                return aCursor.readByte() != 0;
+            case TAG_SHORT:
+                return aCursor.readShort();
+            case TAG_BYTE:
+                return aCursor.readByte();
+            case TAG_CHAR:
+                return aCursor.readChar();
+            default:
+                throw new IllegalArgumentException("Not a primitive tag: " + aTag);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object readRecord(int aId) {
+        final Cursor cursor = new Cursor(buffer, objectOffsets[aId]);
+        final ClassEntry entry = classes[cursor.readInt()];
+        final Class<?> type = classOf(entry);
+
+        switch (entry.kind) {
+            case KIND_OBJECT: {
+                final Object object = reflection.newInstance(type);
+                objectCache[aId] = object; // Before the fields, in case of cycles
+                for (int i = 0; i < entry.fieldNames.length; ++i) {
+                    final byte tag = entry.fieldTypes[i];
+                    final Object value = tag == TAG_REF ? readValue(cursor) : readPrimitive(cursor, tag);
+                    reflection.writeField(object, entry.fieldNames[i], value, entry.owners[i]);
+                }
+                return object;
+            }
+            case KIND_COLLECTION: {
+                final Collection collection = (Collection) newContainer(type);
+                objectCache[aId] = wrap(entry.wrap, collection);
+                final int size = cursor.readInt();
+                for (int i = 0; i < size; ++i) {
+                    collection.add(readValue(cursor));
+                }
+                return objectCache[aId];
+            }
+            case KIND_MAP: {
+                final Map map = (Map) newContainer(type);
+                objectCache[aId] = wrap(entry.wrap, map);
+                final int size = cursor.readInt();
+                for (int i = 0; i < size; ++i) {
+                    final Object key = readValue(cursor);
+                    map.put(key, readValue(cursor));
+                }
+                return objectCache[aId];
+            }
+            case KIND_ARRAY: {
+                final Class<?> componentType = type.getComponentType();
+                final byte componentTag = primitiveTag(componentType);
+                final int length = cursor.readInt();
+                final Object array = Array.newInstance(componentType, length);
+                objectCache[aId] = array;
+                for (int i = 0; i < length; ++i) {
+                    Array.set(array, i, componentTag == TAG_REF ? readValue(cursor) : readPrimitive(cursor, componentTag));
+                }
+                return array;
+            }
+            case KIND_ATTRIBUTE: {
+                final double value = cursor.readDouble();
+                final String specifier = (String) readValue(cursor);
+                objectCache[aId] = new Attribute(value, readStrings(cursor), specifier);
+                return objectCache[aId];
+            }
+            case KIND_MODIFIER_DESCRIPTION: {
+                final String uiName = (String) readValue(cursor);
+                final String key = (String) readValue(cursor);
+                final Operation operation = (Operation) readValue(cursor);
+                final String specifier = (String) readValue(cursor);
+                final ModifierType modifierType = (ModifierType) readValue(cursor);
+                objectCache[aId] = new ModifierDescription(uiName, key, operation, readStrings(cursor), specifier,
+                        modifierType);
+                return objectCache[aId];
+            }
+            case KIND_HARDPOINT: {
+                final HardPointType hardPointType = (HardPointType) readValue(cursor);
+                final int tubes = cursor.readInt();
+                objectCache[aId] = new HardPoint(hardPointType, tubes, cursor.readByte() != 0);
+                return objectCache[aId];
+            }
+            default:
+                throw new IllegalArgumentException("Unexpected record kind: " + entry.kind);
+        }
+    }
+
+    private Object newContainer(Class<?> aType) {
+        try {
+            return aType.getConstructor().newInstance();
+        }
+        catch (final ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unable to create container: " + aType.getName(), e);
+        }
+    }
+
+    private List<String> readStrings(Cursor aCursor) {
+        final int size = aCursor.readInt();
+        final List<String> ans = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            ans.add(string(aCursor.readInt()));
+        }
+        return ans;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object readValue(Cursor aCursor) {
+        final byte tag = aCursor.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_REF:
+                return resolve(aCursor.readInt());
+            case TAG_STRING:
+                return string(aCursor.readInt());
+            case TAG_ENUM: {
+                final Class enumClass = classOf(classes[aCursor.readInt()]);
+                return Enum.valueOf(enumClass, string(aCursor.readInt()));
+            }
+            default:
+                return readPrimitive(aCursor, tag);
+        }
+    }
+
+    private Object resolve(int aId) {
+        final Object cached = objectCache[aId];
+        if (cached != null) {
+            return cached;
+        }
+        return readRecord(aId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> T section(String aName) {
+        final Integer id = sections.get(aName);
+        if (id == null) {
+            throw new IllegalArgumentException("No such section in database snapshot: " + aName);
+        }
+        return (T) resolve(id);
+    }
+
+    private String string(int aId) {
+        String ans = stringCache[aId];
+        if (ans == null) {
+            final int offset = stringDataStart + stringOffsets[aId];
+            final int length = buffer.getInt(offset);
+            final byte[] utf8 = new byte[length];
+            final ByteBuffer view = buffer.duplicate();
+            view.position(offset + Integer.BYTES);
+            view.get(utf8);
+            ans = new String(utf8, StandardCharsets.UTF_8);
+            stringCache[aId] = ans;
+        }
+        return ans;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object wrap(byte aWrap, Object aContainer) {
+        switch (aWrap) {
+            case WRAP_NONE:
+                return aContainer;
+            case WRAP_COLLECTION:
+                return Collections.unmodifiableCollection((Collection) aContainer);
+            case WRAP_LIST:
+                return Collections.unmodifiableList((List) aContainer);
+            case WRAP_SET:
+                return Collections.unmodifiableSet((Set) aContainer);
+            case WRAP_SORTED_SET:
+                return Collections.unmodifiableSortedSet((SortedSet) aContainer);
+            case WRAP_MAP:
+                return Collections.unmodifiableMap((Map) aContainer);
+            case WRAP_SORTED_MAP:
+                return Collections.unmodifiableSortedMap((SortedMap) aContainer);
+            default:
+                throw new IllegalArgumentException("Unknown container wrapping: " + aWrap);
+        }
+    }
+}
@@ -20,8 +20,6 @@
 
 package org.lisoft.lsml.model.database;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.lisoft.lsml.model.NoSuchItemException;
@@ -34,18 +32,19 @@ import org.lisoft.lsml.view_fx.LiSongMechLab;
  * @author Emily Björk
  */
 public class EnvironmentDB {
-    private static List<Environment> environments = new ArrayList<>();
+    private static volatile DatabaseIndex index;
 
     /**
      * A decision has been made to rely on static initialisers for *DB classes. The motivation is that all items are
-     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS.
+     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS. A database
+     * that replaces the active one at run time is passed to {@link #use(Database)}.
      */
     static {
-        final Database database = LiSongMechLab.getDatabase()
-                .orElseThrow(() -> new RuntimeException("Cannot run without database"));
+        use(LiSongMechLab.getDatabase().orElseThrow(() -> new RuntimeException("Cannot run without database")));
+    }
 
-        environments = new ArrayList<>(database.getEnvironments());
-        environments.add(Environment.NEUTRAL);
+    static void use(Database aDatabase) {
+        index = aDatabase.getIndex();
     }
 
     /**
@@ -59,18 +58,13 @@ public class EnvironmentDB {
      *             Throw if no environment could be found by that name.
      */
     public static Environment lookup(String aString) throws NoSuchItemException {
-        for (final Environment environment : environments) {
-            if (environment.getName().toLowerCase().equals(aString.toLowerCase())) {
-                return environment;
-            }
-        }
-        throw new NoSuchItemException("No environmet by the name: " + aString);
+        return index.lookupEnvironment(aString);
     }
 
     /**
      * @return A list of all {@link Environment}s loaded.
      */
     public static List<Environment> lookupAll() {
-        return Collections.unmodifiableList(environments);
+        return index.allEnvironments();
     }
 }
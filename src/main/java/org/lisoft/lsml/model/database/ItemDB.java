@@ -19,10 +19,7 @@
 //@formatter:on
 package org.lisoft.lsml.model.database;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.lisoft.lsml.model.NoSuchItemException;
 import org.lisoft.lsml.model.chassi.HardPointType;
@@ -46,66 +43,63 @@ public class ItemDB {
     /*
      * Use of these constants is discouraged and will be deprecated soon.
      */
-    static public final AmmoWeapon AMS;
-    static public final AmmoWeapon C_AMS;
-    static public final HeatSink SHS;
-    static public final HeatSink DHS;
-    static public final Item ECM;
-    static public final Item BAP;
-    static public final Item CASE;
-
-    static public final Internal UAA;
-    static public final Internal LAA;
-    static public final Internal HA;
+    static public AmmoWeapon AMS;
+    static public AmmoWeapon C_AMS;
+    static public HeatSink SHS;
+    static public HeatSink DHS;
+    static public Item ECM;
+    static public Item BAP;
+    static public Item CASE;
+
+    static public Internal UAA;
+    static public Internal LAA;
+    static public Internal HA;
 
     static public final Internal DYN_ARMOUR;
     static public final Internal DYN_STRUCT;
     static public final Internal FIX_ARMOUR;
     static public final Internal FIX_STRUCT;
 
-    static private final Map<String, Item> locname2item;
-    static private final Map<String, Item> mwoname2item;
-    static private final Map<Integer, Item> mwoidx2item;
+    static private volatile DatabaseIndex index;
 
     /**
      * A decision has been made to rely on static initializers for *DB classes. The motivation is that all items are
-     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS.
+     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS. A database
+     * that replaces the active one at run time is passed to {@link #use(Database)}, which also replaces the constants
+     * that are looked up from the database.
      */
     static {
-        final Database database = LiSongMechLab.getDatabase()
-                .orElseThrow(() -> new RuntimeException("Cannot run without database"));
+        use(LiSongMechLab.getDatabase().orElseThrow(() -> new RuntimeException("Cannot run without database")));
 
-        mwoname2item = new HashMap<>();
-        locname2item = new HashMap<>();
-        mwoidx2item = new HashMap<>();
+        DYN_ARMOUR = new Internal("DYNAMIC ARMOUR", null, null, 0, 1, 0, HardPointType.NONE, 0, Faction.ANY);
+        DYN_STRUCT = new Internal("DYNAMIC STRUCTURE", null, null, 0, 1, 0, HardPointType.NONE, 0, Faction.ANY);
+        FIX_ARMOUR = new Internal("FIXED ARMOUR", null, null, 0, 1, 0, HardPointType.NONE, 0, Faction.ANY);
+        FIX_STRUCT = new Internal("FIXED STRUCTURE", null, null, 0, 1, 0, HardPointType.NONE, 0, Faction.ANY);
+    }
 
-        for (final Item item : database.getItems()) {
-            put(item);
-        }
+    static void use(Database aDatabase) {
+        final DatabaseIndex newIndex = aDatabase.getIndex();
 
-        // Initialize special items
+        // Initialize special items, the index is published last so that anyone who sees the new index also sees the
+        // new constants.
         try {
-            C_AMS = (AmmoWeapon) lookup("C-AMS");
-
-            AMS = (AmmoWeapon) lookup("AMS");
-            SHS = (HeatSink) lookup("STD HEAT SINK");
-            DHS = (HeatSink) lookup("DOUBLE HEAT SINK");
-            ECM = lookup("GUARDIAN ECM");
-            BAP = lookup("BEAGLE ACTIVE PROBE");
-            CASE = lookup("C.A.S.E.");
-
-            UAA = (Internal) lookup("UpperArmActuator");
-            LAA = (Internal) lookup("LowerArmActuator");
-            HA = (Internal) lookup("HandActuator");
-
-            DYN_ARMOUR = new Internal("DYNAMIC ARMOUR", null, null, 0, 1, 0, HardPointType.NONE, 0, Faction.ANY);
-            DYN_STRUCT = new Internal("DYNAMIC STRUCTURE", null, null, 0, 1, 0, HardPointType.NONE, 0, Faction.ANY);
-            FIX_ARMOUR = new Internal("FIXED ARMOUR", null, null, 0, 1, 0, HardPointType.NONE, 0, Faction.ANY);
-            FIX_STRUCT = new Internal("FIXED STRUCTURE", null, null, 0, 1, 0, HardPointType.NONE, 0, Faction.ANY);
+            C_AMS = (AmmoWeapon) newIndex.lookupItem("C-AMS");
+
+            AMS = (AmmoWeapon) newIndex.lookupItem("AMS");
+            SHS = (HeatSink) newIndex.lookupItem("STD HEAT SINK");
+            DHS = (HeatSink) newIndex.lookupItem("DOUBLE HEAT SINK");
+            ECM = newIndex.lookupItem("GUARDIAN ECM");
+            BAP = newIndex.lookupItem("BEAGLE ACTIVE PROBE");
+            CASE = newIndex.lookupItem("C.A.S.E.");
+
+            UAA = (Internal) newIndex.lookupItem("UpperArmActuator");
+            LAA = (Internal) newIndex.lookupItem("LowerArmActuator");
+            HA = (Internal) newIndex.lookupItem("HandActuator");
         }
         catch (final NoSuchItemException e) {
             throw new RuntimeException(e);
         }
+        index = newIndex;
     }
 
     public static Engine getEngine(int aRating, EngineType aType, Faction aFaction) throws NoSuchItemException {
@@ -125,47 +119,21 @@ public class ItemDB {
         return (Engine) lookup(sb.toString());
     }
 
-    @SuppressWarnings("unchecked")
-    // It is checked...
+    /**
+     * @param aClass
+     *            The class of items to look up.
+     * @return An unmodifiable {@link List} of all {@link Item}s that are instances of the given class, copy it before
+     *         sorting.
+     */
     public static <T extends Item> List<T> lookup(Class<T> aClass) {
-        final List<T> ans = new ArrayList<>();
-        for (final Item it : mwoidx2item.values()) {
-            if (aClass.isInstance(it)) {
-                ans.add((T) it);
-            }
-        }
-        return ans;
+        return index.lookupItems(aClass);
     }
 
     public static Item lookup(int aMwoIndex) throws NoSuchItemException {
-        if (!mwoidx2item.containsKey(aMwoIndex)) {
-            throw new NoSuchItemException("No item with ID: " + aMwoIndex);
-        }
-        return mwoidx2item.get(aMwoIndex);
+        return index.lookupItem(aMwoIndex);
     }
 
     public static Item lookup(final String aItemName) throws NoSuchItemException {
-        final String key = canonize(aItemName);
-        if (!locname2item.containsKey(key)) {
-            if (!mwoname2item.containsKey(key)) {
-                throw new NoSuchItemException("No item with name:" + aItemName);
-            }
-            return mwoname2item.get(key);
-        }
-        return locname2item.get(key);
-    }
-
-    private static String canonize(String aString) {
-        final String key = aString.toLowerCase();
-        return key;
-    }
-
-    private static void put(Item aItem) {
-        mwoname2item.put(canonize(aItem.getKey()), aItem);
-        locname2item.put(canonize(aItem.getName()), aItem);
-        locname2item.put(canonize(aItem.getShortName()), aItem);
-        if (aItem.getId() >= 0) {
-            mwoidx2item.put(aItem.getId(), aItem);
-        }
+        return index.lookupItem(aItemName);
     }
 }
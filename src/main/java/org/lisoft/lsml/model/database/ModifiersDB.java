@@ -20,9 +20,7 @@
 package org.lisoft.lsml.model.database;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 import org.lisoft.lsml.model.NoSuchItemException;
@@ -38,30 +36,27 @@ import org.lisoft.lsml.view_fx.LiSongMechLab;
  * @author Emily Björk
  */
 public class ModifiersDB {
-    private final static Map<String, ModifierDescription> mwoname2modifier;
+    private volatile static DatabaseIndex index;
     public final static ModifierDescription HEAT_MOVEMENT_DESC;
 
     /**
      * A decision has been made to rely on static initialisers for *DB classes. The motivation is that all items are
-     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS.
+     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS. A database
+     * that replaces the active one at run time is passed to {@link #use(Database)}.
      */
     static {
-        final Database database = LiSongMechLab.getDatabase()
-                .orElseThrow(() -> new RuntimeException("Cannot run without database"));
-
-        mwoname2modifier = new HashMap<>();
-        final Collection<ModifierDescription> modifiers = database.getModifierDescriptions().values();
-        for (final ModifierDescription description : modifiers) {
-            mwoname2modifier.put(canonicalize(description.getKey()), description);
-        }
-
+        use(LiSongMechLab.getDatabase().orElseThrow(() -> new RuntimeException("Cannot run without database")));
         HEAT_MOVEMENT_DESC = new ModifierDescription("ENGINE HEAT", "movementheat_multiplier", Operation.MUL,
                 ModifierDescription.SEL_HEAT_MOVEMENT, null, ModifierType.NEGATIVE_GOOD);
     }
 
+    static void use(Database aDatabase) {
+        index = aDatabase.getIndex();
+    }
+
     public static Collection<String> getAllSelectors(Class<? extends Weapon> aClass) {
         final Set<String> ans = new HashSet<>();
-        for (final Weapon w : ItemDB.lookup(aClass)) {
+        for (final Weapon w : index.lookupItems(aClass)) {
             ans.addAll(w.getAliases());
         }
         ans.addAll(ModifierDescription.SEL_HEAT_DISSIPATION);
@@ -71,7 +66,7 @@ public class ModifiersDB {
 
     public static Collection<String> getAllWeaponSelectors() {
         final Set<String> ans = new HashSet<>();
-        for (final Weapon w : ItemDB.lookup(Weapon.class)) {
+        for (final Weapon w : index.lookupItems(Weapon.class)) {
             ans.addAll(w.getAliases());
         }
         ans.addAll(ModifierDescription.SEL_HEAT_DISSIPATION);
@@ -90,21 +85,6 @@ public class ModifiersDB {
      *             if no {@link ModifierDescription} was found with that key.
      */
     public static ModifierDescription lookup(String aKey) throws NoSuchItemException {
-        final ModifierDescription description = mwoname2modifier.get(canonicalize(aKey));
-        if (description == null) {
-            throw new NoSuchItemException("Unknown key!");
-        }
-        return description;
-    }
-
-    /**
-     * Canonicalizes a string for lookup in the maps.
-     *
-     * @param aName
-     *            The string to canonicalize.
-     * @return A canonicalized {@link String}.
-     */
-    private static String canonicalize(String aName) {
-        return aName.toLowerCase();
+        return index.lookupModifier(aKey);
     }
 }
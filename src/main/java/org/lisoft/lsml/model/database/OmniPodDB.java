@@ -21,18 +21,13 @@ package org.lisoft.lsml.model.database;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import org.lisoft.lsml.model.NoSuchItemException;
-import org.lisoft.lsml.model.chassi.Chassis;
 import org.lisoft.lsml.model.chassi.ChassisOmniMech;
 import org.lisoft.lsml.model.chassi.Location;
 import org.lisoft.lsml.model.chassi.OmniPod;
-import org.lisoft.lsml.model.loadout.StockLoadout;
-import org.lisoft.lsml.model.loadout.StockLoadout.StockComponent;
 import org.lisoft.lsml.view_fx.LiSongMechLab;
 
 /**
@@ -41,57 +36,26 @@ import org.lisoft.lsml.view_fx.LiSongMechLab;
  * @author Emily Björk
  */
 public class OmniPodDB {
-    private static final Map<String, List<OmniPod>> series2pod;
-    private static final Map<Integer, OmniPod> id2pod;
-
-    private static final Map<String, OmniPod> chassiLocation2stock;
+    private static volatile DatabaseIndex index;
 
     /**
      * A decision has been made to rely on static initializers for *DB classes. The motivation is that all items are
-     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS.
+     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS. A database
+     * that replaces the active one at run time is passed to {@link #use(Database)}.
      */
     static {
-        final Database database = LiSongMechLab.getDatabase()
-                .orElseThrow(() -> new RuntimeException("Cannot run without database"));
-
-        series2pod = new HashMap<>();
-        id2pod = new HashMap<>();
-
-        for (final OmniPod omniPod : database.getOmniPods()) {
-            final String series = omniPod.getChassisSeries();
-
-            List<OmniPod> list = series2pod.get(canonize(series));
-            if (list == null) {
-                list = new ArrayList<>();
-                series2pod.put(canonize(series), list);
-            }
-            list.add(omniPod);
-
-            id2pod.put(omniPod.getId(), omniPod);
-        }
+        use(LiSongMechLab.getDatabase().orElseThrow(() -> new RuntimeException("Cannot run without database")));
+    }
 
-        chassiLocation2stock = new HashMap<>();
-        for (final StockLoadout stock : StockLoadoutDB.all()) {
-            for (final StockComponent comp : stock.getComponents()) {
-                comp.getOmniPod().ifPresent(pod -> {
-                    String key;
-                    try {
-                        key = chassiLocationOf(stock.getChassis(), comp.getLocation());
-                    }
-                    catch (final NoSuchItemException e) {
-                        throw new RuntimeException(e);
-                    }
-                    chassiLocation2stock.put(key, id2pod.get(pod));
-                });
-            }
-        }
+    static void use(Database aDatabase) {
+        index = aDatabase.getIndex();
     }
 
     /**
      * @return A {@link Collection} of all {@link OmniPod}s.
      */
     public static Collection<OmniPod> all() {
-        return id2pod.values();
+        return index.allOmniPods();
     }
 
     /**
@@ -113,11 +77,7 @@ public class OmniPodDB {
      *             if no omnipod could be found with the given ID.
      */
     public static OmniPod lookup(int aId) throws NoSuchItemException {
-        final OmniPod omnipod = id2pod.get(aId);
-        if (omnipod == null) {
-            throw new NoSuchItemException("No omnipod with ID: " + aId);
-        }
-        return omnipod;
+        return index.lookupOmniPod(aId);
     }
 
     /**
@@ -128,25 +88,10 @@ public class OmniPodDB {
      * @return A {@link Collection} of {@link OmniPod}s that are compatible with the given chassis and {@link Location}.
      */
     public static List<OmniPod> lookup(String aSeries, Location aLocation) {
-        final List<OmniPod> ans = new ArrayList<>();
-        final String canonized = canonize(aSeries);
-        for (final OmniPod omniPod : series2pod.get(canonized)) {
-            if (omniPod.getLocation() == aLocation) {
-                ans.add(omniPod);
-            }
-        }
-        return ans;
+        return new ArrayList<>(index.lookupOmniPods(aSeries, aLocation));
     }
 
     public static Optional<OmniPod> lookupStock(ChassisOmniMech aChassis, Location aLocation) {
-        return Optional.ofNullable(chassiLocation2stock.get(chassiLocationOf(aChassis, aLocation)));
-    }
-
-    private static String canonize(String aKey) {
-        return aKey.toUpperCase();
-    }
-
-    private final static String chassiLocationOf(Chassis aChassis, Location aLocation) {
-        return aChassis.getKey() + aLocation.shortName();
+        return index.lookupStockOmniPod(aChassis, aLocation);
     }
 }
@@ -20,8 +20,6 @@
 package org.lisoft.lsml.model.database;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.lisoft.lsml.model.NoSuchItemException;
 import org.lisoft.lsml.model.chassi.Chassis;
@@ -35,29 +33,23 @@ import org.lisoft.lsml.view_fx.LiSongMechLab;
  * @author Emily Björk
  */
 public class StockLoadoutDB {
-    private static final Map<Chassis, StockLoadout> stockloadouts;
+    private static volatile DatabaseIndex index;
 
     /**
      * A decision has been made to rely on static initializers for *DB classes. The motivation is that all items are
-     * immutable, and this is the only way that allows providing global item constans such as ItemDB.AMS.
+     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS. A database
+     * that replaces the active one at run time is passed to {@link #use(Database)}.
      */
     static {
-        final Database database = LiSongMechLab.getDatabase()
-                .orElseThrow(() -> new RuntimeException("Cannot run without database"));
+        use(LiSongMechLab.getDatabase().orElseThrow(() -> new RuntimeException("Cannot run without database")));
+    }
 
-        stockloadouts = new HashMap<>();
-        for (final StockLoadout stock : database.getStockLoadouts()) {
-            try {
-                stockloadouts.put(stock.getChassis(), stock);
-            }
-            catch (final NoSuchItemException e) {
-                throw new RuntimeException(e);
-            }
-        }
+    static void use(Database aDatabase) {
+        index = aDatabase.getIndex();
     }
 
     public static Collection<StockLoadout> all() {
-        return stockloadouts.values();
+        return index.allStockLoadouts();
     }
 
     /**
@@ -70,10 +62,6 @@ public class StockLoadoutDB {
      *             if no stock loadout was found for the chassis.
      */
     public static StockLoadout lookup(Chassis aChassis) throws NoSuchItemException {
-        final StockLoadout ans = stockloadouts.get(aChassis);
-        if (null == ans) {
-            throw new NoSuchItemException("No stock loadouts found for: " + aChassis);
-        }
-        return ans;
+        return index.lookupStockLoadout(aChassis);
     }
 }
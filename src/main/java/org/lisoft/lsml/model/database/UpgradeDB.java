@@ -20,8 +20,6 @@
 package org.lisoft.lsml.model.database;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.stream.Stream;
 
 import org.lisoft.lsml.model.NoSuchItemException;
@@ -53,65 +51,65 @@ public class UpgradeDB {
     public static final int CLAN_STD_STRUCTURE_ID = 3103;
     public static final int CLAN_ES_STRUCTURE_ID = 3102;
 
-    public static final GuidanceUpgrade STD_GUIDANCE;
-    public static final GuidanceUpgrade ARTEMIS_IV;
+    public static GuidanceUpgrade STD_GUIDANCE;
+    public static GuidanceUpgrade ARTEMIS_IV;
 
-    public static final HeatSinkUpgrade IS_SHS;
-    public static final HeatSinkUpgrade IS_DHS;
-    public static final HeatSinkUpgrade CLAN_SHS;
-    public static final HeatSinkUpgrade CLAN_DHS;
+    public static HeatSinkUpgrade IS_SHS;
+    public static HeatSinkUpgrade IS_DHS;
+    public static HeatSinkUpgrade CLAN_SHS;
+    public static HeatSinkUpgrade CLAN_DHS;
 
-    public static final ArmourUpgrade IS_STD_ARMOUR;
-    public static final ArmourUpgrade IS_FF_ARMOUR;
-    public static final ArmourUpgrade IS_LIGHT_FF_ARMOUR;
-    public static final ArmourUpgrade IS_STEALTH_ARMOUR;
-    public static final ArmourUpgrade CLAN_STD_ARMOUR;
-    public static final ArmourUpgrade CLAN_FF_ARMOUR;
+    public static ArmourUpgrade IS_STD_ARMOUR;
+    public static ArmourUpgrade IS_FF_ARMOUR;
+    public static ArmourUpgrade IS_LIGHT_FF_ARMOUR;
+    public static ArmourUpgrade IS_STEALTH_ARMOUR;
+    public static ArmourUpgrade CLAN_STD_ARMOUR;
+    public static ArmourUpgrade CLAN_FF_ARMOUR;
 
-    public static final StructureUpgrade IS_STD_STRUCTURE;
-    public static final StructureUpgrade IS_ES_STRUCTURE;
-    public static final StructureUpgrade CLAN_STD_STRUCTURE;
-    public static final StructureUpgrade CLAN_ES_STRUCTURE;
+    public static StructureUpgrade IS_STD_STRUCTURE;
+    public static StructureUpgrade IS_ES_STRUCTURE;
+    public static StructureUpgrade CLAN_STD_STRUCTURE;
+    public static StructureUpgrade CLAN_ES_STRUCTURE;
 
-    private static final Map<Integer, Upgrade> id2upgrade;
+    private static volatile DatabaseIndex index;
 
     /**
      * A decision has been made to rely on static initialisers for *DB classes. The motivation is that all items are
-     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS.
+     * immutable, and this is the only way that allows providing global item constants such as ItemDB.AMS. A database
+     * that replaces the active one at run time is passed to {@link #use(Database)}, which also replaces the constants.
      */
     static {
-        final Database database = LiSongMechLab.getDatabase()
-                .orElseThrow(() -> new RuntimeException("Cannot run without database"));
+        use(LiSongMechLab.getDatabase().orElseThrow(() -> new RuntimeException("Cannot run without database")));
+    }
 
-        id2upgrade = new HashMap<>();
-        for (final Upgrade upgrade : database.getUpgrades()) {
-            id2upgrade.put(upgrade.getId(), upgrade);
-        }
+    static void use(Database aDatabase) {
+        final DatabaseIndex newIndex = aDatabase.getIndex();
 
         try {
-            IS_STD_ARMOUR = (ArmourUpgrade) lookup(IS_STD_ARMOUR_ID);
-            IS_FF_ARMOUR = (ArmourUpgrade) lookup(2811);
-            IS_LIGHT_FF_ARMOUR = (ArmourUpgrade) lookup(2812);
-            IS_STEALTH_ARMOUR = (ArmourUpgrade) lookup(2814);
-            CLAN_FF_ARMOUR = (ArmourUpgrade) lookup(2815);
-            CLAN_STD_ARMOUR = (ArmourUpgrade) lookup(CLAN_STD_ARMOUR_ID);
-
-            IS_STD_STRUCTURE = (StructureUpgrade) lookup(IS_STD_STRUCTURE_ID);
-            IS_ES_STRUCTURE = (StructureUpgrade) lookup(IS_ES_STRUCTURE_ID);
-            CLAN_ES_STRUCTURE = (StructureUpgrade) lookup(CLAN_ES_STRUCTURE_ID);
-            CLAN_STD_STRUCTURE = (StructureUpgrade) lookup(CLAN_STD_STRUCTURE_ID);
-
-            IS_SHS = (HeatSinkUpgrade) lookup(IS_SHS_ID);
-            IS_DHS = (HeatSinkUpgrade) lookup(IS_DHS_ID);
-            CLAN_DHS = (HeatSinkUpgrade) lookup(CLAN_DHS_ID);
-            CLAN_SHS = (HeatSinkUpgrade) lookup(CLAN_SHS_ID);
-
-            STD_GUIDANCE = (GuidanceUpgrade) lookup(3051);
-            ARTEMIS_IV = (GuidanceUpgrade) lookup(3050);
+            IS_STD_ARMOUR = (ArmourUpgrade) newIndex.lookupUpgrade(IS_STD_ARMOUR_ID);
+            IS_FF_ARMOUR = (ArmourUpgrade) newIndex.lookupUpgrade(2811);
+            IS_LIGHT_FF_ARMOUR = (ArmourUpgrade) newIndex.lookupUpgrade(2812);
+            IS_STEALTH_ARMOUR = (ArmourUpgrade) newIndex.lookupUpgrade(2814);
+            CLAN_FF_ARMOUR = (ArmourUpgrade) newIndex.lookupUpgrade(2815);
+            CLAN_STD_ARMOUR = (ArmourUpgrade) newIndex.lookupUpgrade(CLAN_STD_ARMOUR_ID);
+
+            IS_STD_STRUCTURE = (StructureUpgrade) newIndex.lookupUpgrade(IS_STD_STRUCTURE_ID);
+            IS_ES_STRUCTURE = (StructureUpgrade) newIndex.lookupUpgrade(IS_ES_STRUCTURE_ID);
+            CLAN_ES_STRUCTURE = (StructureUpgrade) newIndex.lookupUpgrade(CLAN_ES_STRUCTURE_ID);
+            CLAN_STD_STRUCTURE = (StructureUpgrade) newIndex.lookupUpgrade(CLAN_STD_STRUCTURE_ID);
+
+            IS_SHS = (HeatSinkUpgrade) newIndex.lookupUpgrade(IS_SHS_ID);
+            IS_DHS = (HeatSinkUpgrade) newIndex.lookupUpgrade(IS_DHS_ID);
+            CLAN_DHS = (HeatSinkUpgrade) newIndex.lookupUpgrade(CLAN_DHS_ID);
+            CLAN_SHS = (HeatSinkUpgrade) newIndex.lookupUpgrade(CLAN_SHS_ID);
+
+            STD_GUIDANCE = (GuidanceUpgrade) newIndex.lookupUpgrade(3051);
+            ARTEMIS_IV = (GuidanceUpgrade) newIndex.lookupUpgrade(3050);
         }
         catch (final NoSuchItemException e) {
             throw new RuntimeException(e);
         }
+        index = newIndex;
     }
 
     /**
@@ -209,11 +207,7 @@ public class UpgradeDB {
      *             if no upgrade could be found with the given ID.
      */
     public static Upgrade lookup(int aMwoId) throws NoSuchItemException {
-        final Upgrade ans = id2upgrade.get(aMwoId);
-        if (null == ans) {
-            throw new NoSuchItemException("The ID: " + aMwoId + " is not a valid MWO upgrade ID!");
-        }
-        return ans;
+        return index.lookupUpgrade(aMwoId);
     }
 
     /**
@@ -226,7 +220,7 @@ public class UpgradeDB {
      * @return A {@link Collection} of all the upgrades.
      */
     public static <T extends Upgrade> Stream<T> streamCompatible(Chassis aChassis, Class<T> aUpgradeType) {
-        return id2upgrade.values().stream()
+        return index.allUpgrades().stream()
                 .filter(x -> aChassis.canUseUpgrade(x) && aUpgradeType.isAssignableFrom(x.getClass()))
                 .map(x -> aUpgradeType.cast(x));
 
@@ -0,0 +1,207 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database.gamedata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * A persistent index of the entries in the game's archive (.pak) files.
+ * <p>
+ * Reading the central directory of every archive is a large part of the cost of locating a game file. This index
+ * remembers the entry names and CRCs of each archive together with the size and modification time of the archive. As
+ * long as neither has changed, the archive doesn't need to be opened to find out what it contains.
+ *
+ * @author Emily Björk
+ */
+class GameArchiveIndex {
+    /**
+     * An entry in an archive.
+     *
+     * @author Emily Björk
+     */
+    static class Entry {
+        final String name;
+        final long crc32;
+
+        Entry(String aName, long aCrc32) {
+            name = aName;
+            crc32 = aCrc32;
+        }
+    }
+
+    private static class Archive {
+        final long size;
+        final long lastModified;
+        final List<Entry> entries;
+
+        Archive(long aSize, long aLastModified, List<Entry> aEntries) {
+            size = aSize;
+            lastModified = aLastModified;
+            entries = aEntries;
+        }
+
+        boolean matches(File aArchive) {
+            return aArchive.length() == size && aArchive.lastModified() == lastModified;
+        }
+    }
+
+    private static final int MAGIC = 0x4C534D49; // "LSMI"
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Loads an index from the given file. If the file doesn't exist or can't be read, an empty index is returned that
+     * will be written to the file on {@link #save()}.
+     *
+     * @param aFile
+     *            The file to load from and save to, may be <code>null</code> in which case nothing is persisted.
+     * @return A new {@link GameArchiveIndex}.
+     */
+    static GameArchiveIndex load(File aFile) {
+        final GameArchiveIndex index = new GameArchiveIndex(aFile);
+        if (null != aFile && aFile.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(aFile)))) {
+                index.read(in);
+            }
+            catch (final IOException e) {
+                // Broken or from an older format, just start over.
+                index.archives.clear();
+            }
+        }
+        return index;
+    }
+
+    private final File file;
+    // Sorted so that the written file is stable.
+    private final Map<String, Archive> archives = new TreeMap<>();
+    private boolean dirty = false;
+
+    private GameArchiveIndex(File aFile) {
+        file = aFile;
+    }
+
+    /**
+     * Looks up the entries of an archive.
+     *
+     * @param aArchive
+     *            The archive to look up.
+     * @return The entries of the archive, or {@link Optional#empty()} if the archive isn't indexed or has changed
+     *         since it was indexed.
+     */
+    synchronized Optional<List<Entry>> get(File aArchive) {
+        final Archive archive = archives.get(keyOf(aArchive));
+        if (null == archive || !archive.matches(aArchive)) {
+            return Optional.empty();
+        }
+        return Optional.of(archive.entries);
+    }
+
+    /**
+     * Updates the entries of an archive.
+     *
+     * @param aArchive
+     *            The archive that has been indexed.
+     * @param aEntries
+     *            All the entries in the archive.
+     */
+    synchronized void put(File aArchive, List<Entry> aEntries) {
+        archives.put(keyOf(aArchive),
+                new Archive(aArchive.length(), aArchive.lastModified(), Collections.unmodifiableList(aEntries)));
+        dirty = true;
+    }
+
+    /**
+     * Writes the index to disk if it has changed since it was loaded. Archives that no longer exist are dropped.
+     *
+     * @throws IOException
+     *             if the index couldn't be written.
+     */
+    synchronized void save() throws IOException {
+        if (null == file || !dirty) {
+            return;
+        }
+        archives.keySet().removeIf(path -> !new File(path).isFile());
+
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (null != parent && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory: " + parent);
+        }
+
+        // Write to a temporary file first so that a failed write doesn't destroy the old index.
+        final File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            write(out);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        dirty = false;
+    }
+
+    private String keyOf(File aArchive) {
+        return aArchive.getAbsolutePath();
+    }
+
+    private void read(DataInputStream aIn) throws IOException {
+        if (aIn.readInt() != MAGIC || aIn.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a game archive index!");
+        }
+        final int numArchives = aIn.readInt();
+        for (int i = 0; i < numArchives; ++i) {
+            final String path = aIn.readUTF();
+            final long size = aIn.readLong();
+            final long lastModified = aIn.readLong();
+            final int numEntries = aIn.readInt();
+            final List<Entry> entries = new ArrayList<>(numEntries);
+            for (int j = 0; j < numEntries; ++j) {
+                entries.add(new Entry(aIn.readUTF(), aIn.readLong()));
+            }
+            archives.put(path, new Archive(size, lastModified, Collections.unmodifiableList(entries)));
+        }
+    }
+
+    private void write(DataOutputStream aOut) throws IOException {
+        aOut.writeInt(MAGIC);
+        aOut.writeInt(FORMAT_VERSION);
+        aOut.writeInt(archives.size());
+        for (final Map.Entry<String, Archive> archive : archives.entrySet()) {
+            aOut.writeUTF(archive.getKey());
+            aOut.writeLong(archive.getValue().size);
+            aOut.writeLong(archive.getValue().lastModified);
+            aOut.writeInt(archive.getValue().entries.size());
+            for (final Entry entry : archive.getValue().entries) {
+                aOut.writeUTF(entry.name);
+                aOut.writeLong(entry.crc32);
+            }
+        }
+    }
+}
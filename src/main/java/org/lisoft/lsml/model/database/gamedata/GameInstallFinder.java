@@ -0,0 +1,472 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database.gamedata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.lisoft.lsml.util.OS;
+import org.lisoft.lsml.util.OS.WindowsVersion;
+
+import javafx.util.Callback;
+
+/**
+ * Searches the file system for MWO installations.
+ * <p>
+ * The search first checks a few cheap candidates: installs found by earlier searches, the default install locations,
+ * all Steam library folders and the default Wine prefix. If none of those are confirmed, the top level directories of
+ * all roots are searched in parallel down to {@link #MAX_DEPTH}, directories that are likely to contain the game (such
+ * as "Piranha Games" or "SteamLibrary") are searched first.
+ * <p>
+ * Results are remembered between runs in a cache file: confirmed installs are checked first next time, and top level
+ * directories that didn't contain any install are skipped for a while unless they have been modified since.
+ * <p>
+ * The confirmation callback is never called concurrently and progress is reported at most once every
+ * {@link #PROGRESS_INTERVAL_MS}.
+ *
+ * @author Emily Björk
+ */
+class GameInstallFinder {
+    /**
+     * How many directory levels below a root to search. Deep enough for a Wine/Proton prefix on a data drive:
+     * <code>/data/Games/mwo/drive_c/Program Files (x86)/Piranha Games/MechWarrior Online</code>.
+     */
+    static final int MAX_DEPTH = 10;
+    static final long PROGRESS_INTERVAL_MS = 100;
+    /**
+     * How long a directory without any install is skipped for, even if it hasn't been modified. The modification time
+     * of a directory only changes when its immediate children change so an install further down isn't noticed.
+     */
+    static final long EMPTY_SUBTREE_TTL_MS = TimeUnit.DAYS.toMillis(7);
+
+    private static final int MAGIC = 0x4C534D47; // "LSMG"
+    private static final int FORMAT_VERSION = 1;
+    private static final String GAME_DIR = "MechWarrior Online";
+    private static final Comparator<Path> BY_PRIORITY = Comparator.comparingInt(GameInstallFinder::priorityOf)
+            .thenComparing(Comparator.naturalOrder());
+    private static final Pattern STEAM_LIBRARY = Pattern.compile("\"(?:path|\\d+)\"\\s+\"([^\"]+)\"");
+
+    private static class EmptySubtree {
+        final long lastModified;
+        final long searched;
+
+        EmptySubtree(long aLastModified, long aSearched) {
+            lastModified = aLastModified;
+            searched = aSearched;
+        }
+    }
+
+    /**
+     * Finds the locations where the game is likely to be installed, in addition to the default locations. Depends on
+     * the current user and the Steam installations on this machine so it is up to the caller to pass these into
+     * {@link #find(List, List)}.
+     *
+     * @return A {@link List} of {@link Path}s where the game is likely to be installed.
+     */
+    static List<Path> getLikelyInstallLocations() {
+        final List<Path> steamRoots = new ArrayList<>();
+        final List<Path> ans = new ArrayList<>();
+        final String home = System.getProperty("user.home");
+        if (OS.isWindowsOrNewer(WindowsVersion.WIN_OLD)) {
+            steamRoots.add(Paths.get("C:\\Program Files (x86)\\Steam"));
+            steamRoots.add(Paths.get("C:\\Program Files\\Steam"));
+        }
+        else if (null != home) {
+            steamRoots.add(Paths.get(home, ".steam", "steam"));
+            steamRoots.add(Paths.get(home, ".local", "share", "Steam"));
+            steamRoots.add(Paths.get(home, ".var", "app", "com.valvesoftware.Steam", ".local", "share", "Steam"));
+            ans.add(Paths.get(home, ".wine", "drive_c", "Program Files (x86)", "Piranha Games", GAME_DIR));
+            ans.add(Paths.get(home, ".wine", "drive_c", "Program Files", "Piranha Games", GAME_DIR));
+        }
+
+        for (final Path library : getSteamLibraries(steamRoots)) {
+            ans.add(library.resolve("steamapps").resolve("common").resolve(GAME_DIR));
+        }
+        return ans;
+    }
+
+    /**
+     * Finds all Steam library folders of the given Steam installations.
+     *
+     * @param aSteamRoots
+     *            The Steam installations to look in, need not exist.
+     * @return The library folders, including the Steam installations that exist.
+     */
+    static Collection<Path> getSteamLibraries(List<Path> aSteamRoots) {
+        final Set<Path> ans = new LinkedHashSet<>();
+        for (final Path steamRoot : aSteamRoots) {
+            if (!Files.isDirectory(steamRoot)) {
+                continue;
+            }
+            ans.add(steamRoot);
+            for (final String vdf : new String[] { "steamapps/libraryfolders.vdf", "config/libraryfolders.vdf" }) {
+                final Path file = steamRoot.resolve(vdf);
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                try {
+                    final Matcher matcher = STEAM_LIBRARY
+                            .matcher(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                    while (matcher.find()) {
+                        ans.add(Paths.get(matcher.group(1).replace("\\\\", "\\")));
+                    }
+                }
+                catch (final IOException | RuntimeException e) {
+                    // Ignore the broken file, it's only a hint anyway.
+                }
+            }
+        }
+        return ans;
+    }
+
+    private static int priorityOf(Path aDir) {
+        final String name = aDir.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.contains("piranha") || name.contains("mechwarrior") || name.contains("mwo")) {
+            return 0;
+        }
+        if (name.contains("steam") || name.contains("games") || name.contains("program files")
+                || name.equals("drive_c") || name.equals("pfx") || name.equals("compatdata") || name.equals(".wine")) {
+            return 1;
+        }
+        if (name.startsWith(".")) {
+            return 3;
+        }
+        return 2;
+    }
+
+    private final File cacheFile;
+    private final Callback<Path, Boolean> confirmationCallback;
+    private final Consumer<String> progress;
+    private final AtomicLong nextProgress = new AtomicLong(System.nanoTime());
+    // Serialises calls to the confirmation callback without blocking the search threads on this.
+    private final Object confirmLock = new Object();
+    private final Set<String> skipNames = new HashSet<>();
+    private final Set<String> skipPaths = new HashSet<>();
+
+    // Guarded by this
+    private final Set<String> knownInstalls = new LinkedHashSet<>();
+    private final Map<String, EmptySubtree> emptySubtrees = new TreeMap<>();
+    private final Set<Path> rejected = new HashSet<>();
+    private volatile Path gameRoot = null;
+
+    /**
+     * Creates a new {@link GameInstallFinder}.
+     *
+     * @param aCacheFile
+     *            A file to remember the results in between runs, may be <code>null</code> in which case nothing is
+     *            remembered.
+     * @param aProgress
+     *            Called with the directory that is currently being searched. Called from multiple threads but at most
+     *            once every {@link #PROGRESS_INTERVAL_MS}.
+     * @param aConfirmationCallback
+     *            Called with a {@link Path} when a candidate location is found, should return <code>true</code> if the
+     *            candidate is the wanted installation. Calls are never concurrent.
+     */
+    GameInstallFinder(File aCacheFile, Consumer<String> aProgress, Callback<Path, Boolean> aConfirmationCallback) {
+        cacheFile = aCacheFile;
+        progress = aProgress;
+        confirmationCallback = aConfirmationCallback;
+
+        if (OS.isWindowsOrNewer(WindowsVersion.WIN_OLD)) {
+            skipNames.add("windows");
+            skipNames.add("users");
+            skipNames.add("$recycle.bin");
+        }
+        else {
+            // Assuming Unix based
+            for (final String path : new String[] { "/bin", "/boot", "/dev", "/etc", "/lib", "/lib64", "/proc", "/sys",
+                    "/run", "/sbin", "/tmp", "/usr" }) {
+                skipPaths.add(path);
+            }
+        }
+        loadCache();
+    }
+
+    /**
+     * Searches for a game installation.
+     *
+     * @param aCandidates
+     *            Locations to check before searching, typically the default install locations and
+     *            {@link #getLikelyInstallLocations()}.
+     * @param aRoots
+     *            The file system roots to search.
+     * @return The confirmed game install or {@link Optional#empty()} if none was found or confirmed.
+     */
+    Optional<Path> find(List<Path> aCandidates, List<Path> aRoots) {
+        try {
+            final List<Path> candidates = new ArrayList<>();
+            synchronized (this) {
+                knownInstalls.forEach(install -> candidates.add(Paths.get(install)));
+            }
+            candidates.addAll(aCandidates);
+            for (final Path candidate : candidates) {
+                if (GameVFS.isValidGameDirectory(candidate.toFile()) && confirm(candidate)) {
+                    return Optional.of(candidate);
+                }
+            }
+
+            final List<Path> subtrees = new ArrayList<>();
+            for (final Path root : aRoots) {
+                report(root);
+                if (GameVFS.isValidGameDirectory(root.toFile()) && confirm(root)) {
+                    return Optional.of(root);
+                }
+                for (final Path subtree : listSubdirectories(root)) {
+                    if (!isKnownEmpty(subtree)) {
+                        subtrees.add(subtree);
+                    }
+                }
+            }
+            // Most likely first so that they're started first.
+            subtrees.sort(BY_PRIORITY);
+            searchParallel(subtrees);
+            return Optional.ofNullable(gameRoot);
+        }
+        finally {
+            saveCache();
+        }
+    }
+
+    private boolean confirm(Path aCandidate) {
+        final Path candidate = aCandidate.toAbsolutePath();
+        synchronized (confirmLock) {
+            synchronized (this) {
+                if (null != gameRoot || rejected.contains(candidate)) {
+                    return false;
+                }
+            }
+
+            // The callback typically blocks on a dialog, don't hold the monitor while it does.
+            final boolean accepted = Boolean.TRUE.equals(confirmationCallback.call(candidate));
+
+            synchronized (this) {
+                if (!accepted) {
+                    rejected.add(candidate);
+                    return false;
+                }
+                gameRoot = candidate;
+                knownInstalls.remove(candidate.toString());
+                final Set<String> reordered = new LinkedHashSet<>();
+                reordered.add(candidate.toString());
+                reordered.addAll(knownInstalls);
+                knownInstalls.clear();
+                knownInstalls.addAll(reordered);
+                return true;
+            }
+        }
+    }
+
+    private synchronized boolean isKnownEmpty(Path aSubtree) {
+        final EmptySubtree empty = emptySubtrees.get(aSubtree.toAbsolutePath().toString());
+        return null != empty && empty.lastModified == aSubtree.toFile().lastModified()
+                && System.currentTimeMillis() - empty.searched < EMPTY_SUBTREE_TTL_MS;
+    }
+
+    private boolean isSkipped(Path aDir) {
+        final Path name = aDir.getFileName();
+        return null == name || skipNames.contains(name.toString().toLowerCase(Locale.ROOT))
+                || skipPaths.contains(aDir.toAbsolutePath().toString());
+    }
+
+    private List<Path> listSubdirectories(Path aDir) {
+        final List<Path> ans = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(aDir)) {
+            for (final Path child : stream) {
+                // Links are not followed to avoid cycles and searching the same tree twice.
+                if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS) && !isSkipped(child)) {
+                    ans.add(child);
+                }
+            }
+        }
+        catch (final IOException | DirectoryIteratorException | SecurityException e) {
+            // Can't be read, nothing to find here.
+        }
+        return ans;
+    }
+
+    private void loadCache() {
+        if (null == cacheFile || !cacheFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return;
+            }
+            final int numInstalls = in.readInt();
+            for (int i = 0; i < numInstalls; ++i) {
+                knownInstalls.add(in.readUTF());
+            }
+            final int numEmpty = in.readInt();
+            for (int i = 0; i < numEmpty; ++i) {
+                emptySubtrees.put(in.readUTF(), new EmptySubtree(in.readLong(), in.readLong()));
+            }
+        }
+        catch (final IOException e) {
+            // Broken or from an older format, just start over.
+            knownInstalls.clear();
+            emptySubtrees.clear();
+        }
+    }
+
+    private void report(Path aDir) {
+        final long now = System.nanoTime();
+        final long next = nextProgress.get();
+        if (now - next >= 0
+                && nextProgress.compareAndSet(next, now + TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MS))) {
+            progress.accept(aDir.toAbsolutePath().toString());
+        }
+    }
+
+    private synchronized void saveCache() {
+        if (null == cacheFile) {
+            return;
+        }
+        knownInstalls.removeIf(install -> !GameVFS.isValidGameDirectory(new File(install)));
+        final long now = System.currentTimeMillis();
+        emptySubtrees.values().removeIf(empty -> now - empty.searched >= EMPTY_SUBTREE_TTL_MS);
+
+        try {
+            final File parent = cacheFile.getAbsoluteFile().getParentFile();
+            if (null != parent && !parent.isDirectory() && !parent.mkdirs()) {
+                return;
+            }
+            // Write to a temporary file first so that a failed write doesn't destroy the old cache.
+            final File temp = new File(cacheFile.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(knownInstalls.size());
+                for (final String install : knownInstalls) {
+                    out.writeUTF(install);
+                }
+                out.writeInt(emptySubtrees.size());
+                for (final Map.Entry<String, EmptySubtree> entry : emptySubtrees.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().lastModified);
+                    out.writeLong(entry.getValue().searched);
+                }
+            }
+            Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (final IOException e) {
+            // The cache is only an optimisation, the next search will simply take longer.
+        }
+    }
+
+    /**
+     * Searches a directory and its children.
+     *
+     * @param aDir
+     *            The directory to search.
+     * @param aDepth
+     *            The depth of <code>aDir</code> below its root.
+     * @return <code>true</code> if the search ran to completion without finding any game install, confirmed or not.
+     */
+    private boolean search(Path aDir, int aDepth) {
+        if (null != gameRoot) {
+            return false;
+        }
+        report(aDir);
+        if (GameVFS.isValidGameDirectory(aDir.toFile())) {
+            confirm(aDir);
+            return false; // No need to look inside of a game install.
+        }
+        if (aDepth >= MAX_DEPTH) {
+            return true;
+        }
+
+        final List<Path> children = listSubdirectories(aDir);
+        children.sort(BY_PRIORITY);
+        boolean empty = true;
+        for (final Path child : children) {
+            empty &= search(child, aDepth + 1);
+        }
+        return empty && null == gameRoot;
+    }
+
+    private void searchParallel(List<Path> aSubtrees) {
+        if (aSubtrees.isEmpty()) {
+            return;
+        }
+        // The search is bound by disk I/O, not CPU, so it's worth having more threads than cores.
+        final int threads = Math.min(aSubtrees.size(), Math.max(4, Runtime.getRuntime().availableProcessors()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            final Thread thread = new Thread(r, "Game Install Search Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final Path subtree : aSubtrees) {
+                futures.add(executor.submit(() -> {
+                    final long lastModified = subtree.toFile().lastModified();
+                    if (search(subtree, 1)) {
+                        synchronized (this) {
+                            emptySubtrees.put(subtree.toAbsolutePath().toString(),
+                                    new EmptySubtree(lastModified, System.currentTimeMillis()));
+                        }
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (final Exception e) {
+            // Interrupted or a search task failed, return what we have.
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -19,21 +19,14 @@
 //@formatter:on
 package org.lisoft.lsml.model.database.gamedata;
 
-import static java.nio.file.FileVisitResult.CONTINUE;
-import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
-import static java.nio.file.FileVisitResult.TERMINATE;
-
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileSystems;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
@@ -48,8 +41,6 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
-import org.lisoft.lsml.util.OS;
-import org.lisoft.lsml.util.OS.WindowsVersion;
 import org.lisoft.lsml.view_fx.Settings;
 
 import javafx.application.Platform;
@@ -59,10 +50,12 @@ import javafx.util.Callback;
 
 /**
  * This class is a Virtual File System for finding data files in the game folder.
+ * <p>
+ * Each archive is opened at most once and kept open until the {@link GameVFS} is closed.
  *
  * @author Emily Björk
  */
-public class GameVFS {
+public class GameVFS implements AutoCloseable {
     /**
      * This structure contains information about a game file, its CRC, path and a stream for reading from it.
      *
@@ -101,7 +94,7 @@ public class GameVFS {
         }
 
         @Override
-        public void close() throws Exception {
+        public void close() throws IOException {
             stream.close();
         }
 
@@ -111,79 +104,6 @@ public class GameVFS {
         }
     }
 
-    static private class GameFinder extends SimpleFileVisitor<Path> {
-        private final Callback<Path, Boolean> confirmGameInstallCallback;
-        private final StringProperty currentFileReport;
-        public Path gameRoot = null;
-        private final Set<String> skipList = new HashSet<>();
-
-        private GameFinder(StringProperty aCurrentFileReport, Callback<Path, Boolean> aConfirmGameInstallCallback) {
-            currentFileReport = aCurrentFileReport;
-            confirmGameInstallCallback = aConfirmGameInstallCallback;
-
-            if (OS.isWindowsOrNewer(WindowsVersion.WIN_OLD)) {
-                skipList.add("windows");
-                skipList.add("users");
-                skipList.add("$recycle.bin");
-            }
-            else {
-                // Assuming Unix based
-                skipList.add("/bin");
-                skipList.add("/boot");
-                skipList.add("/dev");
-                skipList.add("/etc");
-                skipList.add("/lib");
-                skipList.add("/lib64");
-                skipList.add("/proc");
-                skipList.add("/sys");
-                skipList.add("/run");
-                skipList.add("/sbin");
-                skipList.add("/tmp");
-            }
-        }
-
-        @Override
-        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-            final Path fileName = dir.getFileName();
-            if (fileName != null) {
-                if (OS.isWindowsOrNewer(WindowsVersion.WIN_OLD)) {
-                    // On windows we can skip some folders
-                    if (skipList.contains(fileName.toString().toLowerCase())) {
-                        return SKIP_SUBTREE;
-                    }
-                }
-                else {
-                    if (skipList.contains(dir.toAbsolutePath().toString())) {
-                        return SKIP_SUBTREE;
-                    }
-                }
-
-                Platform.runLater(() -> {
-                    currentFileReport.set(dir.toAbsolutePath().toString());
-                });
-
-                if (isValidGameDirectory(dir.toFile()) && confirmGameInstallCallback.call(dir)) {
-                    gameRoot = dir;
-                    return TERMINATE;
-                }
-            }
-            return CONTINUE;
-        }
-
-        @Override
-        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-            return SKIP_SUBTREE;
-        }
-
-        @Override
-        public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-            if (file.toFile().isDirectory()) {
-                return SKIP_SUBTREE;
-            }
-            return CONTINUE;
-        }
-    }
-
     public static final File ITEM_STATS_XML = new File("Game/Libs/Items/ItemStats.xml");
     public static final File MDF_ROOT = new File("Game/mechs/Objects/mechs/");
     public static final File MECH_ID_MAP_XML = new File("Game/Libs/Items/MechIDMap.xml");
@@ -238,29 +158,27 @@ public class GameVFS {
      */
     public static boolean autoDetectGameInstall(Settings aSettings, StringProperty aCurrentFileReport,
             Callback<Path, Boolean> aConfirmationCallback) {
+        final File cacheFile = new File(Settings.getDefaultSettingsFile().getParentFile(), "gamesearch.dat");
+        final GameInstallFinder finder = new GameInstallFinder(cacheFile,
+                aDir -> Platform.runLater(() -> aCurrentFileReport.set(aDir)), aConfirmationCallback);
 
-        final GameFinder finder = new GameFinder(aCurrentFileReport, aConfirmationCallback);
+        final List<Path> roots = new ArrayList<>();
         for (final File root : File.listRoots()) {
-            try {
-                final int minDiskSize = 1500 * 1024 * 1024; // 1.5 GB minimum
-                                                            // disk space
-                                                            // required for MWO
-                final int minFreeSpace = 5 * 1024 * 1024; // Must have free
-                                                          // space (rules out
-                                                          // RO media)
-                if (root.getTotalSpace() > minDiskSize && root.getFreeSpace() > minFreeSpace) {
-                    Files.walkFileTree(root.toPath(), finder);
-                    if (null != finder.gameRoot) {
-                        final Property<String> installDir = aSettings.getString(Settings.CORE_GAME_DIRECTORY);
-                        installDir.setValue(finder.gameRoot.toAbsolutePath().toString());
-                        return true;
-                    }
-                }
-            }
-            catch (final IOException e) {
-                // Ignore and continue search.
+            final long minDiskSize = 1500L * 1024 * 1024; // 1.5 GB minimum disk space required for MWO
+            final long minFreeSpace = 5L * 1024 * 1024; // Must have free space (rules out RO media)
+            if (root.getTotalSpace() > minDiskSize && root.getFreeSpace() > minFreeSpace) {
+                roots.add(root.toPath());
             }
         }
+
+        final List<Path> candidates = getDefaultGameFileLocations();
+        candidates.addAll(GameInstallFinder.getLikelyInstallLocations());
+        final Optional<Path> gameRoot = finder.find(candidates, roots);
+        if (gameRoot.isPresent()) {
+            final Property<String> installDir = aSettings.getString(Settings.CORE_GAME_DIRECTORY);
+            installDir.setValue(gameRoot.get().toAbsolutePath().toString());
+            return true;
+        }
         return false;
     }
 
@@ -298,7 +216,24 @@ public class GameVFS {
         return aFile.isFile() && name.endsWith(".pak") && !name.contains("french");
     }
 
-    private final Map<File, File> file2archive = new HashMap<>();
+    /**
+     * Where a game file is found: the archive and the exact (case sensitive) name of the entry in the archive.
+     */
+    private static class ArchiveEntry {
+        final File archive;
+        final GameArchiveIndex.Entry entry;
+
+        ArchiveEntry(File aArchive, GameArchiveIndex.Entry aEntry) {
+            archive = aArchive;
+            entry = aEntry;
+        }
+    }
+
+    // Keyed by canonical, case folded, game local path.
+    private final Map<File, ArchiveEntry> file2archive = new HashMap<>();
+    private final Set<File> indexedArchives = new HashSet<>();
+    private final Map<File, ZipFile> openArchives = new HashMap<>();
+    private final GameArchiveIndex archiveIndex;
 
     private final Path gamePath;
 
@@ -312,12 +247,71 @@ public class GameVFS {
      *             Throw in an error was encountered wile initialising the VFS.
      */
     public GameVFS(File gameDir) throws IOException {
+        this(gameDir, null);
+    }
+
+    /**
+     * Creates a new virtual file system for game files in the given directory which must be a valid game install. See
+     * {@link GameVFS#isValidGameDirectory(File)}.
+     * <p>
+     * The contents of the game archives are remembered in the given index file between instances. An archive is only
+     * re-indexed if its size or modification time has changed.
+     *
+     * @param gameDir
+     *            The {@link File} where the game directory is.
+     * @param aIndexFile
+     *            A {@link File} to persist the archive index in, or <code>null</code> to not persist the index.
+     * @throws IOException
+     *             Throw in an error was encountered wile initialising the VFS.
+     */
+    public GameVFS(File gameDir, File aIndexFile) throws IOException {
         if (isValidGameDirectory(gameDir)) {
             gamePath = gameDir.toPath();
         }
         else {
             throw new FileNotFoundException("Not a valid game directory!");
         }
+        archiveIndex = GameArchiveIndex.load(aIndexFile);
+    }
+
+    /**
+     * Closes all archives that have been opened by this {@link GameVFS} and saves the archive index, if one is used.
+     * {@link GameFile}s that have already been opened remain valid.
+     *
+     * @throws IOException
+     *             if an archive couldn't be closed or the index couldn't be saved.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        synchronized (openArchives) {
+            for (final ZipFile zipFile : openArchives.values()) {
+                try {
+                    zipFile.close();
+                }
+                catch (final IOException e) {
+                    failure = e;
+                }
+            }
+            openArchives.clear();
+        }
+        archiveIndex.save();
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Looks up the CRC32 of a game file without reading the file itself.
+     *
+     * @param aGameLocalPath
+     *            The path to the file, see {@link #openGameFile(File)}.
+     * @return The CRC32 of the file, as found in the archive.
+     * @throws IOException
+     *             if the game file couldn't be found.
+     */
+    public long getCrc32(File aGameLocalPath) throws IOException {
+        return findGameFile(aGameLocalPath).entry.crc32;
     }
 
     /**
@@ -344,6 +338,8 @@ public class GameVFS {
 
     /**
      * Will open an input stream to the given game data file.
+     * <p>
+     * This method is safe to call from multiple threads concurrently.
      *
      * @param aGameLocalPath
      *            The path to the file to open, with archive file names expanded. For example
@@ -355,40 +351,37 @@ public class GameVFS {
      *             if the game file couldn't be extracted from the pak file.
      */
     public GameFile openGameFile(File aGameLocalPath) throws ZipException, IOException {
-        final Optional<File> sourceArchive = findArchiveForFile(aGameLocalPath, gamePath.toFile());
-        if (!sourceArchive.isPresent()) {
-            throw new IOException("Failed to find sought for file (" + aGameLocalPath + ") in the game files!");
+        final ArchiveEntry archiveEntry = findGameFile(aGameLocalPath);
+
+        // The index stores the exact entry name, so there is no need to look for a case-insensitive match.
+        final ZipFile zipFile = openArchive(archiveEntry.archive);
+        final ZipEntry entry = zipFile.getEntry(archiveEntry.entry.name);
+        if (null == entry) {
+            throw new IOException("Unable to find previously found file!?!?!");
         }
+        return new GameFile(zipFile, entry, aGameLocalPath.toString());
+    }
 
-        try (ZipFile zipFile = new ZipFile(sourceArchive.get())) {
-
-            String archivePath = gamePath.relativize(sourceArchive.get().getParentFile().toPath())
-                    .relativize(aGameLocalPath.toPath()).toString();
-            archivePath = archivePath.replaceAll("\\\\", "/"); // Canonicalise
-                                                               // to Unix file
-                                                               // system
-                                                               // separator.
-
-            ZipEntry entry = zipFile.getEntry(archivePath);
-            if (null == entry) {
-                final Enumeration<? extends ZipEntry> entries = zipFile.entries();
-                // Apparently PGI is still as lousy as ever at being consistent
-                // with case so, manually check if we can
-                // find a case-insensitive match before giving up
-                while (entries.hasMoreElements()) {
-                    final ZipEntry nextEntry = entries.nextElement();
-                    final String next = nextEntry.getName();
-                    if (archivePath.equalsIgnoreCase(next)) {
-                        entry = nextEntry;
-                        break;
-                    }
-                }
-                if (null == entry) {
-                    throw new IOException("Unable to find previously found file!?!?!");
-                }
-            }
-            return new GameFile(zipFile, entry, aGameLocalPath.toString());
+    /**
+     * Like {@link #openGameFile(File)} but the returned stream inflates the file straight from the archive as it is
+     * read instead of inflating all of it to memory first. The caller must close the returned {@link GameFile} before
+     * this {@link GameVFS} is closed.
+     *
+     * @param aGameLocalPath
+     *            The path to the file to open, see {@link #openGameFile(File)}.
+     * @return A {@link GameFile} with a stream that reads from the archive.
+     * @throws IOException
+     *             if the game file couldn't be read.
+     */
+    public GameFile streamGameFile(File aGameLocalPath) throws IOException {
+        final ArchiveEntry archiveEntry = findGameFile(aGameLocalPath);
+        final ZipFile zipFile = openArchive(archiveEntry.archive);
+        final ZipEntry entry = zipFile.getEntry(archiveEntry.entry.name);
+        if (null == entry) {
+            throw new IOException("Unable to find previously found file!?!?!");
         }
+        return new GameFile(new BufferedInputStream(zipFile.getInputStream(entry)), entry.getCrc(),
+                aGameLocalPath.toString());
     }
 
     public Collection<GameFile> openGameFiles(Collection<File> aFiles) throws ZipException, IOException {
@@ -408,31 +401,31 @@ public class GameVFS {
         return new File(aFile.toString().toLowerCase(Locale.US));
     }
 
-    private void cacheArchive(File aFileInArchive, File aArchive) {
-        file2archive.put(canonicalizePath(aFileInArchive), aArchive);
-    }
-
-    private File getCachedArchive(File aFileInArchive) {
-        return file2archive.get(canonicalizePath(aFileInArchive));
-    }
-
     private void cacheContentsOfArchive(File aArchive, File aRelativeBasePath) throws ZipException, IOException {
-        try (ZipFile zipFile = new ZipFile(aArchive)) {
-            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
-            while (entries.hasMoreElements()) {
-                final File fileInArchive = new File(aRelativeBasePath, entries.nextElement().toString());
-                cacheArchive(fileInArchive, aArchive);
+        List<GameArchiveIndex.Entry> entries = archiveIndex.get(aArchive).orElse(null);
+        if (null == entries) {
+            entries = new ArrayList<>();
+            final Enumeration<? extends ZipEntry> zipEntries = openArchive(aArchive).entries();
+            while (zipEntries.hasMoreElements()) {
+                final ZipEntry zipEntry = zipEntries.nextElement();
+                entries.add(new GameArchiveIndex.Entry(zipEntry.getName(), zipEntry.getCrc()));
             }
+            archiveIndex.put(aArchive, entries);
+        }
+
+        for (final GameArchiveIndex.Entry entry : entries) {
+            final File fileInArchive = new File(aRelativeBasePath, entry.name);
+            file2archive.put(canonicalizePath(fileInArchive), new ArchiveEntry(aArchive, entry));
         }
+        indexedArchives.add(aArchive);
     }
 
-    private Optional<File> findArchiveForFile(File aGameLocalPath, File aSearchRoot) throws IOException {
-        final File sourceArchive = getCachedArchive(aGameLocalPath);
+    private Optional<ArchiveEntry> findArchiveForFile(File aGameLocalPath, File aSearchRoot) throws IOException {
+        final ArchiveEntry sourceArchive = file2archive.get(canonicalizePath(aGameLocalPath));
         if (null != sourceArchive) {
             return Optional.of(sourceArchive);
         }
 
-        final Collection<File> visitedArchives = file2archive.values();
         final Path relativePath = gamePath.relativize(aSearchRoot.toPath());
 
         final File[] listFiles = aSearchRoot.listFiles();
@@ -442,20 +435,44 @@ public class GameVFS {
 
         for (final File fileOnDisk : listFiles) {
             if (fileOnDisk.isDirectory()) {
-                final Optional<File> file = findArchiveForFile(aGameLocalPath, fileOnDisk);
+                final Optional<ArchiveEntry> file = findArchiveForFile(aGameLocalPath, fileOnDisk);
                 if (file.isPresent()) {
                     return file;
                 }
             }
             else {
-                if (isArchive(fileOnDisk) && !visitedArchives.contains(fileOnDisk)) {
+                if (isArchive(fileOnDisk) && !indexedArchives.contains(fileOnDisk)) {
                     cacheContentsOfArchive(fileOnDisk, relativePath.toFile());
-                    if (null != getCachedArchive(aGameLocalPath)) {
-                        return Optional.of(fileOnDisk);
+                    final ArchiveEntry found = file2archive.get(canonicalizePath(aGameLocalPath));
+                    if (null != found) {
+                        return Optional.of(found);
                     }
                 }
             }
         }
         return Optional.empty();
     }
+
+    private ArchiveEntry findGameFile(File aGameLocalPath) throws IOException {
+        final Optional<ArchiveEntry> archiveEntry;
+        synchronized (file2archive) {
+            // The index is populated lazily, the actual inflation of files can run concurrently.
+            archiveEntry = findArchiveForFile(aGameLocalPath, gamePath.toFile());
+        }
+        if (!archiveEntry.isPresent()) {
+            throw new IOException("Failed to find sought for file (" + aGameLocalPath + ") in the game files!");
+        }
+        return archiveEntry.get();
+    }
+
+    private ZipFile openArchive(File aArchive) throws IOException {
+        synchronized (openArchives) {
+            ZipFile zipFile = openArchives.get(aArchive);
+            if (null == zipFile) {
+                zipFile = new ZipFile(aArchive);
+                openArchives.put(aArchive, zipFile);
+            }
+            return zipFile;
+        }
+    }
 }
@@ -21,13 +21,12 @@ package org.lisoft.lsml.model.database.gamedata;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.lisoft.lsml.model.database.Database;
-import org.lisoft.lsml.model.database.gamedata.helpers.Workbook;
-
-import com.thoughtworks.xstream.XStream;
 
 /**
  * This class will provide localization (and implicitly all naming) of items through the MWO data files.
@@ -39,114 +38,105 @@ import com.thoughtworks.xstream.XStream;
  * @author Emily
  */
 public class Localisation {
-    private static Map<String, String> key2string = null;
+    /**
+     * The game file that the localisation is read from.
+     */
+    public static final File LOCALISATION_XML = new File("Game/Localized/Languages/TheRealLoc.xml");
+
+    // They've mistaken an l (ell) for an 1 (one)
+    private static final Pattern MK_TYPO = Pattern.compile("_mkl", Pattern.LITERAL);
+    // The lookahead leaves the trailing underscore for the next match. Unlike the old one-suffix-at-a-time replacement
+    // this shortens every suffix in a run like "_longrange_longrange_", table keys and lookups are canonised alike.
+    private static final Pattern SUFFIXES = Pattern.compile("_(multiplier|additive|longrange(?=_)|maxrange(?=_))");
+    private static final Map<String, String> canonCache = new ConcurrentHashMap<>();
+
+    private static LocalisationTable table = null;
 
     public static void initialize(GameVFS aGameVFS) throws IOException {
-        key2string = new HashMap<>();
+        initialize(aGameVFS, null);
+    }
 
-        final File[] files = new File[] { new File("Game/Localized/Languages/TheRealLoc.xml") };
-        /*
-         * , new File("Game/Localized/Languages/ui_Mech_Loc.xml"), new File("Game/Localized/Languages/General.xml"), new
-         * File("Game/Localized/Languages/Mechlab.xml"), new File("Game/Localized/Languages/text_ui_menus.xml")};
-         */
-        /*
-         * for(File file : files){ try{ XmlReader reader = new XmlReader(dataFile.openGameFile(file)); for(Element row :
-         * reader.getElementsByTagName("Row")){ List<Element> cells = reader.getElementsByTagName("Cell", row); if(
-         * cells.size() < 3 || !cells.get(0).getAttribute("ss:Index").equals("2") ){ continue; } List<Element> data0 =
-         * reader.getElementsByTagName("Data", cells.get(0)); List<Element> data2 = reader.getElementsByTagName("Data",
-         * cells.get(2)); if( data0.size() != 1 || data2.size() != 1 ){ continue; } String tag0 =
-         * canonize(reader.getTagValue("Data", cells.get(0))); String tag2 = reader.getTagValue("Data", cells.get(2));
-         * key2string.put(tag0, tag2); System.out.println(file + " ## " + tag0 + " = " + tag2); } } catch( Exception e
-         * ){ throw new RuntimeException(e); } }
-         */
+    /**
+     * Initialises the localisation from the given game files.
+     *
+     * @param aGameVFS
+     *            The {@link GameVFS} to read the localisation from.
+     * @param aCacheFile
+     *            A file to keep the parsed localisation in between runs, may be <code>null</code>. If the file was
+     *            written from the same version of the localisation workbook, the workbook isn't read at all.
+     * @throws IOException
+     *             if the localisation couldn't be read.
+     */
+    public static void initialize(GameVFS aGameVFS, File aCacheFile) throws IOException {
+        final long crc = aGameVFS.getCrc32(LOCALISATION_XML);
+        final LocalisationTable cached = LocalisationTable.load(aCacheFile, crc).orElse(null);
+        if (null != cached) {
+            table = cached;
+            return;
+        }
 
-        final XStream xstream = Database.makeMwoSuitableXStream();
-        xstream.alias("Workbook", Workbook.class);
-        for (final File file : files) {
-            final Workbook workbook = (Workbook) xstream.fromXML(aGameVFS.openGameFile(file).stream);
-            for (final Workbook.Worksheet.Table.Row row : workbook.Worksheet.Table.rows) { // Skip past junk
-                if (row.cells == null || row.cells.size() < 1) {
-                    // debugprintrow(row);
-                    continue;
-                }
-                if (row.cells.get(0).Data == null) {
-                    // debugprintrow(row);
-                    continue;
-                }
-                if (row.cells.size() >= 2) {
-                    final String key = row.cells.get(0).Data;
-                    final String data = row.cells.get(1).Data;
-                    if (data == null || data.length() < 2) {
-                        debugprintrow(row);
-                    }
-                    final String canonname = canonize(key);
-                    key2string.put(canonname, data);
-                }
-                else {
-                    debugprintrow(row); // Debug Breakpoint
-                }
+        // The keys of the workbook are only canonised once, don't fill the lookup cache with them.
+        table = LocalisationTable.read(aGameVFS.streamGameFile(LOCALISATION_XML), Localisation::computeCanonical);
+
+        if (null != aCacheFile) {
+            try {
+                table.save(aCacheFile);
+            }
+            catch (final IOException e) {
+                // Not fatal, the workbook will just be read again next time.
             }
         }
-
     }
 
     public static String key2string(String aKey) {
         final String canon = canonize(aKey);
-        if (!key2string.containsKey(canon)) {
+        if (!table.contains(canon)) {
             if (aKey.contains("_desc")) {
                 return "Empty Description";
             }
 
             throw new IllegalArgumentException("No such key found!: " + canon);
         }
-        return key2string.get(canon);
+        return table.get(canon);
     }
 
     private static String canonize(String aKey) {
-        String canonized = aKey;
-        // We need to normalize MKII -> MK2 etc
-        canonized = canonized.toLowerCase();
+        return canonCache.computeIfAbsent(aKey, Localisation::computeCanonical);
+    }
+
+    private static String computeCanonical(String aKey) {
+        // Keys with "_mk" in them keep their case, the keys in the table are canonised the same way so they match.
+        String canonized;
         if (aKey.contains("_mk")) {
-            canonized = aKey.replaceAll("_mkvi", "_mk6");
-            canonized = aKey.replaceAll("_mkv", "_mk5");
-            canonized = aKey.replaceAll("_mkiv", "_mk4");
-            canonized = aKey.replaceAll("_mkiii", "_mk3");
-            canonized = aKey.replaceAll("_mkii", "_mk2");
-            canonized = aKey.replaceAll("_mki", "_mk1");
-            canonized = aKey.replaceAll("_mkl", "_mk1"); // They've mistaken an l (ell) for an 1 (one)
+            canonized = MK_TYPO.matcher(aKey).replaceAll("_mk1");
+        }
+        else {
+            canonized = aKey.toLowerCase();
         }
 
-        canonized = canonized.replaceAll("_multiplier", "_mult");
-        canonized = canonized.replaceAll("_additive", "_add");
-        canonized = canonized.replaceAll("_longrange_", "_range_");
-        canonized = canonized.replaceAll("_maxrange_", "_range_");
-
-        // canonized = canonized.replace("gaussrifle", "gauss");
-        // canonized = canonized.replace("largelaser", "ll");
-        // canonized = canonized.replace("largepulselaser", "lpl");
-        // canonized = canonized.replace("mediumlaser", "ml");
-        // canonized = canonized.replace("mediumpulselaser", "mpl");
-        // canonized = canonized.replace("smalllaser", "sl");
-        // canonized = canonized.replace("smallpulselaser", "spl");
-        // canonized = canonized.replace("autocannon", "ac");
-        // canonized = canonized.replace("multiplier", "mult");
-        // canonized = canonized.replace("additive", "add");
+        final Matcher matcher = SUFFIXES.matcher(canonized);
+        if (matcher.find()) {
+            final StringBuilder sb = new StringBuilder(canonized.length());
+            do {
+                switch (matcher.group(1)) {
+                    case "multiplier":
+                        matcher.appendReplacement(sb, "_mult");
+                        break;
+                    case "additive":
+                        matcher.appendReplacement(sb, "_add");
+                        break;
+                    default:
+                        matcher.appendReplacement(sb, "_range");
+                        break;
+                }
+            } while (matcher.find());
+            matcher.appendTail(sb);
+            canonized = sb.toString();
+        }
 
         if (!canonized.startsWith("@")) {
             canonized = "@" + canonized;
         }
-
         return canonized;
     }
-
-    @SuppressWarnings("unused")
-    static private void debugprintrow(Workbook.Worksheet.Table.Row row) {
-        // if( row.cells != null ){
-        // System.out.print("{");
-        // for(Workbook.Worksheet.Table.Row.Cell cell : row.cells){
-        // System.out.print(cell.Data + "##");
-        // }
-        // System.out.println("}");
-        // }
-    }
 }
@@ -0,0 +1,259 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database.gamedata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import org.lisoft.lsml.model.database.gamedata.GameVFS.GameFile;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.naming.NoNameCoder;
+import com.thoughtworks.xstream.io.xml.XppDriver;
+
+/**
+ * An immutable table of localised strings, keyed by canonical key.
+ * <p>
+ * The table is read from the localisation workbook one row at a time, without binding the workbook to objects. It is
+ * stored as two sorted arrays where equal strings share one instance. The table can be written to disk together with
+ * the CRC of the workbook it was read from so that the workbook doesn't have to be read again until it changes.
+ *
+ * @author Emily Björk
+ */
+class LocalisationTable {
+    private static final int MAGIC = 0x4C534D4C; // "LSML"
+    // Bump this if the key canonisation changes, the stored keys are canonical.
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Loads a table that has previously been written with {@link #save(File)}.
+     *
+     * @param aFile
+     *            The file to load from, may be <code>null</code>.
+     * @param aSourceCrc
+     *            The CRC of the current localisation workbook.
+     * @return The table, or {@link Optional#empty()} if the file doesn't exist, can't be read or was made from a
+     *         different workbook.
+     */
+    static Optional<LocalisationTable> load(File aFile, long aSourceCrc) {
+        if (null == aFile || !aFile.isFile()) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(aFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != aSourceCrc) {
+                return Optional.empty();
+            }
+            final int size = in.readInt();
+            final String[] keys = new String[size];
+            final String[] values = new String[size];
+            final Map<String, String> interned = new HashMap<>();
+            for (int i = 0; i < size; ++i) {
+                keys[i] = readString(in);
+                values[i] = intern(interned, readString(in));
+            }
+            return Optional.of(new LocalisationTable(aSourceCrc, keys, values));
+        }
+        catch (final IOException e) {
+            return Optional.empty(); // Broken or from an older format, read the workbook instead.
+        }
+    }
+
+    /**
+     * Reads a table from a localisation workbook. The first cell of each row is the key, the second the value. Rows
+     * with fewer than two cells or without a key are skipped.
+     *
+     * @param aGameFile
+     *            The workbook to read, the stream is read to the end and closed.
+     * @param aCanonizer
+     *            The function to canonise the keys with.
+     * @return A new {@link LocalisationTable}.
+     */
+    static LocalisationTable read(GameFile aGameFile, UnaryOperator<String> aCanonizer) {
+        final Map<String, String> key2string = new HashMap<>();
+        final Map<String, String> interned = new HashMap<>();
+        final HierarchicalStreamReader reader = new XppDriver(new NoNameCoder()).createReader(aGameFile.stream);
+        try {
+            forEachChild(reader, "Worksheet", () -> {
+                forEachChild(reader, "Table", () -> {
+                    forEachChild(reader, "Row", () -> {
+                        final String[] row = readRow(reader);
+                        if (null != row) {
+                            key2string.put(aCanonizer.apply(row[0]), intern(interned, row[1]));
+                        }
+                    });
+                });
+            });
+        }
+        finally {
+            reader.close();
+        }
+
+        final String[] keys = key2string.keySet().toArray(new String[key2string.size()]);
+        Arrays.sort(keys);
+        final String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; ++i) {
+            values[i] = key2string.get(keys[i]);
+        }
+        return new LocalisationTable(aGameFile.crc32, keys, values);
+    }
+
+    private static void forEachChild(HierarchicalStreamReader aReader, String aName, Runnable aAction) {
+        while (aReader.hasMoreChildren()) {
+            aReader.moveDown();
+            if (aName.equals(aReader.getNodeName())) {
+                aAction.run();
+            }
+            aReader.moveUp();
+        }
+    }
+
+    private static String intern(Map<String, String> aInterned, String aString) {
+        if (null == aString) {
+            return null;
+        }
+        return aInterned.computeIfAbsent(aString, s -> s);
+    }
+
+    private static String readString(DataInputStream aIn) throws IOException {
+        final int length = aIn.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        aIn.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the data of the first two cells of a row.
+     *
+     * @return The key and the value, the value may be <code>null</code>. Or <code>null</code> if the row has no key or
+     *         fewer than two cells.
+     */
+    private static String[] readRow(HierarchicalStreamReader aReader) {
+        final String[] data = new String[2];
+        final int[] cells = new int[1];
+        forEachChild(aReader, "Cell", () -> {
+            if (cells[0] < data.length) {
+                final int cell = cells[0];
+                forEachChild(aReader, "Data", () -> data[cell] = aReader.getValue());
+            }
+            cells[0]++;
+        });
+        return cells[0] < 2 || null == data[0] ? null : data;
+    }
+
+    private static void writeString(DataOutputStream aOut, String aString) throws IOException {
+        if (null == aString) {
+            aOut.writeInt(-1);
+        }
+        else {
+            final byte[] bytes = aString.getBytes(StandardCharsets.UTF_8);
+            aOut.writeInt(bytes.length);
+            aOut.write(bytes);
+        }
+    }
+
+    private final long sourceCrc;
+    private final String[] keys;
+    private final String[] values;
+
+    private LocalisationTable(long aSourceCrc, String[] aKeys, String[] aValues) {
+        sourceCrc = aSourceCrc;
+        keys = aKeys;
+        values = aValues;
+    }
+
+    /**
+     * @param aCanonicalKey
+     *            The canonical key to look for.
+     * @return <code>true</code> if the table has the key, its value may still be <code>null</code>.
+     */
+    boolean contains(String aCanonicalKey) {
+        return Arrays.binarySearch(keys, aCanonicalKey) >= 0;
+    }
+
+    /**
+     * @param aCanonicalKey
+     *            The canonical key to look up.
+     * @return The localised string for the key or <code>null</code> if there is none.
+     */
+    String get(String aCanonicalKey) {
+        final int index = Arrays.binarySearch(keys, aCanonicalKey);
+        return index >= 0 ? values[index] : null;
+    }
+
+    /**
+     * @return The CRC of the workbook that this table was read from.
+     */
+    long getSourceCrc() {
+        return sourceCrc;
+    }
+
+    /**
+     * @return The number of keys in the table.
+     */
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Writes the table to disk so that it can be loaded with {@link #load(File, long)}.
+     *
+     * @param aFile
+     *            The file to write to.
+     * @throws IOException
+     *             if the table couldn't be written.
+     */
+    void save(File aFile) throws IOException {
+        final File parent = aFile.getAbsoluteFile().getParentFile();
+        if (null != parent && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory: " + parent);
+        }
+
+        // Write to a temporary file first so that a failed write doesn't leave a truncated table behind.
+        final File temp = new File(aFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(sourceCrc);
+            out.writeInt(keys.length);
+            for (int i = 0; i < keys.length; ++i) {
+                writeString(out, keys[i]);
+                writeString(out, values[i]);
+            }
+        }
+        Files.move(temp.toPath(), aFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
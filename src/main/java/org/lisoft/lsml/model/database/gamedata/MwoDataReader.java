@@ -27,14 +27,19 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -87,6 +92,101 @@ import com.thoughtworks.xstream.XStream;
  * @author Emily Björk
  */
 public class MwoDataReader {
+    /**
+     * A map of {@link ModifierDescription}s that is handed to one forked parse task. All descriptions are created
+     * through a shared, concurrent map so that every task sees the same instances, while this map remembers in which
+     * order this task encountered them. Merging the recorders in input order reproduces the insertion order, and thus
+     * the iteration order, of a serial parse.
+     *
+     * @author Emily Björk
+     */
+    private static class DescriptionRecorder extends LinkedHashMap<String, ModifierDescription> {
+        private static final long serialVersionUID = 1L;
+        private final Map<String, ModifierDescription> shared;
+
+        DescriptionRecorder(Map<String, ModifierDescription> aShared) {
+            shared = aShared;
+        }
+
+        @Override
+        public ModifierDescription computeIfAbsent(String aKey,
+                Function<? super String, ? extends ModifierDescription> aMappingFunction) {
+            return super.computeIfAbsent(aKey, k -> shared.computeIfAbsent(k, aMappingFunction));
+        }
+
+        void mergeInto(Map<String, ModifierDescription> aTarget) {
+            for (final Map.Entry<String, ModifierDescription> entry : entrySet()) {
+                aTarget.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * A task that parses one independent unit of game data, typically one file or a small group of files.
+     *
+     * @param <T>
+     *            The type of the input to the parse.
+     * @param <R>
+     *            The type of the parse result.
+     */
+    @FunctionalInterface
+    private interface ParseTask<T, R> {
+        R parse(T aInput) throws Exception;
+    }
+
+    /**
+     * Runs a {@link ParseTask} on the common fork-join pool and captures any failure so that it can be re-thrown from
+     * the calling thread, in input order.
+     */
+    private static class ForkedParse<T, R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+        private final T input;
+        private final ParseTask<T, R> task;
+        private Exception failure;
+
+        ForkedParse(T aInput, ParseTask<T, R> aTask) {
+            input = aInput;
+            task = aTask;
+        }
+
+        @Override
+        protected R compute() {
+            try {
+                return task.parse(input);
+            }
+            catch (final Exception e) {
+                failure = e;
+                return null;
+            }
+        }
+
+        R result() throws Exception {
+            final R result = join();
+            if (null != failure) {
+                throw failure;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The result of parsing one entity together with the {@link ModifierDescription}s it created and the files it was
+     * parsed from.
+     */
+    private static class Parsed<R> {
+        final String entity;
+        final R value;
+        final DescriptionRecorder descriptions;
+        final SourceTracker.Sources sources;
+
+        Parsed(String aEntity, R aValue, DescriptionRecorder aDescriptions, SourceTracker.Sources aSources) {
+            entity = aEntity;
+            value = aValue;
+            descriptions = aDescriptions;
+            sources = aSources;
+        }
+    }
+
     private final static List<File> FILES_TO_PARSE = Arrays.asList(new File("Game/Libs/Items/Weapons/Weapons.xml"),
             new File("Game/Libs/Items/UpgradeTypes/UpgradeTypes.xml"), new File("Game/Libs/Items/Modules/Ammo.xml"),
             new File("Game/Libs/Items/Modules/Engines.xml"), new File("Game/Libs/Items/Modules/Equipment.xml"),
@@ -95,6 +195,13 @@ public class MwoDataReader {
             new File("Game/Libs/Items/Modules/Consumables.xml"), new File("Game/Libs/Items/Modules/MASC.xml"),
             new File("Game/Libs/Items/Mechs/Mechs.xml"), new File("Game/Libs/Items/OmniPods.xml"));
 
+    /**
+     * Files that, like {@link #FILES_TO_PARSE}, every entity depends on. If any of these change, everything must be
+     * parsed again.
+     */
+    private final static List<File> GLOBAL_FILES = Arrays.asList(GameVFS.MECH_ID_MAP_XML,
+            Localisation.LOCALISATION_XML);
+
     public static Item findItem(int aItemId, List<Item> aItems) {
         for (final Item item : aItems) {
             if (item.getId() == aItemId) {
@@ -125,15 +232,136 @@ public class MwoDataReader {
 
     private final String runningVersion;
     private final ErrorReporter errorReporter;
+    private final File archiveIndexFile;
+    private final File localisationFile;
+
+    /**
+     * Forks one task per input onto the common fork-join pool.
+     *
+     * @param aInputs
+     *            The inputs to fork tasks for.
+     * @param aTask
+     *            The {@link ParseTask} to run for each input.
+     * @return The forked tasks, in the same order as the inputs.
+     */
+    private static <T, R> List<ForkedParse<T, R>> fork(Collection<T> aInputs, ParseTask<T, R> aTask) {
+        final List<ForkedParse<T, R>> ans = new ArrayList<>(aInputs.size());
+        for (final T input : aInputs) {
+            final ForkedParse<T, R> forked = new ForkedParse<>(input, aTask);
+            forked.fork();
+            ans.add(forked);
+        }
+        return ans;
+    }
 
+    /**
+     * Waits for all the given tasks and collects their results in order. If any task failed, the failure of the first
+     * failed task in input order is thrown so that errors are reported the same regardless of scheduling.
+     *
+     * @param aTasks
+     *            The tasks to join.
+     * @return A {@link List} with the results of the tasks, in the same order as the tasks.
+     * @throws Exception
+     *             The exception thrown by the first failed task.
+     */
+    private static <T, R> List<R> join(List<ForkedParse<T, R>> aTasks) throws Exception {
+        final List<R> ans = new ArrayList<>(aTasks.size());
+        for (final ForkedParse<T, R> task : aTasks) {
+            ans.add(task.result());
+        }
+        return ans;
+    }
+
+    /**
+     * Merges the results of parse tasks in order. The modifier descriptions each task created are added and the
+     * source files of each parsed entity are recorded.
+     *
+     * @param aParsed
+     *            The results to merge.
+     * @param aModifierDescriptions
+     *            The map of all {@link ModifierDescription}s to add the descriptions from each result to.
+     * @param aTracker
+     *            The {@link SourceTracker} to record the source files of the entities in.
+     * @return The non-<code>null</code> values of the results, in order.
+     */
+    private static <R> List<R> merge(List<Parsed<R>> aParsed, Map<String, ModifierDescription> aModifierDescriptions,
+            SourceTracker aTracker) {
+        final List<R> ans = new ArrayList<>(aParsed.size());
+        for (final Parsed<R> parsed : aParsed) {
+            if (null != parsed.descriptions) {
+                parsed.descriptions.mergeInto(aModifierDescriptions);
+            }
+            aTracker.record(parsed.entity, parsed.sources);
+            if (null != parsed.value) {
+                ans.add(parsed.value);
+            }
+        }
+        return ans;
+    }
+
+    /**
+     * Replaces objects in a previously parsed list with newly parsed objects that have the same ID. Objects with new
+     * IDs are appended at the end.
+     *
+     * @param aPrevious
+     *            The previously parsed objects.
+     * @param aParsed
+     *            The newly parsed objects.
+     * @param aRemoved
+     *            IDs of previous objects that should be removed.
+     * @return A new {@link List} with the objects merged.
+     */
+    private static <T extends MwoObject> List<T> replaceById(List<T> aPrevious, List<T> aParsed,
+            Set<Integer> aRemoved) {
+        final Map<Integer, T> parsedById = new LinkedHashMap<>();
+        for (final T parsed : aParsed) {
+            parsedById.put(parsed.getId(), parsed);
+        }
+
+        final List<T> ans = new ArrayList<>(aPrevious.size() + aParsed.size());
+        for (final T previous : aPrevious) {
+            final T replacement = parsedById.remove(previous.getId());
+            if (null != replacement) {
+                ans.add(replacement);
+            }
+            else if (!aRemoved.contains(previous.getId())) {
+                ans.add(previous);
+            }
+        }
+        ans.addAll(parsedById.values());
+        return ans;
+    }
+
+    /**
+     * Creates a new {@link MwoDataReader}.
+     *
+     * @param aRunningVersion
+     *            The version of LSML that is running, will be recorded in the produced {@link Database}.
+     * @param aErrorReporter
+     *            An {@link ErrorReporter} to report parse errors to.
+     * @param aArchiveIndexFile
+     *            A file where the index of the game archives is kept between runs, see
+     *            {@link GameVFS#GameVFS(File, File)}.
+     * @param aLocalisationFile
+     *            A file where the parsed localisation is kept between runs, see
+     *            {@link Localisation#initialize(GameVFS, File)}.
+     */
     @Inject
-    public MwoDataReader(@Named("version") String aRunningVersion, ErrorReporter aErrorReporter) {
+    public MwoDataReader(@Named("version") String aRunningVersion, ErrorReporter aErrorReporter,
+            @Named("gameindex") File aArchiveIndexFile, @Named("localisation") File aLocalisationFile) {
         runningVersion = aRunningVersion;
         errorReporter = aErrorReporter;
+        archiveIndexFile = aArchiveIndexFile;
+        localisationFile = aLocalisationFile;
     }
 
     /**
      * Reads the latest data from the game files and creates a new database.
+     * <p>
+     * Items, modules and upgrades are parsed first as everything else refers to them. After that the omnipods,
+     * chassis, stock loadouts and environments are parsed one file per task on the common fork-join pool. The results
+     * are merged in the same order as a serial parse would produce them, so the resulting {@link Database} does not
+     * depend on scheduling.
      *
      * @param aLog
      *            a {@link Writer} to write any log messages to.
@@ -144,37 +372,104 @@ public class MwoDataReader {
      *             If the parsing failed for any reason.
      */
     public Optional<Database> parseGameFiles(Writer aLog, File aGameDirectory) throws Exception {
-        try {
-            final GameVFS gameVFS = new GameVFS(aGameDirectory);
+        return parseGameFiles(aLog, aGameDirectory, null);
+    }
 
-            Localisation.initialize(gameVFS); // FIXME: Make localisation into an object and inject it into the reader.
+    /**
+     * Reads the latest data from the game files and updates the given database.
+     * <p>
+     * The produced {@link Database} remembers which game files each omnipod, chassis, stock loadout and environment
+     * was parsed from. If the files that everything depends on (item stats, localisation etc) are unchanged since the
+     * previous database was parsed, only the entities whose own files have changed are parsed again and merged into
+     * the previous database. Otherwise this is the same as {@link #parseGameFiles(Writer, File)}.
+     *
+     * @param aLog
+     *            a {@link Writer} to write any log messages to.
+     * @param aGameDirectory
+     *            A directory that contains a game install.
+     * @param aPrevious
+     *            The previously parsed {@link Database}, may be <code>null</code>.
+     * @return An {@link Optional} {@link Database} if the parsing succeeds.
+     * @throws Exception
+     *             If the parsing failed for any reason.
+     */
+    public Optional<Database> parseGameFiles(Writer aLog, File aGameDirectory, Database aPrevious) throws Exception {
+        try (GameVFS gameVFS = new GameVFS(aGameDirectory, archiveIndexFile)) {
 
-            final Collection<GameFile> gameFiles = gameVFS.openGameFiles(FILES_TO_PARSE);
+            // FIXME: Make localisation into an object and inject it into the reader.
+            Localisation.initialize(gameVFS, localisationFile);
+
+            // The CRCs are known from the archive index, so we know if the items are needed before reading anything.
             final Map<String, Long> checksums = new HashMap<>();
+            for (final File file : FILES_TO_PARSE) {
+                checksums.put(file.toString(), gameVFS.getCrc32(file));
+            }
+            for (final File file : GLOBAL_FILES) {
+                checksums.put(file.toString(), gameVFS.getCrc32(file));
+            }
+
+            final Database previous = null != aPrevious && runningVersion.equals(aPrevious.getVersion()) ? aPrevious
+                    : null;
+            final SourceTracker tracker = new SourceTracker(gameVFS, checksums, previous);
+
+            // Modules are by far the most numerous records, convert them to items as they are read so that the
+            // records don't have to be kept around.
+            final List<Item> moduleItems = new ArrayList<>();
+            final Predicate<ItemStatsModule> moduleConverter = aModule -> {
+                if (tracker.isIncremental()) {
+                    return false;
+                }
+                final Item item = aModule.asItem();
+                return null != item && moduleItems.add(item);
+            };
             final XMLItemStats itemStatsXml = new XMLItemStats();
-            for (final GameFile file : gameFiles) {
-                itemStatsXml.append(file);
-                checksums.put(file.path, file.crc32);
+            for (final File file : FILES_TO_PARSE) {
+                try (GameFile gameFile = gameVFS.streamGameFile(file)) {
+                    itemStatsXml.append(gameFile, moduleConverter);
+                }
             }
 
             final Map<Integer, Object> id2obj = new HashMap<>();
             final Map<String, ModifierDescription> modifierDescriptions = new HashMap<>(); // Filled in as we go.
 
-            final List<Item> items = parseItems(itemStatsXml);
-            addAllTo(id2obj, items);
+            final List<Item> items;
+            final List<Consumable> modules;
+            final List<Upgrade> upgrades;
+            if (tracker.isIncremental()) {
+                // These only depend on the global files which haven't changed.
+                items = new ArrayList<>(previous.getItems());
+                modules = new ArrayList<>(previous.getPilotModules());
+                upgrades = new ArrayList<>(previous.getUpgrades());
+                addAllTo(id2obj, items);
+                addAllTo(id2obj, modules);
+                addAllTo(id2obj, upgrades);
+                addAllTo(id2obj, previous.getOmniPods());
+                modifierDescriptions.putAll(previous.getModifierDescriptions());
+            }
+            else {
+                items = parseItems(moduleItems, itemStatsXml);
+                addAllTo(id2obj, items);
+
+                modules = parseModules(itemStatsXml, gameVFS);
+                addAllTo(id2obj, modules);
 
-            final List<Consumable> modules = parseModules(itemStatsXml, gameVFS);
-            addAllTo(id2obj, modules);
+                upgrades = parseUpgrades(itemStatsXml, id2obj);
+                addAllTo(id2obj, upgrades);
 
-            final List<Upgrade> upgrades = parseUpgrades(itemStatsXml, id2obj);
-            addAllTo(id2obj, upgrades);
+                postProcessItems(id2obj);
+            }
+            final Map<String, ModifierDescription> sharedDescriptions = new ConcurrentHashMap<>(modifierDescriptions);
 
-            postProcessItems(id2obj);
+            // Environments only depend on the localisation, start them early and join them last.
+            final List<ForkedParse<File, Parsed<Mission>>> missions = forkMissions(gameVFS, tracker);
 
-            final List<OmniPod> omniPods = parseOmniPods(itemStatsXml, id2obj, modifierDescriptions, gameVFS);
+            // From here on id2obj is only read by the forked tasks and only written between stages.
+            final List<OmniPod> omniPods = parseOmniPods(itemStatsXml, id2obj, modifierDescriptions,
+                    sharedDescriptions, tracker);
             addAllTo(id2obj, omniPods);
 
-            final List<Chassis> chassis = parseChassis(itemStatsXml, id2obj, modifierDescriptions, gameVFS);
+            final List<Chassis> chassis = parseChassis(itemStatsXml, id2obj, modifierDescriptions, sharedDescriptions,
+                    gameVFS, tracker);
             addAllTo(id2obj, chassis);
 
             // For some reason, as of the patch 2016-06-21 some stock loadouts contain pilot
@@ -185,11 +480,11 @@ public class MwoDataReader {
             // out all pilot modules from the
             // stock loadouts before storing them.
             final Set<Integer> itemBlackList = modules.stream().map(Consumable::getId).collect(Collectors.toSet());
-            final List<Environment> environments = parseEnvironments(aLog, gameVFS);
-            final List<StockLoadout> stockLoadouts = parseStockLoadouts(chassis, itemBlackList, gameVFS);
+            final List<StockLoadout> stockLoadouts = parseStockLoadouts(chassis, itemBlackList, tracker);
+            final List<Environment> environments = parseEnvironments(aLog, missions, tracker);
 
-            return Optional.of(new Database(runningVersion, checksums, items, upgrades, omniPods, modules, chassis,
-                    environments, stockLoadouts, modifierDescriptions));
+            return Optional.of(new Database(runningVersion, tracker.getChecksums(), tracker.getSources(), items,
+                    upgrades, omniPods, modules, chassis, environments, stockLoadouts, modifierDescriptions));
         }
         catch (final Throwable t) {
             errorReporter.error("Parse error",
@@ -212,19 +507,25 @@ public class MwoDataReader {
      * @return <code>true</code> if the game files have newer data than what's in the database.
      */
     public boolean shouldUpdate(Database aDatabase, File aGameDirectory) {
-        try {
-            final GameVFS gameVFS = new GameVFS(aGameDirectory);
-            final Collection<GameFile> gameFiles = gameVFS.openGameFiles(FILES_TO_PARSE);
+        try (GameVFS gameVFS = new GameVFS(aGameDirectory, archiveIndexFile)) {
             final Map<String, Long> checkSums = aDatabase.getChecksums();
-            if (gameFiles.size() != checkSums.size()) {
-                return true;
-            }
-
-            for (final GameFile gameFile : gameFiles) {
-                if (gameFile.crc32 != checkSums.get(gameFile.path)) {
+            for (final File file : FILES_TO_PARSE) {
+                if (!checkSums.containsKey(file.toString())) {
                     return true;
                 }
             }
+            // The CRCs are known from the archive index, no need to inflate the files. A database without sources, such
+            // as the bundled one or one written by an older version, only has the checksums of the files to parse.
+            for (final Map.Entry<String, Long> entry : checkSums.entrySet()) {
+                try {
+                    if (gameVFS.getCrc32(new File(entry.getKey())) != entry.getValue()) {
+                        return true;
+                    }
+                }
+                catch (final IOException e) {
+                    return true; // The file has been removed.
+                }
+            }
         }
         catch (final IOException e) {
             errorReporter.error("Error reading data files", "LSML couldn't open game data files for reading.", e);
@@ -241,61 +542,107 @@ public class MwoDataReader {
     /**
      * Parses all inner sphere {@link ChassisStandard} from the ItemStats.xml file and related files.
      *
-     * @param aGameVfs
-     *            A {@link GameVFS} used to open other game files.
      * @param aItemStatsXml
      *            A {@link GameFile} containing the ItemStats.xml file to parse.
      * @param aId2obj
      *            The {@link Database} that is being parsed.
+     * @param aModifierDescriptors
+     *            The {@link ModifierDescription}s found so far, new descriptions are added in parse order.
+     * @param aSharedDescriptors
+     *            A concurrent map through which all forked tasks create their {@link ModifierDescription}s.
      * @param aGameVFS
+     *            A {@link GameVFS} used to open other game files.
+     * @param aTracker
+     *            A {@link SourceTracker} that decides which chassis need to be parsed.
      * @return A List of all {@link ChassisStandard} found in aItemStatsXml.
      */
     private List<Chassis> parseChassis(XMLItemStats aItemStatsXml, Map<Integer, Object> aId2obj,
-            Map<String, ModifierDescription> aModifierDescriptors, GameVFS aGameVFS) throws IOException {
+            Map<String, ModifierDescription> aModifierDescriptors, Map<String, ModifierDescription> aSharedDescriptors,
+            GameVFS aGameVFS, SourceTracker aTracker) throws Exception {
         final XMLMechIdMap mechIdMap = XMLMechIdMap.fromXml(aGameVFS.openGameFile(GameVFS.MECH_ID_MAP_XML).stream);
-        final List<Chassis> ans = new ArrayList<>();
 
+        final List<XMLItemStatsMech> stale = new ArrayList<>();
         for (final XMLItemStatsMech mech : aItemStatsXml.MechList) {
-            try {
-                final String mdfFile = mech.chassis + "/" + mech.name + ".mdf";
-                final MdfMechDefinition mdf = MdfMechDefinition
-                        .fromXml(aGameVFS.openGameFile(new File(GameVFS.MDF_ROOT, mdfFile)).stream);
+            final String entity = SourceTracker.CHASSIS + mech.name;
+            if (aTracker.isStale(entity)) {
+                stale.add(mech);
+            }
+            else {
+                aTracker.reuse(entity);
+            }
+        }
 
-                if (!mdf.isUsable()) {
-                    continue;
-                }
+        final List<ForkedParse<XMLItemStatsMech, Parsed<Chassis>>> tasks = fork(stale, mech -> {
+            final DescriptionRecorder descriptions = new DescriptionRecorder(aSharedDescriptors);
+            final SourceTracker.Sources sources = aTracker.newSources();
+            final Chassis chassis = parseChassis(mech, aId2obj, descriptions, mechIdMap, sources);
+            return new Parsed<>(SourceTracker.CHASSIS + mech.name, chassis, descriptions, sources);
+        });
+        final List<Parsed<Chassis>> parsed = join(tasks);
+
+        // Chassis that have become unusable are dropped.
+        final Set<Integer> unusable = new HashSet<>();
+        for (int i = 0; i < parsed.size(); ++i) {
+            if (null == parsed.get(i).value) {
+                unusable.add(stale.get(i).id);
+            }
+        }
 
-                if (mdf.isOmniMech()) {
-                    final File loadoutXml = new File("Game/Libs/MechLoadout/" + mech.name + ".xml");
-                    final XMLLoadout stockXML = XMLLoadout.fromXml(aGameVFS.openGameFile(loadoutXml).stream);
-                    ans.add(mdf.asChassisOmniMech(mech, aId2obj, mechIdMap, stockXML));
-                }
-                else {
-                    final String hardPointsXml = mech.chassis + "/" + mech.chassis + "-hardpoints.xml";
-                    final XMLHardpoints hardPoints = XMLHardpoints
-                            .fromXml(aGameVFS.openGameFile(new File(GameVFS.MDF_ROOT, hardPointsXml)).stream);
-                    ans.add(mdf.asChassisStandard(mech, aId2obj, aModifierDescriptors, mechIdMap, hardPoints));
-                }
+        final List<Chassis> previous = aTracker.isIncremental() ? aTracker.getPrevious().getChassis()
+                : Collections.emptyList();
+        return replaceById(previous, merge(parsed, aModifierDescriptors, aTracker), unusable);
+    }
+
+    /**
+     * Parses one {@link Chassis} from its MDF file and related files.
+     *
+     * @return The parsed {@link Chassis} or <code>null</code> if the MDF isn't usable.
+     */
+    private Chassis parseChassis(XMLItemStatsMech aMech, Map<Integer, Object> aId2obj,
+            Map<String, ModifierDescription> aModifierDescriptors, XMLMechIdMap aMechIdMap,
+            SourceTracker.Sources aSources) throws IOException {
+        try {
+            final String mdfFile = aMech.chassis + "/" + aMech.name + ".mdf";
+            final MdfMechDefinition mdf = MdfMechDefinition.fromXml(aSources.open(new File(GameVFS.MDF_ROOT, mdfFile)));
+
+            if (!mdf.isUsable()) {
+                return null;
             }
-            catch (final Exception e) {
-                throw new IOException("Unable to load chassi configuration for [" + mech.name + "]!", e);
+
+            final String hardPointsXml = aMech.chassis + "/" + aMech.chassis + "-hardpoints.xml";
+            if (mdf.isOmniMech()) {
+                final File loadoutXml = new File("Game/Libs/MechLoadout/" + aMech.name + ".xml");
+                final XMLLoadout stockXML = XMLLoadout.fromXml(aSources.open(loadoutXml));
+
+                // The fixed omnipods of the chassis are taken from these files.
+                final String omniPodsXml = aMech.chassis + "/" + aMech.chassis + "-omnipods.xml";
+                aSources.dependOn(new File(GameVFS.MDF_ROOT, omniPodsXml));
+                aSources.dependOn(new File(GameVFS.MDF_ROOT, hardPointsXml));
+                return mdf.asChassisOmniMech(aMech, aId2obj, aMechIdMap, stockXML);
             }
+            final XMLHardpoints hardPoints = XMLHardpoints
+                    .fromXml(aSources.open(new File(GameVFS.MDF_ROOT, hardPointsXml)));
+            return mdf.asChassisStandard(aMech, aId2obj, aModifierDescriptors, aMechIdMap, hardPoints);
+        }
+        catch (final Exception e) {
+            throw new IOException("Unable to load chassi configuration for [" + aMech.name + "]!", e);
         }
-        return ans;
     }
 
     /**
-     * Parses all {@link Environment} from the game files.
+     * Forks the parsing of the mission files of all levels in the game files.
      *
      * @param aGameVFS
-     *
-     * @param aGameVfs
      *            A {@link GameVFS} to parse data from.
-     * @return A List of all {@link Environment} found in the game files.
+     * @param aTracker
+     *            A {@link SourceTracker} that decides which levels need to be parsed.
+     * @return A List of forked tasks that parse the mission of each level. The tasks for levels that don't need to be
+     *         parsed produce <code>null</code>.
+     * @throws IOException
+     *             if the levels couldn't be found.
      */
-    private List<Environment> parseEnvironments(Writer aLog, GameVFS aGameVFS) throws IOException {
-        final List<Environment> ans = new ArrayList<>();
-
+    private List<ForkedParse<File, Parsed<Mission>>> forkMissions(GameVFS aGameVFS, SourceTracker aTracker)
+            throws IOException {
         final File[] levels = aGameVFS.listGameDir(new File("Game/Levels"));
         if (levels == null) {
             throw new IOException("Couldn't find environments!");
@@ -307,16 +654,67 @@ public class MwoDataReader {
         xstream.alias("Object", Mission.Entity.class);
         xstream.alias("Properties", Mission.Entity.EntityProperties.class);
 
+        final List<File> files = new ArrayList<>();
+        final Set<File> stale = new HashSet<>();
         for (final File file : levels) {
             // Skip the tutorials and mechlab
             if (file.getName().toLowerCase().contains("tutorial") || file.getName().toLowerCase().contains("mechlab")) {
                 continue;
             }
+            files.add(file);
+            if (aTracker.isStale(SourceTracker.ENVIRONMENT + file.getName())
+                    || !findPreviousEnvironment(file, aTracker).isPresent()) {
+                stale.add(file);
+            }
+        }
+
+        // A configured XStream instance is thread safe for unmarshalling.
+        return fork(files, file -> {
+            if (!stale.contains(file)) {
+                return null;
+            }
+            final SourceTracker.Sources sources = aTracker.newSources();
+            final File missionXml = new File(file, "mission_mission0.xml");
+            final Mission mission = (Mission) xstream.fromXML(sources.open(missionXml));
+            return new Parsed<>(SourceTracker.ENVIRONMENT + file.getName(), mission, null, sources);
+        });
+    }
+
+    private Optional<Environment> findPreviousEnvironment(File aLevel, SourceTracker aTracker) {
+        if (!aTracker.isIncremental()) {
+            return Optional.empty();
+        }
+        final String uiName = Localisation.key2string("ui_" + aLevel.getName());
+        return aTracker.getPrevious().getEnvironments().stream().filter(e -> e.getName().equals(uiName)).findFirst();
+    }
+
+    /**
+     * Parses all {@link Environment} from the game files.
+     *
+     * @param aLog
+     *            a {@link Writer} to write any log messages to.
+     * @param aMissions
+     *            The forked tasks that parse the mission files, see {@link #forkMissions(GameVFS, SourceTracker)}.
+     * @param aTracker
+     *            The {@link SourceTracker} to record the source files of each environment in.
+     * @return A List of all {@link Environment} found in the game files.
+     */
+    private List<Environment> parseEnvironments(Writer aLog, List<ForkedParse<File, Parsed<Mission>>> aMissions,
+            SourceTracker aTracker) throws Exception {
+        final List<Environment> ans = new ArrayList<>();
+
+        for (final ForkedParse<File, Parsed<Mission>> forked : aMissions) {
+            final Parsed<Mission> parsed = forked.result();
+            if (null == parsed) {
+                aTracker.reuse(SourceTracker.ENVIRONMENT + forked.input.getName());
+                ans.add(findPreviousEnvironment(forked.input, aTracker).get());
+                continue;
+            }
+            aTracker.record(parsed.entity, parsed.sources);
 
-            final String uiTag = "ui_" + file.getName();
+            final Mission mission = parsed.value;
+            final String uiTag = "ui_" + forked.input.getName();
             final String uiName = Localisation.key2string(uiTag);
-            final Mission mission = (Mission) xstream
-                    .fromXML(aGameVFS.openGameFile(new File(file, "mission_mission0.xml")).stream);
 
             boolean found = false;
             for (final Mission.Entity entity : mission.Objects) {
@@ -340,23 +738,16 @@ public class MwoDataReader {
     /**
      * Parses all {@link Item}s from the ItemStats.xml file.
      *
+     * @param aModuleItems
+     *            The {@link Item}s that were converted from modules while reading the item stats.
      * @param aItemStatsXml
      *            A {@link GameFile} containing the ItemStats.xml file to parse.
      * @return A List of all {@link Item}s found in aItemStatsXml.
      */
-    private List<Item> parseItems(XMLItemStats aItemStatsXml) throws IOException {
-        final List<Item> ans = new ArrayList<>();
+    private List<Item> parseItems(List<Item> aModuleItems, XMLItemStats aItemStatsXml) throws IOException {
         // Modules (they contain ammo now, and weapons need to find their ammo
-        // types when parsed)
-        final Iterator<ItemStatsModule> it = aItemStatsXml.ModuleList.iterator();
-        while (it.hasNext()) {
-            final ItemStatsModule statsModule = it.next();
-            final Item item = statsModule.asItem();
-            if (null != item) {
-                ans.add(item);
-                it.remove();
-            }
-        }
+        // types when parsed). These have already been converted as they were read.
+        final List<Item> ans = new ArrayList<>(aModuleItems);
 
         // Weapons next.
         for (final ItemStatsWeapon statsWeapon : aItemStatsXml.WeaponList) {
@@ -424,117 +815,172 @@ public class MwoDataReader {
     }
 
     private List<OmniPod> parseOmniPods(XMLItemStats aItemStatsXml, Map<Integer, Object> aId2obj,
-            Map<String, ModifierDescription> aModifierDescriptors, GameVFS aGameVFS) throws IOException {
-        final List<OmniPod> ans = new ArrayList<>();
+            Map<String, ModifierDescription> aModifierDescriptors, Map<String, ModifierDescription> aSharedDescriptors,
+            SourceTracker aTracker) throws Exception {
         final Set<String> series = new HashSet<>();
         for (final ItemStatsOmniPodType omniPod : aItemStatsXml.OmniPodList) {
             series.add(omniPod.chassis);
         }
+
+        final List<String> stale = new ArrayList<>();
         for (final String chassis : series) {
-            try {
-                final String omniPodsFile = chassis + "/" + chassis + "-omnipods.xml";
-                final XMLOmniPods omniPods = XMLOmniPods
-                        .fromXml(aGameVFS.openGameFile(new File(GameVFS.MDF_ROOT, omniPodsFile)).stream);
+            final String entity = SourceTracker.OMNIPODS + chassis;
+            if (aTracker.isStale(entity)) {
+                stale.add(chassis);
+            }
+            else {
+                aTracker.reuse(entity);
+            }
+        }
 
-                final String hardPointsXml = chassis + "/" + chassis + "-hardpoints.xml";
-                final XMLHardpoints hardPoints = XMLHardpoints
-                        .fromXml(aGameVFS.openGameFile(new File(GameVFS.MDF_ROOT, hardPointsXml)).stream);
+        final List<ForkedParse<String, Parsed<List<OmniPod>>>> tasks = fork(stale, chassis -> {
+            final DescriptionRecorder descriptions = new DescriptionRecorder(aSharedDescriptors);
+            final SourceTracker.Sources sources = aTracker.newSources();
+            final List<OmniPod> omniPods = parseOmniPods(chassis, aItemStatsXml, aId2obj, descriptions, sources);
+            return new Parsed<>(SourceTracker.OMNIPODS + chassis, omniPods, descriptions, sources);
+        });
 
-                ans.addAll(omniPods.asOmniPods(aItemStatsXml, hardPoints, aId2obj, aModifierDescriptors));
+        final List<OmniPod> ans = new ArrayList<>();
+        for (final List<OmniPod> omniPods : merge(join(tasks), aModifierDescriptors, aTracker)) {
+            ans.addAll(omniPods);
+        }
+
+        final List<OmniPod> previous = aTracker.isIncremental() ? aTracker.getPrevious().getOmniPods()
+                : Collections.emptyList();
+        return replaceById(previous, ans, Collections.emptySet());
+    }
+
+    private List<OmniPod> parseOmniPods(String aChassis, XMLItemStats aItemStatsXml, Map<Integer, Object> aId2obj,
+            Map<String, ModifierDescription> aModifierDescriptors, SourceTracker.Sources aSources)
+            throws IOException {
+        try {
+            final String omniPodsFile = aChassis + "/" + aChassis + "-omnipods.xml";
+            final XMLOmniPods omniPods = XMLOmniPods.fromXml(aSources.open(new File(GameVFS.MDF_ROOT, omniPodsFile)));
+
+            final String hardPointsXml = aChassis + "/" + aChassis + "-hardpoints.xml";
+            final XMLHardpoints hardPoints = XMLHardpoints
+                    .fromXml(aSources.open(new File(GameVFS.MDF_ROOT, hardPointsXml)));
 
+            return omniPods.asOmniPods(aItemStatsXml, hardPoints, aId2obj, aModifierDescriptors);
+        }
+        catch (final Exception e) {
+            throw new IOException("Unable to load chassi configuration! Chassis: " + aChassis, e);
+        }
+    }
+
+    private List<StockLoadout> parseStockLoadouts(List<Chassis> aChassis, Set<Integer> aItemBlackList,
+            SourceTracker aTracker) throws Exception {
+        final Map<Integer, StockLoadout> previous = new HashMap<>();
+        if (aTracker.isIncremental()) {
+            for (final StockLoadout stockLoadout : aTracker.getPrevious().getStockLoadouts()) {
+                previous.put(stockLoadout.getChassisId(), stockLoadout);
             }
-            catch (final Exception e) {
-                throw new IOException("Unable to load chassi configuration! Chassis: " + chassis, e);
+        }
+
+        final List<Chassis> stale = new ArrayList<>();
+        for (final Chassis chassis : aChassis) {
+            final String entity = SourceTracker.STOCK + chassis.getKey().toLowerCase();
+            if (aTracker.isStale(entity) || !previous.containsKey(chassis.getId())) {
+                stale.add(chassis);
+            }
+            else {
+                aTracker.reuse(entity);
             }
         }
 
+        final List<ForkedParse<Chassis, Parsed<StockLoadout>>> tasks = fork(stale, chassis -> {
+            final SourceTracker.Sources sources = aTracker.newSources();
+            final StockLoadout stockLoadout = parseStockLoadout(chassis, aItemBlackList, sources);
+            return new Parsed<>(SourceTracker.STOCK + chassis.getKey().toLowerCase(), stockLoadout, null, sources);
+        });
+        for (final StockLoadout stockLoadout : merge(join(tasks), null, aTracker)) {
+            previous.put(stockLoadout.getChassisId(), stockLoadout);
+        }
+
+        final List<StockLoadout> ans = new ArrayList<>(aChassis.size());
+        for (final Chassis chassis : aChassis) {
+            ans.add(previous.get(chassis.getId()));
+        }
         return ans;
     }
 
-    private List<StockLoadout> parseStockLoadouts(List<Chassis> aChassis, Set<Integer> aItemBlackList, GameVFS aGameVFS)
-            throws ParseErrorException {
-        final List<StockLoadout> ans = new ArrayList<>();
+    private StockLoadout parseStockLoadout(Chassis aChassis, Set<Integer> aItemBlackList,
+            SourceTracker.Sources aSources) throws ParseErrorException {
+        final File loadoutXml = new File("Game/Libs/MechLoadout/" + aChassis.getKey().toLowerCase() + ".xml");
+        try {
+            final XMLLoadout stockXML = XMLLoadout.fromXml(aSources.open(loadoutXml));
 
-        for (final Chassis chassis : aChassis) {
-            final File loadoutXml = new File("Game/Libs/MechLoadout/" + chassis.getKey().toLowerCase() + ".xml");
-            try {
-                final XMLLoadout stockXML = XMLLoadout.fromXml(aGameVFS.openGameFile(loadoutXml).stream);
+            ActuatorState leftArmState = null;
+            ActuatorState rightArmState = null;
+            if (stockXML.actuatorState != null) {
+                leftArmState = ActuatorState.fromMwoString(stockXML.actuatorState.LeftActuatorState);
+                rightArmState = ActuatorState.fromMwoString(stockXML.actuatorState.RightActuatorState);
+            }
 
-                ActuatorState leftArmState = null;
-                ActuatorState rightArmState = null;
-                if (stockXML.actuatorState != null) {
-                    leftArmState = ActuatorState.fromMwoString(stockXML.actuatorState.LeftActuatorState);
-                    rightArmState = ActuatorState.fromMwoString(stockXML.actuatorState.RightActuatorState);
+            final List<StockLoadout.StockComponent> components = new ArrayList<>();
+            for (final XMLLoadout.Component component : stockXML.ComponentList) {
+                Stream<Integer> itemIdStream = Stream.empty();
+                if (component.Ammo != null) {
+                    itemIdStream = concat(itemIdStream, component.Ammo.stream().map(aAmmo -> aAmmo.ItemID));
                 }
+                if (component.Module != null) {
+                    itemIdStream = concat(itemIdStream, component.Module.stream().map(aModule -> aModule.ItemID));
+                }
+                if (component.Weapon != null) {
+                    itemIdStream = concat(itemIdStream, component.Weapon.stream().map(aWeapon -> aWeapon.ItemID));
+                }
+                final List<Integer> items = itemIdStream.filter(aItem -> !aItemBlackList.contains(aItem))
+                        .collect(Collectors.toList());
 
-                final List<StockLoadout.StockComponent> components = new ArrayList<>();
-                for (final XMLLoadout.Component component : stockXML.ComponentList) {
-                    Stream<Integer> itemIdStream = Stream.empty();
-                    if (component.Ammo != null) {
-                        itemIdStream = concat(itemIdStream, component.Ammo.stream().map(aAmmo -> aAmmo.ItemID));
-                    }
-                    if (component.Module != null) {
-                        itemIdStream = concat(itemIdStream, component.Module.stream().map(aModule -> aModule.ItemID));
-                    }
-                    if (component.Weapon != null) {
-                        itemIdStream = concat(itemIdStream, component.Weapon.stream().map(aWeapon -> aWeapon.ItemID));
-                    }
-                    final List<Integer> items = itemIdStream.filter(aItem -> !aItemBlackList.contains(aItem))
-                            .collect(Collectors.toList());
-
-                    Integer omniPod = null;
-                    if (chassis instanceof ChassisOmniMech && null != component.OmniPod) {
-                        omniPod = Integer.parseInt(component.OmniPod);
-                    }
+                Integer omniPod = null;
+                if (aChassis instanceof ChassisOmniMech && null != component.OmniPod) {
+                    omniPod = Integer.parseInt(component.OmniPod);
+                }
 
-                    final Location location = Location.fromMwoName(component.ComponentName);
-                    final boolean isRear = Location.isRear(component.ComponentName);
-                    int armourFront = isRear ? 0 : component.Armor;
-                    int armourBack = isRear ? component.Armor : 0;
-
-                    // Merge front and back sides
-                    final Iterator<StockComponent> it = components.iterator();
-                    while (it.hasNext()) {
-                        final StockComponent stockComponent = it.next();
-                        if (stockComponent.getLocation() == location) {
-                            items.addAll(stockComponent.getItems());
-                            armourFront = isRear ? stockComponent.getArmourFront() : armourFront;
-                            armourBack = isRear ? armourBack : stockComponent.getArmourBack();
-                            omniPod = stockComponent.getOmniPod().orElse(null);
-                            it.remove();
-                            break;
-                        }
+                final Location location = Location.fromMwoName(component.ComponentName);
+                final boolean isRear = Location.isRear(component.ComponentName);
+                int armourFront = isRear ? 0 : component.Armor;
+                int armourBack = isRear ? component.Armor : 0;
+
+                // Merge front and back sides
+                final Iterator<StockComponent> it = components.iterator();
+                while (it.hasNext()) {
+                    final StockComponent stockComponent = it.next();
+                    if (stockComponent.getLocation() == location) {
+                        items.addAll(stockComponent.getItems());
+                        armourFront = isRear ? stockComponent.getArmourFront() : armourFront;
+                        armourBack = isRear ? armourBack : stockComponent.getArmourBack();
+                        omniPod = stockComponent.getOmniPod().orElse(null);
+                        it.remove();
+                        break;
                     }
-
-                    final ActuatorState actuatorState = location == Location.LeftArm ? leftArmState
-                            : location == Location.RightArm ? rightArmState : null;
-
-                    final StockLoadout.StockComponent stockComponent = new StockLoadout.StockComponent(location,
-                            armourFront, armourBack, items, omniPod, actuatorState);
-                    components.add(stockComponent);
                 }
 
-                int armourId = 2810; // Standard armour
-                int structureId = 3100; // Standard Structure
-                int heatsinkId = 3003; // Standard heat sinks
-                int guidanceId = 3051; // No Artemis
+                final ActuatorState actuatorState = location == Location.LeftArm ? leftArmState
+                        : location == Location.RightArm ? rightArmState : null;
 
-                if (stockXML.upgrades != null) {
-                    armourId = stockXML.upgrades.armor.ItemID;
-                    structureId = stockXML.upgrades.structure.ItemID;
-                    heatsinkId = stockXML.upgrades.heatsinks.ItemID;
-                    guidanceId = stockXML.upgrades.artemis.Equipped != 0 ? 3050 : 3051;
-                }
-                final StockLoadout loadout = new StockLoadout(chassis.getId(), components, armourId, structureId,
-                        heatsinkId, guidanceId);
-                ans.add(loadout);
+                final StockLoadout.StockComponent stockComponent = new StockLoadout.StockComponent(location,
+                        armourFront, armourBack, items, omniPod, actuatorState);
+                components.add(stockComponent);
             }
-            catch (final Throwable e) {
-                throw new ParseErrorException("Error while parsing stock loadout for: " + chassis.getName() + " from: "
-                        + loadoutXml.toString(), e);
+
+            int armourId = 2810; // Standard armour
+            int structureId = 3100; // Standard Structure
+            int heatsinkId = 3003; // Standard heat sinks
+            int guidanceId = 3051; // No Artemis
+
+            if (stockXML.upgrades != null) {
+                armourId = stockXML.upgrades.armor.ItemID;
+                structureId = stockXML.upgrades.structure.ItemID;
+                heatsinkId = stockXML.upgrades.heatsinks.ItemID;
+                guidanceId = stockXML.upgrades.artemis.Equipped != 0 ? 3050 : 3051;
             }
+            return new StockLoadout(aChassis.getId(), components, armourId, structureId, heatsinkId, guidanceId);
+        }
+        catch (final Throwable e) {
+            throw new ParseErrorException("Error while parsing stock loadout for: " + aChassis.getName() + " from: "
+                    + loadoutXml.toString(), e);
         }
-        return ans;
     }
 
     private List<Upgrade> parseUpgrades(XMLItemStats aItemStatsXml, Map<Integer, Object> id2obj) {
@@ -0,0 +1,216 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database.gamedata;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lisoft.lsml.model.database.Database;
+import org.lisoft.lsml.model.database.gamedata.GameVFS.GameFile;
+
+/**
+ * Keeps track of which game files each entity in a {@link Database} is parsed from.
+ * <p>
+ * Given the previously parsed {@link Database}, it decides which entities are stale and must be parsed again. All
+ * entities depend on a set of global files (item stats, localisation etc). If any of those have changed, the previous
+ * database can't be used and every entity is considered stale.
+ *
+ * @author Emily Björk
+ */
+class SourceTracker {
+    /**
+     * Records the game files, and their CRCs, that one entity is parsed from. Not thread safe, each parse task should
+     * use its own instance.
+     *
+     * @author Emily Björk
+     */
+    static class Sources {
+        private final GameVFS gameVFS;
+        private final Map<String, Long> files = new LinkedHashMap<>();
+
+        Sources(GameVFS aGameVFS) {
+            gameVFS = aGameVFS;
+        }
+
+        /**
+         * Records a file that the entity depends on without reading it.
+         *
+         * @param aGameLocalPath
+         *            The game file, see {@link GameVFS#openGameFile(File)}.
+         * @throws IOException
+         *             if the file couldn't be found.
+         */
+        void dependOn(File aGameLocalPath) throws IOException {
+            files.put(aGameLocalPath.toString(), gameVFS.getCrc32(aGameLocalPath));
+        }
+
+        /**
+         * Opens a game file and records it as a source of the entity.
+         *
+         * @param aGameLocalPath
+         *            The game file, see {@link GameVFS#openGameFile(File)}.
+         * @return An {@link InputStream} with the contents of the file.
+         * @throws IOException
+         *             if the file couldn't be read.
+         */
+        InputStream open(File aGameLocalPath) throws IOException {
+            final GameFile gameFile = gameVFS.openGameFile(aGameLocalPath);
+            files.put(gameFile.path, gameFile.crc32);
+            return gameFile.stream;
+        }
+    }
+
+    static final String CHASSIS = "chassis/";
+    static final String ENVIRONMENT = "environment/";
+    static final String OMNIPODS = "omnipods/";
+    static final String STOCK = "stock/";
+
+    private final GameVFS gameVFS;
+    private final Database previous;
+    private final Map<String, Long> checksums;
+    private final Map<String, List<String>> sources = new HashMap<>();
+
+    /**
+     * Creates a new {@link SourceTracker}.
+     *
+     * @param aGameVFS
+     *            The {@link GameVFS} that is being parsed.
+     * @param aGlobalChecksums
+     *            The CRCs of the files that all entities depend on.
+     * @param aPrevious
+     *            The previously parsed {@link Database}, or <code>null</code> to parse everything.
+     */
+    SourceTracker(GameVFS aGameVFS, Map<String, Long> aGlobalChecksums, Database aPrevious) {
+        gameVFS = aGameVFS;
+        checksums = new HashMap<>(aGlobalChecksums);
+        previous = isUsable(aPrevious, aGlobalChecksums) ? aPrevious : null;
+    }
+
+    /**
+     * @return The CRCs of all the files that have been recorded so far, including the global files.
+     */
+    Map<String, Long> getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * @return The previous {@link Database} if it can be updated incrementally, <code>null</code> otherwise.
+     */
+    Database getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return The source files of all entities that have been recorded or reused so far.
+     */
+    Map<String, List<String>> getSources() {
+        return sources;
+    }
+
+    /**
+     * @return <code>true</code> if only stale entities need to be parsed.
+     */
+    boolean isIncremental() {
+        return null != previous;
+    }
+
+    /**
+     * Determines if an entity needs to be parsed again. This is the case if there is no previous database, if the
+     * entity isn't in the previous database or if any of the files it was parsed from have changed.
+     *
+     * @param aEntity
+     *            The entity to check.
+     * @return <code>true</code> if the entity must be parsed.
+     */
+    boolean isStale(String aEntity) {
+        if (null == previous) {
+            return true;
+        }
+        final List<String> files = previous.getSources().get(aEntity);
+        if (null == files) {
+            return true;
+        }
+        for (final String file : files) {
+            final Long crc = previous.getChecksums().get(file);
+            try {
+                if (null == crc || gameVFS.getCrc32(new File(file)) != crc) {
+                    return true;
+                }
+            }
+            catch (final IOException e) {
+                return true; // The file is gone.
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return A new {@link Sources} to record the files of one entity with.
+     */
+    Sources newSources() {
+        return new Sources(gameVFS);
+    }
+
+    /**
+     * Records the files that an entity was parsed from.
+     *
+     * @param aEntity
+     *            The entity that was parsed.
+     * @param aSources
+     *            The {@link Sources} that the entity was parsed with.
+     */
+    void record(String aEntity, Sources aSources) {
+        sources.put(aEntity, new ArrayList<>(aSources.files.keySet()));
+        checksums.putAll(aSources.files);
+    }
+
+    /**
+     * Keeps the files of an entity that isn't stale, as recorded in the previous database.
+     *
+     * @param aEntity
+     *            The entity that is reused from the previous database.
+     */
+    void reuse(String aEntity) {
+        final List<String> files = previous.getSources().getOrDefault(aEntity, Collections.emptyList());
+        sources.put(aEntity, new ArrayList<>(files));
+        for (final String file : files) {
+            checksums.put(file, previous.getChecksums().get(file));
+        }
+    }
+
+    private static boolean isUsable(Database aPrevious, Map<String, Long> aGlobalChecksums) {
+        if (null == aPrevious || aPrevious.getSources().isEmpty()) {
+            return false;
+        }
+        for (final Map.Entry<String, Long> entry : aGlobalChecksums.entrySet()) {
+            if (!entry.getValue().equals(aPrevious.getChecksums().get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -20,7 +20,10 @@
 package org.lisoft.lsml.model.database.gamedata;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 import org.lisoft.lsml.model.database.Database;
 import org.lisoft.lsml.model.database.gamedata.GameVFS.GameFile;
@@ -33,35 +36,49 @@ import org.lisoft.lsml.model.database.gamedata.helpers.XMLWeaponStats;
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.annotations.XStreamImplicit;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.naming.NoNameCoder;
+import com.thoughtworks.xstream.io.xml.XppDriver;
 
 /**
  * This class models the format of ItemStats.xml from the game data files to facilitate easy parsing.
+ * <p>
+ * The files are read one record (weapon, module, mech etc) at a time from a pull parser rather than binding the whole
+ * document at once. This way each record can be converted as soon as it has been read and only the records that are
+ * needed later have to be kept in memory.
  *
  * @author Emily Björk
  */
 public class XMLItemStats {
+    private static final Map<String, Class<?>> RECORD_TYPES = new HashMap<>();
+
+    static {
+        RECORD_TYPES.put("Mech", XMLItemStatsMech.class);
+        RECORD_TYPES.put("Weapon", ItemStatsWeapon.class);
+        RECORD_TYPES.put("Module", ItemStatsModule.class);
+        RECORD_TYPES.put("Internal", ItemStatsModule.class);
+        RECORD_TYPES.put("UpgradeType", ItemStatsUpgradeType.class);
+        RECORD_TYPES.put("OmniPod", ItemStatsOmniPodType.class);
+    }
+
     public static XMLItemStats fromXml(GameFile aGameFile) {
-        final XStream xstream = Database.makeMwoSuitableXStream();
-        xstream.alias("WeaponList", XMLItemStats.class);
-        xstream.alias("MechList", XMLItemStats.class);
-        xstream.alias("OmniPodList", XMLItemStats.class);
-        xstream.alias("UpgradeTypeList", XMLItemStats.class);
-        xstream.alias("ModuleList", XMLItemStats.class);
-        xstream.alias("MechEfficiencies", XMLItemStats.class);
+        final XMLItemStats ans = new XMLItemStats();
+        ans.append(aGameFile);
+        return ans;
+    }
 
-        xstream.alias("Mech", XMLItemStatsMech.class);
-        xstream.alias("Weapon", ItemStatsWeapon.class);
-        xstream.alias("Module", ItemStatsModule.class);
-        xstream.alias("Internal", ItemStatsModule.class);
-        xstream.alias("UpgradeType", ItemStatsUpgradeType.class);
-        xstream.alias("OmniPod", ItemStatsOmniPodType.class);
+    private static XStream makeXStream() {
+        final XStream xstream = Database.makeMwoSuitableXStream();
+        xstream.setMode(XStream.NO_REFERENCES);
+        for (final Map.Entry<String, Class<?>> recordType : RECORD_TYPES.entrySet()) {
+            xstream.alias(recordType.getKey(), recordType.getValue());
+        }
         xstream.alias("WeaponStats", XMLWeaponStats.class);
 
         // Fixes for broken XML from PGI
         xstream.aliasAttribute("Ctype", "CType");
         // xstream.aliasAttribute("talentid", "talentId");
-
-        return (XMLItemStats) xstream.fromXML(aGameFile.stream);
+        return xstream;
     }
 
     @XStreamImplicit
@@ -75,22 +92,59 @@ public class XMLItemStats {
     @XStreamImplicit
     public List<ItemStatsOmniPodType> OmniPodList = new ArrayList<>();
 
+    private final XStream xstream = makeXStream();
+
     public void append(GameFile aGameFile) {
-        final XMLItemStats xml = fromXml(aGameFile);
-        if (null != xml.MechList) {
-            MechList.addAll(xml.MechList);
+        append(aGameFile, aModule -> false);
+    }
+
+    /**
+     * Reads all records from the given file and adds them to the lists of this object.
+     * <p>
+     * Modules are offered to the given consumer as soon as they have been read. Modules that are consumed aren't added
+     * to {@link #ModuleList} and can be garbage collected right away.
+     *
+     * @param aGameFile
+     *            The file to read, the stream is read to the end and closed.
+     * @param aModuleConsumer
+     *            A {@link Predicate} that returns <code>true</code> if it consumed the module it was given.
+     */
+    public void append(GameFile aGameFile, Predicate<ItemStatsModule> aModuleConsumer) {
+        final HierarchicalStreamReader reader = new XppDriver(new NoNameCoder()).createReader(aGameFile.stream);
+        try {
+            // The root element is just a list of records, go through them one by one.
+            while (reader.hasMoreChildren()) {
+                reader.moveDown();
+                if (RECORD_TYPES.containsKey(reader.getNodeName())) {
+                    add(xstream.unmarshal(reader), aModuleConsumer);
+                }
+                reader.moveUp();
+            }
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private void add(Object aRecord, Predicate<ItemStatsModule> aModuleConsumer) {
+        // Upgrade types are modules too, so check for them first.
+        if (aRecord instanceof ItemStatsUpgradeType) {
+            UpgradeTypeList.add((ItemStatsUpgradeType) aRecord);
         }
-        if (null != xml.WeaponList) {
-            WeaponList.addAll(xml.WeaponList);
+        else if (aRecord instanceof ItemStatsModule) {
+            final ItemStatsModule module = (ItemStatsModule) aRecord;
+            if (!aModuleConsumer.test(module)) {
+                ModuleList.add(module);
+            }
         }
-        if (null != xml.ModuleList) {
-            ModuleList.addAll(xml.ModuleList);
+        else if (aRecord instanceof ItemStatsWeapon) {
+            WeaponList.add((ItemStatsWeapon) aRecord);
         }
-        if (null != xml.UpgradeTypeList) {
-            UpgradeTypeList.addAll(xml.UpgradeTypeList);
+        else if (aRecord instanceof XMLItemStatsMech) {
+            MechList.add((XMLItemStatsMech) aRecord);
         }
-        if (null != xml.OmniPodList) {
-            OmniPodList.addAll(xml.OmniPodList);
+        else if (aRecord instanceof ItemStatsOmniPodType) {
+            OmniPodList.add((ItemStatsOmniPodType) aRecord);
         }
     }
 }
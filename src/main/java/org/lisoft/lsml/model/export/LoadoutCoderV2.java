@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 import org.lisoft.lsml.command.CmdAddItem;
 import org.lisoft.lsml.command.CmdAddModule;
@@ -40,10 +41,7 @@ import org.lisoft.lsml.model.chassi.ArmourSide;
 import org.lisoft.lsml.model.chassi.Chassis;
 import org.lisoft.lsml.model.chassi.ChassisStandard;
 import org.lisoft.lsml.model.chassi.Location;
-import org.lisoft.lsml.model.database.ChassisDB;
-import org.lisoft.lsml.model.database.ConsumableDB;
-import org.lisoft.lsml.model.database.ItemDB;
-import org.lisoft.lsml.model.database.UpgradeDB;
+import org.lisoft.lsml.model.database.DatabaseIndex;
 import org.lisoft.lsml.model.item.HeatSink;
 import org.lisoft.lsml.model.item.Item;
 import org.lisoft.lsml.model.loadout.ConfiguredComponentStandard;
@@ -68,10 +66,12 @@ public class LoadoutCoderV2 implements LoadoutCoder {
     private static final int HEADER_MAGIC = 0xAC + 1;
     private final Huffman1<Integer> huff;
     private final LoadoutFactory loadoutFactory;
+    private final Provider<DatabaseIndex> databaseIndex;
 
     @Inject
-    public LoadoutCoderV2(LoadoutFactory aLoadoutFactory) {
+    public LoadoutCoderV2(LoadoutFactory aLoadoutFactory, Provider<DatabaseIndex> aDatabaseIndex) {
         loadoutFactory = aLoadoutFactory;
+        databaseIndex = aDatabaseIndex;
         try (InputStream is = ClassLoader.getSystemClassLoader().getResourceAsStream("coderstats_v2.bin");
                 ObjectInputStream in = new ObjectInputStream(is)) {
             @SuppressWarnings("unchecked")
@@ -95,6 +95,7 @@ public class LoadoutCoderV2 implements LoadoutCoder {
     @Override
     public LoadoutStandard decode(final byte[] aBitStream) throws DecodingException, Exception {
         final ByteArrayInputStream buffer = new ByteArrayInputStream(aBitStream);
+        final DatabaseIndex index = databaseIndex.get();
         final LoadoutStandard loadout;
         final CommandStack stack = new CommandStack(0);
 
@@ -111,7 +112,7 @@ public class LoadoutCoderV2 implements LoadoutCoder {
             // 16 bits contain chassis ID (Big endian, respecting RFC 1700)
             final short chassiId = (short) ((buffer.read() & 0xFF) << 8 | buffer.read() & 0xFF);
 
-            final Chassis chassis = ChassisDB.lookup(chassiId);
+            final Chassis chassis = index.lookupChassis(chassiId);
             if (!(chassis instanceof ChassisStandard)) {
                 throw new DecodingException("LSML link format v2 does not support omni mechs.");
             }
@@ -139,10 +140,14 @@ public class LoadoutCoderV2 implements LoadoutCoder {
                 throw new DecodingException(e);
             }
             final List<Integer> ids = huff.decode(rest);
-            stack.pushAndApply(new CmdSetArmourType(null, loadout, (ArmourUpgrade) UpgradeDB.lookup(ids.get(0))));
-            stack.pushAndApply(new CmdSetStructureType(null, loadout, (StructureUpgrade) UpgradeDB.lookup(ids.get(1))));
-            stack.pushAndApply(new CmdSetHeatSinkType(null, loadout, (HeatSinkUpgrade) UpgradeDB.lookup(ids.get(2))));
-            stack.pushAndApply(new CmdSetGuidanceType(null, loadout, (GuidanceUpgrade) UpgradeDB.lookup(ids.get(3))));
+            stack.pushAndApply(
+                    new CmdSetArmourType(null, loadout, (ArmourUpgrade) index.lookupUpgrade(ids.get(0))));
+            stack.pushAndApply(
+                    new CmdSetStructureType(null, loadout, (StructureUpgrade) index.lookupUpgrade(ids.get(1))));
+            stack.pushAndApply(
+                    new CmdSetHeatSinkType(null, loadout, (HeatSinkUpgrade) index.lookupUpgrade(ids.get(2))));
+            stack.pushAndApply(
+                    new CmdSetGuidanceType(null, loadout, (GuidanceUpgrade) index.lookupUpgrade(ids.get(3))));
 
             if (-1 != ids.get(4)) {
                 throw new DecodingException("Broken LSML link, expected separator got: " + ids.get(4));
@@ -157,13 +162,13 @@ public class LoadoutCoderV2 implements LoadoutCoder {
                 Integer v;
                 final List<Item> later = new ArrayList<>();
                 while (!ids.isEmpty() && -1 != (v = ids.remove(0))) {
-                    final Item item = ItemDB.lookup(v);
+                    final Item item = index.lookupItem(v);
                     if (item instanceof HeatSink) {
                         later.add(item); // Add heat sinks last after engine has
                         // been added
                         continue;
                     }
-                    stack.pushAndApply(new CmdAddItem(null, loadout, loadout.getComponent(location), ItemDB.lookup(v)));
+                    stack.pushAndApply(new CmdAddItem(null, loadout, loadout.getComponent(location), item));
                 }
                 for (final Item i : later) {
                     stack.pushAndApply(new CmdAddItem(null, loadout, loadout.getComponent(location), i));
@@ -172,7 +177,7 @@ public class LoadoutCoderV2 implements LoadoutCoder {
 
             Integer v;
             while (!ids.isEmpty() && -1 != (v = ids.remove(0))) {
-                stack.pushAndApply(new CmdAddModule(null, loadout, ConsumableDB.lookup(v.intValue())));
+                stack.pushAndApply(new CmdAddModule(null, loadout, index.lookupConsumable(v.intValue())));
             }
         }
         return loadout;
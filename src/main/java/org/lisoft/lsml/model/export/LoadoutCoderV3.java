@@ -30,27 +30,20 @@ import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 import org.lisoft.lsml.application.ErrorReporter;
-import org.lisoft.lsml.command.CmdAddItem;
-import org.lisoft.lsml.command.CmdAddModule;
-import org.lisoft.lsml.command.CmdSetArmour;
 import org.lisoft.lsml.command.CmdSetArmourType;
 import org.lisoft.lsml.command.CmdSetGuidanceType;
 import org.lisoft.lsml.command.CmdSetHeatSinkType;
-import org.lisoft.lsml.command.CmdSetOmniPod;
 import org.lisoft.lsml.command.CmdSetStructureType;
-import org.lisoft.lsml.command.CmdToggleItem;
 import org.lisoft.lsml.model.NoSuchItemException;
 import org.lisoft.lsml.model.chassi.ArmourSide;
 import org.lisoft.lsml.model.chassi.Chassis;
 import org.lisoft.lsml.model.chassi.Location;
 import org.lisoft.lsml.model.chassi.OmniPod;
-import org.lisoft.lsml.model.database.ChassisDB;
-import org.lisoft.lsml.model.database.ConsumableDB;
+import org.lisoft.lsml.model.database.DatabaseIndex;
 import org.lisoft.lsml.model.database.ItemDB;
-import org.lisoft.lsml.model.database.OmniPodDB;
-import org.lisoft.lsml.model.database.UpgradeDB;
 import org.lisoft.lsml.model.item.Consumable;
 import org.lisoft.lsml.model.item.Internal;
 import org.lisoft.lsml.model.item.Item;
@@ -82,16 +75,19 @@ public class LoadoutCoderV3 implements LoadoutCoder {
     private final ErrorReporter errorReporter;
 
     private final LoadoutFactory loadoutFactory;
+    private final Provider<DatabaseIndex> databaseIndex;
 
     @Inject
-    public LoadoutCoderV3(ErrorReporter aErrorReporter, LoadoutFactory aLoadoutFactory) {
-        this(aErrorReporter, aLoadoutFactory, "coderstats_v3.bin", HEADER_MAGIC);
+    public LoadoutCoderV3(ErrorReporter aErrorReporter, LoadoutFactory aLoadoutFactory,
+            Provider<DatabaseIndex> aDatabaseIndex) {
+        this(aErrorReporter, aLoadoutFactory, aDatabaseIndex, "coderstats_v3.bin", HEADER_MAGIC);
     }
 
-    public LoadoutCoderV3(ErrorReporter aErrorReporter, LoadoutFactory aLoadoutFactory, String aHuffmanTable,
-            int aHeaderMagic) {
+    public LoadoutCoderV3(ErrorReporter aErrorReporter, LoadoutFactory aLoadoutFactory,
+            Provider<DatabaseIndex> aDatabaseIndex, String aHuffmanTable, int aHeaderMagic) {
         errorReporter = aErrorReporter;
         loadoutFactory = aLoadoutFactory;
+        databaseIndex = aDatabaseIndex;
         headerMagic = aHeaderMagic;
         try (InputStream is = ClassLoader.getSystemClassLoader().getResourceAsStream(aHuffmanTable);
                 ObjectInputStream in = new ObjectInputStream(is)) {
@@ -120,8 +116,9 @@ public class LoadoutCoderV3 implements LoadoutCoder {
             throw new DecodingException("Wrong format!"); // Wrong format
         }
 
+        final DatabaseIndex index = databaseIndex.get();
         final LoadoutBuilder builder = new LoadoutBuilder();
-        final Loadout loadout = readChassis(buffer);
+        final Loadout loadout = readChassis(buffer, index);
         final boolean isOmniMech = loadout instanceof LoadoutOmniMech;
 
         readArmourValues(buffer, loadout, builder);
@@ -145,28 +142,29 @@ public class LoadoutCoderV3 implements LoadoutCoder {
                 final LoadoutStandard loadoutStandard = (LoadoutStandard) loadout;
                 try {
                     builder.push(new CmdSetArmourType(null, loadoutStandard,
-                            (ArmourUpgrade) UpgradeDB.lookup(ids.remove(0))));
+                            (ArmourUpgrade) index.lookupUpgrade(ids.remove(0))));
                 }
                 catch (final NoSuchItemException e) {
                     builder.pushError(e);
                 }
                 try {
                     builder.push(new CmdSetStructureType(null, loadoutStandard,
-                            (StructureUpgrade) UpgradeDB.lookup(ids.remove(0))));
+                            (StructureUpgrade) index.lookupUpgrade(ids.remove(0))));
                 }
                 catch (final NoSuchItemException e) {
                     builder.pushError(e);
                 }
                 try {
                     builder.push(new CmdSetHeatSinkType(null, loadoutStandard,
-                            (HeatSinkUpgrade) UpgradeDB.lookup(ids.remove(0))));
+                            (HeatSinkUpgrade) index.lookupUpgrade(ids.remove(0))));
                 }
                 catch (final NoSuchItemException e) {
                     builder.pushError(e);
                 }
             }
             try {
-                builder.push(new CmdSetGuidanceType(null, loadout, (GuidanceUpgrade) UpgradeDB.lookup(ids.remove(0))));
+                builder.push(
+                        new CmdSetGuidanceType(null, loadout, (GuidanceUpgrade) index.lookupUpgrade(ids.remove(0))));
             }
             catch (final NoSuchItemException e1) {
                 builder.pushError(e1);
@@ -176,8 +174,8 @@ public class LoadoutCoderV3 implements LoadoutCoder {
                 if (isOmniMech && location != Location.CenterTorso) {
                     final LoadoutOmniMech omniMech = (LoadoutOmniMech) loadout;
                     try {
-                        final OmniPod omniPod = OmniPodDB.lookup(ids.remove(0));
-                        builder.push(new CmdSetOmniPod(null, omniMech, omniMech.getComponent(location), omniPod));
+                        final OmniPod omniPod = index.lookupOmniPod(ids.remove(0));
+                        builder.setOmniPod(omniMech, omniPod);
                     }
                     catch (final NoSuchItemException e) {
                         builder.pushError(e);
@@ -187,7 +185,7 @@ public class LoadoutCoderV3 implements LoadoutCoder {
                 Integer v;
                 while (!ids.isEmpty() && -1 != (v = ids.remove(0))) {
                     try {
-                        builder.push(new CmdAddItem(null, loadout, loadout.getComponent(location), ItemDB.lookup(v)));
+                        builder.addItem(loadout, loadout.getComponent(location), index.lookupItem(v));
                     }
                     catch (final NoSuchItemException e) {
                         builder.pushError(e);
@@ -197,7 +195,7 @@ public class LoadoutCoderV3 implements LoadoutCoder {
 
             while (!ids.isEmpty()) {
                 try {
-                    builder.push(new CmdAddModule(null, loadout, ConsumableDB.lookup(ids.remove(0).intValue())));
+                    builder.addConsumable(loadout, index.lookupConsumable(ids.remove(0).intValue()));
                 }
                 catch (final NoSuchItemException e) {
                     // Ignore missing pilot modules, they have been deleted from the game.
@@ -360,10 +358,10 @@ public class LoadoutCoderV3 implements LoadoutCoder {
         final boolean LHA = (aActuatorState & 1) != 0;
 
         final LoadoutOmniMech omniMech = (LoadoutOmniMech) aLoadout;
-        aBuilder.push(new CmdToggleItem(null, omniMech, omniMech.getComponent(Location.LeftArm), ItemDB.LAA, LLAA));
-        aBuilder.push(new CmdToggleItem(null, omniMech, omniMech.getComponent(Location.LeftArm), ItemDB.HA, LHA));
-        aBuilder.push(new CmdToggleItem(null, omniMech, omniMech.getComponent(Location.RightArm), ItemDB.LAA, RLAA));
-        aBuilder.push(new CmdToggleItem(null, omniMech, omniMech.getComponent(Location.RightArm), ItemDB.HA, RHA));
+        aBuilder.setToggleState(omniMech, omniMech.getComponent(Location.LeftArm), ItemDB.LAA, LLAA);
+        aBuilder.setToggleState(omniMech, omniMech.getComponent(Location.LeftArm), ItemDB.HA, LHA);
+        aBuilder.setToggleState(omniMech, omniMech.getComponent(Location.RightArm), ItemDB.LAA, RLAA);
+        aBuilder.setToggleState(omniMech, omniMech.getComponent(Location.RightArm), ItemDB.HA, RHA);
     }
 
     private void readArmourValues(ByteArrayInputStream aBuffer, Loadout aLoadout, LoadoutBuilder aBuilder) {
@@ -373,16 +371,16 @@ public class LoadoutCoderV3 implements LoadoutCoder {
         for (final Location location : Location.RIGHT_TO_LEFT) {
             final ConfiguredComponent component = aLoadout.getComponent(location);
             for (final ArmourSide side : ArmourSide.allSides(component.getInternalComponent())) {
-                aBuilder.push(new CmdSetArmour(null, aLoadout, component, side, aBuffer.read(), true));
+                aBuilder.setArmour(aLoadout, component, side, aBuffer.read(), true);
             }
         }
     }
 
-    private Loadout readChassis(final ByteArrayInputStream buffer) throws DecodingException {
+    private Loadout readChassis(final ByteArrayInputStream buffer, DatabaseIndex aIndex) throws DecodingException {
         final short chassisId = (short) ((buffer.read() & 0xFF) << 8 | buffer.read() & 0xFF);
         try {
             // 16 bits contain chassis ID (Big endian, respecting RFC 1700)
-            final Chassis chassis = ChassisDB.lookup(chassisId);
+            final Chassis chassis = aIndex.lookupChassis(chassisId);
             return loadoutFactory.produceEmpty(chassis);
         }
         catch (final NoSuchItemException e2) {
@@ -20,8 +20,10 @@
 package org.lisoft.lsml.model.export;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 import org.lisoft.lsml.application.ErrorReporter;
+import org.lisoft.lsml.model.database.DatabaseIndex;
 import org.lisoft.lsml.model.loadout.LoadoutFactory;
 
 /**
@@ -38,7 +40,8 @@ public class LoadoutCoderV4 extends LoadoutCoderV3 {
     public static final int HEADER_MAGIC = LoadoutCoderV3.HEADER_MAGIC + 1;
 
     @Inject
-    public LoadoutCoderV4(ErrorReporter aErrorReporter, LoadoutFactory aLoadoutFactory) {
-        super(aErrorReporter, aLoadoutFactory, "coderstats_v4.bin", HEADER_MAGIC);
+    public LoadoutCoderV4(ErrorReporter aErrorReporter, LoadoutFactory aLoadoutFactory,
+            Provider<DatabaseIndex> aDatabaseIndex) {
+        super(aErrorReporter, aLoadoutFactory, aDatabaseIndex, "coderstats_v4.bin", HEADER_MAGIC);
     }
 }
@@ -27,14 +27,10 @@ import java.util.Map;
 import javax.inject.Inject;
 
 import org.lisoft.lsml.application.ErrorReporter;
-import org.lisoft.lsml.command.CmdAddItem;
-import org.lisoft.lsml.command.CmdSetArmour;
 import org.lisoft.lsml.command.CmdSetArmourType;
 import org.lisoft.lsml.command.CmdSetGuidanceType;
 import org.lisoft.lsml.command.CmdSetHeatSinkType;
-import org.lisoft.lsml.command.CmdSetOmniPod;
 import org.lisoft.lsml.command.CmdSetStructureType;
-import org.lisoft.lsml.command.CmdToggleItem;
 import org.lisoft.lsml.model.NoSuchItemException;
 import org.lisoft.lsml.model.chassi.ArmourSide;
 import org.lisoft.lsml.model.chassi.Chassis;
@@ -54,7 +50,6 @@ import org.lisoft.lsml.model.loadout.LoadoutFactory;
 import org.lisoft.lsml.model.loadout.LoadoutOmniMech;
 import org.lisoft.lsml.model.loadout.LoadoutStandard;
 import org.lisoft.lsml.model.upgrades.GuidanceUpgrade;
-import org.lisoft.lsml.model.upgrades.Upgrade;
 import org.lisoft.lsml.model.upgrades.Upgrades;
 import org.lisoft.lsml.util.DecodingException;
 import org.lisoft.lsml.util.EncodingException;
@@ -99,7 +94,10 @@ public class MWOCoder {
     private static final int UPGRADE_CLAN_ES_STRUCTURE = 2;
     private static final int UPGRADE_CLAN_STD_STRUCTURE = 3;
 
-    private static final Map<Upgrade, Integer> UPGRADE_TO_BITS;
+    /**
+     * Keyed by the MWO ID of the upgrade, the upgrade objects themselves are replaced when the database is updated.
+     */
+    private static final Map<Integer, Integer> UPGRADE_TO_BITS;
 
     private final BasePGICoder baseCoder;
     private final LoadoutFactory loadoutFactory;
@@ -119,22 +117,22 @@ public class MWOCoder {
 
         UPGRADE_TO_BITS = new HashMap<>();
 
-        UPGRADE_TO_BITS.put(UpgradeDB.STD_GUIDANCE, 0);
-        UPGRADE_TO_BITS.put(UpgradeDB.ARTEMIS_IV, 1);
-        UPGRADE_TO_BITS.put(UpgradeDB.IS_SHS, UPGRADE_IS_SHS);
-        UPGRADE_TO_BITS.put(UpgradeDB.IS_DHS, UPGRADE_IS_DHS);
-        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_DHS, UPGRADE_CLAN_DHS);
-        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_SHS, UPGRADE_CLAN_SHS);
-        UPGRADE_TO_BITS.put(UpgradeDB.IS_STD_ARMOUR, UPGRADE_IS_STD_ARMOUR);
-        UPGRADE_TO_BITS.put(UpgradeDB.IS_FF_ARMOUR, UPGRADE_IS_FF_ARMOUR);
-        UPGRADE_TO_BITS.put(UpgradeDB.IS_LIGHT_FF_ARMOUR, UPGRADE_IS_LIGHT_FF_ARMOUR);
-        UPGRADE_TO_BITS.put(UpgradeDB.IS_STEALTH_ARMOUR, UPGRADE_IS_STEALTH_ARMOUR);
-        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_FF_ARMOUR, UPGRADE_CLAN_FF_ARMOUR);
-        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_STD_ARMOUR, UPGRADE_CLAN_STD_ARMOUR);
-        UPGRADE_TO_BITS.put(UpgradeDB.IS_STD_STRUCTURE, UPGRADE_IS_STD_STRUCTURE);
-        UPGRADE_TO_BITS.put(UpgradeDB.IS_ES_STRUCTURE, UPGRADE_IS_ES_STRUCTURE);
-        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_ES_STRUCTURE, UPGRADE_CLAN_ES_STRUCTURE);
-        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_STD_STRUCTURE, UPGRADE_CLAN_STD_STRUCTURE);
+        UPGRADE_TO_BITS.put(UpgradeDB.STD_GUIDANCE.getId(), 0);
+        UPGRADE_TO_BITS.put(UpgradeDB.ARTEMIS_IV.getId(), 1);
+        UPGRADE_TO_BITS.put(UpgradeDB.IS_SHS.getId(), UPGRADE_IS_SHS);
+        UPGRADE_TO_BITS.put(UpgradeDB.IS_DHS.getId(), UPGRADE_IS_DHS);
+        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_DHS.getId(), UPGRADE_CLAN_DHS);
+        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_SHS.getId(), UPGRADE_CLAN_SHS);
+        UPGRADE_TO_BITS.put(UpgradeDB.IS_STD_ARMOUR.getId(), UPGRADE_IS_STD_ARMOUR);
+        UPGRADE_TO_BITS.put(UpgradeDB.IS_FF_ARMOUR.getId(), UPGRADE_IS_FF_ARMOUR);
+        UPGRADE_TO_BITS.put(UpgradeDB.IS_LIGHT_FF_ARMOUR.getId(), UPGRADE_IS_LIGHT_FF_ARMOUR);
+        UPGRADE_TO_BITS.put(UpgradeDB.IS_STEALTH_ARMOUR.getId(), UPGRADE_IS_STEALTH_ARMOUR);
+        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_FF_ARMOUR.getId(), UPGRADE_CLAN_FF_ARMOUR);
+        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_STD_ARMOUR.getId(), UPGRADE_CLAN_STD_ARMOUR);
+        UPGRADE_TO_BITS.put(UpgradeDB.IS_STD_STRUCTURE.getId(), UPGRADE_IS_STD_STRUCTURE);
+        UPGRADE_TO_BITS.put(UpgradeDB.IS_ES_STRUCTURE.getId(), UPGRADE_IS_ES_STRUCTURE);
+        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_ES_STRUCTURE.getId(), UPGRADE_CLAN_ES_STRUCTURE);
+        UPGRADE_TO_BITS.put(UpgradeDB.CLAN_STD_STRUCTURE.getId(), UPGRADE_CLAN_STD_STRUCTURE);
     }
 
     /**
@@ -203,9 +201,9 @@ public class MWOCoder {
         final int backArmourCT = baseCoder.parseExactly(sr, 2);
         final int backArmourLT = baseCoder.parseExactly(sr, 2);
         final int backArmourRT = baseCoder.parseExactly(sr, 2);
-        builder.push(new CmdSetArmour(null, loadout, Location.CenterTorso, ArmourSide.BACK, backArmourCT, true));
-        builder.push(new CmdSetArmour(null, loadout, Location.LeftTorso, ArmourSide.BACK, backArmourLT, true));
-        builder.push(new CmdSetArmour(null, loadout, Location.RightTorso, ArmourSide.BACK, backArmourRT, true));
+        builder.setArmour(loadout, loadout.getComponent(Location.CenterTorso), ArmourSide.BACK, backArmourCT, true);
+        builder.setArmour(loadout, loadout.getComponent(Location.LeftTorso), ArmourSide.BACK, backArmourLT, true);
+        builder.setArmour(loadout, loadout.getComponent(Location.RightTorso), ArmourSide.BACK, backArmourRT, true);
     }
 
     private void parseActuatorState(StringReader sr, LoadoutBuilder builder, final Loadout loadout)
@@ -217,18 +215,18 @@ public class MWOCoder {
 
             final ConfiguredComponentOmniMech la = loadoutOmniMech.getComponent(Location.LeftArm);
             if ((actuatorState & ACTUATOR_STATE_L_LAA_REMOVED) != 0) {
-                builder.push(new CmdToggleItem(null, loadoutOmniMech, la, ItemDB.LAA, false));
+                builder.setToggleState(loadoutOmniMech, la, ItemDB.LAA, false);
             }
             else if ((actuatorState & ACTUATOR_STATE_L_HA_REMOVED) != 0) {
-                builder.push(new CmdToggleItem(null, loadoutOmniMech, la, ItemDB.HA, false));
+                builder.setToggleState(loadoutOmniMech, la, ItemDB.HA, false);
             }
 
             final ConfiguredComponentOmniMech ra = loadoutOmniMech.getComponent(Location.RightArm);
             if ((actuatorState & ACTUATOR_STATE_R_LAA_REMOVED) != 0) {
-                builder.push(new CmdToggleItem(null, loadoutOmniMech, ra, ItemDB.LAA, false));
+                builder.setToggleState(loadoutOmniMech, ra, ItemDB.LAA, false);
             }
             else if ((actuatorState & ACTUATOR_STATE_R_HA_REMOVED) != 0) {
-                builder.push(new CmdToggleItem(null, loadoutOmniMech, ra, ItemDB.HA, false));
+                builder.setToggleState(loadoutOmniMech, ra, ItemDB.HA, false);
             }
         }
     }
@@ -238,14 +236,14 @@ public class MWOCoder {
         final ConfiguredComponent component = loadout.getComponent(location);
 
         final int frontArmour = baseCoder.parseExactly(sr, 2);
-        builder.push(new CmdSetArmour(null, loadout, component,
-                location.isTwoSided() ? ArmourSide.FRONT : ArmourSide.ONLY, frontArmour, true));
+        builder.setArmour(loadout, component, location.isTwoSided() ? ArmourSide.FRONT : ArmourSide.ONLY, frontArmour,
+                true);
 
         if (location != Location.CenterTorso && loadout instanceof LoadoutOmniMech) {
             final LoadoutOmniMech omniMech = (LoadoutOmniMech) loadout;
             try {
                 final OmniPod omniPod = OmniPodDB.lookup(baseCoder.parseAvailable(sr, 6));
-                builder.push(new CmdSetOmniPod(null, omniMech, omniMech.getComponent(location), omniPod));
+                builder.setOmniPod(omniMech, omniPod);
             }
             catch (final NoSuchItemException e) {
                 builder.pushError(e);
@@ -256,7 +254,7 @@ public class MWOCoder {
         while (ITEM_SEPARATOR == next) {
             try {
                 final int itemId = baseCoder.parseAvailable(sr, 6);
-                builder.push(new CmdAddItem(null, loadout, component, ItemDB.lookup(itemId)));
+                builder.addItem(loadout, component, ItemDB.lookup(itemId));
             }
             catch (final NoSuchItemException e) {
                 builder.pushError(e);
@@ -375,10 +373,10 @@ public class MWOCoder {
 
         final boolean isOmnimech = aLoadout instanceof LoadoutOmniMech;
         final Upgrades upgrades = aLoadout.getUpgrades();
-        final int structureArmour = (UPGRADE_TO_BITS.get(upgrades.getStructure()) << 3)
-                | UPGRADE_TO_BITS.get(upgrades.getArmour());
-        final int heatsinkGuidance = (UPGRADE_TO_BITS.get(upgrades.getHeatSink()) << 1)
-                | UPGRADE_TO_BITS.get(upgrades.getGuidance()) | (isOmnimech ? UPGRADE_OMNIMECH_BIT : 0);
+        final int structureArmour = (UPGRADE_TO_BITS.get(upgrades.getStructure().getId()) << 3)
+                | UPGRADE_TO_BITS.get(upgrades.getArmour().getId());
+        final int heatsinkGuidance = (UPGRADE_TO_BITS.get(upgrades.getHeatSink().getId()) << 1)
+                | UPGRADE_TO_BITS.get(upgrades.getGuidance().getId()) | (isOmnimech ? UPGRADE_OMNIMECH_BIT : 0);
 
         baseCoder.append(structureArmour, sb, 1);
         baseCoder.append(heatsinkGuidance, sb, 1);
@@ -19,9 +19,6 @@
 //@formatter:on
 package org.lisoft.lsml.model.export.garage;
 
-import org.lisoft.lsml.command.CmdAddItem;
-import org.lisoft.lsml.command.CmdSetArmour;
-import org.lisoft.lsml.command.CmdToggleItem;
 import org.lisoft.lsml.model.NoSuchItemException;
 import org.lisoft.lsml.model.chassi.ArmourSide;
 import org.lisoft.lsml.model.chassi.Location;
@@ -134,15 +131,15 @@ public class ConfiguredComponentConverter implements Converter {
             if (partType.isTwoSided()) {
                 final String[] armours = aReader.getAttribute("armor").split("/");
                 if (armours.length == 2) {
-                    builder.push(new CmdSetArmour(null, loadout, loadoutPart, ArmourSide.FRONT,
-                            Integer.parseInt(armours[0]), !autoArmour));
-                    builder.push(new CmdSetArmour(null, loadout, loadoutPart, ArmourSide.BACK,
-                            Integer.parseInt(armours[1]), !autoArmour));
+                    builder.setArmour(loadout, loadoutPart, ArmourSide.FRONT, Integer.parseInt(armours[0]),
+                            !autoArmour);
+                    builder.setArmour(loadout, loadoutPart, ArmourSide.BACK, Integer.parseInt(armours[1]),
+                            !autoArmour);
                 }
             }
             else {
-                builder.push(new CmdSetArmour(null, loadout, loadoutPart, ArmourSide.ONLY,
-                        Integer.parseInt(aReader.getAttribute("armor")), !autoArmour));
+                builder.setArmour(loadout, loadoutPart, ArmourSide.ONLY,
+                        Integer.parseInt(aReader.getAttribute("armor")), !autoArmour);
             }
         }
         catch (final IllegalArgumentException exception) {
@@ -155,7 +152,7 @@ public class ConfiguredComponentConverter implements Converter {
                 try {
                     Item item = (Item) aContext.convertAnother(null, Item.class);
                     item = CompatibilityHelper.fixArtemis(item, loadout.getUpgrades().getGuidance());
-                    builder.push(new CmdAddItem(null, loadout, loadoutPart, item));
+                    builder.addItem(loadout, loadoutPart, item);
                 }
                 catch (final Throwable t) {
                     builder.pushError(t);
@@ -189,15 +186,15 @@ public class ConfiguredComponentConverter implements Converter {
             if (partType.isTwoSided()) {
                 final String[] armours = aReader.getAttribute("armor").split("/");
                 if (armours.length == 2) {
-                    builder.push(new CmdSetArmour(null, loadout, loadoutPart, ArmourSide.FRONT,
-                            Integer.parseInt(armours[0]), !autoArmour));
-                    builder.push(new CmdSetArmour(null, loadout, loadoutPart, ArmourSide.BACK,
-                            Integer.parseInt(armours[1]), !autoArmour));
+                    builder.setArmour(loadout, loadoutPart, ArmourSide.FRONT, Integer.parseInt(armours[0]),
+                            !autoArmour);
+                    builder.setArmour(loadout, loadoutPart, ArmourSide.BACK, Integer.parseInt(armours[1]),
+                            !autoArmour);
                 }
             }
             else {
-                builder.push(new CmdSetArmour(null, loadout, loadoutPart, ArmourSide.ONLY,
-                        Integer.parseInt(aReader.getAttribute("armor")), !autoArmour));
+                builder.setArmour(loadout, loadoutPart, ArmourSide.ONLY,
+                        Integer.parseInt(aReader.getAttribute("armor")), !autoArmour);
             }
         }
         catch (final IllegalArgumentException exception) {
@@ -211,7 +208,7 @@ public class ConfiguredComponentConverter implements Converter {
                     final Item item = (Item) aContext.convertAnother(null, Item.class);
                     if (null != item) {
                         // Error was already reported in ItemConverter.
-                        builder.push(new CmdAddItem(null, loadout, loadoutPart, item));
+                        builder.addItem(loadout, loadoutPart, item);
                     }
                 }
                 catch (final Throwable t) {
@@ -221,8 +218,8 @@ public class ConfiguredComponentConverter implements Converter {
             else if ("togglestate".equals(aReader.getNodeName())) {
                 try {
                     final Item item = ItemDB.lookup(Integer.parseInt(aReader.getAttribute("item")));
-                    builder.push(new CmdToggleItem(null, loadout, (ConfiguredComponentOmniMech) loadoutPart, item,
-                            Boolean.parseBoolean(aReader.getAttribute("enabled"))));
+                    builder.setToggleState(loadout, (ConfiguredComponentOmniMech) loadoutPart, item,
+                            Boolean.parseBoolean(aReader.getAttribute("enabled")));
                 }
                 catch (NumberFormatException | NoSuchItemException e) {
                     builder.pushError(e);
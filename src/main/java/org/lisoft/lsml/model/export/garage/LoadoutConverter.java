@@ -20,7 +20,6 @@
 package org.lisoft.lsml.model.export.garage;
 
 import org.lisoft.lsml.application.ErrorReporter;
-import org.lisoft.lsml.command.CmdAddModule;
 import org.lisoft.lsml.command.CmdSetArmourType;
 import org.lisoft.lsml.command.CmdSetGuidanceType;
 import org.lisoft.lsml.command.CmdSetHeatSinkType;
@@ -254,7 +253,7 @@ public class LoadoutConverter implements Converter {
                     final Consumable module = (Consumable) aContext.convertAnother(null, Consumable.class);
                     if (module != null) {
                         // Quietly ignore modules found on old loadouts that have been removed.
-                        builder.push(new CmdAddModule(null, loadout, module));
+                        builder.addConsumable(loadout, module);
                     }
                     aReader.moveUp();
                 }
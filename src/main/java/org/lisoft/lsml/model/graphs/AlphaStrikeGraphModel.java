@@ -62,7 +62,7 @@ public class AlphaStrikeGraphModel implements DamageGraphModel {
         final SortedMap<Weapon, List<Pair<Double, Double>>> data = new TreeMap<>(
                 ItemComparator.byRange(loadout.getAllModifiers()));
 
-        for (final double range : WeaponRanges.getRanges(loadout)) {
+        for (final double range : WeaponRanges.getRangeArray(loadout)) {
             final Set<Entry<Weapon, Double>> dist = alphaStrikeMetric.getWeaponRatios(range).entrySet();
             for (final Map.Entry<Weapon, Double> entry : dist) {
                 final Weapon weapon = entry.getKey();
@@ -19,17 +19,18 @@
 //@formatter:on
 package org.lisoft.lsml.model.graphs;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 import org.lisoft.lsml.model.item.ItemComparator;
 import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.Loadout;
+import org.lisoft.lsml.model.loadout.ResolvedWeaponStats;
 import org.lisoft.lsml.model.modifiers.Modifier;
 import org.lisoft.lsml.util.Pair;
 import org.lisoft.lsml.util.WeaponRanges;
@@ -55,7 +56,8 @@ public class MaxDpsGraphModel implements DamageGraphModel {
 
     @Override
     public SortedMap<Weapon, List<Pair<Double, Double>>> getData() {
-        final Collection<Modifier> modifiers = loadout.getAllModifiers();
+        final ResolvedWeaponStats stats = loadout.getWeaponStats();
+        final Collection<Modifier> modifiers = stats.getModifiers();
 
         // Figure out how many of each weapon
         final SortedMap<Weapon, Long> multiplicity = new TreeMap<>(Comparator.comparing(Weapon::getId));
@@ -70,16 +72,18 @@ public class MaxDpsGraphModel implements DamageGraphModel {
         final SortedMap<Weapon, List<Pair<Double, Double>>> result = new TreeMap<>(ItemComparator.byRange(modifiers));
 
         // Calculate the DPS
-        final List<Double> ranges = WeaponRanges.getRanges(loadout);
+        final double[] ranges = WeaponRanges.getRangeArray(loadout);
+        final double[] rangeEff = new double[ranges.length];
         for (final Map.Entry<Weapon, Long> uniqueWeaponMultiplicity : multiplicity.entrySet()) {
             final Weapon weapon = uniqueWeaponMultiplicity.getKey();
             final Long mult = uniqueWeaponMultiplicity.getValue();
 
-            final List<Pair<Double, Double>> series = ranges.stream().map((aRange) -> {
-                final double dps = weapon.getStat("d/s", modifiers);
-                final double rangeEff = weapon.getRangeEffectiveness(aRange, modifiers);
-                return new Pair<>(aRange, dps * rangeEff * mult);
-            }).collect(Collectors.toList());
+            final double dps = stats.getDamagePerSecond(weapon);
+            weapon.getRangeEffectiveness(ranges, modifiers, rangeEff);
+            final List<Pair<Double, Double>> series = new ArrayList<>(ranges.length);
+            for (int i = 0; i < ranges.length; ++i) {
+                series.add(new Pair<>(ranges[i], dps * rangeEff[i] * mult));
+            }
             result.put(weapon, series);
         }
         return result;
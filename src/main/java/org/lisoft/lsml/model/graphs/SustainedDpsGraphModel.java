@@ -31,6 +31,7 @@ import java.util.TreeMap;
 import org.lisoft.lsml.model.item.ItemComparator;
 import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.Loadout;
+import org.lisoft.lsml.model.loadout.ResolvedWeaponStats;
 import org.lisoft.lsml.model.metrics.MaxSustainedDPS;
 import org.lisoft.lsml.model.modifiers.Modifier;
 import org.lisoft.lsml.util.Pair;
@@ -61,16 +62,27 @@ public class SustainedDpsGraphModel implements DamageGraphModel {
 
     @Override
     public SortedMap<Weapon, List<Pair<Double, Double>>> getData() {
-        final Collection<Modifier> modifiers = loadout.getAllModifiers();
+        final ResolvedWeaponStats stats = loadout.getWeaponStats();
+        final Collection<Modifier> modifiers = stats.getModifiers();
         final SortedMap<Weapon, List<Pair<Double, Double>>> data = new TreeMap<>(ItemComparator.byRange(modifiers));
 
-        for (final double range : WeaponRanges.getRanges(loadout)) {
+        final double[] ranges = WeaponRanges.getRangeArray(loadout);
+        final double[][] rangeEffs = new double[stats.size()][];
+        for (int i = 0; i < stats.size(); ++i) {
+            rangeEffs[i] = new double[ranges.length];
+            stats.getWeapon(i).getRangeEffectiveness(ranges, modifiers, rangeEffs[i]);
+        }
+
+        for (int r = 0; r < ranges.length; ++r) {
+            final double range = ranges[r];
             final Set<Entry<Weapon, Double>> damageDistributio = sustainedDPS.getWeaponRatios(range).entrySet();
             for (final Map.Entry<Weapon, Double> entry : damageDistributio) {
                 final Weapon weapon = entry.getKey();
                 final double ratio = entry.getValue();
-                final double dps = weapon.getStat("d/s", modifiers);
-                final double rangeEff = weapon.getRangeEffectiveness(range, modifiers);
+                final double dps = stats.getDamagePerSecond(weapon);
+                final int index = stats.indexOf(weapon);
+                final double rangeEff = index < 0 ? weapon.getRangeEffectiveness(range, modifiers)
+                        : rangeEffs[index][r];
 
                 data.computeIfAbsent(weapon, aWeapon -> new ArrayList<>())
                         .add(new Pair<>(range, dps * ratio * rangeEff));
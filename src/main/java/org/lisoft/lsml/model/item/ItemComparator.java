@@ -23,6 +23,7 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.lisoft.lsml.model.NoSuchItemException;
@@ -66,7 +67,20 @@ public class ItemComparator implements Comparator<Item>, Serializable {
     private static final int CLASS_SCORE = 100000000; // 100E6
     private static final int FACTION_SCORE = 1;
 
-    private static final Map<Item, Pair<Integer, Integer>> ITEM_PRIORITY;
+    /**
+     * The priorities of all items, together with the item list they were computed from. They are computed again if
+     * {@link ItemDB} starts returning a different list, which happens when the database is updated.
+     */
+    private static final class Priorities {
+        final List<Item> items;
+        final Map<Item, Pair<Integer, Integer>> byItem = new HashMap<>();
+
+        Priorities(List<Item> aItems) {
+            items = aItems;
+        }
+    }
+
+    private static volatile Priorities priorities;
 
     private static final int RANK_ENERGY = 1 * CLASS_SCORE;
     private static final int RANK_BALLISTIC = 2 * CLASS_SCORE;
@@ -81,10 +95,11 @@ public class ItemComparator implements Comparator<Item>, Serializable {
     private static final int RANK_MISC = 11 * CLASS_SCORE;
     private static final int RANK_ENGINE = 12 * CLASS_SCORE;
 
-    static {
-        ITEM_PRIORITY = new HashMap<>();
+    private static Priorities computePriorities(List<Item> aItems) {
+        final Priorities ans = new Priorities(aItems);
+        final Map<Item, Pair<Integer, Integer>> itemPriority = ans.byItem;
 
-        for (final Item item : ItemDB.lookup(Item.class)) {
+        for (final Item item : aItems) {
             if (item instanceof Ammunition) {
                 continue; // Ammo added together with the weapons later on
             }
@@ -92,75 +107,76 @@ public class ItemComparator implements Comparator<Item>, Serializable {
             else if (item instanceof BallisticWeapon) {
                 final BallisticWeapon weapon = (BallisticWeapon) item;
                 final int rank = rankBallistic(weapon);
-                ITEM_PRIORITY.put(weapon, new Pair<>(rank, rank));
+                itemPriority.put(weapon, new Pair<>(rank, rank));
                 if (!weapon.hasBuiltInAmmo()) {
-                    ITEM_PRIORITY.put(weapon.getAmmoType(), new Pair<>(rank + 1, rank + 1));
-                    ITEM_PRIORITY.put(weapon.getAmmoHalfType(), new Pair<>(rank + 2, rank + 2));
+                    itemPriority.put(weapon.getAmmoType(), new Pair<>(rank + 1, rank + 1));
+                    itemPriority.put(weapon.getAmmoHalfType(), new Pair<>(rank + 2, rank + 2));
                 }
             }
             else if (item instanceof EnergyWeapon) {
                 final EnergyWeapon weapon = (EnergyWeapon) item;
                 final int rank = rankEnergy(weapon);
-                ITEM_PRIORITY.put(weapon, new Pair<>(rank, rank));
+                itemPriority.put(weapon, new Pair<>(rank, rank));
             }
             else if (item instanceof MissileWeapon) {
                 final MissileWeapon weapon = (MissileWeapon) item;
                 final int rank = rankMissile(weapon);
-                ITEM_PRIORITY.put(weapon, new Pair<>(rank, rank));
+                itemPriority.put(weapon, new Pair<>(rank, rank));
                 if (!weapon.hasBuiltInAmmo() && (weapon.getAmmoPerPerShot() == 5 || weapon.getAmmoPerPerShot() == 2
                         || weapon.getAmmoPerPerShot() == 1)) {
-                    ITEM_PRIORITY.put(weapon.getAmmoType(), new Pair<>(rank + 1, rank + 1));
-                    ITEM_PRIORITY.put(weapon.getAmmoHalfType(), new Pair<>(rank + 2, rank + 2));
+                    itemPriority.put(weapon.getAmmoType(), new Pair<>(rank + 1, rank + 1));
+                    itemPriority.put(weapon.getAmmoHalfType(), new Pair<>(rank + 2, rank + 2));
                 }
             }
             else if (item instanceof AmmoWeapon) {
                 final AmmoWeapon weapon = (AmmoWeapon) item;
                 final int rank = RANK_AMMOWEAPON + factionScore(weapon) + (weapon.getName().contains("LAS") ? 0 : 10);
-                ITEM_PRIORITY.put(weapon, new Pair<>(rank, rank));
+                itemPriority.put(weapon, new Pair<>(rank, rank));
                 if (!weapon.hasBuiltInAmmo()) {
-                    ITEM_PRIORITY.put(weapon.getAmmoType(), new Pair<>(rank + 1, rank + 1));
-                    ITEM_PRIORITY.put(weapon.getAmmoHalfType(), new Pair<>(rank + 2, rank + 2));
+                    itemPriority.put(weapon.getAmmoType(), new Pair<>(rank + 1, rank + 1));
+                    itemPriority.put(weapon.getAmmoHalfType(), new Pair<>(rank + 2, rank + 2));
                 }
             }
             else if (item instanceof Weapon) {
                 final Weapon weapon = (Weapon) item;
                 final int rank = RANK_WEAPON;
-                ITEM_PRIORITY.put(weapon, new Pair<>(rank, rank));
+                itemPriority.put(weapon, new Pair<>(rank, rank));
             }
             else if (item instanceof Engine) {
                 final Engine engine = (Engine) item;
-                ITEM_PRIORITY.put(item, new Pair<>(rankEngine(engine, false), rankEngine(engine, true)));
+                itemPriority.put(item, new Pair<>(rankEngine(engine, false), rankEngine(engine, true)));
             }
             else if (item instanceof JumpJet) {
                 final JumpJet jj = (JumpJet) item;
                 final int rank = (int) (RANK_JUMP_JET + 10 * jj.getMinTons());
-                ITEM_PRIORITY.put(item, new Pair<>(rank, rank));
+                itemPriority.put(item, new Pair<>(rank, rank));
             }
             else if (item instanceof MASC) {
                 final MASC masc = (MASC) item;
                 final int rank = RANK_MASC + 10 * masc.getMinTons();
-                ITEM_PRIORITY.put(item, new Pair<>(rank, rank));
+                itemPriority.put(item, new Pair<>(rank, rank));
             }
             else if (item instanceof ECM) {
                 final ECM ecm = (ECM) item;
                 final int rank = RANK_ECM + 10 * ecm.getId() % CLASS_SCORE;
-                ITEM_PRIORITY.put(item, new Pair<>(rank, rank));
+                itemPriority.put(item, new Pair<>(rank, rank));
             }
             else if (item instanceof TargetingComputer) {
                 final TargetingComputer tc = (TargetingComputer) item;
                 final int rank = RANK_TCOMP + (int) (100 * tc.getMass());
-                ITEM_PRIORITY.put(item, new Pair<>(rank, rank));
+                itemPriority.put(item, new Pair<>(rank, rank));
             }
             else if (item instanceof HeatSink) {
                 final HeatSink hs = (HeatSink) item;
                 final int rank = RANK_HEAT_SINK + 10 * hs.getSlots();
-                ITEM_PRIORITY.put(item, new Pair<>(rank, rank));
+                itemPriority.put(item, new Pair<>(rank, rank));
             }
             else {
                 final int rank = RANK_MISC;
-                ITEM_PRIORITY.put(item, new Pair<>(rank, rank));
+                itemPriority.put(item, new Pair<>(rank, rank));
             }
         }
+        return ans;
     }
 
     public static Comparator<Weapon> byRange(Collection<Modifier> aModifiers) {
@@ -305,8 +321,15 @@ public class ItemComparator implements Comparator<Item>, Serializable {
             return -1;
         }
 
-        final Pair<Integer, Integer> left = ITEM_PRIORITY.get(aLhs);
-        final Pair<Integer, Integer> right = ITEM_PRIORITY.get(aRhs);
+        final List<Item> items = ItemDB.lookup(Item.class);
+        Priorities current = priorities;
+        if (null == current || current.items != items) {
+            current = computePriorities(items);
+            priorities = current;
+        }
+
+        final Pair<Integer, Integer> left = current.byItem.get(aLhs);
+        final Pair<Integer, Integer> right = current.byItem.get(aRhs);
 
         if (null == left) {
             return null == right ? aLhs.getName().compareTo(aRhs.getName()) : 1;
@@ -152,6 +152,21 @@ public class Weapon extends HeatSource {
         return rangeProfile.rangeEffectiveness(aRange, aModifiers);
     }
 
+    /**
+     * Computes the range effectiveness at several ranges at once, see
+     * {@link WeaponRangeProfile#rangeEffectiveness(double[], Collection, double[])}.
+     *
+     * @param aRanges
+     *            The ranges to calculate for.
+     * @param aModifiers
+     *            A collection of {@link Modifier}s that might affect the results.
+     * @param aOutput
+     *            An array at least as long as <code>aRanges</code> to write the effectiveness values to.
+     */
+    public void getRangeEffectiveness(double[] aRanges, Collection<Modifier> aModifiers, double[] aOutput) {
+        rangeProfile.rangeEffectiveness(aRanges, aModifiers, aOutput);
+    }
+
     public double getRangeMax(Collection<Modifier> aModifiers) {
         return rangeProfile.getMaxRange(aModifiers);
     }
@@ -175,66 +190,13 @@ public class Weapon extends HeatSource {
      *
      * @param aWeaponStat
      *            A string specifying the statistic to be calculated. Must match the regexp pattern
-     *            "[dsthc]+(/[dsthc]+)?".
+     *            "[dsthc]+(/[dsthc]+)?". The string is compiled once to a {@link WeaponStat}.
      * @param aModifiers
      *            A list of {@link Modifier}s to take into account.
      * @return The calculated statistic.
      */
     public double getStat(String aWeaponStat, Collection<Modifier> aModifiers) {
-        double nominator = 1;
-        int index = 0;
-        while (index < aWeaponStat.length() && aWeaponStat.charAt(index) != '/') {
-            switch (aWeaponStat.charAt(index)) {
-                case 'd':
-                    nominator *= getDamagePerShot();
-                    break;
-                case 's':
-                    nominator *= getSecondsPerShot(aModifiers);
-                    break;
-                case 't':
-                    nominator *= getMass();
-                    break;
-                case 'h':
-                    nominator *= getHeat(aModifiers);
-                    break;
-                case 'c':
-                    nominator *= getSlots();
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown identifier: " + aWeaponStat.charAt(index));
-            }
-            index++;
-        }
-
-        index++; // Skip past the '/' if we encountered it, otherwise we'll be at the end of the string anyway.
-        double denominator = 1;
-        while (index < aWeaponStat.length()) {
-            switch (aWeaponStat.charAt(index)) {
-                case 'd':
-                    denominator *= getDamagePerShot();
-                    break;
-                case 's':
-                    denominator *= getSecondsPerShot(aModifiers);
-                    break;
-                case 't':
-                    denominator *= getMass();
-                    break;
-                case 'h':
-                    denominator *= getHeat(aModifiers);
-                    break;
-                case 'c':
-                    denominator *= getSlots();
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown identifier: " + aWeaponStat.charAt(index));
-            }
-            index++;
-        }
-        if (nominator == 0.0 && denominator == 0.0) {
-            // We take the Brahmaguptan interpretation of 0/0 to be 0 (year 628).
-            return 0;
-        }
-        return nominator / denominator;
+        return WeaponStat.of(aWeaponStat).evaluate(this, aModifiers);
     }
 
     public boolean hasSpread() {
@@ -19,12 +19,10 @@
 //@formatter:on
 package org.lisoft.lsml.model.item;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
 
 import org.lisoft.lsml.math.probability.GaussianDistribution;
 import org.lisoft.lsml.model.item.WeaponRangeProfile.RangeNode.InterpolationType;
@@ -124,10 +122,9 @@ public class WeaponRangeProfile {
         }
     }
 
+    private static final GaussianDistribution GAUSSIAN = new GaussianDistribution();
     private static final RangeNode SENTINEL_HEAD = new RangeNode(
             new Attribute(Double.NEGATIVE_INFINITY, ModifierDescription.SEL_ALL), InterpolationType.STEP, 0.0);
-    private static final RangeNode SENTINEL_TAIL = new RangeNode(
-            new Attribute(Double.POSITIVE_INFINITY, ModifierDescription.SEL_ALL), InterpolationType.STEP, 0.0);
     private final List<RangeNode> nodes;
     private final Attribute spread; // May be null if no spread
 
@@ -201,29 +198,32 @@ public class WeaponRangeProfile {
      * @return A {@link Pair} of {@link Double} that represent a range.
      */
     public Pair<Double, Double> getPercentileRange(double aPercentile, Collection<Modifier> aModifiers) {
-        final List<Double> samplePoints = getPolygonTrainRanges(10, aModifiers);
-        final List<Double> damagePoints = samplePoints.stream().map(x -> rangeEffectiveness(x, aModifiers))
-                .collect(Collectors.toList());
-
-        final Optional<Double> max = damagePoints.stream().max(Comparator.naturalOrder());
-        if (!max.isPresent()) {
+        final double[] samplePoints = getPolygonTrainRangeArray(10, aModifiers);
+        if (samplePoints.length == 0) {
             return new Pair<>(0.0, 0.0);
         }
-        final double threshold = max.get() * aPercentile;
+        final double[] damagePoints = new double[samplePoints.length];
+        rangeEffectiveness(samplePoints, aModifiers, damagePoints);
+
+        double max = Double.NEGATIVE_INFINITY;
+        for (final double damage : damagePoints) {
+            max = Math.max(max, damage);
+        }
+        final double threshold = max * aPercentile;
 
         Pair<Double, Double> longestRange = null;
         double longestLength = Double.NEGATIVE_INFINITY;
         double rangeStart = Double.NEGATIVE_INFINITY;
 
         double prevDamage = Double.NEGATIVE_INFINITY;
-        for (int i = 0; i < samplePoints.size(); ++i) {
-            final double currDamage = damagePoints.get(i);
+        for (int i = 0; i < samplePoints.length; ++i) {
+            final double currDamage = damagePoints[i];
 
             if (prevDamage < threshold && currDamage >= threshold) {
-                rangeStart = samplePoints.get(i);
+                rangeStart = samplePoints[i];
             }
             else if (prevDamage >= threshold && currDamage < threshold) {
-                final double rangeEnd = samplePoints.get(i - 1);
+                final double rangeEnd = samplePoints[i - 1];
                 final double rangeLength = rangeEnd - rangeStart;
                 if (rangeLength > longestLength) {
                     longestLength = rangeLength;
@@ -236,22 +236,23 @@ public class WeaponRangeProfile {
     }
 
     /**
-     * Computes a list of range values that should be used when drawing the range profile as a polygon train.
+     * Computes an array of range values that should be used when drawing the range profile as a polygon train.
      *
      * @param aDx
      *            The step the use in smooth segments of the polygon train.
      * @param aModifiers
      *            A collection of {@link Modifier} that could affect the ranges.
-     * @return A {@link List} of {@link Double}s with the ranges.
+     * @return An array with the ranges in ascending order.
      */
-    public List<Double> getPolygonTrainRanges(double aDx, Collection<Modifier> aModifiers) {
-        final List<Double> ans = new ArrayList<>();
+    public double[] getPolygonTrainRangeArray(double aDx, Collection<Modifier> aModifiers) {
+        final DoubleStream.Builder ans = DoubleStream.builder();
 
         if (!nodes.isEmpty()) {
+            final double[] starts = resolveStarts(aModifiers);
             double nextStep = aDx;
             InterpolationType interpolationType = InterpolationType.LINEAR;
-            for (final RangeNode rangeNode : nodes) {
-                final double r = rangeNode.start.value(aModifiers);
+            for (int i = 0; i < starts.length; ++i) {
+                final double r = starts[i];
                 while (nextStep < r) {
                     ans.add(nextStep);
                     nextStep += aDx;
@@ -261,16 +262,29 @@ public class WeaponRangeProfile {
                     ans.add(Math.nextDown(r));
                 }
                 ans.add(r);
-                interpolationType = rangeNode.typeToNext;
+                interpolationType = nodes.get(i).typeToNext;
             }
 
             final RangeNode lastNode = nodes.get(nodes.size() - 1);
             if (lastNode.damageModifier != 0.0) {
-                ans.add(Math.nextUp(lastNode.start.value(aModifiers)));
+                ans.add(Math.nextUp(starts[starts.length - 1]));
             }
         }
 
-        return ans;
+        return ans.build().toArray();
+    }
+
+    /**
+     * Computes a list of range values that should be used when drawing the range profile as a polygon train.
+     *
+     * @param aDx
+     *            The step the use in smooth segments of the polygon train.
+     * @param aModifiers
+     *            A collection of {@link Modifier} that could affect the ranges.
+     * @return A {@link List} of {@link Double}s with the ranges.
+     */
+    public List<Double> getPolygonTrainRanges(double aDx, Collection<Modifier> aModifiers) {
+        return DoubleStream.of(getPolygonTrainRangeArray(aDx, aModifiers)).boxed().collect(Collectors.toList());
     }
 
     public Attribute getSpread() {
@@ -287,29 +301,85 @@ public class WeaponRangeProfile {
      * @return A scale value to apply to weapon damage at the range.
      */
     public double rangeEffectiveness(double aRange, Collection<Modifier> aModifiers) {
-        RangeNode startNode = SENTINEL_HEAD;
-        RangeNode endNode = SENTINEL_TAIL;
-        for (final RangeNode node : nodes) {
-            if (node.start.value(aModifiers) <= aRange) {
-                startNode = node;
+        return rangeEffectiveness(aRange, resolveStarts(aModifiers), resolveSpread(aModifiers));
+    }
+
+    /**
+     * Computes the effectiveness of the weapon at each of the given ranges.
+     * <p>
+     * The node ranges and the spread are resolved against the modifiers once for all the ranges, the result is the
+     * same as calling {@link #rangeEffectiveness(double, Collection)} for each range.
+     *
+     * @param aRanges
+     *            The ranges to calculate for.
+     * @param aModifiers
+     *            A collection of {@link Modifier}s that might affect the results.
+     * @param aOutput
+     *            An array at least as long as <code>aRanges</code> where the effectiveness at <code>aRanges[i]</code>
+     *            is written to <code>aOutput[i]</code>.
+     */
+    public void rangeEffectiveness(double[] aRanges, Collection<Modifier> aModifiers, double[] aOutput) {
+        final double[] starts = resolveStarts(aModifiers);
+        final double spreadValue = resolveSpread(aModifiers);
+        for (int i = 0; i < aRanges.length; ++i) {
+            aOutput[i] = rangeEffectiveness(aRanges[i], starts, spreadValue);
+        }
+    }
+
+    private double calcSpreadFactor(double aRange, double aSpread) {
+        if (null != spread) {
+            // Assumption:
+            // The 'spread' value is the standard deviation of a zero-mean Gaussian distribution of angles.
+            final double targetRadius = 6; // [m]
+            final double maxAngle = Math.atan2(targetRadius, aRange) * 180 / Math.PI; // [deg]
+
+            // X ~= N(0, spread)
+            // P_hit = P(-maxAngle <= X; X <= +maxAngle)
+            // Xn = (X - 0) / spread ~ N(0,1)
+            // P_hit = cdf(maxAngle / spread) - cdf(-maxAngle / spread) = 2*cdf(maxAngle / spread) - 1.0;
+            return 2 * GAUSSIAN.cdf(maxAngle / aSpread) - 1;
+        }
+        return 1.0;
+    }
+
+    /**
+     * Evaluates the piecewise profile with already resolved node ranges.
+     *
+     * @param aRange
+     *            The range to calculate for.
+     * @param aStarts
+     *            The start range of each node as returned by {@link #resolveStarts(Collection)}.
+     * @param aSpread
+     *            The resolved spread value, ignored if there is no spread.
+     * @return A scale value to apply to weapon damage at the range.
+     */
+    private double rangeEffectiveness(double aRange, double[] aStarts, double aSpread) {
+        // Index -1 and aStarts.length denote the head and tail sentinels respectively.
+        int startIndex = -1;
+        int endIndex = aStarts.length;
+        for (int i = 0; i < aStarts.length; ++i) {
+            if (aStarts[i] <= aRange) {
+                startIndex = i;
             }
             else {
-                endNode = node;
+                endIndex = i;
                 break;
             }
         }
+        final RangeNode startNode = startIndex < 0 ? SENTINEL_HEAD : nodes.get(startIndex);
+        final double low = startIndex < 0 ? Double.NEGATIVE_INFINITY : aStarts[startIndex];
 
         // Range completely outside of the profile, make it zero.
-        if (endNode == SENTINEL_TAIL) {
-            if (startNode.start.value(aModifiers) == aRange) {
-                return startNode.damageModifier * calcSpreadFactor(aRange, aModifiers);
+        if (endIndex == aStarts.length) {
+            if (low == aRange) {
+                return startNode.damageModifier * calcSpreadFactor(aRange, aSpread);
             }
             return 0.0;
         }
 
-        final double spreadFactor = calcSpreadFactor(aRange, aModifiers);
-        final double low = startNode.start.value(aModifiers);
-        final double high = endNode.start.value(aModifiers);
+        final RangeNode endNode = nodes.get(endIndex);
+        final double spreadFactor = calcSpreadFactor(aRange, aSpread);
+        final double high = aStarts[endIndex];
         final double damageRange = endNode.damageModifier - startNode.damageModifier;
         final double dT = (aRange - low) / (high - low);
 
@@ -330,21 +400,15 @@ public class WeaponRangeProfile {
         return spreadFactor * damageFactor;
     }
 
-    private double calcSpreadFactor(double aRange, Collection<Modifier> aModifiers) {
-        if (null != spread) {
-            // Assumption:
-            // The 'spread' value is the standard deviation of a zero-mean Gaussian distribution of angles.
-            final GaussianDistribution gaussianDistribution = new GaussianDistribution();
-
-            final double targetRadius = 6; // [m]
-            final double maxAngle = Math.atan2(targetRadius, aRange) * 180 / Math.PI; // [deg]
+    private double resolveSpread(Collection<Modifier> aModifiers) {
+        return null != spread ? spread.value(aModifiers) : 0.0;
+    }
 
-            // X ~= N(0, spread)
-            // P_hit = P(-maxAngle <= X; X <= +maxAngle)
-            // Xn = (X - 0) / spread ~ N(0,1)
-            // P_hit = cdf(maxAngle / spread) - cdf(-maxAngle / spread) = 2*cdf(maxAngle / spread) - 1.0;
-            return 2 * gaussianDistribution.cdf(maxAngle / spread.value(aModifiers)) - 1;
+    private double[] resolveStarts(Collection<Modifier> aModifiers) {
+        final double[] starts = new double[nodes.size()];
+        for (int i = 0; i < starts.length; ++i) {
+            starts[i] = nodes.get(i).start.value(aModifiers);
         }
-        return 1.0;
+        return starts;
     }
 }
@@ -0,0 +1,182 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.item;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lisoft.lsml.model.modifiers.Modifier;
+
+/**
+ * A compiled weapon statistic expression, see {@link Weapon#getStat(String, Collection)} for the format.
+ * <p>
+ * The expression is parsed once and each factor of the weapon is computed at most once per evaluation, even if it
+ * occurs several times in the expression. The factors are multiplied in the same order as they appear in the
+ * expression so the result is exactly the same as evaluating the string directly.
+ *
+ * @author Emily Björk
+ */
+public final class WeaponStat {
+    private static final Map<String, WeaponStat> CACHE = new ConcurrentHashMap<>();
+
+    public static final WeaponStat DAMAGE_PER_SECOND = of("d/s");
+    public static final WeaponStat DAMAGE_PER_HEAT = of("d/h");
+    public static final WeaponStat HEAT_PER_SECOND = of("h/s");
+
+    private static final int DAMAGE = 0;
+    private static final int SECONDS = 1;
+    private static final int TONS = 2;
+    private static final int HEAT = 3;
+    private static final int CRITS = 4;
+
+    /**
+     * Compiles a statistic expression. The compiled expressions are cached.
+     *
+     * @param aExpression
+     *            A string matching the regexp "[dsthc]+(/[dsthc]+)?".
+     * @return A {@link WeaponStat} for the given expression.
+     * @throws IllegalArgumentException
+     *             if the expression contains an unknown identifier.
+     */
+    public static WeaponStat of(String aExpression) {
+        final WeaponStat cached = CACHE.get(aExpression);
+        if (null != cached) {
+            return cached;
+        }
+        final WeaponStat stat = new WeaponStat(aExpression);
+        CACHE.putIfAbsent(aExpression, stat);
+        return stat;
+    }
+
+    private static int parse(char aIdentifier) {
+        switch (aIdentifier) {
+            case 'd':
+                return DAMAGE;
+            case 's':
+                return SECONDS;
+            case 't':
+                return TONS;
+            case 'h':
+                return HEAT;
+            case 'c':
+                return CRITS;
+            default:
+                throw new IllegalArgumentException("Unknown identifier: " + aIdentifier);
+        }
+    }
+
+    private final String expression;
+    private final int[] nominator;
+    private final int[] denominator;
+    /** Bit mask of the factors that occur in the expression. */
+    private final int used;
+
+    private WeaponStat(String aExpression) {
+        expression = aExpression;
+        final int slash = aExpression.indexOf('/');
+        final int nominatorEnd = slash < 0 ? aExpression.length() : slash;
+
+        int mask = 0;
+        nominator = new int[nominatorEnd];
+        for (int i = 0; i < nominatorEnd; ++i) {
+            nominator[i] = parse(aExpression.charAt(i));
+            mask |= 1 << nominator[i];
+        }
+
+        final int denominatorStart = nominatorEnd + 1;
+        denominator = new int[Math.max(0, aExpression.length() - denominatorStart)];
+        for (int i = 0; i < denominator.length; ++i) {
+            denominator[i] = parse(aExpression.charAt(denominatorStart + i));
+            mask |= 1 << denominator[i];
+        }
+        used = mask;
+    }
+
+    /**
+     * Evaluates this statistic for a weapon.
+     *
+     * @param aWeapon
+     *            The weapon to evaluate for.
+     * @param aModifiers
+     *            A list of {@link Modifier}s to take into account.
+     * @return The calculated statistic.
+     */
+    public double evaluate(Weapon aWeapon, Collection<Modifier> aModifiers) {
+        return evaluate(uses(DAMAGE) ? aWeapon.getDamagePerShot() : 0.0,
+                uses(SECONDS) ? aWeapon.getSecondsPerShot(aModifiers) : 0.0, uses(TONS) ? aWeapon.getMass() : 0.0,
+                uses(HEAT) ? aWeapon.getHeat(aModifiers) : 0.0, uses(CRITS) ? aWeapon.getSlots() : 0.0);
+    }
+
+    /**
+     * Evaluates this statistic from already resolved factors.
+     *
+     * @param aDamage
+     *            The damage per shot.
+     * @param aSeconds
+     *            The seconds per shot.
+     * @param aTons
+     *            The mass.
+     * @param aHeat
+     *            The heat per shot.
+     * @param aCrits
+     *            The number of critical slots.
+     * @return The calculated statistic.
+     */
+    public double evaluate(double aDamage, double aSeconds, double aTons, double aHeat, double aCrits) {
+        double n = 1;
+        for (final int factor : nominator) {
+            n *= factor(factor, aDamage, aSeconds, aTons, aHeat, aCrits);
+        }
+        double d = 1;
+        for (final int factor : denominator) {
+            d *= factor(factor, aDamage, aSeconds, aTons, aHeat, aCrits);
+        }
+        if (n == 0.0 && d == 0.0) {
+            // We take the Brahmaguptan interpretation of 0/0 to be 0 (year 628).
+            return 0;
+        }
+        return n / d;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private double factor(int aFactor, double aDamage, double aSeconds, double aTons, double aHeat, double aCrits) {
+        switch (aFactor) {
+            case DAMAGE:
+                return aDamage;
+            case SECONDS:
+                return aSeconds;
+            case TONS:
+                return aTons;
+            case HEAT:
+                return aHeat;
+            default:
+                return aCrits;
+        }
+    }
+
+    private boolean uses(int aFactor) {
+        return (used & 1 << aFactor) != 0;
+    }
+}
@@ -53,10 +53,36 @@ import org.lisoft.lsml.util.ListArrayUtils;
  * @author Emily Björk
  */
 public abstract class ConfiguredComponent {
+    /**
+     * Counts derived from the items and hard points of a component. They only change when the items do, so they are
+     * computed in one pass after each change instead of on every query.
+     */
+    private static class Aggregates {
+        private static final HardPointType[] HARD_POINT_TYPES = HardPointType.values();
+
+        final int[] hardPointCount = new int[HARD_POINT_TYPES.length];
+        final int[] itemsOfHardpointType = new int[HARD_POINT_TYPES.length];
+        int engineHeatSinksMax;
+        int heatSinkCount;
+    }
+
     private final Map<ArmourSide, Attribute> armour = new HashMap<>();
     private final Component internalComponent;
-    private final List<Item> items = new ArrayList<>();
+    /**
+     * Never modified in place, every change replaces it with a modified copy. This allows copies of this component to
+     * share it.
+     */
+    private List<Item> items = new ArrayList<>();
     private boolean manualArmour = false;
+    private int itemModifications = 0;
+    private int armourModifications = 0;
+    private int armourTotal = 0;
+    /** <code>null</code> when the items have changed since it was computed. */
+    private volatile Aggregates aggregates;
+    /** <code>null</code> when the items have changed since it was computed. */
+    private volatile Double itemMass;
+    /** <code>null</code> when the items have changed since it was computed. */
+    private volatile Integer slotsUsed;
 
     public ConfiguredComponent(Component aInternalComponent, boolean aManualArmour) {
         internalComponent = aInternalComponent;
@@ -70,6 +96,9 @@ public abstract class ConfiguredComponent {
 
     /**
      * Copy constructor. Performs a deep copy of the argument with a new {@link LoadoutStandard} value.
+     * <p>
+     * The list of items and the values derived from it are shared with the argument until either of them changes its
+     * items, so copying does not depend on the number of items.
      *
      * @param aComponent
      *            The {@link ConfiguredComponent} to copy.
@@ -79,13 +108,29 @@ public abstract class ConfiguredComponent {
         manualArmour = aComponent.manualArmour;
 
         for (final Map.Entry<ArmourSide, Attribute> e : aComponent.armour.entrySet()) {
-            armour.put(e.getKey(),
-                    new Attribute(e.getValue().value(null), e.getValue().getSelectors(), e.getValue().getSpecifier()));
+            armour.put(e.getKey(), new Attribute(e.getValue()));
         }
+        armourTotal = aComponent.armourTotal;
+
+        items = aComponent.items;
+        aggregates = aComponent.aggregates;
+        itemMass = aComponent.itemMass;
+        slotsUsed = aComponent.slotsUsed;
+    }
 
-        for (final Item item : aComponent.items) {
-            items.add(item);
+    /**
+     * Appends the configuration of this component to a {@link LoadoutKey}. Subclasses that add configuration must
+     * call this method first.
+     *
+     * @param aBuilder
+     *            The builder to append to.
+     */
+    void appendKey(LoadoutKey.Builder aBuilder) {
+        aBuilder.add(manualArmour ? 1 : 0);
+        for (final ArmourSide side : ArmourSide.allSides(internalComponent)) {
+            aBuilder.add((int) armour.get(side).getBaseValue());
         }
+        aBuilder.addUnordered(items);
     }
 
     /**
@@ -103,7 +148,11 @@ public abstract class ConfiguredComponent {
      *         for example).
      */
     public int addItem(Item aItem) {
-        items.add(aItem);
+        final List<Item> newItems = new ArrayList<>(items.size() + 1);
+        newItems.addAll(items);
+        newItems.add(aItem);
+        items = newItems;
+        itemsChanged();
 
         if (aItem instanceof HeatSink && getEngineHeatSinksMax() >= getHeatSinkCount()) {
             return -1; // Consumed by engine
@@ -212,11 +261,7 @@ public abstract class ConfiguredComponent {
      * @return The total number of armour points on this component.
      */
     public int getArmourTotal() {
-        int sum = 0;
-        for (final Attribute attrib : armour.values()) {
-            sum += attrib.value(null);
-        }
-        return sum;
+        return armourTotal;
     }
 
     /**
@@ -249,17 +294,7 @@ public abstract class ConfiguredComponent {
      * @return The maximal number of heat sinks that the engine (if any) equipped on this component can sustain.
      */
     public int getEngineHeatSinksMax() {
-        for (final Item item : items) {
-            if (item instanceof Engine) {
-                return ((Engine) item).getNumHeatsinkSlots();
-            }
-        }
-        for (final Item item : getInternalComponent().getFixedItems()) {
-            if (item instanceof Engine) {
-                return ((Engine) item).getNumHeatsinkSlots();
-            }
-        }
-        return 0;
+        return aggregates().engineHeatSinksMax;
     }
 
     /**
@@ -267,7 +302,9 @@ public abstract class ConfiguredComponent {
      *            The type of {@link HardPoint}s to count.
      * @return The number of {@link HardPoint}s of the given type on this configured component.
      */
-    public abstract int getHardPointCount(HardPointType aHardpointType);
+    public int getHardPointCount(HardPointType aHardpointType) {
+        return aggregates().hardPointCount[aHardpointType.ordinal()];
+    }
 
     /**
      * @return A {@link Collection} of all the {@link HardPoint}s on this configured component.
@@ -285,16 +322,36 @@ public abstract class ConfiguredComponent {
      * @return The sum of the mass of all items on this component.
      */
     public double getItemMass() {
-        double ans = 0;
-        for (final Item item : items) {
-            ans += item.getMass();
-        }
-        for (final Item item : getItemsFixed()) {
-            ans += item.getMass();
+        Double ans = itemMass;
+        if (null == ans) {
+            double mass = 0;
+            for (final Item item : items) {
+                mass += item.getMass();
+            }
+            for (final Item item : getItemsFixed()) {
+                mass += item.getMass();
+            }
+            ans = mass;
+            itemMass = ans;
         }
         return ans;
     }
 
+    /**
+     * @return A counter that changes every time the armour may have changed. Not part of the value of this object.
+     */
+    int getArmourModifications() {
+        return armourModifications;
+    }
+
+    /**
+     * @return A counter that changes every time the items on this component, fixed or equipped, may have changed.
+     *         Changes to the armour do not affect it.
+     */
+    int getItemModifications() {
+        return itemModifications;
+    }
+
     /**
      * @return A {@link List} of the user equipped items which can also be removed.
      */
@@ -313,18 +370,7 @@ public abstract class ConfiguredComponent {
      * @return The number of items of the given hard point of type that are equipped.
      */
     public int getItemsOfHardpointType(HardPointType aHardpointType) {
-        int hardpoints = 0;
-        for (final Item it : getItemsEquipped()) {
-            if (it.getHardpointType() == aHardpointType) {
-                hardpoints++;
-            }
-        }
-        for (final Item it : getInternalComponent().getFixedItems()) {
-            if (it.getHardpointType() == aHardpointType) {
-                hardpoints++;
-            }
-        }
-        return hardpoints;
+        return aggregates().itemsOfHardpointType[aHardpointType.ordinal()];
     }
 
     /**
@@ -341,16 +387,12 @@ public abstract class ConfiguredComponent {
      *         armour or structure.
      */
     public int getSlotsUsed() {
-        int crits = getInternalComponent().getFixedItemSlots();
-        int engineHsLeft = getEngineHeatSinksMax();
-        for (final Item item : items) {
-            if (item instanceof HeatSink && engineHsLeft > 0) {
-                engineHsLeft--;
-                continue;
-            }
-            crits += item.getSlots();
+        Integer ans = slotsUsed;
+        if (null == ans) {
+            ans = calculateSlotsUsed(getEngineHeatSinksMax());
+            slotsUsed = ans;
         }
-        return crits;
+        return ans;
     }
 
     @Override
@@ -396,17 +438,33 @@ public abstract class ConfiguredComponent {
             }
         }
 
-        items.remove(index);
+        final List<Item> newItems = new ArrayList<>(items);
+        newItems.remove(index);
+        items = newItems;
+        itemsChanged();
         final int consumedHs = Math.min(getEngineHeatSinksMax(), hsBefore);
         return index - consumedHs;
     }
 
+    /**
+     * Must be called after every change to the items on this component.
+     */
+    void itemsChanged() {
+        itemModifications++;
+        aggregates = null;
+        itemMass = null;
+        slotsUsed = null;
+    }
+
     public void setArmour(ArmourSide aArmourSide, int aAmount, boolean aManualArmour) {
-        if (!armour.containsKey(aArmourSide)) {
+        final Attribute attribute = armour.get(aArmourSide);
+        if (null == attribute) {
             throw new IllegalArgumentException("No such armour side!");
         }
-        armour.get(aArmourSide).setBaseValue(aAmount);
+        armourTotal += aAmount - (int) attribute.value(null);
+        attribute.setBaseValue(aAmount);
         manualArmour = aManualArmour;
+        armourModifications++;
     }
 
     @Override
@@ -428,9 +486,81 @@ public abstract class ConfiguredComponent {
         return sb.toString();
     }
 
-    private int getHeatSinkCount() {
-        final int ans = ListArrayUtils.countByType(items, HeatSink.class)
-                + ListArrayUtils.countByType(getInternalComponent().getFixedItems(), HeatSink.class);
+    /**
+     * Counts the number of critical slots used by the items on this component, see {@link #getSlotsUsed()}. The result
+     * is cached until the items change.
+     *
+     * @param aEngineHeatSinksMax
+     *            The value of {@link #getEngineHeatSinksMax()}.
+     * @return The number of used critical slots.
+     */
+    protected int calculateSlotsUsed(int aEngineHeatSinksMax) {
+        int crits = getInternalComponent().getFixedItemSlots();
+        int engineHsLeft = aEngineHeatSinksMax;
+        for (final Item item : items) {
+            if (item instanceof HeatSink && engineHsLeft > 0) {
+                engineHsLeft--;
+                continue;
+            }
+            crits += item.getSlots();
+        }
+        return crits;
+    }
+
+    /**
+     * Counts the hard points of the given type, see {@link #getHardPointCount(HardPointType)}. The result is cached
+     * until the items change.
+     *
+     * @param aHardpointType
+     *            The type of {@link HardPoint}s to count.
+     * @return The number of {@link HardPoint}s of the given type on this configured component.
+     */
+    protected abstract int countHardPoints(HardPointType aHardpointType);
+
+    private Aggregates aggregates() {
+        Aggregates ans = aggregates;
+        if (null == ans) {
+            ans = new Aggregates();
+            final List<Item> fixed = getInternalComponent().getFixedItems();
+
+            ans.engineHeatSinksMax = engineHeatSinksMax(items);
+            if (ans.engineHeatSinksMax < 0) {
+                ans.engineHeatSinksMax = Math.max(0, engineHeatSinksMax(fixed));
+            }
+
+            countHardpointTypes(items, ans.itemsOfHardpointType);
+            countHardpointTypes(fixed, ans.itemsOfHardpointType);
+
+            for (final HardPointType type : Aggregates.HARD_POINT_TYPES) {
+                ans.hardPointCount[type.ordinal()] = countHardPoints(type);
+            }
+
+            ans.heatSinkCount = ListArrayUtils.countByType(items, HeatSink.class)
+                    + ListArrayUtils.countByType(fixed, HeatSink.class);
+            aggregates = ans;
+        }
         return ans;
     }
+
+    private static void countHardpointTypes(List<Item> aItems, int[] aCounts) {
+        for (final Item item : aItems) {
+            final HardPointType type = item.getHardpointType();
+            if (null != type) {
+                aCounts[type.ordinal()]++;
+            }
+        }
+    }
+
+    private static int engineHeatSinksMax(List<Item> aItems) {
+        for (final Item item : aItems) {
+            if (item instanceof Engine) {
+                return ((Engine) item).getNumHeatsinkSlots();
+            }
+        }
+        return -1;
+    }
+
+    private int getHeatSinkCount() {
+        return aggregates().heatSinkCount;
+    }
 }
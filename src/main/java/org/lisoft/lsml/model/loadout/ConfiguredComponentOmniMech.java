@@ -65,7 +65,7 @@ public class ConfiguredComponentOmniMech extends ConfiguredComponent {
 
     public ConfiguredComponentOmniMech(ConfiguredComponentOmniMech aConfiguredOmnipod) {
         super(aConfiguredOmnipod);
-        changeOmniPod(aConfiguredOmnipod.omniPod);
+        setOmniPod(aConfiguredOmnipod.omniPod);
         toggleStates.putAll(aConfiguredOmnipod.toggleStates);
     }
 
@@ -151,6 +151,19 @@ public class ConfiguredComponentOmniMech extends ConfiguredComponent {
         setOmniPod(aOmniPod);
     }
 
+    @Override
+    void appendKey(LoadoutKey.Builder aBuilder) {
+        super.appendKey(aBuilder);
+        aBuilder.addObject(omniPod);
+        final List<Item> toggledOn = new ArrayList<>();
+        for (final Map.Entry<Item, Boolean> entry : toggleStates.entrySet()) {
+            if (entry.getValue()) {
+                toggledOn.add(entry.getKey());
+            }
+        }
+        aBuilder.addUnordered(toggledOn);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -173,7 +186,7 @@ public class ConfiguredComponentOmniMech extends ConfiguredComponent {
     }
 
     @Override
-    public int getHardPointCount(HardPointType aHardpointType) {
+    protected int countHardPoints(HardPointType aHardpointType) {
         return omniPod.getHardPointCount(aHardpointType);
     }
 
@@ -211,7 +224,7 @@ public class ConfiguredComponentOmniMech extends ConfiguredComponent {
     }
 
     @Override
-    public int getSlotsUsed() {
+    protected int calculateSlotsUsed(int aEngineHeatSinksMax) {
         int slots = 0;
         int engineHsSlots = 0;
         int numHs = 0;
@@ -280,6 +293,7 @@ public class ConfiguredComponentOmniMech extends ConfiguredComponent {
             throw new IllegalArgumentException("Not a toggleable item: " + aItem);
         }
         toggleStates.put(aItem, aNewState);
+        itemsChanged();
     }
 
     private void setOmniPod(OmniPod aOmniPod) {
@@ -291,6 +305,7 @@ public class ConfiguredComponentOmniMech extends ConfiguredComponent {
         for (final Item item : omniPod.getToggleableItems()) {
             toggleStates.put(item, true); // Default enabled
         }
+        itemsChanged();
     }
 
 }
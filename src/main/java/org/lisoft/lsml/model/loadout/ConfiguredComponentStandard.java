@@ -84,7 +84,7 @@ public class ConfiguredComponentStandard extends ConfiguredComponent {
     }
 
     @Override
-    public int getHardPointCount(HardPointType aHardpointType) {
+    protected int countHardPoints(HardPointType aHardpointType) {
         return getInternalComponent().getHardPointCount(aHardpointType);
     }
 
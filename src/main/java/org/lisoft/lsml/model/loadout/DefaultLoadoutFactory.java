@@ -27,19 +27,15 @@ import javax.inject.Singleton;
 import org.lisoft.lsml.command.CmdDistributeArmour;
 import org.lisoft.lsml.command.CmdLoadStock;
 import org.lisoft.lsml.model.NoSuchItemException;
-import org.lisoft.lsml.model.chassi.ArmourSide;
 import org.lisoft.lsml.model.chassi.Chassis;
 import org.lisoft.lsml.model.chassi.ChassisOmniMech;
 import org.lisoft.lsml.model.chassi.ChassisStandard;
 import org.lisoft.lsml.model.chassi.ComponentStandard;
 import org.lisoft.lsml.model.chassi.Location;
 import org.lisoft.lsml.model.chassi.OmniPod;
-import org.lisoft.lsml.model.database.ItemDB;
 import org.lisoft.lsml.model.database.OmniPodDB;
 import org.lisoft.lsml.model.database.UpgradeDB;
-import org.lisoft.lsml.model.item.Consumable;
 import org.lisoft.lsml.model.item.Faction;
-import org.lisoft.lsml.model.item.Item;
 import org.lisoft.lsml.model.upgrades.ArmourUpgrade;
 import org.lisoft.lsml.model.upgrades.HeatSinkUpgrade;
 import org.lisoft.lsml.model.upgrades.StructureUpgrade;
@@ -66,46 +62,14 @@ public class DefaultLoadoutFactory implements LoadoutFactory {
 
     @Override
     public Loadout produceClone(Loadout aSource) {
-        final Loadout target = produceEmpty(aSource.getChassis());
-        target.setName(aSource.getName());
-
-        // Base attributes
-        target.getWeaponGroups().assign(aSource.getWeaponGroups());
-        target.getEfficiencies().assign(aSource.getEfficiencies());
-        target.getUpgrades().assign(aSource.getUpgrades());
-
-        // Modules
-        for (final Consumable module : aSource.getConsumables()) {
-            target.addModule(module);
+        // The copy constructors share the equipped items with the source until either loadout changes them.
+        if (aSource instanceof LoadoutStandard) {
+            return new LoadoutStandard((LoadoutStandard) aSource);
         }
-
-        for (final ConfiguredComponent srcCmpnt : aSource.getComponents()) {
-            final Location loc = srcCmpnt.getInternalComponent().getLocation();
-            final ConfiguredComponent tgtCmpnt = target.getComponent(loc);
-
-            // Omnipod + Actuator
-            if (srcCmpnt instanceof ConfiguredComponentOmniMech) {
-                final ConfiguredComponentOmniMech omniSourceComponent = (ConfiguredComponentOmniMech) srcCmpnt;
-                final ConfiguredComponentOmniMech omniTargetComponent = (ConfiguredComponentOmniMech) tgtCmpnt;
-                if (!omniTargetComponent.getInternalComponent().hasFixedOmniPod()) {
-                    omniTargetComponent.changeOmniPod(omniSourceComponent.getOmniPod());
-                }
-
-                matchToggleState(omniTargetComponent, omniSourceComponent, ItemDB.HA);
-                matchToggleState(omniTargetComponent, omniSourceComponent, ItemDB.LAA);
-            }
-
-            // Armour
-            for (final ArmourSide side : ArmourSide.allSides(srcCmpnt.getInternalComponent())) {
-                tgtCmpnt.setArmour(side, srcCmpnt.getArmour(side), srcCmpnt.hasManualArmour());
-            }
-
-            // Equipment
-            for (final Item item : srcCmpnt.getItemsEquipped()) {
-                tgtCmpnt.addItem(item);
-            }
+        else if (aSource instanceof LoadoutOmniMech) {
+            return new LoadoutOmniMech((LoadoutOmniMech) aSource);
         }
-        return target;
+        throw new IllegalArgumentException("Unknown loadout type!");
     }
 
     @Override
@@ -201,11 +165,4 @@ public class DefaultLoadoutFactory implements LoadoutFactory {
         stack.pushAndApply(new CmdLoadStock(aChassis, ans, null));
         return ans;
     }
-
-    private void matchToggleState(ConfiguredComponentOmniMech aTarget, ConfiguredComponentOmniMech aSource,
-            Item aItem) {
-        if (EquipResult.SUCCESS == aTarget.canToggleOn(aItem)) {
-            aTarget.setToggleState(aItem, aSource.getToggleState(aItem));
-        }
-    }
 }
@@ -0,0 +1,111 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.loadout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.item.Item;
+
+/**
+ * Answers what can be equipped on one configuration of a {@link Loadout}.
+ * <p>
+ * For every item that is asked about, the result of {@link Loadout#canEquipDirectly(Item)}, the candidate locations
+ * of {@link Loadout#getCandidateLocationsForItem(Item)} and the result of {@link ConfiguredComponent#canEquip(Item)}
+ * for every location are computed together the first time and then remembered. An instance is only valid for the
+ * configuration it was created from, use {@link Loadout#getEquippability()} to get an instance for the current
+ * configuration.
+ *
+ * @author Emily Björk
+ */
+public class Equippability {
+    private static class Entry {
+        final EquipResult direct;
+        final List<ConfiguredComponent> candidates;
+        final EquipResult[] local = new EquipResult[Location.values().length];
+
+        Entry(Loadout aLoadout, Item aItem) {
+            direct = aLoadout.canEquipDirectly(aItem);
+            candidates = Collections.unmodifiableList(new ArrayList<>(aLoadout.getCandidateLocationsForItem(aItem)));
+            for (final Location location : Location.values()) {
+                local[location.ordinal()] = aLoadout.getComponent(location).canEquip(aItem);
+            }
+        }
+    }
+
+    private final Loadout loadout;
+    private final long modificationCount;
+    private final Map<Item, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param aLoadout
+     *            The loadout to answer for.
+     * @param aModificationCount
+     *            The modification count of the configuration of the loadout at the time of creation.
+     */
+    Equippability(Loadout aLoadout, long aModificationCount) {
+        loadout = aLoadout;
+        modificationCount = aModificationCount;
+    }
+
+    /**
+     * @param aItem
+     *            The item to check.
+     * @param aLocation
+     *            The location to check.
+     * @return The same as {@link ConfiguredComponent#canEquip(Item)} on the component at the given location.
+     */
+    public EquipResult canEquip(Item aItem, Location aLocation) {
+        return entry(aItem).local[aLocation.ordinal()];
+    }
+
+    /**
+     * @param aItem
+     *            The item to check.
+     * @return The same as {@link Loadout#canEquipDirectly(Item)}.
+     */
+    public EquipResult canEquipDirectly(Item aItem) {
+        return entry(aItem).direct;
+    }
+
+    /**
+     * @param aItem
+     *            The item to find candidate locations for.
+     * @return The same as {@link Loadout#getCandidateLocationsForItem(Item)} but unmodifiable.
+     */
+    public List<ConfiguredComponent> getCandidateLocationsForItem(Item aItem) {
+        return entry(aItem).candidates;
+    }
+
+    /**
+     * @return The modification count that this instance is valid for.
+     */
+    long getModificationCount() {
+        return modificationCount;
+    }
+
+    private Entry entry(Item aItem) {
+        return entries.computeIfAbsent(aItem, aKey -> new Entry(loadout, aKey));
+    }
+}
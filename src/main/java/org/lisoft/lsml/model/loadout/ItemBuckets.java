@@ -0,0 +1,92 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.loadout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.item.Item;
+
+/**
+ * The items on a {@link Loadout} sorted into buckets by type.
+ * <p>
+ * All items, fixed and equipped, are collected once in the same order as they were always iterated: for each
+ * {@link Location} the fixed items and then the equipped items. A bucket for a type is filtered from that list the
+ * first time it is asked for and then shared by all later callers. An instance is only valid for the modification
+ * count of the loadout it was created from, see {@link Loadout#getModificationCount()}.
+ *
+ * @author Emily Björk
+ */
+class ItemBuckets {
+    private final long modificationCount;
+    private final List<Item> all;
+    private final Map<Class<?>, List<?>> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Collects the items of the given loadout.
+     *
+     * @param aLoadout
+     *            The loadout to collect items from.
+     * @param aModificationCount
+     *            The modification count of the loadout at the time of collection.
+     */
+    ItemBuckets(Loadout aLoadout, long aModificationCount) {
+        modificationCount = aModificationCount;
+        final List<Item> items = new ArrayList<>();
+        for (final Location location : Location.values()) {
+            final ConfiguredComponent component = aLoadout.getComponent(location);
+            items.addAll(component.getItemsFixed());
+            items.addAll(component.getItemsEquipped());
+        }
+        all = Collections.unmodifiableList(items);
+    }
+
+    /**
+     * @param aClass
+     *            The type of items to get, <code>null</code> for all items.
+     * @return An unmodifiable {@link List} of all items that are instances of the given type.
+     */
+    @SuppressWarnings("unchecked")
+    <X> List<X> get(Class<X> aClass) {
+        if (null == aClass) {
+            return (List<X>) all;
+        }
+        return (List<X>) buckets.computeIfAbsent(aClass, aType -> {
+            final List<Object> bucket = new ArrayList<>();
+            for (final Item item : all) {
+                if (aType.isInstance(item)) {
+                    bucket.add(item);
+                }
+            }
+            return Collections.unmodifiableList(bucket);
+        });
+    }
+
+    /**
+     * @return The modification count that this instance is valid for.
+     */
+    long getModificationCount() {
+        return modificationCount;
+    }
+}
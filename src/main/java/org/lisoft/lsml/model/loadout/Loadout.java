@@ -23,7 +23,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,11 +40,12 @@ import org.lisoft.lsml.model.item.Item;
 import org.lisoft.lsml.model.item.JumpJet;
 import org.lisoft.lsml.model.item.ModifierEquipment;
 import org.lisoft.lsml.model.item.Module;
+import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.EquipResult.EquipResultType;
 import org.lisoft.lsml.model.modifiers.Modifier;
+import org.lisoft.lsml.model.modifiers.ModifierSet;
 import org.lisoft.lsml.model.modifiers.PilotSkills;
 import org.lisoft.lsml.model.upgrades.Upgrades;
-import org.lisoft.lsml.util.ListArrayUtils;
 
 /**
  * This class acts as a common base for loadouts for both Omni- and Standard- Battle 'Mechs.
@@ -53,11 +53,66 @@ import org.lisoft.lsml.util.ListArrayUtils;
  * @author Emily Björk
  */
 public abstract class Loadout extends NamedObject {
+    /**
+     * The modifiers of the loadout at a given modification count, and what has been derived from them.
+     */
+    private static class ModifierSnapshot {
+        final long modificationCount;
+        final ModifierSet modifiers;
+        volatile ResolvedWeaponStats weaponStats;
+
+        ModifierSnapshot(long aModificationCount, ModifierSet aModifiers) {
+            modificationCount = aModificationCount;
+            modifiers = aModifiers;
+        }
+    }
+
+    /**
+     * Totals over all components at a given configuration count. They are computed in one pass after each change so
+     * that the global equip checks don't have to visit every component for every query.
+     */
+    private static class Totals {
+        private static final HardPointType[] HARD_POINT_TYPES = HardPointType.values();
+
+        final long modificationCount;
+        final int armour;
+        final double massStructItems;
+        final double mass;
+        final int slotsUsed;
+        final int[] hardPointCount = new int[HARD_POINT_TYPES.length];
+        final int[] itemsOfHardPointType = new int[HARD_POINT_TYPES.length];
+
+        Totals(Loadout aLoadout, long aModificationCount) {
+            modificationCount = aModificationCount;
+            int armourSum = 0;
+            // Summed in component order so the result is identical to summing on every query.
+            double massSum = aLoadout.getUpgrades().getStructure().getStructureMass(aLoadout.chassisBase);
+            for (final ConfiguredComponent component : aLoadout.components) {
+                armourSum += component.getArmourTotal();
+                massSum += component.getItemMass();
+                for (final HardPointType type : HARD_POINT_TYPES) {
+                    hardPointCount[type.ordinal()] += component.getHardPointCount(type);
+                    itemsOfHardPointType[type.ordinal()] += component.getItemsOfHardpointType(type);
+                }
+            }
+            armour = armourSum;
+            massStructItems = massSum;
+            mass = massSum + aLoadout.getUpgrades().getArmour().getArmourMass(armourSum);
+            slotsUsed = aLoadout.calculateSlotsUsed();
+        }
+    }
+
     private final Chassis chassisBase;
     private final ConfiguredComponent[] components;
     private final PilotSkills efficiencies;
     private final List<Consumable> consumables = new ArrayList<>();
     private final WeaponGroups weaponGroups;
+    private int consumableModifications = 0;
+    private transient volatile ModifierSnapshot modifierSnapshot;
+    private transient volatile ItemBuckets itemBuckets;
+    private transient volatile Totals totals;
+    private transient volatile LoadoutKey key;
+    private transient volatile Equippability equippability;
 
     protected Loadout(ConfiguredComponent[] aComponents, Chassis aChassisBase, WeaponGroups aWeaponGroups) {
         super(aChassisBase.getShortName());
@@ -67,12 +122,29 @@ public abstract class Loadout extends NamedObject {
         weaponGroups = aWeaponGroups;
     }
 
+    /**
+     * Copy constructor for subclasses. Copies everything but the components and upgrades which the subclass is
+     * responsible for.
+     *
+     * @param aLoadout
+     *            The loadout to copy.
+     * @param aComponents
+     *            Copies of the components of <code>aLoadout</code>.
+     */
+    protected Loadout(Loadout aLoadout, ConfiguredComponent[] aComponents) {
+        this(aComponents, aLoadout.chassisBase, new WeaponGroups(aLoadout.weaponGroups));
+        setName(aLoadout.getName());
+        efficiencies.assign(aLoadout.efficiencies);
+        consumables.addAll(aLoadout.consumables);
+    }
+
     /**
      * @param aModule
      *            The {@link Consumable} to add to this {@link Loadout}.
      */
     public void addModule(Consumable aModule) {
         consumables.add(aModule);
+        consumableModifications++;
     }
 
     /**
@@ -234,40 +306,106 @@ public abstract class Loadout extends NamedObject {
         if (!name.equals(that.name)) {
             return false;
         }
-        if (chassisBase != that.chassisBase) {
-            return false;
-        }
-        if (!ListArrayUtils.equalsUnordered(consumables, that.consumables)) {
-            return false;
-        }
-        if (!Arrays.equals(components, that.components)) {
-            return false;
-        }
-        return true;
+        return getKey().equals(that.getKey());
     }
 
     /**
      * Returns a {@link Collection} of all {@link Modifier}s that affect the loadout. Equipment, quirks and modules.
+     * <p>
+     * This is the same as {@link #getModifierSnapshot()}, the returned collection is immutable.
      *
      * @return The {@link Collection} of modifiers.
      */
     public Collection<Modifier> getAllModifiers() {
-        final Collection<Modifier> modifiers = getEquipmentModifiers();
-        modifiers.addAll(getEfficiencies().getModifiers());
-        return modifiers;
+        return getModifierSnapshot();
     }
 
     /**
-     * @return The total number of armour points on this loadout.
+     * Returns an immutable snapshot of all {@link Modifier}s that affect the loadout. The snapshot is cached and only
+     * rebuilt after the items, omnipods, consumables, upgrades or pilot skills of the loadout have changed, see
+     * {@link #getModificationCount()}.
+     *
+     * @return A {@link ModifierSet} with the modifiers.
      */
-    public int getArmour() {
-        int ans = 0;
+    public ModifierSet getModifierSnapshot() {
+        return currentSnapshot().modifiers;
+    }
+
+    /**
+     * Returns the statistics of all weapons on this loadout resolved against {@link #getModifierSnapshot()}. The
+     * result is cached and only rebuilt when the modifier snapshot changes, which it also does when weapons are
+     * added or removed.
+     *
+     * @return A {@link ResolvedWeaponStats} for the current state of the loadout.
+     */
+    public ResolvedWeaponStats getWeaponStats() {
+        final ModifierSnapshot snapshot = currentSnapshot();
+        ResolvedWeaponStats ans = snapshot.weaponStats;
+        if (null == ans) {
+            ans = new ResolvedWeaponStats(items(Weapon.class), snapshot.modifiers);
+            snapshot.weaponStats = ans;
+        }
+        return ans;
+    }
+
+    /**
+     * Returns what can be equipped on the current configuration of this loadout. The returned object answers the same
+     * questions as {@link #canEquipDirectly(Item)} and {@link #getCandidateLocationsForItem(Item)} but remembers the
+     * answers until the loadout has changed, so views can query it on every repaint.
+     *
+     * @return An {@link Equippability} for the current state of the loadout.
+     */
+    public Equippability getEquippability() {
+        final long modificationCount = getConfigurationCount();
+        Equippability ans = equippability;
+        if (null == ans || ans.getModificationCount() != modificationCount) {
+            ans = new Equippability(this, modificationCount);
+            equippability = ans;
+        }
+        return ans;
+    }
+
+    /**
+     * Returns the canonical key of the current configuration of this loadout. Two loadouts with the same name are equal
+     * exactly when their keys are equal. The key is cached and only rebuilt after the loadout has changed.
+     *
+     * @return A {@link LoadoutKey} for the current state of the loadout.
+     */
+    public LoadoutKey getKey() {
+        final long modificationCount = getConfigurationCount();
+        LoadoutKey ans = key;
+        if (null == ans || ans.getModificationCount() != modificationCount) {
+            ans = new LoadoutKey(this, modificationCount);
+            key = ans;
+        }
+        return ans;
+    }
+
+    /**
+     * Returns a counter that changes whenever anything that affects the modifiers of this loadout may have changed.
+     * That is, items (including toggle states), omnipods, consumables, upgrades or pilot skills. Changes to the armour
+     * or the name do not change it.
+     *
+     * @return A modification count, only useful for comparing with earlier values from the same loadout.
+     */
+    public long getModificationCount() {
+        // All counters only ever increase so the sum changes whenever any of them does.
+        long ans = consumableModifications;
+        ans += getUpgrades().getModificationCount();
+        ans += getEfficiencies().getModificationCount();
         for (final ConfiguredComponent component : components) {
-            ans += component.getArmourTotal();
+            ans += component.getItemModifications();
         }
         return ans;
     }
 
+    /**
+     * @return The total number of armour points on this loadout.
+     */
+    public int getArmour() {
+        return currentTotals().armour;
+    }
+
     /**
      * Gets a {@link List} of {@link ConfiguredComponent}s that could possibly house the given item.
      * <p>
@@ -376,7 +514,7 @@ public abstract class Loadout extends NamedObject {
      * @return The number of globally available critical slots.
      */
     public int getFreeSlots() {
-        return chassisBase.getSlotsTotal() - getSlotsUsed();
+        return chassisBase.getSlotsTotal() - currentTotals().slotsUsed;
     }
 
     /**
@@ -387,11 +525,7 @@ public abstract class Loadout extends NamedObject {
     public int getHardpointsCount(HardPointType aHardpointType) {
         // Note: This has been moved from chassis base because for omnimechs, the hard point count depends on which
         // omnipods are equipped.
-        int sum = 0;
-        for (final ConfiguredComponent component : components) {
-            sum += component.getHardPointCount(aHardpointType);
-        }
-        return sum;
+        return currentTotals().hardPointCount[aHardpointType.ordinal()];
     }
 
     /**
@@ -409,11 +543,7 @@ public abstract class Loadout extends NamedObject {
     }
 
     public int getItemsOfHardPointType(HardPointType aHardPointType) {
-        int ans = 0;
-        for (final ConfiguredComponent component : components) {
-            ans += component.getItemsOfHardpointType(aHardPointType);
-        }
-        return ans;
+        return currentTotals().itemsOfHardPointType[aHardPointType.ordinal()];
     }
 
     /**
@@ -432,9 +562,7 @@ public abstract class Loadout extends NamedObject {
      * @return The current mass of the loadout.
      */
     public double getMass() {
-        double ans = getMassStructItems();
-        ans += getUpgrades().getArmour().getArmourMass(getArmour());
-        return ans;
+        return currentTotals().mass;
     }
 
     /**
@@ -442,11 +570,26 @@ public abstract class Loadout extends NamedObject {
      *         irrational armour values.
      */
     public double getMassStructItems() {
-        double ans = getUpgrades().getStructure().getStructureMass(chassisBase);
-        for (final ConfiguredComponent component : components) {
-            ans += component.getItemMass();
-        }
-        return ans;
+        return currentTotals().massStructItems;
+    }
+
+    /**
+     * Counts the globally used critical slots by visiting every component. This is only called when the loadout has
+     * changed, {@link #getSlotsUsed()} returns the cached result.
+     *
+     * @return The number of globally used critical slots.
+     */
+    protected abstract int calculateSlotsUsed();
+
+    /**
+     * Collects all modifiers that affect this loadout, subclasses add their quirks.
+     *
+     * @return A new, mutable, {@link Collection} of modifiers.
+     */
+    protected Collection<Modifier> collectModifiers() {
+        final Collection<Modifier> modifiers = getEquipmentModifiers();
+        modifiers.addAll(getEfficiencies().getModifiers());
+        return modifiers;
     }
 
     /**
@@ -477,7 +620,9 @@ public abstract class Loadout extends NamedObject {
     /**
      * @return The number of globally used critical slots.
      */
-    public abstract int getSlotsUsed();
+    public int getSlotsUsed() {
+        return currentTotals().slotsUsed;
+    }
 
     /**
      * @return The {@link Upgrades} that are equipped on this loadout.
@@ -495,10 +640,8 @@ public abstract class Loadout extends NamedObject {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + chassisBase.hashCode();
-        result = prime * result + efficiencies.hashCode();
         result = prime * result + name.hashCode();
-        result = prime * result + Arrays.hashCode(components);
+        result = prime * result + getKey().hashCode();
         return result;
     }
 
@@ -510,12 +653,15 @@ public abstract class Loadout extends NamedObject {
     }
 
     /**
+     * The returned items are a snapshot that is shared until the items on the loadout change, it will not reflect
+     * later changes.
+     *
      * @param aClass
      *            The type to iterate over.
      * @return An {@link Iterable} over all {@link Item}s that implements <code>aClass</code>.
      */
     public <X> Iterable<X> items(Class<X> aClass) {
-        return new LoadoutIterable<>(this, aClass);
+        return currentItemBuckets().get(aClass);
     }
 
     /**
@@ -524,6 +670,7 @@ public abstract class Loadout extends NamedObject {
      */
     public void removeModule(Consumable aModule) {
         consumables.remove(aModule);
+        consumableModifications++;
     }
 
     @Override
@@ -534,13 +681,49 @@ public abstract class Loadout extends NamedObject {
         return getName() + " (" + getChassis().getShortName() + ")";
     }
 
-    private int countItemsOfType(Class<?> aClass) {
-        int ans = 0;
-        final Iterator<?> it = items(aClass).iterator();
-        while (it.hasNext()) {
-            ans++;
-            it.next();
+    /**
+     * @return A counter that changes whenever anything in the configuration of this loadout, including the armour, may
+     *         have changed.
+     */
+    private long getConfigurationCount() {
+        long ans = getModificationCount();
+        for (final ConfiguredComponent component : components) {
+            ans += component.getArmourModifications();
         }
         return ans;
     }
+
+    private ModifierSnapshot currentSnapshot() {
+        final long modificationCount = getModificationCount();
+        ModifierSnapshot snapshot = modifierSnapshot;
+        if (null == snapshot || snapshot.modificationCount != modificationCount) {
+            snapshot = new ModifierSnapshot(modificationCount, ModifierSet.of(collectModifiers()));
+            modifierSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    private Totals currentTotals() {
+        final long modificationCount = getConfigurationCount();
+        Totals ans = totals;
+        if (null == ans || ans.modificationCount != modificationCount) {
+            ans = new Totals(this, modificationCount);
+            totals = ans;
+        }
+        return ans;
+    }
+
+    private int countItemsOfType(Class<?> aClass) {
+        return currentItemBuckets().get(aClass).size();
+    }
+
+    private ItemBuckets currentItemBuckets() {
+        final long modificationCount = getModificationCount();
+        ItemBuckets buckets = itemBuckets;
+        if (null == buckets || buckets.getModificationCount() != modificationCount) {
+            buckets = new ItemBuckets(this, modificationCount);
+            itemBuckets = buckets;
+        }
+        return buckets;
+    }
 }
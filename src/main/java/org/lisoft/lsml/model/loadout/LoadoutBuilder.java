@@ -26,6 +26,10 @@ import javax.inject.Inject;
 
 import org.lisoft.lsml.application.ErrorReporter;
 import org.lisoft.lsml.command.*;
+import org.lisoft.lsml.messages.MessageDelivery;
+import org.lisoft.lsml.model.chassi.ArmourSide;
+import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.chassi.OmniPod;
 import org.lisoft.lsml.model.database.ItemDB;
 import org.lisoft.lsml.model.item.*;
 import org.lisoft.lsml.util.CommandStack;
@@ -38,6 +42,13 @@ import org.lisoft.lsml.util.CommandStack.Command;
  * method. Once all operations have been pushed, one applies the operations loadout with the {@link #applyAll()} method.
  * The call to {@link #applyAll()} will re-order and apply the pushed {@link Command}s in an order that allows the loadout
  * to be constructed without violating validity invariants during creation.
+ * <p>
+ * Decoders that know the complete contents of the loadout should rather describe it with {@link #setOmniPod}, the
+ * upgrade commands, {@link #setArmour}, {@link #addConsumable}, {@link #setToggleState} and {@link #addItem}. The
+ * described parts are applied in the same order and with the same outcome as the corresponding commands would have, but
+ * directly on the components instead of replaying one validated command at a time. In particular the armour is checked
+ * once for all components together. Errors are collected the same way for both and reported through
+ * {@link #reportErrors(Loadout, ErrorReporter)}.
  *
  * @author Emily Björk
  */
@@ -45,7 +56,6 @@ public class LoadoutBuilder {
     private static class OperationComparator implements Comparator<Command>, Serializable {
         private static final long serialVersionUID = -5026656921652607661L;
         private final static Map<Class<? extends Command>, Integer> CLASS_PRIORITY_ORDER;
-        private final static Map<Item, Integer> PRIORITY_ITEMS;
 
         static {
             CLASS_PRIORITY_ORDER = new HashMap<>();
@@ -68,13 +78,6 @@ public class LoadoutBuilder {
 
             // Item operations last
             CLASS_PRIORITY_ORDER.put(CmdAddItem.class, 100);
-
-            PRIORITY_ITEMS = new HashMap<>();
-
-            PRIORITY_ITEMS.put(ItemDB.ECM, 7); // Before armour
-            for (final Engine e : ItemDB.lookup(Engine.class)) {
-                PRIORITY_ITEMS.put(e, 6); // Before other things
-            }
         }
 
         @Override
@@ -84,23 +87,78 @@ public class LoadoutBuilder {
 
         private Integer getPriority(Command aCmd) {
             if (aCmd instanceof CmdAddItem) {
-                final CmdAddItem cmdAddItem = (CmdAddItem) aCmd;
-                final Integer priorityItem = PRIORITY_ITEMS.get(cmdAddItem.getItem());
-                if (null != priorityItem) {
-                    return priorityItem;
-                }
+                return getPriority(((CmdAddItem) aCmd).getItem(), aCmd.getClass());
+            }
+            return getPriority(null, aCmd.getClass());
+        }
+
+        private Integer getPriority(Item aItem, Class<? extends Command> aClass) {
+            // Compared against the current ItemDB.ECM on every call, as it is replaced when the database is updated.
+            if (aItem == ItemDB.ECM) {
+                return 7; // Before armour
+            }
+            if (aItem instanceof Engine) {
+                return 6; // Before other things
             }
-            final Integer priority = CLASS_PRIORITY_ORDER.get(aCmd.getClass());
+            final Integer priority = CLASS_PRIORITY_ORDER.get(aClass);
             if (null == priority) {
-                throw new IllegalArgumentException(
-                        "Class missing from priority map: " + aCmd.getClass().getSimpleName());
+                throw new IllegalArgumentException("Class missing from priority map: " + aClass.getSimpleName());
             }
             return priority;
         }
     }
 
+    private static class ArmourEntry {
+        final ConfiguredComponent component;
+        final ArmourSide side;
+        final int amount;
+        final boolean manual;
+
+        ArmourEntry(ConfiguredComponent aComponent, ArmourSide aSide, int aAmount, boolean aManual) {
+            component = aComponent;
+            side = aSide;
+            amount = aAmount;
+            manual = aManual;
+        }
+    }
+
+    private static class ItemEntry {
+        final MessageDelivery delivery;
+        final ConfiguredComponent component;
+        final Item item;
+        final boolean state;
+
+        ItemEntry(MessageDelivery aDelivery, ConfiguredComponent aComponent, Item aItem, boolean aState) {
+            delivery = aDelivery;
+            component = aComponent;
+            item = aItem;
+            state = aState;
+        }
+    }
+
+    private static class Step {
+        final int priority;
+        final StepAction action;
+
+        Step(int aPriority, StepAction aAction) {
+            priority = aPriority;
+            action = aAction;
+        }
+    }
+
+    @FunctionalInterface
+    private static interface StepAction {
+        void apply() throws Exception;
+    }
+
     final private List<Command> operations = new ArrayList<>(20);
     private final List<Throwable> errors = new ArrayList<>();
+    private final List<OmniPod> omniPods = new ArrayList<>();
+    private final List<ArmourEntry> armour = new ArrayList<>();
+    private final List<Consumable> consumables = new ArrayList<>();
+    private final List<ItemEntry> toggles = new ArrayList<>();
+    private final List<ItemEntry> items = new ArrayList<>();
+    private Loadout loadout;
 
     @Inject
     public LoadoutBuilder() {
@@ -112,17 +170,94 @@ public class LoadoutBuilder {
         return operations;
     }
 
+    /**
+     * Adds an item to the described loadout, equivalent to pushing a {@link CmdAddItem}.
+     *
+     * @param aLoadout
+     *            The {@link Loadout} that is being built.
+     * @param aComponent
+     *            The {@link ConfiguredComponent} to add the item to.
+     * @param aItem
+     *            The {@link Item} to add.
+     */
+    public void addItem(Loadout aLoadout, ConfiguredComponent aComponent, Item aItem) {
+        addItem(null, aLoadout, aComponent, aItem);
+    }
+
+    /**
+     * Adds an item to the described loadout, equivalent to pushing a {@link CmdAddItem} with the given
+     * {@link MessageDelivery}. The same warnings as {@link CmdAddItem} gives are posted on it when the item is added.
+     *
+     * @param aMessageDelivery
+     *            The {@link MessageDelivery} to post warnings on, may be <code>null</code>.
+     * @param aLoadout
+     *            The {@link Loadout} that is being built.
+     * @param aComponent
+     *            The {@link ConfiguredComponent} to add the item to.
+     * @param aItem
+     *            The {@link Item} to add.
+     */
+    public void addItem(MessageDelivery aMessageDelivery, Loadout aLoadout, ConfiguredComponent aComponent,
+            Item aItem) {
+        if (aItem instanceof Internal) {
+            throw new IllegalArgumentException("Internals cannot be added!");
+        }
+        setLoadout(aLoadout);
+        items.add(new ItemEntry(aMessageDelivery, aComponent, aItem, true));
+    }
+
+    /**
+     * Adds a consumable to the described loadout, equivalent to pushing a {@link CmdAddModule}.
+     *
+     * @param aLoadout
+     *            The {@link Loadout} that is being built.
+     * @param aConsumable
+     *            The {@link Consumable} to add.
+     */
+    public void addConsumable(Loadout aLoadout, Consumable aConsumable) {
+        setLoadout(aLoadout);
+        consumables.add(aConsumable);
+    }
+
     public void applyAll() {
         final CommandStack operationStack = new CommandStack(0);
+        final OperationComparator comparator = new OperationComparator();
+        final List<Command> commands = getAllCommands();
 
-        for (final Command op : getAllCommands()) {
+        final List<Step> steps = new ArrayList<>();
+        for (final OmniPod omniPod : omniPods) {
+            steps.add(new Step(comparator.getPriority(null, CmdSetOmniPod.class),
+                    () -> applyOmniPod(operationStack, omniPod)));
+        }
+        if (!armour.isEmpty()) {
+            steps.add(new Step(comparator.getPriority(null, CmdSetArmour.class), () -> applyArmour(operationStack)));
+        }
+        for (final Consumable consumable : consumables) {
+            steps.add(new Step(comparator.getPriority(null, CmdAddModule.class), () -> {
+                EquipException.checkAndThrow(loadout.canAddModule(consumable));
+                loadout.addModule(consumable);
+            }));
+        }
+        for (final ItemEntry toggle : toggles) {
+            steps.add(new Step(comparator.getPriority(null, CmdToggleItem.class), () -> applyToggle(toggle)));
+        }
+        for (final ItemEntry entry : items) {
+            steps.add(new Step(comparator.getPriority(entry.item, CmdAddItem.class), () -> applyItem(entry)));
+        }
+        // Stable, so steps of equal priority keep the order they were described in.
+        Collections.sort(steps, (aLHS, aRHS) -> Integer.compare(aLHS.priority, aRHS.priority));
+
+        int next = 0;
+        for (final Step step : steps) {
+            next = applyCommands(operationStack, comparator, commands, next, step.priority);
             try {
-                operationStack.pushAndApply(op);
+                step.action.apply();
             }
             catch (final Throwable t) {
                 pushError(t);
             }
         }
+        applyCommands(operationStack, comparator, commands, next, Integer.MAX_VALUE);
     }
 
     public void push(final Command aOperation) {
@@ -159,5 +294,202 @@ public class LoadoutBuilder {
     public void reset() {
         operations.clear();
         errors.clear();
+        omniPods.clear();
+        armour.clear();
+        consumables.clear();
+        toggles.clear();
+        items.clear();
+        loadout = null;
+    }
+
+    /**
+     * Sets the armour on one side of a component of the described loadout, equivalent to pushing a
+     * {@link CmdSetArmour}.
+     *
+     * @param aLoadout
+     *            The {@link Loadout} that is being built.
+     * @param aComponent
+     *            The {@link ConfiguredComponent} to set the armour on.
+     * @param aSide
+     *            The {@link ArmourSide} to set.
+     * @param aAmount
+     *            The amount of armour.
+     * @param aManual
+     *            <code>true</code> if the armour was set manually, <code>false</code> if it was automatically
+     *            distributed.
+     */
+    public void setArmour(Loadout aLoadout, ConfiguredComponent aComponent, ArmourSide aSide, int aAmount,
+            boolean aManual) {
+        if (aAmount < 0) {
+            throw new IllegalArgumentException("Armour must be positive!");
+        }
+        setLoadout(aLoadout);
+        armour.add(new ArmourEntry(aComponent, aSide, aAmount, aManual));
+    }
+
+    /**
+     * Sets an omnipod on the described loadout, equivalent to pushing a {@link CmdSetOmniPod}.
+     *
+     * @param aLoadout
+     *            The {@link LoadoutOmniMech} that is being built.
+     * @param aOmniPod
+     *            The {@link OmniPod} to set, it goes in its dedicated component.
+     */
+    public void setOmniPod(LoadoutOmniMech aLoadout, OmniPod aOmniPod) {
+        if (aOmniPod == null) {
+            throw new IllegalArgumentException("Omnipod must not be null!");
+        }
+        setLoadout(aLoadout);
+        omniPods.add(aOmniPod);
+    }
+
+    /**
+     * Sets the state of a toggleable item on the described loadout, equivalent to pushing a {@link CmdToggleItem}.
+     *
+     * @param aLoadout
+     *            The {@link Loadout} that is being built.
+     * @param aComponent
+     *            The {@link ConfiguredComponentOmniMech} that has the item.
+     * @param aItem
+     *            The item to toggle, {@link ItemDB#LAA} or {@link ItemDB#HA}.
+     * @param aState
+     *            The new toggle state.
+     */
+    public void setToggleState(Loadout aLoadout, ConfiguredComponentOmniMech aComponent, Item aItem, boolean aState) {
+        if (aItem != ItemDB.HA && aItem != ItemDB.LAA) {
+            throw new IllegalArgumentException("Can't toggle anything but HA/LAA");
+        }
+        setLoadout(aLoadout);
+        toggles.add(new ItemEntry(null, aComponent, aItem, aState));
+    }
+
+    private void applyArmour(CommandStack aStack) {
+        // Find the highest value each side will have at any point while the armour is set. If the loadout is valid
+        // with all sides at their highest, setting the values one by one cannot fail and no checks are needed.
+        final Map<ConfiguredComponent, int[]> peaks = new IdentityHashMap<>();
+        boolean valid = true;
+        for (final ArmourEntry entry : armour) {
+            final int[] peak = peaks.computeIfAbsent(entry.component, aComponent -> {
+                final int[] current = new int[ArmourSide.values().length];
+                Arrays.fill(current, -1);
+                for (final ArmourSide side : ArmourSide.allSides(aComponent.getInternalComponent())) {
+                    current[side.ordinal()] = aComponent.getArmour(side);
+                }
+                return current;
+            });
+            if (peak[entry.side.ordinal()] < 0) {
+                valid = false;
+                break;
+            }
+            peak[entry.side.ordinal()] = Math.max(peak[entry.side.ordinal()], entry.amount);
+        }
+
+        int totalArmour = loadout.getArmour();
+        for (final Map.Entry<ConfiguredComponent, int[]> entry : peaks.entrySet()) {
+            final ConfiguredComponent component = entry.getKey();
+            int componentArmour = 0;
+            for (final int sideArmour : entry.getValue()) {
+                componentArmour += Math.max(0, sideArmour);
+            }
+            valid &= componentArmour <= component.getInternalComponent().getArmourMax();
+            totalArmour += componentArmour - component.getArmourTotal();
+        }
+        final double armourTons = loadout.getUpgrades().getArmour().getArmourMass(totalArmour);
+        valid &= loadout.getChassis().getMassMax() - (loadout.getMassStructItems() + armourTons) >= 0;
+
+        for (final ArmourEntry entry : armour) {
+            if (valid) {
+                entry.component.setArmour(entry.side, entry.amount, entry.manual);
+            }
+            else {
+                try {
+                    aStack.pushAndApply(
+                            new CmdSetArmour(null, loadout, entry.component, entry.side, entry.amount, entry.manual));
+                }
+                catch (final Throwable t) {
+                    pushError(t);
+                }
+            }
+        }
+    }
+
+    private int applyCommands(CommandStack aStack, OperationComparator aComparator, List<Command> aCommands,
+            int aNext, int aMaxPriority) {
+        int next = aNext;
+        while (next < aCommands.size() && aComparator.getPriority(aCommands.get(next)) <= aMaxPriority) {
+            try {
+                aStack.pushAndApply(aCommands.get(next));
+            }
+            catch (final Throwable t) {
+                pushError(t);
+            }
+            next++;
+        }
+        return next;
+    }
+
+    private void applyItem(ItemEntry aEntry) throws EquipException {
+        final ConfiguredComponent component = aEntry.component;
+        final Item item = aEntry.item;
+        EquipException.checkAndThrow(loadout.canEquipDirectly(item));
+        EquipException.checkAndThrow(component.canEquip(item));
+
+        if (item instanceof Engine) {
+            ((Engine) item).getSide().ifPresent(aSide -> {
+                loadout.getComponent(Location.LeftTorso).addItem(aSide);
+                loadout.getComponent(Location.RightTorso).addItem(aSide);
+            });
+        }
+        if (item instanceof Weapon && ((Weapon) item).isLargeBore()
+                && component instanceof ConfiguredComponentOmniMech) {
+            final ConfiguredComponentOmniMech componentOmniMech = (ConfiguredComponentOmniMech) component;
+            if (componentOmniMech.getToggleState(ItemDB.LAA)) {
+                componentOmniMech.setToggleState(ItemDB.HA, false);
+                componentOmniMech.setToggleState(ItemDB.LAA, false);
+            }
+        }
+        if (aEntry.delivery != null) {
+            CmdAddItem.caseXLWarning(loadout, item).ifPresent(aEntry.delivery::post);
+            CmdAddItem.manyGaussWarning(loadout, item).ifPresent(aEntry.delivery::post);
+        }
+        component.addItem(item);
+    }
+
+    private void applyOmniPod(CommandStack aStack, OmniPod aOmniPod) throws Exception {
+        final LoadoutOmniMech loadoutOmniMech = (LoadoutOmniMech) loadout;
+        for (final ConfiguredComponent component : loadout.getComponents()) {
+            if (!component.getItemsEquipped().isEmpty()) {
+                // Items would have to be removed, let the command deal with that.
+                aStack.pushAndApply(new CmdSetOmniPod(null, loadoutOmniMech,
+                        loadoutOmniMech.getComponent(aOmniPod.getLocation()), aOmniPod));
+                return;
+            }
+        }
+        loadoutOmniMech.setOmniPod(aOmniPod);
+    }
+
+    private void applyToggle(ItemEntry aEntry) throws EquipException {
+        final ConfiguredComponentOmniMech component = (ConfiguredComponentOmniMech) aEntry.component;
+        if (component.getToggleState(aEntry.item) == aEntry.state) {
+            return;
+        }
+        if (aEntry.state) {
+            // Turning on needs the checks.
+            new CmdToggleItem(null, loadout, component, aEntry.item, true).apply();
+            return;
+        }
+        if (aEntry.item == ItemDB.LAA) {
+            component.setToggleState(ItemDB.HA, false);
+        }
+        component.setToggleState(aEntry.item, false);
+    }
+
+    private void setLoadout(Loadout aLoadout) {
+        if (loadout == null) {
+            loadout = aLoadout;
+        }
+        else if (loadout != aLoadout) {
+            throw new IllegalArgumentException("Only one loadout can be described at a time!");
+        }
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.loadout;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.item.Internal;
+import org.lisoft.lsml.model.item.MwoObject;
+import org.lisoft.lsml.model.upgrades.Upgrades;
+
+/**
+ * A compact, canonical representation of the configuration of a {@link Loadout}: the type, chassis, upgrades,
+ * consumables and for each component the omnipod, toggle states, armour values and the sorted equipped items.
+ * <p>
+ * Two loadouts have equal keys exactly when they have the same configuration, regardless of the order in which items
+ * were added. The key is packed into an <code>int[]</code> with a precomputed hash so hashing is constant time and
+ * equality is a single array comparison.
+ * <p>
+ * Game objects are represented by their MWO ids. The only overlap within one position of the key is between items and
+ * internals (the engine side torsos reuse the id of the engine) so internals are tagged in the lowest bit.
+ * <p>
+ * Use {@link Loadout#getKey()} to get the key of a loadout, it is cached until the loadout is changed. This class is
+ * immutable.
+ *
+ * @author Emily Björk
+ */
+public final class LoadoutKey {
+    /**
+     * Accumulates the packed representation of a loadout.
+     *
+     * @author Emily Björk
+     */
+    static class Builder {
+        private int[] data = new int[128];
+        private int size = 0;
+
+        /**
+         * @param aValue
+         *            A value to append.
+         */
+        void add(int aValue) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = aValue;
+        }
+
+        /**
+         * @param aObject
+         *            An object to append the id of, may be <code>null</code>.
+         */
+        void addObject(MwoObject aObject) {
+            add(objectId(aObject));
+        }
+
+        /**
+         * Appends the number of objects followed by their ids in ascending order.
+         *
+         * @param aObjects
+         *            The objects to append, the order is not significant.
+         */
+        void addUnordered(Collection<? extends MwoObject> aObjects) {
+            final int[] ids = new int[aObjects.size()];
+            int i = 0;
+            for (final MwoObject object : aObjects) {
+                ids[i++] = objectId(object);
+            }
+            Arrays.sort(ids);
+            add(ids.length);
+            for (final int id : ids) {
+                add(id);
+            }
+        }
+    }
+
+    /**
+     * @param aObject
+     *            The object to get the id for.
+     * @return The MWO id of the object shifted left one bit with the lowest bit set for internals, -1 for
+     *         <code>null</code>.
+     */
+    static int objectId(MwoObject aObject) {
+        if (null == aObject) {
+            return -1;
+        }
+        return aObject.getId() << 1 | (aObject instanceof Internal ? 1 : 0);
+    }
+
+    private final int[] data;
+    private final int hash;
+    private final long modificationCount;
+
+    /**
+     * Creates the key for the current configuration of the given loadout.
+     *
+     * @param aLoadout
+     *            The loadout to create a key for.
+     * @param aModificationCount
+     *            The modification count of the loadout, including armour changes, at the time of creation.
+     */
+    LoadoutKey(Loadout aLoadout, long aModificationCount) {
+        modificationCount = aModificationCount;
+
+        final Builder builder = new Builder();
+        builder.add(aLoadout instanceof LoadoutOmniMech ? 1 : 0);
+        builder.addObject(aLoadout.getChassis());
+        final Upgrades upgrades = aLoadout.getUpgrades();
+        builder.addObject(upgrades.getArmour());
+        builder.addObject(upgrades.getStructure());
+        builder.addObject(upgrades.getHeatSink());
+        builder.addObject(upgrades.getGuidance());
+        builder.addUnordered(aLoadout.getConsumables());
+        for (final Location location : Location.values()) {
+            aLoadout.getComponent(location).appendKey(builder);
+        }
+        data = Arrays.copyOf(builder.data, builder.size);
+        hash = Arrays.hashCode(data);
+    }
+
+    @Override
+    public boolean equals(Object aObject) {
+        if (this == aObject) {
+            return true;
+        }
+        if (!(aObject instanceof LoadoutKey)) {
+            return false;
+        }
+        final LoadoutKey that = (LoadoutKey) aObject;
+        return hash == that.hash && Arrays.equals(data, that.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * @return The modification count that this key is valid for. Not part of the value of the key.
+     */
+    long getModificationCount() {
+        return modificationCount;
+    }
+}
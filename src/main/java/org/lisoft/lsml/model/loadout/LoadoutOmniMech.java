@@ -60,22 +60,23 @@ public class LoadoutOmniMech extends Loadout {
         upgrades = aUpgrades;
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (!(obj instanceof LoadoutOmniMech)) {
-            return false;
-        }
-        if (!super.equals(obj)) {
-            return false;
-        }
-        final LoadoutOmniMech other = (LoadoutOmniMech) obj;
-        if (!upgrades.equals(other.upgrades)) {
-            return false;
+    /**
+     * Creates a deep copy of the given loadout.
+     *
+     * @param aLoadout
+     *            The loadout to copy.
+     */
+    public LoadoutOmniMech(LoadoutOmniMech aLoadout) {
+        super(aLoadout, copyComponents(aLoadout));
+        upgrades = new Upgrades(aLoadout.upgrades);
+    }
+
+    private static ConfiguredComponentOmniMech[] copyComponents(LoadoutOmniMech aLoadout) {
+        final ConfiguredComponentOmniMech[] ans = new ConfiguredComponentOmniMech[Location.values().length];
+        for (final Location location : Location.values()) {
+            ans[location.ordinal()] = new ConfiguredComponentOmniMech(aLoadout.getComponent(location));
         }
-        return true;
+        return ans;
     }
 
     @Override
@@ -123,11 +124,8 @@ public class LoadoutOmniMech extends Loadout {
         return ans;
     }
 
-    /**
-     * @return The number of globally used critical slots.
-     */
     @Override
-    public int getSlotsUsed() {
+    protected int calculateSlotsUsed() {
         int ans = 0;
         for (final Location location : Location.values()) {
             ans += getComponent(location).getSlotsUsed();
@@ -140,14 +138,6 @@ public class LoadoutOmniMech extends Loadout {
         return upgrades;
     }
 
-    @Override
-    public int hashCode() {
-        final int prime = 31;
-        int result = super.hashCode();
-        result = prime * result + (upgrades == null ? 0 : upgrades.hashCode());
-        return result;
-    }
-
     /**
      * This setter method is only intended to be used from package local {@link Command}s. It's a raw, unchecked
      * accessor.
@@ -57,22 +57,23 @@ public class LoadoutStandard extends Loadout {
         upgrades = aUpgradesMutable;
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (!(obj instanceof LoadoutStandard)) {
-            return false;
-        }
-        if (!super.equals(obj)) {
-            return false;
-        }
-        final LoadoutStandard other = (LoadoutStandard) obj;
-        if (!upgrades.equals(other.upgrades)) {
-            return false;
+    /**
+     * Creates a deep copy of the given loadout.
+     *
+     * @param aLoadout
+     *            The loadout to copy.
+     */
+    LoadoutStandard(LoadoutStandard aLoadout) {
+        super(aLoadout, copyComponents(aLoadout));
+        upgrades = new UpgradesMutable(aLoadout.upgrades);
+    }
+
+    private static ConfiguredComponentStandard[] copyComponents(LoadoutStandard aLoadout) {
+        final ConfiguredComponentStandard[] ans = new ConfiguredComponentStandard[Location.values().length];
+        for (final Location location : Location.values()) {
+            ans[location.ordinal()] = new ConfiguredComponentStandard(aLoadout.getComponent(location));
         }
-        return true;
+        return ans;
     }
 
     @Override
@@ -110,14 +111,14 @@ public class LoadoutStandard extends Loadout {
     }
 
     @Override
-    public Collection<Modifier> getAllModifiers() {
-        final Collection<Modifier> ans = super.getAllModifiers();
+    protected Collection<Modifier> collectModifiers() {
+        final Collection<Modifier> ans = super.collectModifiers();
         ans.addAll(getQuirks());
         return ans;
     }
 
     @Override
-    public int getSlotsUsed() {
+    protected int calculateSlotsUsed() {
         int ans = getUpgrades().getStructure().getExtraSlots() + getUpgrades().getArmour().getDynamicSlots();
         for (final ConfiguredComponent component : getComponents()) {
             ans += component.getSlotsUsed();
@@ -0,0 +1,319 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.loadout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lisoft.lsml.model.item.EnergyWeapon;
+import org.lisoft.lsml.model.item.Weapon;
+import org.lisoft.lsml.model.item.WeaponStat;
+import org.lisoft.lsml.model.modifiers.Modifier;
+import org.lisoft.lsml.util.Pair;
+
+/**
+ * The statistics of the weapons on a loadout resolved against one set of modifiers.
+ * <p>
+ * Each distinct weapon gets an index and its statistics are stored in primitive arrays at that index. The statistics
+ * are computed through the same {@link Weapon} methods that the metrics would otherwise call, so the values are exactly
+ * the same, just computed once instead of once per metric, range and comparison.
+ * <p>
+ * Use {@link Loadout#getWeaponStats()} to get an instance that is shared until the modifiers of the loadout change.
+ * This class is immutable.
+ *
+ * @author Emily Björk
+ */
+public class ResolvedWeaponStats {
+    private final Collection<Modifier> modifiers;
+    private final Weapon[] weapons;
+    private final Map<Weapon, Integer> indices = new IdentityHashMap<>();
+    private final int[] count;
+    private final double[] damagePerShot;
+    private final double[] coolDown;
+    private final double[] secondsPerShot;
+    private final double[] heat;
+    private final double[] duration;
+    private final double[] rangeMax;
+    private final double[] rangeOptimalMin;
+    private final double[] rangeOptimalMax;
+    private final double[] projectileSpeed;
+    private final double[] damagePerSecond;
+    private final double[] damagePerHeat;
+    private final double[] heatPerSecond;
+
+    /**
+     * Resolves the statistics of the given weapons.
+     *
+     * @param aWeapons
+     *            The weapons, duplicates are counted.
+     * @param aModifiers
+     *            The modifiers to apply to the weapons.
+     */
+    public ResolvedWeaponStats(Iterable<Weapon> aWeapons, Collection<Modifier> aModifiers) {
+        modifiers = aModifiers;
+        final List<Weapon> unique = new ArrayList<>();
+        final List<Integer> counts = new ArrayList<>();
+        for (final Weapon weapon : aWeapons) {
+            final Integer index = indices.get(weapon);
+            if (null == index) {
+                indices.put(weapon, unique.size());
+                unique.add(weapon);
+                counts.add(1);
+            }
+            else {
+                counts.set(index, counts.get(index) + 1);
+            }
+        }
+
+        final int n = unique.size();
+        weapons = unique.toArray(new Weapon[n]);
+        count = new int[n];
+        damagePerShot = new double[n];
+        coolDown = new double[n];
+        secondsPerShot = new double[n];
+        heat = new double[n];
+        duration = new double[n];
+        rangeMax = new double[n];
+        rangeOptimalMin = new double[n];
+        rangeOptimalMax = new double[n];
+        projectileSpeed = new double[n];
+        damagePerSecond = new double[n];
+        damagePerHeat = new double[n];
+        heatPerSecond = new double[n];
+        for (int i = 0; i < n; ++i) {
+            final Weapon weapon = weapons[i];
+            count[i] = counts.get(i);
+            damagePerShot[i] = weapon.getDamagePerShot();
+            coolDown[i] = weapon.getCoolDown(aModifiers);
+            secondsPerShot[i] = weapon.getSecondsPerShot(aModifiers);
+            heat[i] = weapon.getHeat(aModifiers);
+            duration[i] = weapon instanceof EnergyWeapon ? ((EnergyWeapon) weapon).getDuration(aModifiers) : 0.0;
+            rangeMax[i] = weapon.getRangeMax(aModifiers);
+            final Pair<Double, Double> optimal = weapon.getRangeOptimal(aModifiers);
+            if (null != optimal) {
+                rangeOptimalMin[i] = optimal.first;
+                rangeOptimalMax[i] = optimal.second;
+            }
+            projectileSpeed[i] = weapon.getProjectileSpeed(aModifiers);
+            damagePerSecond[i] = weapon.getStat(WeaponStat.DAMAGE_PER_SECOND.toString(), aModifiers);
+            damagePerHeat[i] = weapon.getStat(WeaponStat.DAMAGE_PER_HEAT.toString(), aModifiers);
+            heatPerSecond[i] = weapon.getStat(WeaponStat.HEAT_PER_SECOND.toString(), aModifiers);
+        }
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The cool down of the weapon.
+     */
+    public double getCoolDown(int aIndex) {
+        return coolDown[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The number of weapons of this type.
+     */
+    public int getCount(int aIndex) {
+        return count[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The damage per heat ("d/h") of the weapon.
+     */
+    public double getDamagePerHeat(int aIndex) {
+        return damagePerHeat[aIndex];
+    }
+
+    /**
+     * @param aWeapon
+     *            The weapon to get the damage per heat for, needn't be one of the resolved weapons.
+     * @return The damage per heat ("d/h") of the weapon.
+     */
+    public double getDamagePerHeat(Weapon aWeapon) {
+        final int index = indexOf(aWeapon);
+        return index < 0 ? aWeapon.getStat(WeaponStat.DAMAGE_PER_HEAT.toString(), modifiers) : damagePerHeat[index];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The damage per second ("d/s") of the weapon.
+     */
+    public double getDamagePerSecond(int aIndex) {
+        return damagePerSecond[aIndex];
+    }
+
+    /**
+     * @param aWeapon
+     *            The weapon to get the damage per second for, needn't be one of the resolved weapons.
+     * @return The damage per second ("d/s") of the weapon.
+     */
+    public double getDamagePerSecond(Weapon aWeapon) {
+        final int index = indexOf(aWeapon);
+        return index < 0 ? aWeapon.getStat(WeaponStat.DAMAGE_PER_SECOND.toString(), modifiers)
+                : damagePerSecond[index];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The damage per shot of the weapon.
+     */
+    public double getDamagePerShot(int aIndex) {
+        return damagePerShot[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The burn duration of the weapon if it is an {@link EnergyWeapon}, 0 otherwise.
+     */
+    public double getDuration(int aIndex) {
+        return duration[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The heat per shot of the weapon.
+     */
+    public double getHeat(int aIndex) {
+        return heat[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The heat per second ("h/s") of the weapon.
+     */
+    public double getHeatPerSecond(int aIndex) {
+        return heatPerSecond[aIndex];
+    }
+
+    /**
+     * @param aWeapon
+     *            The weapon to get the heat per second for, needn't be one of the resolved weapons.
+     * @return The heat per second ("h/s") of the weapon.
+     */
+    public double getHeatPerSecond(Weapon aWeapon) {
+        final int index = indexOf(aWeapon);
+        return index < 0 ? aWeapon.getStat(WeaponStat.HEAT_PER_SECOND.toString(), modifiers) : heatPerSecond[index];
+    }
+
+    /**
+     * @return The modifiers that the statistics were resolved with.
+     */
+    public Collection<Modifier> getModifiers() {
+        return modifiers;
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The projectile speed of the weapon.
+     */
+    public double getProjectileSpeed(int aIndex) {
+        return projectileSpeed[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The maximal range of the weapon.
+     */
+    public double getRangeMax(int aIndex) {
+        return rangeMax[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The start of the optimal range of the weapon.
+     */
+    public double getRangeOptimalMin(int aIndex) {
+        return rangeOptimalMin[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The end of the optimal range of the weapon.
+     */
+    public double getRangeOptimalMax(int aIndex) {
+        return rangeOptimalMax[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The seconds per shot of the weapon.
+     */
+    public double getSecondsPerShot(int aIndex) {
+        return secondsPerShot[aIndex];
+    }
+
+    /**
+     * Evaluates an arbitrary statistic from the resolved values.
+     *
+     * @param aStat
+     *            The statistic to evaluate.
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The value of the statistic for the weapon.
+     */
+    public double getStat(WeaponStat aStat, int aIndex) {
+        final Weapon weapon = weapons[aIndex];
+        return aStat.evaluate(damagePerShot[aIndex], secondsPerShot[aIndex], weapon.getMass(), heat[aIndex],
+                weapon.getSlots());
+    }
+
+    /**
+     * @param aIndex
+     *            The index of a weapon.
+     * @return The weapon at the given index.
+     */
+    public Weapon getWeapon(int aIndex) {
+        return weapons[aIndex];
+    }
+
+    /**
+     * @param aWeapon
+     *            The weapon to look for.
+     * @return The index of the weapon or -1 if it isn't one of the resolved weapons.
+     */
+    public int indexOf(Weapon aWeapon) {
+        final Integer index = indices.get(aWeapon);
+        return null == index ? -1 : index;
+    }
+
+    /**
+     * @return The number of distinct weapons.
+     */
+    public int size() {
+        return weapons.length;
+    }
+}
@@ -261,6 +261,13 @@ public class StockLoadout {
         return ChassisDB.lookup(chassisId);
     }
 
+    /**
+     * @return The MWO ID of the {@link Chassis} for this {@link StockLoadout}.
+     */
+    public int getChassisId() {
+        return chassisId;
+    }
+
     /**
      * @return The {@link StockComponent}s in this {@link StockLoadout}.
      */
@@ -45,7 +45,7 @@ public abstract class AbstractRangeMetric implements RangeMetric {
         }
 
         double max = Double.NEGATIVE_INFINITY;
-        for (final Double r : WeaponRanges.getRanges(loadout)) {
+        for (final double r : WeaponRanges.getRangeArray(loadout)) {
             if (r < 0) {
                 continue;
             }
@@ -94,6 +94,11 @@ public class BurstDamageOverTime extends RangeTimeMetric implements MessageRecei
         return ans;
     }
 
+    @Override
+    public boolean acceptsTransactionMessages() {
+        return true;
+    }
+
     @Override
     public void receive(Message aMsg) {
         if (aMsg.isForMe(loadout) && aMsg.affectsHeatOrDamage()) {
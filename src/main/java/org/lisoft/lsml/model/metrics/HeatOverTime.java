@@ -88,6 +88,11 @@ public class HeatOverTime implements VariableMetric, MessageReceiver {
         return ans;
     }
 
+    @Override
+    public boolean acceptsTransactionMessages() {
+        return true;
+    }
+
     @Override
     public void receive(Message aMsg) {
         if (aMsg.isForMe(loadout) && aMsg.affectsHeatOrDamage()) {
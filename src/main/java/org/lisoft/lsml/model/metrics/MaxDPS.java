@@ -24,6 +24,7 @@ import java.util.Collection;
 import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.loadout.LoadoutStandard;
+import org.lisoft.lsml.model.loadout.ResolvedWeaponStats;
 import org.lisoft.lsml.model.modifiers.Modifier;
 
 /**
@@ -62,7 +63,8 @@ public class MaxDPS extends AbstractRangeMetric {
         checkRange(aRange);
 
         double ans = 0;
-        final Collection<Modifier> modifiers = loadout.getAllModifiers();
+        final ResolvedWeaponStats stats = loadout.getWeaponStats();
+        final Collection<Modifier> modifiers = stats.getModifiers();
         final Iterable<Weapon> weapons;
         if (weaponGroup < 0) {
             weapons = loadout.items(Weapon.class);
@@ -73,7 +75,7 @@ public class MaxDPS extends AbstractRangeMetric {
 
         for (final Weapon weapon : weapons) {
             if (weapon.isOffensive()) {
-                ans += weapon.getRangeEffectiveness(aRange, modifiers) * weapon.getStat("d/s", modifiers);
+                ans += weapon.getRangeEffectiveness(aRange, modifiers) * stats.getDamagePerSecond(weapon);
             }
 
         }
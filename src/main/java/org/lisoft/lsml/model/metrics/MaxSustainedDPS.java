@@ -32,6 +32,7 @@ import org.lisoft.lsml.model.item.Engine;
 import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.loadout.LoadoutStandard;
+import org.lisoft.lsml.model.loadout.ResolvedWeaponStats;
 import org.lisoft.lsml.model.modifiers.Modifier;
 
 /**
@@ -79,12 +80,13 @@ public class MaxSustainedDPS extends AbstractRangeMetric {
         checkRange(aRange);
         double ans = 0.0;
         final Map<Weapon, Double> dd = getWeaponRatios(aRange);
-        final Collection<Modifier> modifiers = loadout.getAllModifiers();
+        final ResolvedWeaponStats stats = loadout.getWeaponStats();
+        final Collection<Modifier> modifiers = stats.getModifiers();
         for (final Map.Entry<Weapon, Double> entry : dd.entrySet()) {
             final Weapon weapon = entry.getKey();
             final double ratio = entry.getValue();
             final double rangeEffectivity = weapon.getRangeEffectiveness(aRange, modifiers);
-            ans += rangeEffectivity * weapon.getStat("d/s", modifiers) * ratio;
+            ans += rangeEffectivity * stats.getDamagePerSecond(weapon) * ratio;
         }
         return ans;
     }
@@ -100,24 +102,25 @@ public class MaxSustainedDPS extends AbstractRangeMetric {
      *         weapon is used.
      */
     public Map<Weapon, Double> getWeaponRatios(final double aRange) {
-        final Collection<Modifier> modifiers = loadout.getAllModifiers();
+        final ResolvedWeaponStats stats = loadout.getWeaponStats();
+        final Collection<Modifier> modifiers = stats.getModifiers();
         double heatleft = dissipation.calculate();
         final Engine engine = loadout.getEngine();
         if (null != engine) {
             heatleft -= engine.getHeat(modifiers);
         }
 
-        final Comparator<Weapon> byDPH = (aO1, aO2) -> {
-            // Note: D/H == DPS / HPS so we're ordering by highest DPS per HPS.
-            final double rangeFactor1 = aRange >= 0.0 ? aO1.getRangeEffectiveness(aRange, modifiers) : 1.0;
-            final double rangeFactor2 = aRange >= 0.0 ? aO2.getRangeEffectiveness(aRange, modifiers) : 1.0;
-            // Note that getStat(d/h) may return +Infinity for some weapons (e.g. Machine Gun), if in that case
-            // rangeFactor is 0.0 then 0.0*Infinity will result in NaN which will ruin the sorting. Avoid this by
-            // shorting out getStat(d/h) if the range factor is 0.0.
-            final double dps1 = rangeFactor1 == 0 ? 0 : rangeFactor1 * aO1.getStat("d/h", modifiers);
-            final double dps2 = rangeFactor2 == 0 ? 0 : rangeFactor2 * aO2.getStat("d/h", modifiers);
-            return Double.compare(dps2, dps1);
-        };
+        // Note: D/H == DPS / HPS so we're ordering by highest DPS per HPS. The key is computed once per weapon type
+        // instead of twice per comparison.
+        final Map<Weapon, Double> rangedDph = new HashMap<>();
+        final Comparator<Weapon> byDPH = Comparator.comparing((Weapon aWeapon) -> rangedDph.computeIfAbsent(aWeapon,
+                aW -> {
+                    final double rangeFactor = aRange >= 0.0 ? aW.getRangeEffectiveness(aRange, modifiers) : 1.0;
+                    // Note that getStat(d/h) may return +Infinity for some weapons (e.g. Machine Gun), if in that
+                    // case rangeFactor is 0.0 then 0.0*Infinity will result in NaN which will ruin the sorting.
+                    // Avoid this by shorting out getStat(d/h) if the range factor is 0.0.
+                    return rangeFactor == 0 ? 0 : rangeFactor * stats.getDamagePerHeat(aW);
+                })).reversed();
 
         final Stream<Weapon> weapons;
         if (weaponGroup < 0) {
@@ -136,7 +139,7 @@ public class MaxSustainedDPS extends AbstractRangeMetric {
 
         final Map<Weapon, Double> ans = new HashMap<>();
         for (final Weapon weapon : filterdWeapons) {
-            final double heat = weapon.getStat("h/s", modifiers);
+            final double heat = stats.getHeatPerSecond(weapon);
             final double ratio;
 
             if (heatleft == 0) {
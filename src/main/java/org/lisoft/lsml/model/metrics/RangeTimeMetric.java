@@ -41,7 +41,7 @@ public abstract class RangeTimeMetric implements RangeMetric {
 
     /**
      * Will handle calculation of the metric with the current values for range and time. If range is set to below 0, the
-     * metric will be evaluated in all range points returned by {@link WeaponRanges#getRanges(Loadout)} and the maximum
+     * metric will be evaluated in all range points returned by {@link WeaponRanges#getRangeArray(Loadout)} and the maximum
      * value (with ties breaking to larger ranges) be returned.
      *
      * @see org.lisoft.lsml.model.metrics.Metric#calculate()
@@ -54,7 +54,7 @@ public abstract class RangeTimeMetric implements RangeMetric {
         }
 
         double max = Double.NEGATIVE_INFINITY;
-        for (final Double r : WeaponRanges.getRanges(loadout)) {
+        for (final double r : WeaponRanges.getRangeArray(loadout)) {
             final double value = calculate(r, time);
             if (value >= max) {
                 max = value;
@@ -20,9 +20,8 @@
 package org.lisoft.lsml.model.modifiers;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 
@@ -36,7 +35,10 @@ public class Attribute {
     private final String specifier;
     @XStreamAsAttribute
     private double baseValue;
-    private final Collection<String> selectors;
+    private final SymbolSet selectors;
+    // Interned symbols depend on the order things were interned in this JVM, so they are never written out.
+    private final transient int specifierSymbol;
+    private transient int signature = ModifierSet.UNKNOWN_SIGNATURE;
 
     /**
      * Creates a new attribute with a <code>null</code> specifier.
@@ -63,8 +65,22 @@ public class Attribute {
      */
     public Attribute(double aBaseValue, Collection<String> aSelectors, String aSpecifier) {
         specifier = ModifierDescription.canonizeIdentifier(aSpecifier);
+        specifierSymbol = SymbolTable.SPECIFIERS.intern(specifier);
         baseValue = aBaseValue;
-        selectors = aSelectors.stream().map(s -> ModifierDescription.canonizeIdentifier(s)).collect(Collectors.toSet());
+        selectors = SymbolSet.of(aSelectors);
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param aAttribute
+     *            The attribute to copy.
+     */
+    public Attribute(Attribute aAttribute) {
+        specifier = aAttribute.specifier;
+        specifierSymbol = aAttribute.specifierSymbol;
+        baseValue = aAttribute.baseValue;
+        selectors = aAttribute.selectors;
     }
 
     @Override
@@ -73,7 +89,7 @@ public class Attribute {
             return false;
         }
         final Attribute that = (Attribute) aObj;
-        return this.baseValue == that.baseValue && this.specifier.equals(that.specifier)
+        return this.baseValue == that.baseValue && Objects.equals(this.specifier, that.specifier)
                 && this.selectors.equals(that.selectors);
     }
 
@@ -88,7 +104,14 @@ public class Attribute {
      * @return The {@link List} of selectors for this attribute.
      */
     public Collection<String> getSelectors() {
-        return Collections.unmodifiableCollection(selectors);
+        return selectors;
+    }
+
+    /**
+     * @return The selectors of this attribute as a {@link SymbolSet}.
+     */
+    SymbolSet getSelectorSymbols() {
+        return selectors;
     }
 
     /**
@@ -99,12 +122,33 @@ public class Attribute {
         return specifier;
     }
 
+    /**
+     * @return An integer that identifies the specifier and selectors of this attribute, see
+     *         {@link ModifierSet#signatureOf(int, SymbolSet)}.
+     */
+    int getSignature() {
+        // Racy but benign, all threads compute the same value.
+        int ans = signature;
+        if (ans == ModifierSet.UNKNOWN_SIGNATURE) {
+            ans = ModifierSet.signatureOf(specifierSymbol, selectors);
+            signature = ans;
+        }
+        return ans;
+    }
+
+    /**
+     * @return The interned symbol of the specifier, {@link SymbolTable#NONE} if the specifier is <code>null</code>.
+     */
+    int getSpecifierSymbol() {
+        return specifierSymbol;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + Double.hashCode(baseValue);
-        result = prime * result + (selectors == null ? 0 : selectors.hashCode());
+        result = prime * result + selectors.hashCode();
         result = prime * result + (specifier == null ? 0 : specifier.hashCode());
         return result;
     }
@@ -124,13 +168,28 @@ public class Attribute {
         return Double.toString(baseValue);
     }
 
+    /**
+     * Re-creates the attribute after it has been read back so that the transient symbol and signature are computed for
+     * this JVM.
+     *
+     * @return A new {@link Attribute} equal to this one.
+     */
+    private Object readResolve() {
+        return new Attribute(baseValue, selectors, specifier);
+    }
+
     /**
      * @param aModifiers
      *            A {@link Collection} of {@link Modifier} that should be applied (if applicable) to this attribute.
+     *            Resolving is much faster if this is a {@link ModifierSet}.
      * @return The value of this {@link Attribute} after applying the the {@link Modifier}s that affect this attribute
      *         from the given list.
      */
     public double value(Collection<Modifier> aModifiers) {
+        if (aModifiers instanceof ModifierSet) {
+            return ((ModifierSet) aModifiers).value(this);
+        }
+
         double additive = 0.0;
         double multiplicative = 1.0;
         if (aModifiers != null) {
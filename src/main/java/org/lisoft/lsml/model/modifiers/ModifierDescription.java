@@ -20,7 +20,6 @@
 package org.lisoft.lsml.model.modifiers;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import org.lisoft.lsml.model.chassi.*;
 import org.lisoft.lsml.model.item.Weapon;
@@ -100,6 +99,8 @@ public class ModifierDescription {
     private final static Set<String> ALL_SELECTORS;
 
     private final static Set<String> ALL_SPECIFIERS;
+
+    private final static int SPEC_ALL_SYMBOL;
     static {
         ALL_SELECTORS = new HashSet<>();
         ALL_SELECTORS.addAll(SEL_ALL);
@@ -161,6 +162,18 @@ public class ModifierDescription {
                 ALL_SPECIFIERS.add(specifierFor(location, side));
             }
         }
+
+        // Intern the well known identifiers first so that they get the lowest symbols.
+        for (final String selector : SEL_ALL) {
+            SymbolTable.SELECTORS.intern(selector);
+        }
+        for (final String selector : new TreeSet<>(ALL_SELECTORS)) {
+            SymbolTable.SELECTORS.intern(selector);
+        }
+        SPEC_ALL_SYMBOL = SymbolTable.SPECIFIERS.intern(SPEC_ALL);
+        for (final String specifier : new TreeSet<>(ALL_SPECIFIERS)) {
+            SymbolTable.SPECIFIERS.intern(canonizeIdentifier(specifier));
+        }
     }
 
     public static String canonizeIdentifier(String aString) {
@@ -198,9 +211,12 @@ public class ModifierDescription {
     private final String mwoKey;
     @XStreamAsAttribute
     private final Operation operation;
-    private final Collection<String> selectors;
+    private final SymbolSet selectors;
+    private final boolean selectsAll;
     @XStreamAsAttribute
     private final String specifier; // Can be null
+    // Interned symbols depend on the order things were interned in this JVM, so they are never written out.
+    private final transient int specifierSymbol;
     @XStreamAsAttribute
     private final ModifierType type;
     @XStreamAsAttribute
@@ -229,8 +245,10 @@ public class ModifierDescription {
         uiName = aUiName;
         mwoKey = canonizeIdentifier(Objects.requireNonNull(aKeyName));
         operation = aOperation;
-        selectors = aSelectors.stream().map(s -> canonizeIdentifier(s)).collect(Collectors.toSet());
+        selectors = SymbolSet.of(aSelectors);
+        selectsAll = SEL_ALL.stream().anyMatch(selectors::contains);
         specifier = canonizeIdentifier(aSpecifier);
+        specifierSymbol = SymbolTable.SPECIFIERS.intern(specifier);
         type = aValueType;
     }
 
@@ -242,23 +260,11 @@ public class ModifierDescription {
      * @return <code>true</code> if the attribute is affected, false otherwise.
      */
     public boolean affects(Attribute aAttribute) {
-        if (specifier == null) {
-            if (aAttribute.getSpecifier() != null) {
-                return false;
-            }
+        // A null specifier is SymbolTable.NONE and only matches attributes without a specifier.
+        if (specifierSymbol != SPEC_ALL_SYMBOL && specifierSymbol != aAttribute.getSpecifierSymbol()) {
+            return false;
         }
-        else {
-            if (!specifier.equals(SPEC_ALL)
-                    && (aAttribute.getSpecifier() == null || !aAttribute.getSpecifier().equals(specifier))) {
-                return false;
-            }
-        }
-
-        if (!Collections.disjoint(SEL_ALL, selectors)) {
-            return true;
-        }
-
-        return !Collections.disjoint(selectors, aAttribute.getSelectors());
+        return selectsAll || selectors.intersects(aAttribute.getSelectorSymbols());
     }
 
     @Override
@@ -276,8 +282,7 @@ public class ModifierDescription {
             }
 
             return other.uiName.equals(uiName) && other.mwoKey.equals(mwoKey) && other.operation == operation
-                    && other.type == type && selectors.containsAll(other.selectors)
-                    && selectors.size() == other.selectors.size();
+                    && other.type == type && selectors.equals(other.selectors);
         }
         return false;
     }
@@ -307,7 +312,14 @@ public class ModifierDescription {
      * @return A {@link Collection} if {@link String}s with all the selectors of this modifier.
      */
     public Collection<String> getSelectors() {
-        return Collections.unmodifiableCollection(selectors);
+        return selectors;
+    }
+
+    /**
+     * @return The selectors of this modifier as a {@link SymbolSet}.
+     */
+    SymbolSet getSelectorSymbols() {
+        return selectors;
     }
 
     /**
@@ -317,6 +329,13 @@ public class ModifierDescription {
         return specifier;
     }
 
+    /**
+     * @return <code>true</code> if this description selects all attributes with a matching specifier.
+     */
+    boolean selectsAll() {
+        return selectsAll;
+    }
+
     /**
      * @return The human readable name of this {@link ModifierDescription}.
      */
@@ -337,4 +356,13 @@ public class ModifierDescription {
     public String toString() {
         return uiName;
     }
+
+    /**
+     * Re-creates the description after it has been read back so that the transient symbol is computed for this JVM.
+     *
+     * @return A new {@link ModifierDescription} equal to this one.
+     */
+    private Object readResolve() {
+        return new ModifierDescription(uiName, mwoKey, operation, selectors, specifier, type);
+    }
 }
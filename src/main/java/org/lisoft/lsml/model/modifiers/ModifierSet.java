@@ -0,0 +1,238 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.modifiers;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An immutable collection of {@link Modifier}s that is compiled for fast {@link Attribute} resolution.
+ * <p>
+ * Which modifiers affect an attribute only depends on the specifier and selectors of the attribute. Every such
+ * combination is interned to a small integer, the signature of the attribute. The first time an attribute with a given
+ * signature is resolved, the additive and multiplicative totals are computed from the modifiers that can match one of
+ * its selectors, in the same order as {@link Attribute#value(Collection)} would add them. After that resolving any
+ * attribute with that signature is a couple of array reads, and the result is identical to the plain loop. At most
+ * {@link #MAX_SIGNATURES} signatures are handed out, attributes after that are resolved every time.
+ * <p>
+ * As this is a {@link Collection}, it can be passed anywhere a <code>Collection&lt;Modifier&gt;</code> is expected and
+ * {@link Attribute#value(Collection)} will use the compiled totals.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Emily Björk
+ */
+public final class ModifierSet extends AbstractCollection<Modifier> {
+    /**
+     * Which modifiers can match which selectors.
+     */
+    private static class Index {
+        /** The indices of the modifiers that select "all". */
+        final BitSet selectsAll = new BitSet();
+        /** The indices of the modifiers by selector symbol, <code>null</code> where no modifier has the selector. */
+        final BitSet[] bySelector;
+
+        Index(List<Modifier> aModifiers) {
+            BitSet[] index = new BitSet[0];
+            for (int i = 0; i < aModifiers.size(); ++i) {
+                final ModifierDescription description = aModifiers.get(i).getDescription();
+                if (description.selectsAll()) {
+                    selectsAll.set(i);
+                }
+                final SymbolSet selectors = description.getSelectorSymbols();
+                for (int s = selectors.nextSymbol(0); s >= 0; s = selectors.nextSymbol(s + 1)) {
+                    if (s >= index.length) {
+                        index = Arrays.copyOf(index, s + 1);
+                    }
+                    if (null == index[s]) {
+                        index[s] = new BitSet();
+                    }
+                    index[s].set(i);
+                }
+            }
+            bySelector = index;
+        }
+    }
+
+    /**
+     * The resolved modifiers of one attribute signature.
+     */
+    private static class Totals {
+        final double additive;
+        final double multiplicative;
+
+        Totals(double aAdditive, double aMultiplicative) {
+            additive = aAdditive;
+            multiplicative = aMultiplicative;
+        }
+    }
+
+    /**
+     * The most signatures that are handed out. Attributes beyond that are resolved without caching.
+     */
+    static final int MAX_SIGNATURES = 4096;
+    /**
+     * The signature of an attribute that didn't get one, see {@link #MAX_SIGNATURES}.
+     */
+    static final int NO_SIGNATURE = -2;
+    /**
+     * The signature of an attribute that hasn't asked for one yet.
+     */
+    static final int UNKNOWN_SIGNATURE = -1;
+
+    private static final Map<List<Object>, Integer> SIGNATURES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_SIGNATURE = new AtomicInteger();
+
+    public static final ModifierSet EMPTY = new ModifierSet(Collections.emptyList());
+
+    /**
+     * Compiles the given modifiers. If the argument already is a {@link ModifierSet}, it is returned as is.
+     *
+     * @param aModifiers
+     *            The modifiers to compile, may be <code>null</code>.
+     * @return A {@link ModifierSet} with the given modifiers, in the same order.
+     */
+    public static ModifierSet of(Collection<Modifier> aModifiers) {
+        if (aModifiers instanceof ModifierSet) {
+            return (ModifierSet) aModifiers;
+        }
+        if (null == aModifiers || aModifiers.isEmpty()) {
+            return EMPTY;
+        }
+        return new ModifierSet(aModifiers);
+    }
+
+    /**
+     * Interns the signature of an attribute.
+     *
+     * @param aSpecifierSymbol
+     *            The specifier symbol of the attribute, may be {@link SymbolTable#NONE}.
+     * @param aSelectors
+     *            The selectors of the attribute.
+     * @return A small, non-negative, integer that is the same for all attributes with the same specifier and selectors
+     *         or {@link #NO_SIGNATURE} if {@link #MAX_SIGNATURES} have already been handed out.
+     */
+    static int signatureOf(int aSpecifierSymbol, SymbolSet aSelectors) {
+        // Returning null from the mapping function leaves the table as is once it is full.
+        final Integer signature = SIGNATURES.computeIfAbsent(Arrays.asList(aSpecifierSymbol, aSelectors), k -> {
+            final int next = NEXT_SIGNATURE.getAndUpdate(n -> Math.min(n + 1, MAX_SIGNATURES));
+            return next < MAX_SIGNATURES ? next : null;
+        });
+        return null == signature ? NO_SIGNATURE : signature;
+    }
+
+    private final List<Modifier> modifiers;
+    /** Built on the first resolve, most sets are only iterated. */
+    private volatile Index index;
+    private volatile Totals[] resolved;
+
+    private ModifierSet(Collection<Modifier> aModifiers) {
+        modifiers = Collections.unmodifiableList(new ArrayList<>(aModifiers));
+        resolved = new Totals[Math.max(16, NEXT_SIGNATURE.get())];
+    }
+
+    @Override
+    public Iterator<Modifier> iterator() {
+        return modifiers.iterator();
+    }
+
+    @Override
+    public int size() {
+        return modifiers.size();
+    }
+
+    /**
+     * Computes the value of an attribute with the modifiers in this set applied. Gives exactly the same result as
+     * {@link Attribute#value(Collection)} with the same modifiers.
+     *
+     * @param aAttribute
+     *            The {@link Attribute} to resolve.
+     * @return The modified value of the attribute.
+     */
+    public double value(Attribute aAttribute) {
+        final int signature = aAttribute.getSignature();
+        if (signature == NO_SIGNATURE) {
+            final Totals totals = resolve(aAttribute);
+            return (aAttribute.getBaseValue() + totals.additive) * totals.multiplicative;
+        }
+        Totals[] current = resolved;
+        Totals totals = signature < current.length ? current[signature] : null;
+        if (null == totals) {
+            totals = resolve(aAttribute);
+            synchronized (this) {
+                current = resolved;
+                if (signature >= current.length) {
+                    final Totals[] grown = new Totals[Math.max(signature + 1, current.length * 2)];
+                    System.arraycopy(current, 0, grown, 0, current.length);
+                    current = grown;
+                }
+                current[signature] = totals;
+                resolved = current;
+            }
+        }
+        return (aAttribute.getBaseValue() + totals.additive) * totals.multiplicative;
+    }
+
+    private Totals resolve(Attribute aAttribute) {
+        Index current = index;
+        if (null == current) {
+            // Racy but benign, all threads build equal indices.
+            current = new Index(modifiers);
+            index = current;
+        }
+        final BitSet[] bySelector = current.bySelector;
+        final BitSet candidates = (BitSet) current.selectsAll.clone();
+        final SymbolSet selectors = aAttribute.getSelectorSymbols();
+        for (int s = selectors.nextSymbol(0); s >= 0 && s < bySelector.length; s = selectors.nextSymbol(s + 1)) {
+            if (null != bySelector[s]) {
+                candidates.or(bySelector[s]);
+            }
+        }
+
+        double additive = 0.0;
+        double multiplicative = 1.0;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            final Modifier modifier = modifiers.get(i);
+            if (modifier.getDescription().affects(aAttribute)) {
+                final Operation op = modifier.getDescription().getOperation();
+                switch (op) {
+                    case ADD:
+                        additive += modifier.getValue();
+                        break;
+                    case MUL:
+                        multiplicative += modifier.getValue();
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unhandled operation: " + op);
+                }
+            }
+        }
+        return new Totals(additive, multiplicative);
+    }
+}
@@ -30,6 +30,7 @@ import java.util.List;
  * @author Emily Björk
  */
 public class PilotSkills {
+    private int modifications = 0;
 
     /**
      * Assigns this to be equal to that.
@@ -39,6 +40,14 @@ public class PilotSkills {
      */
     public void assign(PilotSkills aEfficiencies) {
         // TODO: Implement this.
+        modifications++;
+    }
+
+    /**
+     * @return A counter that changes every time the skills may have changed.
+     */
+    public int getModificationCount() {
+        return modifications;
     }
 
     /**
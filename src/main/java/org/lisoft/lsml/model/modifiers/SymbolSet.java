@@ -0,0 +1,186 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.modifiers;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable set of selectors stored as a bit set over the symbols of {@link SymbolTable#SELECTORS}.
+ * <p>
+ * Instances are canonical, all attributes and modifier descriptions with the same selectors share one instance. This
+ * keeps the thousands of attributes in the database from each having their own small hash set of strings.
+ *
+ * @author Emily Björk
+ */
+final class SymbolSet extends AbstractSet<String> {
+    private static final Map<SymbolSet, SymbolSet> CANONICAL = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a set of the given selectors, interning them as needed.
+     *
+     * @param aSelectors
+     *            The selectors, they will be canonised with {@link ModifierDescription#canonizeIdentifier(String)}.
+     * @return A canonical {@link SymbolSet} with the given selectors.
+     */
+    static SymbolSet of(Collection<String> aSelectors) {
+        long[] bits = new long[1];
+        for (final String selector : aSelectors) {
+            final int symbol = SymbolTable.SELECTORS.intern(ModifierDescription.canonizeIdentifier(selector));
+            if (symbol == SymbolTable.NONE) {
+                continue;
+            }
+            final int word = symbol >>> 6;
+            if (word >= bits.length) {
+                bits = Arrays.copyOf(bits, word + 1);
+            }
+            bits[word] |= 1L << symbol;
+        }
+        final SymbolSet set = new SymbolSet(bits);
+        final SymbolSet existing = CANONICAL.putIfAbsent(set, set);
+        return null == existing ? set : existing;
+    }
+
+    private final long[] bits;
+    private final int size;
+    private final int hash;
+
+    private SymbolSet(long[] aBits) {
+        bits = aBits;
+        int count = 0;
+        for (final long word : bits) {
+            count += Long.bitCount(word);
+        }
+        size = count;
+        int h = 0;
+        for (final String name : this) {
+            h += name.hashCode();
+        }
+        hash = h;
+    }
+
+    @Override
+    public boolean contains(Object aObject) {
+        return test(SymbolTable.SELECTORS.lookup(aObject));
+    }
+
+    @Override
+    public boolean equals(Object aObject) {
+        if (this == aObject) {
+            return true;
+        }
+        if (aObject instanceof SymbolSet) {
+            return Arrays.equals(bits, ((SymbolSet) aObject).bits);
+        }
+        return super.equals(aObject);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Checks if this set shares at least one selector with another set. Does not allocate.
+     *
+     * @param aOther
+     *            The other set.
+     * @return <code>true</code> if the sets intersect.
+     */
+    boolean intersects(SymbolSet aOther) {
+        final long[] other = aOther.bits;
+        final int words = Math.min(bits.length, other.length);
+        for (int i = 0; i < words; ++i) {
+            if ((bits[i] & other[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = nextSymbol(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                final String ans = SymbolTable.SELECTORS.name(next);
+                next = nextSymbol(next + 1);
+                return ans;
+            }
+        };
+    }
+
+    /**
+     * Finds the next selector symbol in this set.
+     *
+     * @param aFrom
+     *            The symbol to start searching from, inclusive.
+     * @return The first symbol in this set that is equal to or larger than the argument, or -1 if there is none.
+     */
+    int nextSymbol(int aFrom) {
+        int word = aFrom >>> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long remaining = bits[word] & (-1L << aFrom);
+        while (true) {
+            if (remaining != 0) {
+                return word * 64 + Long.numberOfTrailingZeros(remaining);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            remaining = bits[word];
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param aSymbol
+     *            A selector symbol, may be {@link SymbolTable#NONE}.
+     * @return <code>true</code> if the selector is in this set.
+     */
+    boolean test(int aSymbol) {
+        if (aSymbol < 0) {
+            return false;
+        }
+        final int word = aSymbol >>> 6;
+        return word < bits.length && (bits[word] & (1L << aSymbol)) != 0;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.modifiers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns canonical selector or specifier names to small, dense, non-negative integers so that they can be compared
+ * with <code>==</code> and stored as bits in a {@link SymbolSet}.
+ * <p>
+ * Symbols are never removed, the tables only grow with the identifiers that occur in the game data. The first symbols
+ * are the well known identifiers from {@link ModifierDescription}, which keeps the bit sets of most attributes down to
+ * a single <code>long</code>.
+ * <p>
+ * This class is thread safe, the game files are parsed concurrently.
+ *
+ * @author Emily Björk
+ */
+final class SymbolTable {
+    /** The symbol used for a <code>null</code> identifier. */
+    static final int NONE = -1;
+
+    static final SymbolTable SELECTORS = new SymbolTable();
+    static final SymbolTable SPECIFIERS = new SymbolTable();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private int size = 0;
+
+    private SymbolTable() {
+        // Only the static instances.
+    }
+
+    /**
+     * Interns the given identifier, creating a new symbol if it hasn't been seen before.
+     *
+     * @param aCanonicalName
+     *            A canonical identifier, see {@link ModifierDescription#canonizeIdentifier(String)}. May be
+     *            <code>null</code>.
+     * @return The symbol of the identifier or {@link #NONE} if the argument was <code>null</code>.
+     */
+    int intern(String aCanonicalName) {
+        if (null == aCanonicalName) {
+            return NONE;
+        }
+        final Integer id = ids.get(aCanonicalName);
+        if (null != id) {
+            return id;
+        }
+        synchronized (this) {
+            final Integer existing = ids.get(aCanonicalName);
+            if (null != existing) {
+                return existing;
+            }
+            String[] current = names;
+            if (size == current.length) {
+                final String[] grown = new String[current.length * 2];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                current = grown;
+            }
+            current[size] = aCanonicalName;
+            names = current;
+            ids.put(aCanonicalName, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Finds the symbol of an identifier without interning it.
+     *
+     * @param aCanonicalName
+     *            A canonical identifier.
+     * @return The symbol of the identifier or {@link #NONE} if it has never been interned.
+     */
+    int lookup(Object aCanonicalName) {
+        final Integer id = null == aCanonicalName ? null : ids.get(aCanonicalName);
+        return null == id ? NONE : id;
+    }
+
+    /**
+     * @param aSymbol
+     *            A symbol returned from {@link #intern(String)}.
+     * @return The canonical identifier of the symbol.
+     */
+    String name(int aSymbol) {
+        return names[aSymbol];
+    }
+}
@@ -29,6 +29,8 @@ public class Upgrades {
     protected StructureUpgrade structureType;
     protected GuidanceUpgrade guidanceType;
     protected HeatSinkUpgrade heatSinkType;
+    /** Incremented on every change of upgrade, see {@link #getModificationCount()}. */
+    protected int modifications = 0;
 
     public Upgrades(ArmourUpgrade aArmour, StructureUpgrade aStructure, GuidanceUpgrade aGuidance,
             HeatSinkUpgrade aHeatSinks) {
@@ -53,6 +55,7 @@ public class Upgrades {
         structureType = aUpgrades.structureType;
         guidanceType = aUpgrades.guidanceType;
         heatSinkType = aUpgrades.heatSinkType;
+        modifications++;
     }
 
     @Override
@@ -73,6 +76,14 @@ public class Upgrades {
         return guidanceType;
     }
 
+    /**
+     * @return A counter that changes every time any of the upgrades may have changed. Not part of the value of this
+     *         object.
+     */
+    public int getModificationCount() {
+        return modifications;
+    }
+
     public HeatSinkUpgrade getHeatSink() {
         return heatSinkType;
     }
@@ -118,6 +129,7 @@ public class Upgrades {
      */
     public void setGuidance(GuidanceUpgrade aGuidanceUpgrade) {
         guidanceType = aGuidanceUpgrade;
+        modifications++;
     }
 
 }
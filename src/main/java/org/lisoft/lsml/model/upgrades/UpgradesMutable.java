@@ -63,6 +63,7 @@ public class UpgradesMutable extends Upgrades {
      */
     public void setArmour(ArmourUpgrade aArmourUpgrade) {
         armourType = aArmourUpgrade;
+        modifications++;
     }
 
     /**
@@ -75,6 +76,7 @@ public class UpgradesMutable extends Upgrades {
      */
     public void setHeatSink(HeatSinkUpgrade aHeatsinkUpgrade) {
         heatSinkType = aHeatsinkUpgrade;
+        modifications++;
     }
 
     /**
@@ -87,5 +89,6 @@ public class UpgradesMutable extends Upgrades {
      */
     public void setStructure(StructureUpgrade aStructureUpgrade) {
         structureType = aStructureUpgrade;
+        modifications++;
     }
 }
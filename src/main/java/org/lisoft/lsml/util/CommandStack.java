@@ -30,6 +30,8 @@ import javafx.beans.binding.ObjectBinding;
 /**
  * This class models an command stack that can be used for undo etc (see: Command Pattern). It will automatically reset
  * the stack if a new garage is loaded.
+ * <p>
+ * The history is kept in a ring buffer that is bounded by the undo depth.
  *
  * @author Emily Björk
  */
@@ -86,7 +88,7 @@ public class CommandStack {
      */
     public abstract static class CompositeCommand implements Command {
         protected final MessageBuffer messageBuffer = new MessageBuffer();
-        private final List<Command> commands = new ArrayList<>();
+        private final ArrayList<Command> commands = new ArrayList<>();
         private final String desciption;
         private transient boolean isPrepared = false;
         private final MessageDelivery messageTarget;
@@ -104,6 +106,7 @@ public class CommandStack {
         public void apply() throws Exception {
             if (!isPrepared) {
                 buildCommand();
+                commands.trimToSize();
                 isPrepared = true;
             }
 
@@ -174,8 +177,15 @@ public class CommandStack {
         }
     }
 
-    private final List<Command> cmdHistory = new ArrayList<>();
-    private int currentCmd = -1;
+    /**
+     * The history as a ring buffer, the oldest command is at <code>first</code>. Grows as needed up to
+     * <code>maxHistory</code> entries.
+     */
+    private Command[] history = new Command[0];
+    private int first = 0;
+    private int size = 0;
+    /** The number of commands in the history that can be undone, the rest can be redone. */
+    private int undoable = 0;
     private final int maxHistory;
 
     private final ObjectBinding<Command> nextRedoProp = new ObjectBinding<Command>() {
@@ -204,12 +214,23 @@ public class CommandStack {
         maxHistory = aUndoDepth;
     }
 
+    /**
+     * Forgets all commands that can be undone or redone. Used when the objects that the commands refer to have been
+     * replaced.
+     */
+    public void clear() {
+        Arrays.fill(history, null);
+        first = 0;
+        size = 0;
+        undoable = 0;
+        updateBindings();
+    }
+
     public Command nextRedo() {
-        if (currentCmd + 1 >= cmdHistory.size()) {
+        if (undoable >= size) {
             return null;
         }
-
-        return cmdHistory.get(currentCmd + 1);
+        return get(undoable);
     }
 
     public ObjectBinding<Command> nextRedoProperty() {
@@ -217,10 +238,10 @@ public class CommandStack {
     }
 
     public Command nextUndo() {
-        if (currentCmd < 0) {
+        if (undoable <= 0) {
             return null;
         }
-        return cmdHistory.get(currentCmd);
+        return get(undoable - 1);
     }
 
     public ObjectBinding<Command> nextUndoProperty() {
@@ -229,7 +250,7 @@ public class CommandStack {
 
     public void pushAndApply(Command aCmd) throws Exception {
         // Perform automatic coalescing
-        final int cmdBeforeCoalesce = currentCmd;
+        final int cmdBeforeCoalesce = undoable;
         while (nextUndo() != null && nextUndo().canCoalesce(aCmd)) {
             undo();
         }
@@ -239,22 +260,16 @@ public class CommandStack {
         }
         catch (final Exception throwable) {
             // Undo the coalescing if the new operation threw.
-            while (currentCmd != cmdBeforeCoalesce && nextRedo() != null) {
+            while (undoable != cmdBeforeCoalesce && nextRedo() != null) {
                 redo();
             }
             throw throwable;
         }
-        while (currentCmd < cmdHistory.size() - 1) {
+        while (size > undoable) {
             // Previously undone actions in the list
-            cmdHistory.remove(cmdHistory.size() - 1);
-        }
-        cmdHistory.add(aCmd);
-        currentCmd = cmdHistory.size() - 1;
-
-        while (cmdHistory.size() > maxHistory) {
-            cmdHistory.remove(0);
-            currentCmd--;
+            removeLast();
         }
+        append(aCmd);
         // FIXME: Unit test the bindings functionality.
         updateBindings(); // FIXME: does this need to be in a try-catch on
         // apply?
@@ -272,7 +287,7 @@ public class CommandStack {
                 // succeed again.
                 throw new RuntimeException("Previously succeeded command failed when redone", e);
             }
-            currentCmd++;
+            undoable++;
         }
         updateBindings(); // FIXME: does this need to be in a try-catch on
         // apply?
@@ -282,11 +297,51 @@ public class CommandStack {
         final Command cmd = nextUndo();
         if (null != cmd) {
             cmd.undo();
-            currentCmd--;
+            undoable--;
         }
         updateBindings(); // FIXME: does this need to be in a try-catch on undo?
     }
 
+    private void append(Command aCmd) {
+        if (maxHistory <= 0) {
+            return;
+        }
+        if (size == maxHistory) {
+            removeFirst();
+        }
+        if (size == history.length) {
+            final int capacity = Math.min(maxHistory, Math.max(16, history.length * 2));
+            final Command[] grownHistory = new Command[capacity];
+            for (int i = 0; i < size; ++i) {
+                final int index = (first + i) % history.length;
+                grownHistory[i] = history[index];
+            }
+            history = grownHistory;
+            first = 0;
+        }
+        final int index = (first + size) % history.length;
+        history[index] = aCmd;
+        size++;
+        undoable++;
+    }
+
+    private Command get(int aIndex) {
+        return history[(first + aIndex) % history.length];
+    }
+
+    private void removeFirst() {
+        history[first] = null;
+        first = (first + 1) % history.length;
+        size--;
+        undoable--;
+    }
+
+    private void removeLast() {
+        final int last = (first + size - 1) % history.length;
+        history[last] = null;
+        size--;
+    }
+
     private void updateBindings() {
         nextRedoProp.invalidate();
         nextUndoProp.invalidate();
@@ -20,10 +20,11 @@
 package org.lisoft.lsml.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
 
 import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.Loadout;
@@ -37,22 +38,62 @@ import org.lisoft.lsml.model.modifiers.Modifier;
  */
 public class WeaponRanges {
 
-    static public List<Double> getRanges(Collection<Weapon> aWeaponCollection, Collection<Modifier> aModifiers) {
-        final SortedSet<Double> ans = new TreeSet<>();
-
-        ans.add(Double.valueOf(0.0));
+    /**
+     * Calculates the ordered, distinct ranges at which the given weapons change damage.
+     *
+     * @param aWeaponCollection
+     *            The weapons to calculate for, non-offensive weapons are ignored.
+     * @param aModifiers
+     *            The modifiers that affect the ranges.
+     * @return A sorted array of distinct ranges, always containing 0.0.
+     */
+    static public double[] getRangeArray(Collection<Weapon> aWeaponCollection, Collection<Modifier> aModifiers) {
+        final List<double[]> weaponRanges = new ArrayList<>();
+        int total = 1;
         for (final Weapon weapon : aWeaponCollection) {
             if (!weapon.isOffensive()) {
                 continue;
             }
-            ans.addAll(weapon.getRangeProfile().getPolygonTrainRanges(10, aModifiers));
+            final double[] ranges = weapon.getRangeProfile().getPolygonTrainRangeArray(10, aModifiers);
+            weaponRanges.add(ranges);
+            total += ranges.length;
+        }
+
+        final double[] ans = new double[total];
+        int size = 1; // ans[0] = 0.0
+        for (final double[] ranges : weaponRanges) {
+            System.arraycopy(ranges, 0, ans, size, ranges.length);
+            size += ranges.length;
+        }
+        Arrays.sort(ans);
+
+        // Remove duplicates, with the same notion of equality as a sorted set of Double
+        int distinct = 0;
+        for (int i = 0; i < ans.length; ++i) {
+            if (distinct == 0 || Double.compare(ans[distinct - 1], ans[i]) != 0) {
+                ans[distinct++] = ans[i];
+            }
         }
-        return new ArrayList<>(ans);
+        return Arrays.copyOf(ans, distinct);
     }
 
-    static public List<Double> getRanges(Loadout aLoadout) {
+    /**
+     * @param aLoadout
+     *            The loadout to calculate for.
+     * @return A sorted array of distinct ranges at which the weapons on the loadout change damage.
+     * @see #getRangeArray(Collection, Collection)
+     */
+    static public double[] getRangeArray(Loadout aLoadout) {
         final List<Weapon> weapons = new ArrayList<>();
         aLoadout.items(Weapon.class).forEach(weapons::add);
-        return getRanges(weapons, aLoadout.getAllModifiers());
+        return getRangeArray(weapons, aLoadout.getAllModifiers());
+    }
+
+    static public List<Double> getRanges(Collection<Weapon> aWeaponCollection, Collection<Modifier> aModifiers) {
+        return DoubleStream.of(getRangeArray(aWeaponCollection, aModifiers)).boxed().collect(Collectors.toList());
+    }
+
+    static public List<Double> getRanges(Loadout aLoadout) {
+        return DoubleStream.of(getRangeArray(aLoadout)).boxed().collect(Collectors.toList());
     }
 }
@@ -28,6 +28,7 @@ import org.lisoft.lsml.application.*;
 import org.lisoft.lsml.messages.MessageXBar;
 import org.lisoft.lsml.model.export.*;
 import org.lisoft.lsml.model.loadout.LoadoutFactory;
+import org.lisoft.lsml.util.CommandStack;
 import org.lisoft.lsml.view_fx.controllers.*;
 
 import dagger.Component;
@@ -40,6 +41,8 @@ import dagger.Component;
 @Singleton
 @Component(dependencies = DataComponent.class, modules = { BaseModule.class, FXMainModule.class })
 public interface FXApplicationComponent {
+    CommandStack commandStack();
+
     GlobalGarage garage();
 
     Optional<LsmlProtocolIPC> ipc();
@@ -34,5 +34,5 @@ import dagger.Component;
 @Singleton
 @Component(modules = { BaseModule.class, FXDataModule.class })
 public interface FXDataComponent extends DataComponent {
-    // Only inherited
+    FXDatabaseProvider fxDatabaseProvider();
 }
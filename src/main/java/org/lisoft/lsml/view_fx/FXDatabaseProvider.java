@@ -19,6 +19,7 @@
 //@formatter:on
 package org.lisoft.lsml.view_fx;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -29,6 +30,7 @@ import java.nio.file.Path;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -37,6 +39,7 @@ import javax.inject.Singleton;
 import org.lisoft.lsml.application.ErrorReporter;
 import org.lisoft.lsml.model.database.AbstractDatabaseProvider;
 import org.lisoft.lsml.model.database.Database;
+import org.lisoft.lsml.model.database.DatabaseSnapshot;
 import org.lisoft.lsml.model.database.gamedata.GameVFS;
 import org.lisoft.lsml.model.database.gamedata.MwoDataReader;
 import org.lisoft.lsml.view_fx.controllers.SplashScreenController;
@@ -83,7 +86,8 @@ public class FXDatabaseProvider extends AbstractDatabaseProvider {
     private final String currentVersion;
 
     private final MwoDataReader dataReader;
-    private Optional<Database> activeDatabase = null;
+    private volatile Optional<Database> activeDatabase = null;
+    private Consumer<Database> onDatabaseUpdate = this::swapDatabase;
 
     @Inject
     public FXDatabaseProvider(Settings aSettings, SplashScreenController aSplashScreen, ErrorReporter aErrorReporter,
@@ -104,6 +108,35 @@ public class FXDatabaseProvider extends AbstractDatabaseProvider {
         return activeDatabase;
     }
 
+    /**
+     * Sets what to do when a background update has parsed a newer database from the game files. The handler is called
+     * on the JavaFX application thread and must call {@link #swapDatabase(Database)} with the new database, after it
+     * has recorded everything that refers to the current database by MWO ID. If no handler is set, the new database is
+     * swapped in directly.
+     *
+     * @param aHandler
+     *            The handler to call with the new {@link Database}.
+     */
+    public void setOnDatabaseUpdate(Consumer<Database> aHandler) {
+        onDatabaseUpdate = aHandler;
+    }
+
+    /**
+     * Replaces the database in use with the given one. The static *DB classes are pointed at the new database and
+     * everything that is resolved from now on uses it, but loadouts that already exist keep referring to the items of
+     * the previous database and must be resolved again.
+     * <p>
+     * Must be called on the JavaFX application thread.
+     *
+     * @param aDatabase
+     *            The new {@link Database} to use.
+     */
+    public void swapDatabase(Database aDatabase) {
+        // Set first, the *DB classes initialise from here if they haven't been used yet.
+        activeDatabase = Optional.of(aDatabase);
+        useInFacades(aDatabase);
+    }
+
     private boolean askUserForGameInstall() {
         boolean retry = true;
         final Property<String> gameDirectory = settings.getString(Settings.CORE_GAME_DIRECTORY);
@@ -205,11 +238,27 @@ public class FXDatabaseProvider extends AbstractDatabaseProvider {
     }
 
     private Optional<Database> getPreviouslyParsed() {
-        final String databaseFile = settings.getString(Settings.CORE_DATABASE).getValue();
+        final File databaseFile = new File(settings.getString(Settings.CORE_DATABASE).getValue());
+        final File snapshotFile = getSnapshotLocation(databaseFile);
+
+        // The snapshot is only trusted if it was written together with (or after) the XML database, otherwise the
+        // user has replaced the XML database by hand.
+        if (snapshotFile.isFile() && snapshotFile.lastModified() >= databaseFile.lastModified()) {
+            try {
+                final DatabaseSnapshot snapshot = DatabaseSnapshot.open(snapshotFile.toPath());
+                if (!snapshot.getVersion().equals(currentVersion)) {
+                    return Optional.empty();
+                }
+                return Optional.of(snapshot.getDatabase());
+            }
+            catch (final Throwable e) {
+                // Corrupt or from an incompatible format version, fall back on the XML database.
+            }
+        }
 
         Database database;
         try {
-            database = (Database) Database.makeDatabaseXStream().fromXML(new File(databaseFile));
+            database = (Database) Database.makeDatabaseXStream().fromXML(databaseFile);
         }
         catch (final Throwable e) {
             // If the parsing fails, either the database is corrupted or the internal format has changed between
@@ -221,9 +270,30 @@ public class FXDatabaseProvider extends AbstractDatabaseProvider {
         if (!database.getVersion().equals(currentVersion)) {
             return Optional.empty();
         }
+
+        try {
+            writeSnapshot(database, snapshotFile);
+        }
+        catch (final IOException e) {
+            // Not fatal, we'll just have to parse the XML again next time.
+        }
         return Optional.of(database);
     }
 
+    /**
+     * @param aDatabaseFile
+     *            The location of the XML database.
+     * @return The location of the binary snapshot that accompanies the given XML database.
+     */
+    private File getSnapshotLocation(File aDatabaseFile) {
+        String name = aDatabaseFile.getName();
+        final int extension = name.lastIndexOf('.');
+        if (extension > 0) {
+            name = name.substring(0, extension);
+        }
+        return new File(aDatabaseFile.getParentFile(), name + DatabaseSnapshot.FILE_EXTENSION);
+    }
+
     private Optional<Database> loadDatabase() {
         // This method is executed in a background task so that the splash can display while we're doing work.
         // Unfortunately we also need to display dialogs to the FX application thread so there will be some back and
@@ -251,16 +321,20 @@ public class FXDatabaseProvider extends AbstractDatabaseProvider {
             return getBundled();
         }
 
-        Optional<Database> dataBase = getPreviouslyParsed();
+        final File gameDir = new File(gameDirectory.getValue());
+        final Optional<Database> previous = getPreviouslyParsed();
 
-        if (!dataBase.isPresent() || dataReader.shouldUpdate(dataBase.get(), new File(gameDirectory.getValue()))) {
-            dataBase = updateDatabase(dataBase);
+        // Open on the previously parsed database, or on the bundled one if the game files haven't been parsed yet,
+        // and check the game files while the user works. A newer database is swapped in when it is ready.
+        final Optional<Database> current = previous.isPresent() ? previous : getBundled();
+        if (current.isPresent()) {
+            setSubText("Checking game files in the background");
+            updateDatabaseInBackground(current.get(), previous, gameDir);
+            return current;
         }
 
-        if (dataBase.isPresent()) {
-            return dataBase;
-        }
-        return getBundled();
+        // The bundled database doesn't match this version, there is nothing to open on until the parse is done.
+        return updateDatabase(Optional.empty(), gameDir);
     }
 
     private void setSubText(String aText) {
@@ -275,12 +349,12 @@ public class FXDatabaseProvider extends AbstractDatabaseProvider {
         return answer.isPresent() && answer.get() == ButtonType.OK;
     }
 
-    private Optional<Database> updateDatabase(Optional<Database> aDatabase) {
+    private Optional<Database> updateDatabase(Optional<Database> aDatabase, File aGameDirectory) {
         final PrintWriter log = new PrintWriter(System.out);
         try {
-            final Property<String> gameDirectory = settings.getString(Settings.CORE_GAME_DIRECTORY);
-            final Optional<Database> parsedDatabase = dataReader.parseGameFiles(log,
-                    new File(gameDirectory.getValue()));
+            // Only what has changed since the previous database is parsed again, if possible.
+            final Optional<Database> parsedDatabase = dataReader.parseGameFiles(log, aGameDirectory,
+                    aDatabase.orElse(null));
             if (parsedDatabase.isPresent()) {
                 writeDatabase(parsedDatabase.get());
                 return parsedDatabase;
@@ -294,6 +368,33 @@ public class FXDatabaseProvider extends AbstractDatabaseProvider {
         return aDatabase;
     }
 
+    /**
+     * Checks the game files and parses them if they have changed, on a background thread. The new database is written
+     * to disk and then handed to the handler set with {@link #setOnDatabaseUpdate(Consumer)} on the JavaFX application
+     * thread, which swaps it in.
+     *
+     * @param aCurrent
+     *            The {@link Database} that is in use.
+     * @param aPrevious
+     *            The previously parsed {@link Database}, if any. If there is none, the game files are always parsed.
+     * @param aGameDirectory
+     *            The game install to parse.
+     */
+    private void updateDatabaseInBackground(Database aCurrent, Optional<Database> aPrevious, File aGameDirectory) {
+        final Thread thread = new Thread(() -> {
+            if (aPrevious.isPresent() && !dataReader.shouldUpdate(aPrevious.get(), aGameDirectory)) {
+                return;
+            }
+            final Optional<Database> updated = updateDatabase(aPrevious, aGameDirectory);
+            if (updated.isPresent() && updated.get() != aCurrent) {
+                Platform.runLater(() -> onDatabaseUpdate.accept(updated.get()));
+            }
+        });
+        thread.setName("Game Data Update Thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     private void writeDatabase(Database aDatabase) throws IOException {
         final File databaseFile = getDatabaseLocationWrite();
         final XStream stream = Database.makeDatabaseXStream();
@@ -306,6 +407,18 @@ public class FXDatabaseProvider extends AbstractDatabaseProvider {
             // Write to file
             ow.append(sw.toString());
         }
-        settings.getString(Settings.CORE_DATABASE).setValue(databaseFile.getPath());
+        // Settings are JavaFX properties that the settings page is bound to, only change them on the application
+        // thread.
+        Platform.runLater(() -> settings.getString(Settings.CORE_DATABASE).setValue(databaseFile.getPath()));
+        writeSnapshot(aDatabase, getSnapshotLocation(databaseFile));
+    }
+
+    private void writeSnapshot(Database aDatabase, File aSnapshotFile) throws IOException {
+        // Same as above, don't touch the old file unless the snapshot could be created.
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DatabaseSnapshot.write(aDatabase, baos);
+        try (FileOutputStream fos = new FileOutputStream(aSnapshotFile)) {
+            baos.writeTo(fos);
+        }
     }
 }
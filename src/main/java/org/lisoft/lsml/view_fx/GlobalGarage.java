@@ -21,12 +21,16 @@ package org.lisoft.lsml.view_fx;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -300,6 +304,48 @@ public class GlobalGarage {
         }
     }
 
+    /**
+     * Resolves all loadouts in the garage again by their MWO IDs, used when the database is replaced at run time. The
+     * garage is written to memory, <code>aSwapDatabase</code> is run and then the garage is read back which looks up
+     * everything in the new database.
+     *
+     * @param aSwapDatabase
+     *            Replaces the database that is in use.
+     * @return A map from each loadout in the previous garage to the same loadout in the new garage.
+     * @throws IOException
+     *             if the garage couldn't be read back, the previous garage is kept in that case.
+     */
+    public Map<Loadout, Loadout> reResolve(Runnable aSwapDatabase) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        garageSerialiser.save(baos, garage);
+
+        aSwapDatabase.run();
+
+        final Garage resolved;
+        try {
+            resolved = garageSerialiser.load(new ByteArrayInputStream(baos.toByteArray()));
+        }
+        catch (final Exception e) {
+            throw new IOException("Unable to read back the garage", e);
+        }
+        if (null == resolved) {
+            throw new IOException("XStream returned null!");
+        }
+
+        final Map<Loadout, Loadout> ans = new IdentityHashMap<>();
+        mapLoadouts(garage.getLoadoutRoot(), resolved.getLoadoutRoot(), ans);
+        if (null != defaultSaveTo) {
+            try {
+                defaultSaveTo = GaragePath.fromPath(defaultSaveTo.toPath(), resolved.getLoadoutRoot());
+            }
+            catch (final IOException e) {
+                defaultSaveTo = null;
+            }
+        }
+        garage = resolved;
+        return ans;
+    }
+
     public void saveGarage() throws IOException {
         if (null != garageFile) {
             writeGarage(garageFile);
@@ -411,6 +457,20 @@ public class GlobalGarage {
         return fileChooser;
     }
 
+    private void mapLoadouts(GarageDirectory<Loadout> aOld, GarageDirectory<Loadout> aNew, Map<Loadout, Loadout> aMap) {
+        // The serialiser keeps the order of the directories and their values.
+        final List<Loadout> oldValues = aOld.getValues();
+        final List<Loadout> newValues = aNew.getValues();
+        for (int i = 0; i < Math.min(oldValues.size(), newValues.size()); ++i) {
+            aMap.put(oldValues.get(i), newValues.get(i));
+        }
+        final List<GarageDirectory<Loadout>> oldDirs = aOld.getDirectories();
+        final List<GarageDirectory<Loadout>> newDirs = aNew.getDirectories();
+        for (int i = 0; i < Math.min(oldDirs.size(), newDirs.size()); ++i) {
+            mapLoadouts(oldDirs.get(i), newDirs.get(i), aMap);
+        }
+    }
+
     private void writeGarage(File file) throws IOException, FileNotFoundException {
         try (FileOutputStream fos = new FileOutputStream(file);
                 BufferedOutputStream bos = new BufferedOutputStream(fos)) {
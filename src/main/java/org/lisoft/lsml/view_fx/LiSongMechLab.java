@@ -22,7 +22,11 @@ package org.lisoft.lsml.view_fx;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.lisoft.lsml.application.DataComponent;
@@ -40,6 +44,7 @@ import org.lisoft.lsml.model.database.EnvironmentDB;
 import org.lisoft.lsml.model.database.ItemDB;
 import org.lisoft.lsml.model.database.StockLoadoutDB;
 import org.lisoft.lsml.model.database.UpgradeDB;
+import org.lisoft.lsml.model.export.Base64LoadoutCoder;
 import org.lisoft.lsml.model.export.LsmlProtocolIPC;
 import org.lisoft.lsml.model.loadout.EquipException;
 import org.lisoft.lsml.model.loadout.Loadout;
@@ -57,9 +62,11 @@ import javafx.concurrent.Task;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.ButtonBar.ButtonData;
 import javafx.scene.control.ButtonType;
 import javafx.scene.layout.Region;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 
 /**
  * This is the main application for the LSML JavaFX GUI.
@@ -73,6 +80,8 @@ public class LiSongMechLab extends Application implements MessageReceiver {
 
     private static DataComponent dataComponent;
 
+    private static FXDatabaseProvider databaseProvider;
+
     /**
      * This is just a dirty work around to manage to load the database when we're running unit tests.
      *
@@ -95,7 +104,9 @@ public class LiSongMechLab extends Application implements MessageReceiver {
 
     public static void main(final String[] args) {
         // This must be the first thing we do.
-        dataComponent = DaggerFXDataComponent.create();
+        final FXDataComponent fxDataComponent = DaggerFXDataComponent.create();
+        dataComponent = fxDataComponent;
+        databaseProvider = fxDataComponent.fxDatabaseProvider();
         fxApplication = DaggerFXApplicationComponent.builder().dataComponent(dataComponent).build();
 
         Thread.setDefaultUncaughtExceptionHandler(fxApplication.uncaughtExceptionHandler());
@@ -144,6 +155,8 @@ public class LiSongMechLab extends Application implements MessageReceiver {
     }
 
     private Stage mainStage;
+    private Stage mainWindow;
+    private final Map<Stage, Loadout> loadoutWindows = new LinkedHashMap<>();
 
     @Override
     public void receive(Message aMsg) {
@@ -156,10 +169,7 @@ public class LiSongMechLab extends Application implements MessageReceiver {
                 case OPEN_LOADOUT:
                     // Must be ran later, otherwise MessageXBar will emit a "attach
                     // from post" error.
-                    Platform.runLater(() -> {
-                        fxApplication.mechlabComponent(new FXMechlabModule(loadout)).mechlabWindow()
-                                .createStage(mainStage);
-                    });
+                    Platform.runLater(() -> openLoadoutWindow(loadout));
                     break;
                 case SHARE_MWO:
                     try {
@@ -200,6 +210,7 @@ public class LiSongMechLab extends Application implements MessageReceiver {
         // Throw up the splash ASAP
         final SplashScreenController splash = fxApplication.splash();
         mainStage = splash.createStage(null);
+        databaseProvider.setOnDatabaseUpdate(this::swapDatabase);
 
         // Splash won't display until we return from start(), so we use a
         // background thread to do the loading after we returned.
@@ -275,7 +286,7 @@ public class LiSongMechLab extends Application implements MessageReceiver {
 
         fxApplication.messageXBar().attach(this);
 
-        fxApplication.mainWindow().createStage(splashRoot.getScene().getWindow());
+        mainWindow = fxApplication.mainWindow().createStage(splashRoot.getScene().getWindow());
 
         final Parent origin = mainStage.getScene().getRoot();
         final List<String> params = getParameters().getUnnamed();
@@ -292,6 +303,19 @@ public class LiSongMechLab extends Application implements MessageReceiver {
         return true;
     }
 
+    private boolean confirmReload() {
+        final ButtonType reload = new ButtonType("Reload now");
+        final ButtonType later = new ButtonType("Use at next start", ButtonData.CANCEL_CLOSE);
+        final LsmlAlert alert = new LsmlAlert(mainWindow.getScene().getRoot(), AlertType.CONFIRMATION);
+        alert.setTitle("Game data updated");
+        alert.setHeaderText("LSML has read the latest data from your game install.");
+        alert.setContentText("To use the new data now, your garage is reloaded and all open loadout windows are closed"
+                + " and opened again. This clears the undo history of the garage and of every open loadout."
+                + " Otherwise the new data is used the next time LSML starts.");
+        alert.getButtonTypes().setAll(reload, later);
+        return alert.showAndWait().orElse(later) == reload;
+    }
+
     private void initDB() throws NoSuchItemException {
         // Hack: force static initialisation to run until we get around to
         // fixing our database design.
@@ -301,4 +325,98 @@ public class LiSongMechLab extends Application implements MessageReceiver {
         UpgradeDB.lookup(3003);
     }
 
+    private void openLoadoutWindow(Loadout aLoadout) {
+        final Stage stage = fxApplication.mechlabComponent(new FXMechlabModule(aLoadout)).mechlabWindow()
+                .createStage(mainStage);
+        loadoutWindows.put(stage, aLoadout);
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, aEvent -> loadoutWindows.remove(stage));
+    }
+
+    /**
+     * Swaps in a database that was parsed from the game files in the background. Everything that refers to the
+     * previous database is resolved again by MWO ID: the garage is read back and the open windows are replaced by new
+     * ones showing the resolved loadouts. This loses the undo histories, so the user is asked first if there are any.
+     *
+     * @param aDatabase
+     *            The new {@link Database}.
+     */
+    private void swapDatabase(Database aDatabase) {
+        final GlobalGarage garage = fxApplication.garage();
+        if (null == garage.getGarage()) {
+            // Still starting up, no loadouts have been resolved yet.
+            databaseProvider.swapDatabase(aDatabase);
+            return;
+        }
+
+        // The undo histories refer to the loadouts and garage directories that are about to be replaced, ask first.
+        final CommandStack garageStack = fxApplication.commandStack();
+        final boolean hasHistory = !loadoutWindows.isEmpty() || null != garageStack.nextUndo()
+                || null != garageStack.nextRedo();
+        if (null != mainWindow && hasHistory && !confirmReload()) {
+            // The new database has been written to disk and is used the next time LSML starts.
+            return;
+        }
+
+        // Loadouts that aren't in the garage are carried over as LSML links.
+        final Base64LoadoutCoder coder = dataComponent.loadoutCoder();
+        final Map<Stage, String> unsavedLinks = new HashMap<>();
+        for (final Map.Entry<Stage, Loadout> entry : loadoutWindows.entrySet()) {
+            if (!garage.getGarage().getLoadoutRoot().find(entry.getValue()).isPresent()) {
+                unsavedLinks.put(entry.getKey(), coder.encodeLSML(entry.getValue()));
+            }
+        }
+
+        final Map<Loadout, Loadout> resolved;
+        try {
+            resolved = garage.reResolve(() -> databaseProvider.swapDatabase(aDatabase));
+        }
+        catch (final IOException e) {
+            dataComponent.errorReporter().error("Unable to reload garage",
+                    "LSML could not reload your garage with the latest game data. Restart LSML to use the new data.",
+                    e);
+            return;
+        }
+        garageStack.clear();
+
+        if (null == mainWindow) {
+            // The garage was loaded but the windows haven't been opened yet.
+            return;
+        }
+
+        final List<Loadout> reopen = new ArrayList<>();
+        for (final Map.Entry<Stage, Loadout> entry : loadoutWindows.entrySet()) {
+            final Loadout loadout = resolved.get(entry.getValue());
+            if (null != loadout) {
+                reopen.add(loadout);
+                continue;
+            }
+            try {
+                final Loadout unsaved = coder.parse(unsavedLinks.get(entry.getKey()));
+                unsaved.setName(entry.getValue().getName());
+                reopen.add(unsaved);
+            }
+            catch (final Exception e) {
+                dataComponent.errorReporter().error("Unable to reopen loadout",
+                        "LSML could not reopen " + entry.getValue().getName() + " with the latest game data.", e);
+            }
+        }
+
+        // Open the new main window before closing the old windows so that the application doesn't exit.
+        final Stage oldMainWindow = mainWindow;
+        final List<Stage> oldLoadoutWindows = new ArrayList<>(loadoutWindows.keySet());
+        mainWindow = fxApplication.mainWindow().createStage(mainStage);
+        // Close without a close request, the loadouts have already been carried over.
+        oldLoadoutWindows.forEach(Stage::close);
+        oldMainWindow.close();
+        reopen.forEach(this::openLoadoutWindow);
+
+        if (!hasHistory) {
+            final LsmlAlert alert = new LsmlAlert(mainWindow.getScene().getRoot(), AlertType.INFORMATION);
+            alert.setTitle("Game data updated");
+            alert.setHeaderText("LSML has read the latest data from your game install.");
+            alert.setContentText("Your garage has been reloaded with the new data.");
+            alert.show();
+        }
+    }
+
 }
@@ -179,8 +179,9 @@ public class ComponentPaneController extends AbstractFXController implements Mes
         final Dragboard db = aDragEvent.getDragboard();
 
         EquipmentDragUtils.unpackDrag(db, Item.class).ifPresent(aItem -> {
-            if (EquipResult.SUCCESS == model.loadout.canEquipDirectly(aItem)
-                    && EquipResult.SUCCESS == component.canEquip(aItem)) {
+            final Equippability equippability = model.loadout.getEquippability();
+            if (EquipResult.SUCCESS == equippability.canEquipDirectly(aItem) && EquipResult.SUCCESS == equippability
+                    .canEquip(aItem, component.getInternalComponent().getLocation())) {
                 aDragEvent.acceptTransferModes(TransferMode.COPY_OR_MOVE);
             }
         });
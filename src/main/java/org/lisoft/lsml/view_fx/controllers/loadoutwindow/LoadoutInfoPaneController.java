@@ -40,6 +40,7 @@ import org.lisoft.lsml.messages.MessageReception;
 import org.lisoft.lsml.messages.MessageXBar;
 import org.lisoft.lsml.messages.OmniPodMessage;
 import org.lisoft.lsml.messages.PilotSkillMessage;
+import org.lisoft.lsml.messages.TransactionMessage;
 import org.lisoft.lsml.model.database.EnvironmentDB;
 import org.lisoft.lsml.model.environment.Environment;
 import org.lisoft.lsml.model.metrics.RangeMetric;
@@ -236,18 +237,18 @@ public class LoadoutInfoPaneController extends AbstractFXController implements M
         });
     }
 
+    @Override
+    public boolean acceptsTransactionMessages() {
+        return true;
+    }
+
     @Override
     public void receive(Message aMsg) {
-        final boolean efficiencies = aMsg instanceof PilotSkillMessage;
-        final boolean items = aMsg instanceof ItemMessage;
-        final boolean modules = aMsg instanceof LoadoutMessage
-                && ((LoadoutMessage) aMsg).type == LoadoutMessage.Type.MODULES_CHANGED;
-        final boolean omniPods = aMsg instanceof OmniPodMessage;
-        if (efficiencies || items || omniPods || modules) {
+        if (TransactionMessage.test(aMsg, LoadoutInfoPaneController::affectsModifiers)) {
             updateModifiers();
         }
-
     }
+
     @FXML
     public void toggleModifierDisplay(ActionEvent aEvent) {
         togglePane(aEvent, null, null, modifiersBox);
@@ -592,6 +593,15 @@ public class LoadoutInfoPaneController extends AbstractFXController implements M
         getView().requestLayout();
     }
 
+    private static boolean affectsModifiers(Message aMsg) {
+        final boolean efficiencies = aMsg instanceof PilotSkillMessage;
+        final boolean items = aMsg instanceof ItemMessage;
+        final boolean modules = aMsg instanceof LoadoutMessage
+                && ((LoadoutMessage) aMsg).type == LoadoutMessage.Type.MODULES_CHANGED;
+        final boolean omniPods = aMsg instanceof OmniPodMessage;
+        return efficiencies || items || omniPods || modules;
+    }
+
     private void updateModifiers() {
         quirksBox.getChildren().clear();
         modifierFormatter.format(model.loadout.getQuirks(), quirksBox.getChildren());
@@ -26,6 +26,7 @@ import org.lisoft.lsml.model.item.Consumable;
 import org.lisoft.lsml.model.item.Item;
 import org.lisoft.lsml.model.item.MwoObject;
 import org.lisoft.lsml.model.loadout.EquipResult;
+import org.lisoft.lsml.model.loadout.Equippability;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.modifiers.Modifier;
 import org.lisoft.lsml.view_fx.Settings;
@@ -79,12 +80,13 @@ public class EquipmentTableCell extends TreeTableCell<Object, String> {
         final Object rowItem = getTreeTableRow().getItem();
         if (rowItem instanceof Item) {
             final Item item = (Item) rowItem;
-            if (EquipResult.SUCCESS == loadout.canEquipDirectly(item)) {
+            final Equippability equippability = loadout.getEquippability();
+            if (EquipResult.SUCCESS == equippability.canEquipDirectly(item)) {
                 // Directly equippable
                 pseudoClassStateChanged(StyleManager.PC_UNEQUIPPABLE, false);
                 pseudoClassStateChanged(StyleManager.PC_SMARTPLACEABLE, false);
             }
-            else if (!loadout.getCandidateLocationsForItem(item).isEmpty()) {
+            else if (!equippability.getCandidateLocationsForItem(item).isEmpty()) {
                 // Might be smart placeable
                 pseudoClassStateChanged(StyleManager.PC_UNEQUIPPABLE, false);
                 pseudoClassStateChanged(StyleManager.PC_SMARTPLACEABLE, true);
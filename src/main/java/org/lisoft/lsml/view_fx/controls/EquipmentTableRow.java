@@ -30,6 +30,7 @@ import org.lisoft.lsml.model.item.Consumable;
 import org.lisoft.lsml.model.item.Item;
 import org.lisoft.lsml.model.item.MwoObject;
 import org.lisoft.lsml.model.loadout.EquipResult;
+import org.lisoft.lsml.model.loadout.Equippability;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.loadout.LoadoutFactory;
 import org.lisoft.lsml.util.CommandStack;
@@ -128,13 +129,14 @@ public class EquipmentTableRow extends TreeTableRow<Object> {
 
             StyleManager.changeListStyle(this, EquipmentCategory.classify(item));
 
-            if (EquipResult.SUCCESS == loadout.canEquipDirectly(item)) {
+            final Equippability equippability = loadout.getEquippability();
+            if (EquipResult.SUCCESS == equippability.canEquipDirectly(item)) {
                 // Directly equippable
                 pseudoClassStateChanged(StyleManager.PC_UNEQUIPPABLE, false);
                 pseudoClassStateChanged(StyleManager.PC_SMARTPLACEABLE, false);
                 autoEquip.setDisable(false);
             }
-            else if (!loadout.getCandidateLocationsForItem(item).isEmpty()) {
+            else if (!equippability.getCandidateLocationsForItem(item).isEmpty()) {
                 // Might be smart placeable
                 pseudoClassStateChanged(StyleManager.PC_UNEQUIPPABLE, false);
                 pseudoClassStateChanged(StyleManager.PC_SMARTPLACEABLE, true);
@@ -361,9 +361,11 @@ public class EquippedItemCell extends FixedRowsListView.FixedListCell<Item> {
             if (aItem instanceof AmmoWeapon) {
                 final AmmoWeapon ammoWeapon = (AmmoWeapon) aItem;
                 if (!ammoWeapon.hasBuiltInAmmo()) {
-                    menuAddAmmo.setDisable(EquipResult.SUCCESS != loadout.canEquipDirectly(ammoWeapon.getAmmoType()));
-                    menuAddHalfAmmo
-                    .setDisable(EquipResult.SUCCESS != loadout.canEquipDirectly(ammoWeapon.getAmmoHalfType()));
+                    final Equippability equippability = loadout.getEquippability();
+                    menuAddAmmo
+                    .setDisable(EquipResult.SUCCESS != equippability.canEquipDirectly(ammoWeapon.getAmmoType()));
+                    menuAddHalfAmmo.setDisable(
+                            EquipResult.SUCCESS != equippability.canEquipDirectly(ammoWeapon.getAmmoHalfType()));
                     contextMenu.getItems().setAll(menuRemove, menuRemoveAll, menuRemoveAmmo, separator, menuAddAmmo,
                             menuAddHalfAmmo, menuFillWithAmmo);
                 }
@@ -374,7 +376,7 @@ public class EquippedItemCell extends FixedRowsListView.FixedListCell<Item> {
             else if (aItem instanceof Engine) {
                 final HeatSink hs = loadout.getUpgrades().getHeatSink().getHeatSinkType();
 
-                menuAddEngineHS.setDisable(EquipResult.SUCCESS != loadout.canEquipDirectly(hs));
+                menuAddEngineHS.setDisable(EquipResult.SUCCESS != loadout.getEquippability().canEquipDirectly(hs));
                 menuRemoveEngineHS.setDisable(component.getEngineHeatSinks() == 0);
 
                 contextMenu.getItems().setAll(menuRemove, separator, menuAddEngineHS, menuRemoveEngineHS);
@@ -25,6 +25,7 @@ import java.util.function.Predicate;
 import org.lisoft.lsml.messages.Message;
 import org.lisoft.lsml.messages.MessageReceiver;
 import org.lisoft.lsml.messages.MessageReception;
+import org.lisoft.lsml.messages.TransactionMessage;
 import org.lisoft.lsml.view_fx.LiSongMechLab;
 
 import javafx.beans.binding.BooleanBinding;
@@ -56,10 +57,15 @@ public class LsmlBooleanBinding extends BooleanBinding implements MessageReceive
         return false;
     }
 
+    @Override
+    public boolean acceptsTransactionMessages() {
+        return true;
+    }
+
     @Override
     public void receive(Message aMsg) {
         try {
-            if (invalidationFilter.test(aMsg) == true) {
+            if (TransactionMessage.test(aMsg, invalidationFilter)) {
                 invalidate();
             }
         }
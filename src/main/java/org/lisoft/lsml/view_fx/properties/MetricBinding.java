@@ -24,6 +24,7 @@ import java.util.function.Predicate;
 import org.lisoft.lsml.messages.Message;
 import org.lisoft.lsml.messages.MessageReceiver;
 import org.lisoft.lsml.messages.MessageReception;
+import org.lisoft.lsml.messages.TransactionMessage;
 import org.lisoft.lsml.model.metrics.Metric;
 
 import javafx.beans.binding.DoubleBinding;
@@ -64,9 +65,14 @@ public class MetricBinding<T extends Metric> extends DoubleBinding implements Me
         return metric;
     }
 
+    @Override
+    public boolean acceptsTransactionMessages() {
+        return true;
+    }
+
     @Override
     public void receive(Message aMsg) {
-        if (isValid() && filter.test(aMsg)) {
+        if (isValid() && TransactionMessage.test(aMsg, filter)) {
             invalidate();
         }
     }
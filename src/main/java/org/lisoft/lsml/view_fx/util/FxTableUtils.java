@@ -99,8 +99,9 @@ public class FxTableUtils {
 
     public static void addStatColumn(TableView<Weapon> aTable, String aName, String aStat, String aTooltip) {
         final TableColumn<Weapon, String> col = new TableColumn<>(aName);
+        final WeaponStat stat = WeaponStat.of(aStat);
         col.setCellValueFactory(aFeatures -> {
-            return FxBindingUtils.formatValue(STAT_FMT, true, aFeatures.getValue().getStat(aStat, null));
+            return FxBindingUtils.formatValue(STAT_FMT, true, stat.evaluate(aFeatures.getValue(), null));
         });
         col.setComparator(FxTableUtils.NUMERICAL_ORDERING);
         aTable.getColumns().add(col);
@@ -20,9 +20,11 @@
 package org.lisoft.lsml.command;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -34,6 +36,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.lisoft.lsml.messages.ItemMessage;
 import org.lisoft.lsml.messages.ItemMessage.Type;
+import org.lisoft.lsml.messages.Message;
 import org.lisoft.lsml.messages.MessageXBar;
 import org.lisoft.lsml.model.chassi.Chassis;
 import org.lisoft.lsml.model.chassi.Location;
@@ -54,6 +57,7 @@ import org.lisoft.lsml.model.loadout.LoadoutStandard;
 import org.lisoft.lsml.util.CommandStack;
 import org.lisoft.lsml.util.ListArrayUtils;
 import org.lisoft.lsml.util.TestHelpers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -364,6 +368,76 @@ public class CmdAutoAddItemTest {
         assertTrue(allItems.remove(ItemDB.AMS));
     }
 
+    /**
+     * {@link CmdAutoAddItem} shall find solutions where the item that is in the way can only be moved after other items
+     * have been moved out of the way first.
+     */
+    @Test
+    public void testMoveItem_DeepRearrangement() throws Exception {
+        // Setup
+        final LoadoutStandard loadout = (LoadoutStandard) loadoutFactory.produceEmpty(ChassisDB.lookup("AS7-D-DC"));
+        final Item ammo = ItemDB.lookup("AC/20 AMMO");
+        final Item gaussRifle = ItemDB.lookup("GAUSS RIFLE");
+        stack.pushAndApply(new CmdSetHeatSinkType(xBar, loadout, UpgradeDB.IS_DHS));
+
+        // 2 slots left in either leg and in CT
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, loadout.getComponent(Location.CenterTorso),
+                ItemDB.lookup("XL ENGINE 200")));
+
+        // 2 slots left on right arm
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, loadout.getComponent(Location.RightArm), ItemDB.DHS));
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, loadout.getComponent(Location.RightArm), ItemDB.DHS));
+
+        // 1 slot left on left arm, two ammo must go before the DHS from the right torso fits
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, loadout.getComponent(Location.LeftArm), ItemDB.DHS));
+        for (int i = 0; i < 4; ++i) {
+            stack.pushAndApply(new CmdAddItem(xBar, loadout, loadout.getComponent(Location.LeftArm), ammo));
+        }
+
+        // 6 slots left in right torso, the gauss rifle needs 7
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, loadout.getComponent(Location.RightTorso), ItemDB.DHS));
+
+        // 0 slots left in left torso
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, loadout.getComponent(Location.LeftTorso), ItemDB.DHS));
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, loadout.getComponent(Location.LeftTorso), ItemDB.DHS));
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, loadout.getComponent(Location.LeftTorso), ItemDB.DHS));
+        Mockito.reset(xBar);
+
+        // Execute
+        stack.pushAndApply(new CmdAutoAddItem(loadout, xBar, gaussRifle, loadoutFactory));
+
+        // Verify
+        final List<Item> leftArm = loadout.getComponent(Location.LeftArm).getItemsEquipped();
+        assertTrue(ListArrayUtils.equalsUnordered(leftArm, Arrays.asList(ItemDB.DHS, ItemDB.DHS, ammo, ammo)));
+        final List<Item> rightTorso = loadout.getComponent(Location.RightTorso).getItemsEquipped();
+        assertTrue(rightTorso.contains(gaussRifle));
+        assertFalse(rightTorso.contains(ItemDB.DHS));
+        assertEquals(3, countRemovedItems());
+    }
+
+    /**
+     * {@link CmdAutoAddItem} shall move as few items as possible to make room for the item.
+     */
+    @Test
+    public void testMoveItem_MinimalMoveCount() throws Exception {
+        // Setup
+        final LoadoutStandard loadout = (LoadoutStandard) loadoutFactory.produceEmpty(ChassisDB.lookup("AS7-D-DC"));
+        final ConfiguredComponentStandard rt = loadout.getComponent(Location.RightTorso);
+        stack.pushAndApply(new CmdSetHeatSinkType(xBar, loadout, UpgradeDB.IS_DHS));
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, rt, ItemDB.DHS));
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, rt, ItemDB.DHS));
+        stack.pushAndApply(new CmdAddItem(xBar, loadout, rt, ItemDB.DHS));
+        final Item gaussRifle = ItemDB.lookup("GAUSS RIFLE");
+        Mockito.reset(xBar);
+
+        // Execute
+        stack.pushAndApply(new CmdAutoAddItem(loadout, xBar, gaussRifle, loadoutFactory));
+
+        // Verify, the gauss rifle needs 7 of the 3 free slots so exactly two heat sinks must move.
+        assertTrue(ListArrayUtils.equalsUnordered(rt.getItemsEquipped(), Arrays.asList(ItemDB.DHS, gaussRifle)));
+        assertEquals(2, countRemovedItems());
+    }
+
     /**
      * {@link CmdAutoAddItem} shall throw an {@link EquipResult} if the item cannot be auto added on any permutation of
      * the loadout.
@@ -445,4 +519,16 @@ public class CmdAutoAddItemTest {
         verify(xBar).post(new ItemMessage(la, Type.Removed, lrm5, 0));
         verify(xBar).post(new ItemMessage(la, Type.Added, lrm10, 0));
     }
+
+    private int countRemovedItems() {
+        final ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(xBar, atLeastOnce()).post(messages.capture());
+        int removed = 0;
+        for (final Message message : messages.getAllValues()) {
+            if (message instanceof ItemMessage && ((ItemMessage) message).type == Type.Removed) {
+                removed++;
+            }
+        }
+        return removed;
+    }
 }
@@ -21,6 +21,18 @@ package org.lisoft.lsml.command;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -29,6 +41,8 @@ import org.lisoft.lsml.messages.ArmourMessage;
 import org.lisoft.lsml.messages.ArmourMessage.Type;
 import org.lisoft.lsml.messages.MessageXBar;
 import org.lisoft.lsml.model.chassi.ArmourSide;
+import org.lisoft.lsml.model.chassi.Chassis;
+import org.lisoft.lsml.model.chassi.Component;
 import org.lisoft.lsml.model.chassi.Location;
 import org.lisoft.lsml.model.database.ChassisDB;
 import org.lisoft.lsml.model.database.ItemDB;
@@ -37,8 +51,11 @@ import org.lisoft.lsml.model.loadout.DefaultLoadoutFactory;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.loadout.LoadoutFactory;
 import org.lisoft.lsml.model.loadout.LoadoutStandard;
+import org.lisoft.lsml.model.upgrades.ArmourUpgrade;
+import org.lisoft.lsml.model.upgrades.Upgrades;
 import org.lisoft.lsml.util.CommandStack;
 import org.lisoft.lsml.util.TestHelpers;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -49,7 +66,7 @@ import org.mockito.junit.MockitoJUnitRunner;
  * @author Emily Björk
  */
 @SuppressWarnings("javadoc")
-@RunWith(MockitoJUnitRunner.class)
+@RunWith(MockitoJUnitRunner.StrictStubs.class)
 public class CmdDistributeArmourTest {
     @BeforeClass
     static public void setup() throws Exception {
@@ -492,6 +509,207 @@ public class CmdDistributeArmourTest {
         assertTrue(shieldArm.getArmourTotal() < weaponArm.getArmourTotal() / 2);
     }
 
+    /**
+     * Manually armoured components keep their armour and it is subtracted from the armour to distribute.
+     */
+    @Test
+    public void testCalculateArmours_ManualArmourLocked() throws Exception {
+        final Loadout loadout = mockLoadout();
+        mockManual(loadout, Location.CenterTorso, 30, 10);
+        for (final Location location : Location.values()) {
+            if (location != Location.CenterTorso) {
+                mockAutomatic(loadout, location, 100);
+            }
+        }
+        final int[] armours = new int[CmdDistributeArmour.ARMOURS_LENGTH];
+
+        // 100 points is 3.125 tons which is rounded down to 3 tons or 96 points, 56 after the manual armour.
+        CmdDistributeArmour.calculateArmours(loadout, 100, 1.0, armours);
+
+        assertArmour(30, 10, armours, Location.CenterTorso);
+        assertArmour(8, 8, armours, Location.LeftTorso);
+        assertArmour(9, 8, armours, Location.RightTorso);
+        assertArmour(8, 0, armours, Location.LeftLeg);
+        assertArmour(8, 0, armours, Location.RightLeg);
+        assertArmour(7, 0, armours, Location.Head);
+        assertArmour(0, 0, armours, Location.LeftArm);
+        assertArmour(0, 0, armours, Location.RightArm);
+    }
+
+    /**
+     * No component shall get more than its maximal armour, even if there is mass for more.
+     */
+    @Test
+    public void testCalculateArmours_PerLocationMax() throws Exception {
+        final Loadout loadout = mockLoadout();
+        final Map<Location, Integer> armourMax = new EnumMap<>(Location.class);
+        armourMax.put(Location.Head, 18);
+        armourMax.put(Location.LeftArm, 40);
+        armourMax.put(Location.RightArm, 40);
+        armourMax.put(Location.LeftLeg, 50);
+        armourMax.put(Location.RightLeg, 50);
+        armourMax.put(Location.LeftTorso, 60);
+        armourMax.put(Location.RightTorso, 60);
+        armourMax.put(Location.CenterTorso, 80);
+        armourMax.forEach((aLocation, aMax) -> mockAutomatic(loadout, aLocation, aMax));
+        final int[] armours = new int[CmdDistributeArmour.ARMOURS_LENGTH];
+
+        CmdDistributeArmour.calculateArmours(loadout, 3200, 1.0, armours);
+
+        for (final Location location : Location.values()) {
+            final int total = armours[CmdDistributeArmour.armourIndex(location, ArmourSide.FRONT)]
+                    + armours[CmdDistributeArmour.armourIndex(location, ArmourSide.BACK)];
+            assertEquals(location.toString(), armourMax.get(location).intValue(), total);
+        }
+    }
+
+    @Test
+    public void testCalculateArmours_FrontBackRatio() throws Exception {
+        final Loadout loadout = mockLoadout();
+        mockAutomatic(loadout, Location.CenterTorso, 100);
+        for (final Location location : Location.values()) {
+            if (location != Location.CenterTorso) {
+                mockManual(loadout, location, 0, 0);
+            }
+        }
+        final int[] armours = new int[CmdDistributeArmour.ARMOURS_LENGTH];
+
+        CmdDistributeArmour.calculateArmours(loadout, 64, 3.0, armours);
+
+        assertArmour(48, 16, armours, Location.CenterTorso);
+    }
+
+    /**
+     * The loadout with armour is rounded down to the closest {@link CmdDistributeArmour#MASS_QUANTA}.
+     */
+    @Test
+    public void testCalculateArmours_RoundsDownToMassQuanta() throws Exception {
+        final Loadout loadout = mockLoadout();
+        when(loadout.getMassStructItems()).thenReturn(5.1);
+        for (final Location location : Location.values()) {
+            mockAutomatic(loadout, location, 100);
+        }
+        final int[] armours = new int[CmdDistributeArmour.ARMOURS_LENGTH];
+
+        // 5.1 + 3.125 tons is rounded down to 8 tons, which leaves 2.9 tons or 92 points of armour.
+        CmdDistributeArmour.calculateArmours(loadout, 100, 1.0, armours);
+
+        int total = 0;
+        for (final int armour : armours) {
+            total += armour;
+        }
+        assertEquals(92, total);
+    }
+
+    /**
+     * What is left after the share by priority is spread evenly, in location order, over the components that have
+     * room for more.
+     */
+    @Test
+    public void testCalculateArmours_EvenSpreadRemainder() throws Exception {
+        final Loadout loadout = mockLoadout();
+        for (final Location location : Location.values()) {
+            mockAutomatic(loadout, location, location == Location.Head ? 9 : 100);
+        }
+        final int[] armours = new int[CmdDistributeArmour.ARMOURS_LENGTH];
+
+        // By priority: CT 100 (max), LT 65, RT 65, LL 33, RL 33, HD 9 (max), the remaining 15 are spread.
+        CmdDistributeArmour.calculateArmours(loadout, 320, 1.0, armours);
+
+        assertArmour(9, 0, armours, Location.Head);
+        assertArmour(2, 0, armours, Location.LeftArm);
+        assertArmour(35, 0, armours, Location.LeftLeg);
+        assertArmour(34, 33, armours, Location.LeftTorso);
+        assertArmour(50, 50, armours, Location.CenterTorso);
+        assertArmour(34, 34, armours, Location.RightTorso);
+        assertArmour(36, 0, armours, Location.RightLeg);
+        assertArmour(3, 0, armours, Location.RightArm);
+    }
+
+    /**
+     * Applying the distribution shall set the calculated armour and send exactly one message for every component whose
+     * armour changed.
+     */
+    @Test
+    public void testApply_OneMessagePerChangedComponent() throws Exception {
+        final Loadout loadout = mockLoadout();
+        final ConfiguredComponent ct = mockManual(loadout, Location.CenterTorso, 30, 10);
+        final Map<Location, ConfiguredComponent> automatic = new EnumMap<>(Location.class);
+        for (final Location location : Location.values()) {
+            if (location != Location.CenterTorso) {
+                final ConfiguredComponent component = mockAutomatic(loadout, location, 100);
+                when(component.getInternalComponent().getLocation()).thenReturn(location);
+                automatic.put(location, component);
+            }
+        }
+        final int[] armours = new int[CmdDistributeArmour.ARMOURS_LENGTH];
+        CmdDistributeArmour.calculateArmours(loadout, 100, 1.0, armours);
+        // The left torso already has the armour it would get.
+        final ConfiguredComponent lt = automatic.get(Location.LeftTorso);
+        when(lt.getArmour(ArmourSide.FRONT))
+                .thenReturn(armours[CmdDistributeArmour.armourIndex(Location.LeftTorso, ArmourSide.FRONT)]);
+        when(lt.getArmour(ArmourSide.BACK))
+                .thenReturn(armours[CmdDistributeArmour.armourIndex(Location.LeftTorso, ArmourSide.BACK)]);
+
+        stack.pushAndApply(new CmdDistributeArmour(loadout, 100, 1.0, xBar));
+
+        for (final Map.Entry<Location, ConfiguredComponent> entry : automatic.entrySet()) {
+            final Location location = entry.getKey();
+            final ConfiguredComponent component = entry.getValue();
+            int total = 0;
+            for (final ArmourSide side : ArmourSide.allSides(component.getInternalComponent())) {
+                final int armour = armours[CmdDistributeArmour.armourIndex(location, side)];
+                verify(component).setArmour(side, armour, false);
+                total += armour;
+            }
+            final boolean changed = location != Location.LeftTorso && total != 0;
+            verify(xBar, times(changed ? 1 : 0)).post(new ArmourMessage(component, Type.ARMOUR_CHANGED, false));
+        }
+        verify(ct, never()).setArmour(any(), anyInt(), anyBoolean());
+        verify(xBar, never()).post(new ArmourMessage(ct, Type.ARMOUR_CHANGED, false));
+    }
+
+    @Test
+    public void testUndo() throws Exception {
+        final Loadout loadout = mockLoadout();
+        final Map<Location, ConfiguredComponent> components = new EnumMap<>(Location.class);
+        for (final Location location : Location.values()) {
+            final ConfiguredComponent component = mockAutomatic(loadout, location, 100);
+            when(component.getInternalComponent().getLocation()).thenReturn(location);
+            components.put(location, component);
+        }
+        final ConfiguredComponent ct = components.get(Location.CenterTorso);
+        final ConfiguredComponent la = components.get(Location.LeftArm);
+        when(ct.getArmour(ArmourSide.FRONT)).thenReturn(5);
+        when(ct.getArmour(ArmourSide.BACK)).thenReturn(3);
+        when(la.getArmour(ArmourSide.ONLY)).thenReturn(7);
+        final CommandStack undoStack = new CommandStack(1);
+
+        undoStack.pushAndApply(new CmdDistributeArmour(loadout, 320, 1.0, xBar));
+        undoStack.undo();
+
+        final InOrder inOrder = inOrder(ct, la);
+        inOrder.verify(la).setArmour(ArmourSide.ONLY, 0, false);
+        inOrder.verify(ct).setArmour(ArmourSide.FRONT, 50, false);
+        inOrder.verify(ct).setArmour(ArmourSide.BACK, 50, false);
+        inOrder.verify(la).setArmour(ArmourSide.ONLY, 7, false);
+        inOrder.verify(ct).setArmour(ArmourSide.FRONT, 5, false);
+        inOrder.verify(ct).setArmour(ArmourSide.BACK, 3, false);
+        for (final Location location : Location.values()) {
+            // The right arm has no items and gets no armour so it never changes.
+            final int messages = location == Location.RightArm ? 0 : 2;
+            verify(xBar, times(messages))
+                    .post(new ArmourMessage(components.get(location), Type.ARMOUR_CHANGED, false));
+        }
+    }
+
+    private void assertArmour(int aFront, int aBack, int[] aArmours, Location aLocation) {
+        assertEquals(aLocation + " front", aFront,
+                aArmours[CmdDistributeArmour.armourIndex(aLocation, ArmourSide.FRONT)]);
+        assertEquals(aLocation + " back", aBack,
+                aArmours[CmdDistributeArmour.armourIndex(aLocation, ArmourSide.BACK)]);
+    }
+
     private Loadout loadLink(String aLsml) throws Exception {
         final Loadout loadout = TestHelpers.parse(aLsml);
         for (final ConfiguredComponent part : loadout.getComponents()) {
@@ -506,4 +724,50 @@ public class CmdDistributeArmourTest {
         }
         return loadout;
     }
+
+    /**
+     * Mocks a component whose armour is automatically distributed.
+     */
+    private ConfiguredComponent mockAutomatic(Loadout aLoadout, Location aLocation, int aArmourMax) {
+        final ConfiguredComponent component = mock(ConfiguredComponent.class);
+        final Component internal = mock(Component.class);
+        when(component.getInternalComponent()).thenReturn(internal);
+        when(internal.getArmourMax()).thenReturn(aArmourMax);
+        when(aLoadout.getComponent(aLocation)).thenReturn(component);
+        return component;
+    }
+
+    /**
+     * Mocks a 100 ton loadout without items or structure mass, the armour weighs 32 points per ton.
+     */
+    private Loadout mockLoadout() {
+        final Loadout loadout = mock(Loadout.class);
+        final Chassis chassis = mock(Chassis.class);
+        final Upgrades upgrades = mock(Upgrades.class);
+        final ArmourUpgrade armourUpgrade = mock(ArmourUpgrade.class);
+        when(loadout.getChassis()).thenReturn(chassis);
+        when(loadout.getUpgrades()).thenReturn(upgrades);
+        when(chassis.getMassMax()).thenReturn(100);
+        when(upgrades.getArmour()).thenReturn(armourUpgrade);
+        when(armourUpgrade.getArmourPerTon()).thenReturn(32.0);
+        return loadout;
+    }
+
+    /**
+     * Mocks a component with manually set armour.
+     */
+    private ConfiguredComponent mockManual(Loadout aLoadout, Location aLocation, int aFront, int aBack) {
+        final ConfiguredComponent component = mock(ConfiguredComponent.class);
+        when(component.hasManualArmour()).thenReturn(true);
+        if (aLocation.isTwoSided()) {
+            when(component.getArmour(ArmourSide.FRONT)).thenReturn(aFront);
+            when(component.getArmour(ArmourSide.BACK)).thenReturn(aBack);
+        }
+        else {
+            when(component.getArmour(ArmourSide.ONLY)).thenReturn(aFront);
+        }
+        when(component.getArmourTotal()).thenReturn(aFront + aBack);
+        when(aLoadout.getComponent(aLocation)).thenReturn(component);
+        return component;
+    }
 }
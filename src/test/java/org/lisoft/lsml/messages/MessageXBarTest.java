@@ -19,6 +19,10 @@
 //@formatter:on
 package org.lisoft.lsml.messages;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -26,8 +30,11 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 /**
  * A test suite for {@link MessageXBar}.
@@ -72,6 +79,74 @@ public class MessageXBarTest {
         verify(reader1).receive(msg);
     }
 
+    @Test
+    public void testTransaction() {
+        final MessageReceiver reader = mock(MessageReceiver.class);
+        final MessageReceiver summaryReader = mock(MessageReceiver.class);
+        when(summaryReader.acceptsTransactionMessages()).thenReturn(true);
+        final Message msg0 = mock(Message.class);
+        final Message msg1 = mock(Message.class);
+        when(msg1.affectsHeatOrDamage()).thenReturn(true);
+        cut.attach(reader);
+        cut.attach(summaryReader);
+
+        cut.beginTransaction();
+        cut.post(msg0);
+        cut.post(msg1);
+        verify(reader, never()).receive(msg0);
+        cut.commitTransaction();
+
+        final InOrder inOrder = inOrder(reader);
+        inOrder.verify(reader).receive(msg0);
+        inOrder.verify(reader).receive(msg1);
+        final ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(summaryReader, times(1)).receive(captor.capture());
+        final TransactionMessage transaction = (TransactionMessage) captor.getValue();
+        assertEquals(Arrays.asList(msg0, msg1), transaction.getMessages());
+        assertTrue(transaction.affectsHeatOrDamage());
+        assertTrue(transaction.getChanges().contains(TransactionMessage.Change.OTHER));
+        assertTrue(TransactionMessage.test(transaction, aMsg -> aMsg == msg1));
+        assertFalse(TransactionMessage.test(transaction, aMsg -> false));
+    }
+
+    @Test
+    public void testTransactionNested() {
+        final MessageReceiver reader = mock(MessageReceiver.class);
+        final Message msg0 = mock(Message.class);
+        final Message msg1 = mock(Message.class);
+        cut.attach(reader);
+
+        cut.beginTransaction();
+        cut.post(msg0);
+        cut.beginTransaction();
+        cut.post(msg1);
+        cut.commitTransaction();
+        verify(reader, never()).receive(msg1);
+        cut.commitTransaction();
+
+        verify(reader).receive(msg0);
+        verify(reader).receive(msg1);
+    }
+
+    @Test
+    public void testTransactionSingleMessage() {
+        final MessageReceiver summaryReader = mock(MessageReceiver.class);
+        when(summaryReader.acceptsTransactionMessages()).thenReturn(true);
+        final Message msg = mock(Message.class);
+        cut.attach(summaryReader);
+
+        cut.beginTransaction();
+        cut.post(msg);
+        cut.commitTransaction();
+
+        verify(summaryReader).receive(msg);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTransactionCommitWithoutBegin() {
+        cut.commitTransaction();
+    }
+
     @Test
     public void testWeakReference() {
         final WeakReference<MessageReceiver> ref = mock(WeakReference.class);// new
@@ -0,0 +1,196 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.lisoft.lsml.model.chassi.Chassis;
+import org.lisoft.lsml.model.chassi.HardPointType;
+import org.lisoft.lsml.model.database.DatabaseDiff.Category;
+import org.lisoft.lsml.model.database.DatabaseDiff.Change;
+import org.lisoft.lsml.model.database.DatabaseDiff.EntityDelta;
+import org.lisoft.lsml.model.database.DatabaseDiff.Kind;
+import org.lisoft.lsml.model.garage.GarageDirectory;
+import org.lisoft.lsml.model.item.EnergyWeapon;
+import org.lisoft.lsml.model.item.Faction;
+import org.lisoft.lsml.model.item.HeatSink;
+import org.lisoft.lsml.model.item.Internal;
+import org.lisoft.lsml.model.item.Item;
+import org.lisoft.lsml.model.item.WeaponRangeProfile;
+import org.lisoft.lsml.model.item.WeaponRangeProfile.RangeNode;
+import org.lisoft.lsml.model.item.WeaponRangeProfile.RangeNode.InterpolationType;
+import org.lisoft.lsml.model.loadout.Loadout;
+import org.lisoft.lsml.model.modifiers.Attribute;
+import org.lisoft.lsml.model.modifiers.Modifier;
+import org.lisoft.lsml.model.modifiers.ModifierDescription;
+import org.lisoft.lsml.model.modifiers.ModifierType;
+import org.lisoft.lsml.model.modifiers.Operation;
+import org.lisoft.lsml.model.upgrades.ArmourUpgrade;
+import org.lisoft.lsml.model.upgrades.GuidanceUpgrade;
+import org.lisoft.lsml.model.upgrades.HeatSinkUpgrade;
+import org.lisoft.lsml.model.upgrades.StructureUpgrade;
+import org.lisoft.lsml.model.upgrades.Upgrades;
+
+@SuppressWarnings("javadoc")
+public class DatabaseDiffTest {
+    private final Internal internal = new Internal("Internal", "", "InternalKey", 300, 1, 0, HardPointType.NONE, 0,
+            Faction.ANY);
+    private final HeatSink heatSink = new HeatSink("Heat Sink", "", "HeatSinkKey", 100, 1, 1, HardPointType.NONE, 0,
+            Faction.ANY, 0.1, 0.1, 1.0);
+    private final ModifierDescription laserHeat = new ModifierDescription("Laser Heat", "laserheat", Operation.MUL,
+            Arrays.asList("laser"), "heat", ModifierType.NEGATIVE_GOOD);
+
+    @Test
+    public void testIdentical() {
+        final DatabaseDiff cut = DatabaseDiff.compute(makeDatabase(makeLaser(4.0, 400.0)),
+                makeDatabase(makeLaser(4.0, 400.0)));
+        assertTrue(cut.isEmpty());
+        assertTrue(cut.getDeltas().isEmpty());
+    }
+
+    @Test
+    public void testWeaponAttributeAndRangeNode() {
+        final DatabaseDiff cut = DatabaseDiff.compute(makeDatabase(makeLaser(4.0, 400.0)),
+                makeDatabase(makeLaser(3.5, 450.0)));
+
+        final EntityDelta delta = cut.getDelta(Category.ITEM, 200);
+        assertEquals(Kind.CHANGED, delta.kind);
+        assertEquals(3, delta.changes.size()); // The last node is at twice the long range.
+        final Change coolDown = findChange(delta, "coolDown@value");
+        assertEquals("4.0", coolDown.before);
+        assertEquals("3.5", coolDown.after);
+        final Change node = findChange(delta, "rangeProfile/nodes/rangenode[1]/start@value");
+        assertEquals("400.0", node.before);
+        assertEquals("450.0", node.after);
+
+        assertFalse(cut.isChanged(Category.ITEM, heatSink.getId()));
+        assertEquals(Arrays.asList(delta), cut.getDeltas());
+    }
+
+    @Test
+    public void testAddedAndRemoved() {
+        final Internal added = new Internal("Added", "", "AddedKey", 301, 1, 0, HardPointType.NONE, 0, Faction.ANY);
+        final Database before = makeDatabase(Arrays.asList(internal, heatSink), laserHeat);
+        final Database after = makeDatabase(Arrays.asList(added, heatSink));
+
+        final DatabaseDiff cut = DatabaseDiff.compute(before, after);
+
+        assertEquals(Kind.REMOVED, cut.getDelta(Category.ITEM, internal.getId()).kind);
+        assertEquals(Kind.ADDED, cut.getDelta(Category.ITEM, added.getId()).kind);
+        assertEquals(Kind.REMOVED, cut.getDelta(Category.MODIFIER, laserHeat.getKey()).kind);
+        assertNull(cut.getDelta(Category.ITEM, heatSink.getId()));
+    }
+
+    @Test
+    public void testFindAffected() {
+        final EnergyWeapon laser = makeLaser(4.0, 400.0);
+        final DatabaseDiff cut = DatabaseDiff.compute(makeDatabase(laser), makeDatabase(makeLaser(4.0, 450.0)));
+
+        final Loadout withLaser = makeLoadout(laser);
+        final Loadout withoutLaser = makeLoadout(heatSink);
+        final GarageDirectory<Loadout> root = new GarageDirectory<>("root");
+        final GarageDirectory<Loadout> child = new GarageDirectory<>("child");
+        root.getDirectories().add(child);
+        root.getValues().add(withoutLaser);
+        child.getValues().add(withLaser);
+
+        assertTrue(cut.affects(withLaser));
+        assertFalse(cut.affects(withoutLaser));
+        assertEquals(Arrays.asList(withLaser), cut.findAffected(root));
+    }
+
+    @Test
+    public void testModifierChangeAffectsLoadout() {
+        final Database before = makeDatabase(Arrays.asList(heatSink), laserHeat);
+        final Database after = makeDatabase(Arrays.asList(heatSink), new ModifierDescription("Laser Heat",
+                "laserheat", Operation.ADD, Arrays.asList("laser"), "heat", ModifierType.NEGATIVE_GOOD));
+        final DatabaseDiff cut = DatabaseDiff.compute(before, after);
+
+        final Loadout quirked = makeLoadout(heatSink);
+        when(quirked.getQuirks()).thenReturn(Arrays.asList(new Modifier(laserHeat, 0.1)));
+
+        assertEquals(Kind.CHANGED, cut.getDelta(Category.MODIFIER, laserHeat.getKey()).kind);
+        assertTrue(cut.affects(quirked));
+        assertFalse(cut.affects(makeLoadout(heatSink)));
+    }
+
+    private Change findChange(EntityDelta aDelta, String aPath) {
+        return aDelta.changes.stream().filter(c -> c.path.equals(aPath)).findFirst()
+                .orElseThrow(() -> new AssertionError("No change for " + aPath + " in " + aDelta));
+    }
+
+    private Database makeDatabase(EnergyWeapon aLaser) {
+        return makeDatabase(Arrays.asList(internal, heatSink, aLaser), laserHeat);
+    }
+
+    private Database makeDatabase(List<Item> aItems, ModifierDescription... aModifiers) {
+        final Map<String, ModifierDescription> modifiers = new HashMap<>();
+        for (final ModifierDescription modifier : aModifiers) {
+            modifiers.put(modifier.getKey(), modifier);
+        }
+        return new Database("1", new HashMap<>(), new ArrayList<>(aItems), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), modifiers);
+    }
+
+    private EnergyWeapon makeLaser(double aCoolDown, double aLongRange) {
+        final List<String> selectors = Arrays.asList("laser");
+        final List<RangeNode> nodes = new ArrayList<>();
+        nodes.add(new RangeNode(new Attribute(0.0, selectors, "range"), InterpolationType.LINEAR, 1.0));
+        nodes.add(new RangeNode(new Attribute(aLongRange, selectors, "range"), InterpolationType.LINEAR, 1.0));
+        nodes.add(new RangeNode(new Attribute(2 * aLongRange, selectors, "range"), InterpolationType.LINEAR, 0.0));
+        return new EnergyWeapon("Laser", "", "LaserKey", 200, 1, 1.0, 10.0, Faction.ANY,
+                new Attribute(5.0, selectors, "heat"), new Attribute(aCoolDown, selectors, "cooldown"),
+                new WeaponRangeProfile(nodes), 1, 5.0, 1, new Attribute(1000.0, selectors, "speed"), -1, 0.0,
+                new Attribute(0.0, selectors, "minheatpenaltylevel"), 0.0, 0.0,
+                new Attribute(1.0, selectors, "duration"));
+    }
+
+    private Loadout makeLoadout(Item aItem) {
+        final Chassis chassis = mock(Chassis.class);
+        when(chassis.getId()).thenReturn(1);
+        final Upgrades upgrades = mock(Upgrades.class);
+        when(upgrades.getArmour()).thenReturn(mock(ArmourUpgrade.class));
+        when(upgrades.getStructure()).thenReturn(mock(StructureUpgrade.class));
+        when(upgrades.getHeatSink()).thenReturn(mock(HeatSinkUpgrade.class));
+        when(upgrades.getGuidance()).thenReturn(mock(GuidanceUpgrade.class));
+
+        final Loadout loadout = mock(Loadout.class);
+        when(loadout.getChassis()).thenReturn(chassis);
+        when(loadout.getUpgrades()).thenReturn(upgrades);
+        when(loadout.items()).thenReturn(Arrays.asList(aItem));
+        when(loadout.getConsumables()).thenReturn(Collections.emptyList());
+        when(loadout.getAllModifiers()).thenReturn(new ArrayList<>());
+        when(loadout.getQuirks()).thenReturn(new ArrayList<>());
+        return loadout;
+    }
+}
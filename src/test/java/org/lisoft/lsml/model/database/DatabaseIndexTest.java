@@ -0,0 +1,121 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+import org.lisoft.lsml.model.NoSuchItemException;
+import org.lisoft.lsml.model.chassi.Chassis;
+import org.lisoft.lsml.model.chassi.ChassisClass;
+import org.lisoft.lsml.model.chassi.HardPointType;
+import org.lisoft.lsml.model.environment.Environment;
+import org.lisoft.lsml.model.item.Faction;
+import org.lisoft.lsml.model.item.HeatSink;
+import org.lisoft.lsml.model.item.Internal;
+import org.lisoft.lsml.model.item.Item;
+
+@SuppressWarnings("javadoc")
+public class DatabaseIndexTest {
+    private final Internal internal = new Internal("Internal", "", "InternalKey", 300, 1, 0, HardPointType.NONE, 0,
+            Faction.ANY);
+    private final HeatSink heatSink = new HeatSink("Heat Sink", "", "HeatSinkKey", 100, 1, 1, HardPointType.NONE, 0,
+            Faction.ANY, 0.1, 0.1, 1.0);
+    private final Chassis light = makeChassis(1, "LCT-1V", "locust", ChassisClass.LIGHT, -1);
+    private final Chassis lightVariant = makeChassis(2, "LCT-1V(P)", "locust", ChassisClass.LIGHT, 1);
+    private final Chassis heavy = makeChassis(3, "CTF-3D", "cataphract", ChassisClass.HEAVY, -1);
+
+    @Test
+    public void testLookupItem() throws Exception {
+        final DatabaseIndex cut = makeDatabase(Arrays.asList(internal, heatSink)).getIndex();
+        assertSame(heatSink, cut.lookupItem(100));
+        assertSame(internal, cut.lookupItem("INTERNAL"));
+        assertSame(heatSink, cut.lookupItem("heatsinkkey"));
+    }
+
+    @Test(expected = NoSuchItemException.class)
+    public void testLookupItemNoSuchId() throws Exception {
+        makeDatabase(Arrays.asList(internal)).getIndex().lookupItem(100);
+    }
+
+    @Test
+    public void testLookupItemsByClass() {
+        final DatabaseIndex cut = makeDatabase(Arrays.asList(internal, heatSink)).getIndex();
+        assertEquals(Arrays.asList(heatSink), cut.lookupItems(HeatSink.class));
+        assertEquals(Arrays.asList(heatSink, internal), cut.lookupItems(Item.class)); // Ordered by ID
+        assertTrue(cut.lookupItems(Item.class).containsAll(cut.lookupItems(Internal.class)));
+    }
+
+    @Test
+    public void testLookupChassis() throws Exception {
+        final DatabaseIndex cut = makeDatabase(new ArrayList<>()).getIndex();
+        assertSame(heavy, cut.lookupChassis(3));
+        assertSame(lightVariant, cut.lookupChassis(" lct-1v(p) "));
+        assertEquals(Arrays.asList(light, lightVariant), cut.lookupChassis(ChassisClass.LIGHT));
+        assertEquals(Arrays.asList(heavy), cut.lookupChassis(ChassisClass.HEAVY));
+        assertTrue(cut.lookupChassis(ChassisClass.ASSAULT).isEmpty());
+        assertEquals(Arrays.asList(light, lightVariant), cut.lookupSeries("LOCUST"));
+        assertEquals(Arrays.asList(light, lightVariant), cut.lookupVariations(lightVariant));
+    }
+
+    @Test
+    public void testLookupEnvironment() throws Exception {
+        final DatabaseIndex cut = makeDatabase(new ArrayList<>()).getIndex();
+        assertSame(Environment.NEUTRAL, cut.lookupEnvironment("NEUTRAL"));
+        assertEquals(Arrays.asList(Environment.NEUTRAL), cut.allEnvironments());
+    }
+
+    @Test
+    public void testIndicesAreIndependent() throws Exception {
+        final Database first = makeDatabase(Arrays.asList(internal));
+        final Database second = makeDatabase(Arrays.asList(heatSink));
+
+        assertSame(first.getIndex(), first.getIndex());
+        assertSame(internal, first.getIndex().lookupItem("Internal"));
+        assertSame(heatSink, second.getIndex().lookupItem("Heat Sink"));
+        assertTrue(first.getIndex().lookupItems(HeatSink.class).isEmpty());
+    }
+
+    private Chassis makeChassis(int aId, String aName, String aSeries, ChassisClass aClass, int aBaseVariant) {
+        final Chassis chassis = mock(Chassis.class);
+        when(chassis.getId()).thenReturn(aId);
+        when(chassis.getName()).thenReturn(aName);
+        when(chassis.getShortName()).thenReturn(aName);
+        when(chassis.getKey()).thenReturn(aName);
+        when(chassis.getSeriesName()).thenReturn(aSeries);
+        when(chassis.getChassisClass()).thenReturn(aClass);
+        when(chassis.getBaseVariantId()).thenReturn(aBaseVariant);
+        return chassis;
+    }
+
+    private Database makeDatabase(List<Item> aItems) {
+        return new Database("1", new HashMap<>(), aItems, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                Arrays.asList(light, lightVariant, heavy), new ArrayList<>(), new ArrayList<>(), new HashMap<>());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * This class compares the start up cost of loading the bundled database from XML through XStream with loading the same
+ * database from a memory mapped {@link DatabaseSnapshot}.
+ * <p>
+ * Run it with the bundled <code>database.xml</code> on the class path. Both loaders read from memory/page cache so
+ * that disk speed doesn't skew the results.
+ *
+ * @author Emily Björk
+ */
+public class DatabaseSnapshotBenchmark {
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+
+    /**
+     * Runs the benchmark and prints the results to stdout.
+     *
+     * @param arg
+     *            Not used
+     * @throws Exception
+     *             if something went awry.
+     */
+    public static void main(String[] arg) throws Exception {
+        final byte[] xml;
+        try (InputStream is = ClassLoader.getSystemClassLoader().getResourceAsStream("database.xml")) {
+            if (is == null) {
+                System.err.println("No database.xml on the class path!");
+                return;
+            }
+            xml = is.readAllBytes();
+        }
+
+        final File snapshotFile = File.createTempFile("lsml-database", DatabaseSnapshot.FILE_EXTENSION);
+        snapshotFile.deleteOnExit();
+        try (FileOutputStream fos = new FileOutputStream(snapshotFile)) {
+            DatabaseSnapshot.write(loadXml(xml), fos);
+        }
+
+        System.out.println("XML size:      " + xml.length / 1024 + " KiB");
+        System.out.println("Snapshot size: " + snapshotFile.length() / 1024 + " KiB");
+
+        measure("XStream XML", () -> loadXml(xml));
+        measure("Snapshot (full decode)", () -> DatabaseSnapshot.open(snapshotFile.toPath()).getDatabase());
+        measure("Snapshot (version check)", () -> DatabaseSnapshot.open(snapshotFile.toPath()).getVersion());
+    }
+
+    private static Database loadXml(byte[] aXml) throws IOException {
+        try (InputStream is = new ByteArrayInputStream(aXml)) {
+            return (Database) Database.makeDatabaseXStream().fromXML(is);
+        }
+    }
+
+    private static void measure(String aName, Callable<Object> aLoader) throws Exception {
+        for (int i = 0; i < WARMUP; ++i) {
+            aLoader.call();
+        }
+
+        final Runtime runtime = Runtime.getRuntime();
+        final long[] times = new long[ITERATIONS];
+        long maxHeap = 0;
+        for (int i = 0; i < ITERATIONS; ++i) {
+            System.gc();
+            final long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            final long start = System.nanoTime();
+            final Object result = aLoader.call();
+            times[i] = System.nanoTime() - start;
+            final long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+            maxHeap = Math.max(maxHeap, heapAfter - heapBefore);
+            if (result == null) {
+                throw new AssertionError("Loader returned nothing");
+            }
+        }
+
+        Arrays.sort(times);
+        System.out.println(String.format("%-26s median: %7.1f ms, min: %7.1f ms, heap growth: %6d KiB", aName,
+                times[ITERATIONS / 2] / 1E6, times[0] / 1E6, maxHeap / 1024));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lisoft.lsml.model.chassi.HardPointType;
+import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.environment.Environment;
+import org.lisoft.lsml.model.item.Consumable;
+import org.lisoft.lsml.model.item.ConsumableType;
+import org.lisoft.lsml.model.item.Faction;
+import org.lisoft.lsml.model.item.HeatSink;
+import org.lisoft.lsml.model.item.Internal;
+import org.lisoft.lsml.model.item.Item;
+import org.lisoft.lsml.model.loadout.StockLoadout;
+import org.lisoft.lsml.model.loadout.StockLoadout.StockComponent;
+import org.lisoft.lsml.model.loadout.StockLoadout.StockComponent.ActuatorState;
+import org.lisoft.lsml.model.modifiers.ModifierDescription;
+import org.lisoft.lsml.model.modifiers.ModifierType;
+import org.lisoft.lsml.model.modifiers.Operation;
+import org.lisoft.lsml.model.upgrades.ArmourUpgrade;
+import org.lisoft.lsml.model.upgrades.Upgrade;
+
+@SuppressWarnings("javadoc")
+public class DatabaseSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Internal ffArmour = new Internal("FF", "desc", "ff", 100, 1, 0, HardPointType.NONE, 0,
+            Faction.INNERSPHERE);
+    private final HeatSink dhs = new HeatSink("DHS", "desc", "dhs", 101, 3, 1.0, HardPointType.NONE, 10,
+            Faction.INNERSPHERE, 0.2, 0.2, 1.4);
+    private final ArmourUpgrade armour = new ArmourUpgrade("FERRO", "desc", "ferro", 2800, Faction.INNERSPHERE, 0,
+            35.84, new int[] { 1, 2, 2, 1, 1, 1, 1, 0 }, ffArmour);
+    private final ModifierDescription description = new ModifierDescription("ERLL COOLDOWN", "erll_cd",
+            Operation.MUL, Arrays.asList("erlargelaser"), ModifierDescription.SPEC_WEAPON_COOL_DOWN,
+            ModifierType.NEGATIVE_GOOD);
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Database database = makeDatabase();
+
+        final Database loaded = roundTrip(database).getDatabase();
+
+        assertEquals(database.getVersion(), loaded.getVersion());
+        assertEquals(database.getChecksums(), loaded.getChecksums());
+        assertEquals(database.getSources(), loaded.getSources());
+        assertEquals(database.getItems().size(), loaded.getItems().size());
+        final HeatSink loadedDhs = (HeatSink) loaded.getItems().get(1);
+        assertEquals(dhs.getId(), loadedDhs.getId());
+        assertEquals(dhs.getName(), loadedDhs.getName());
+        assertEquals(dhs.getMass(), loadedDhs.getMass(), 0.0);
+        assertEquals(dhs.getDissipation(), loadedDhs.getDissipation(), 0.0);
+        assertEquals(dhs.getFaction(), loadedDhs.getFaction());
+
+        final ArmourUpgrade loadedArmour = (ArmourUpgrade) loaded.getUpgrades().get(0);
+        assertEquals(armour.getArmourPerTon(), loadedArmour.getArmourPerTon(), 0.0);
+        for (final Location location : Location.values()) {
+            assertEquals(armour.getFixedSlotsFor(location), loadedArmour.getFixedSlotsFor(location));
+        }
+
+        assertEquals(description, loaded.getModifierDescriptions().get(description.getKey()));
+        assertEquals(Environment.NEUTRAL.getName(), loaded.getEnvironments().get(0).getName());
+        assertEquals(ConsumableType.COOLANT_FLUSH, loaded.getPilotModules().get(0).getType());
+    }
+
+    /**
+     * Objects that are shared in the database must be shared after loading as well, just like with ID_REFERENCES in
+     * XStream.
+     */
+    @Test
+    public void testSharedReferences() throws Exception {
+        final Database loaded = roundTrip(makeDatabase()).getDatabase();
+
+        final ArmourUpgrade loadedArmour = (ArmourUpgrade) loaded.getUpgrades().get(0);
+        assertSame(loaded.getItems().get(0), loadedArmour.getFixedSlotItem().get());
+    }
+
+    @Test
+    public void testStockLoadout() throws Exception {
+        final Database loaded = roundTrip(makeDatabase()).getDatabase();
+
+        final StockLoadout stock = loaded.getStockLoadouts().get(0);
+        final StockComponent component = stock.getComponents().get(0);
+        assertEquals(Location.RightTorso, component.getLocation());
+        assertEquals(20, component.getArmourFront());
+        assertEquals(8, component.getArmourBack());
+        assertEquals(Arrays.asList(101, 101), component.getItems());
+        assertEquals(ActuatorState.NONE, component.getActuatorState());
+
+        try {
+            component.getItems().add(3);
+            fail("Expected unmodifiable list!");
+        }
+        catch (final UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testSectionsMatchDatabase() throws Exception {
+        final DatabaseSnapshot snapshot = roundTrip(makeDatabase());
+
+        final List<Item> items = snapshot.getItems();
+        final Database loaded = snapshot.getDatabase();
+
+        assertSame(items.get(0), loaded.getItems().get(0));
+        assertSame(snapshot.getUpgrades().get(0), loaded.getUpgrades().get(0));
+    }
+
+    @Test
+    public void testVersionWithoutDecoding() throws Exception {
+        final DatabaseSnapshot snapshot = roundTrip(makeDatabase());
+        assertEquals("2.0.0", snapshot.getVersion());
+    }
+
+    @Test
+    public void testOpenMapped() throws Exception {
+        final File file = folder.newFile("database.bin");
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            DatabaseSnapshot.write(makeDatabase(), fos);
+        }
+
+        final DatabaseSnapshot snapshot = DatabaseSnapshot.open(file.toPath());
+
+        assertEquals("2.0.0", snapshot.getVersion());
+        assertEquals(dhs.getName(), snapshot.getDatabase().getItems().get(1).getName());
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadMagic() throws Exception {
+        DatabaseSnapshot.read(new ByteArrayInputStream("<?xml version=\"1.0\"?><database/>".getBytes()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DatabaseSnapshot.write(makeDatabase(), baos);
+        final byte[] data = baos.toByteArray();
+
+        DatabaseSnapshot.read(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 10)));
+    }
+
+    @Test
+    public void testDeterministic() throws Exception {
+        final Database database = makeDatabase();
+        final ByteArrayOutputStream first = new ByteArrayOutputStream();
+        final ByteArrayOutputStream second = new ByteArrayOutputStream();
+        DatabaseSnapshot.write(database, first);
+        DatabaseSnapshot.write(database, second);
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+    }
+
+    private Database makeDatabase() {
+        final Map<String, Long> checksums = new HashMap<>();
+        checksums.put("Game/Objects.pak", 1234L);
+
+        final List<Item> items = new ArrayList<>(Arrays.asList(ffArmour, dhs));
+        final List<Upgrade> upgrades = new ArrayList<>(Arrays.asList(armour));
+        final List<Consumable> consumables = new ArrayList<>(Arrays.asList(new Consumable("COOLANT FLUSH", "CF",
+                "desc", "coolant", 4000, Faction.ANY, ConsumableType.COOLANT_FLUSH)));
+        final List<Environment> environments = new ArrayList<>(Arrays.asList(Environment.NEUTRAL));
+
+        final List<StockComponent> components = new ArrayList<>();
+        components.add(new StockComponent(Location.RightTorso, 20, 8, Arrays.asList(101, 101), null,
+                ActuatorState.NONE));
+        final List<StockLoadout> stocks = new ArrayList<>();
+        stocks.add(new StockLoadout(1, components, 2800, 3100, 3002, 3003));
+
+        final Map<String, ModifierDescription> descriptions = new HashMap<>();
+        descriptions.put(description.getKey(), description);
+
+        final Map<String, List<String>> sources = new HashMap<>();
+        sources.put("stock/xyz", new ArrayList<>(Arrays.asList("Game/Objects.pak")));
+
+        return new Database("2.0.0", checksums, sources, items, upgrades, new ArrayList<>(), consumables,
+                new ArrayList<>(), environments, stocks, descriptions);
+    }
+
+    private DatabaseSnapshot roundTrip(Database aDatabase) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DatabaseSnapshot.write(aDatabase, baos);
+        return DatabaseSnapshot.read(new ByteArrayInputStream(baos.toByteArray()));
+    }
+}
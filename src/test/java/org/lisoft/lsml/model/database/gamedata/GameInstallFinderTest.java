@@ -0,0 +1,201 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database.gamedata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("javadoc")
+public class GameInstallFinderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private File cacheFile;
+    private final List<Path> confirmed = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setup() throws IOException {
+        root = folder.newFolder("root");
+        cacheFile = new File(folder.getRoot(), "cache/gamesearch.dat");
+        new File(root, "a/b/c").mkdirs();
+        new File(root, "d/e").mkdirs();
+        new File(root, "f").mkdirs();
+    }
+
+    @Test
+    public void testFindInSubtree() throws Exception {
+        final File install = makeInstall("d/e/Piranha Games/MechWarrior Online");
+
+        final Optional<Path> ans = find(null, true);
+
+        assertEquals(install.toPath().toAbsolutePath(), ans.get());
+        assertEquals(Arrays.asList(install.toPath().toAbsolutePath()), confirmed);
+    }
+
+    @Test
+    public void testRejectedCandidateContinuesSearch() throws Exception {
+        // Likely names are searched first, so the PTS is found before the live install.
+        final File pts = makeInstall("a/MechWarrior Online PTS");
+        final File install = makeInstall("a/b/c/Live");
+
+        final GameInstallFinder cut = new GameInstallFinder(null, aDir -> {
+            /* No-op */ }, aPath -> {
+                confirmed.add(aPath);
+                return !aPath.equals(pts.toPath().toAbsolutePath());
+            });
+        final Optional<Path> ans = cut.find(Collections.emptyList(), Arrays.asList(root.toPath()));
+
+        assertEquals(install.toPath().toAbsolutePath(), ans.get());
+        assertTrue(confirmed.contains(pts.toPath().toAbsolutePath()));
+    }
+
+    @Test
+    public void testCandidatesCheckedBeforeSearch() throws Exception {
+        final File install = makeInstall("f/MWO");
+
+        final GameInstallFinder cut = new GameInstallFinder(null, aDir -> {
+            /* No-op */ }, aPath -> {
+                confirmed.add(aPath);
+                return true;
+            });
+        final Optional<Path> ans = cut.find(Arrays.asList(install.toPath()), Collections.emptyList());
+
+        assertEquals(install.toPath().toAbsolutePath(), ans.get());
+        assertEquals(Arrays.asList(install.toPath().toAbsolutePath()), confirmed);
+    }
+
+    @Test
+    public void testCallbackNotCalledWhileHoldingMonitor() throws Exception {
+        makeInstall("a/MWO");
+        makeInstall("d/MWO");
+        final List<Boolean> heldLock = Collections.synchronizedList(new ArrayList<>());
+
+        final GameInstallFinder[] cut = new GameInstallFinder[1];
+        cut[0] = new GameInstallFinder(null, aDir -> {
+            /* No-op */ }, aPath -> {
+                heldLock.add(Thread.holdsLock(cut[0]));
+                return false;
+            });
+        assertFalse(cut[0].find(Collections.emptyList(), Arrays.asList(root.toPath())).isPresent());
+
+        assertEquals(Arrays.asList(false, false), heldLock);
+    }
+
+    @Test
+    public void testDepthIsBounded() throws Exception {
+        final StringBuilder deep = new StringBuilder("a");
+        for (int i = 0; i < GameInstallFinder.MAX_DEPTH; ++i) {
+            deep.append("/x");
+        }
+        makeInstall(deep.toString());
+
+        assertFalse(find(null, true).isPresent());
+    }
+
+    @Test
+    public void testKnownInstallRemembered() throws Exception {
+        final File install = makeInstall("a/b/c/MWO");
+        assertTrue(find(cacheFile, true).isPresent());
+        assertTrue(cacheFile.isFile());
+
+        // Found from the cache without any roots to search.
+        final GameInstallFinder cut = new GameInstallFinder(cacheFile, aDir -> {
+            /* No-op */ }, aPath -> true);
+        assertEquals(install.toPath().toAbsolutePath(),
+                cut.find(Collections.emptyList(), Collections.emptyList()).get());
+    }
+
+    @Test
+    public void testEmptySubtreeSkippedUntilModified() throws Exception {
+        assertFalse(find(cacheFile, true).isPresent());
+
+        // Installing deeper down doesn't modify the top level directory, so the search skips it.
+        final File topLevel = new File(root, "a");
+        final long lastModified = topLevel.lastModified();
+        final File install = makeInstall("a/b/MWO");
+        topLevel.setLastModified(lastModified);
+        assertFalse(find(cacheFile, true).isPresent());
+
+        topLevel.setLastModified(lastModified + 10000);
+        assertEquals(install.toPath().toAbsolutePath(), find(cacheFile, true).get());
+    }
+
+    @Test
+    public void testCorruptCacheIgnored() throws Exception {
+        cacheFile.getParentFile().mkdirs();
+        Files.write(cacheFile.toPath(), "garbage".getBytes(StandardCharsets.UTF_8));
+        final File install = makeInstall("f/MWO");
+
+        assertEquals(install.toPath().toAbsolutePath(), find(cacheFile, true).get());
+    }
+
+    @Test
+    public void testGetSteamLibraries() throws Exception {
+        final File steam = folder.newFolder("Steam");
+        final File library = folder.newFolder("SteamLibrary");
+        final File vdf = new File(steam, "steamapps/libraryfolders.vdf");
+        vdf.getParentFile().mkdirs();
+        final String escaped = library.getAbsolutePath().replace("\\", "\\\\");
+        Files.write(vdf.toPath(), ("\"libraryfolders\"\n{\n\t\"0\"\n\t{\n\t\t\"path\"\t\t\"" + escaped
+                + "\"\n\t}\n}\n").getBytes(StandardCharsets.UTF_8));
+
+        final Collection<Path> ans = GameInstallFinder
+                .getSteamLibraries(Arrays.asList(steam.toPath(), new File(folder.getRoot(), "nope").toPath()));
+
+        assertEquals(Arrays.asList(steam.toPath(), library.toPath()), new ArrayList<>(ans));
+    }
+
+    private Optional<Path> find(File aCacheFile, boolean aConfirm) {
+        final GameInstallFinder cut = new GameInstallFinder(aCacheFile, aDir -> {
+            /* No-op */ }, aPath -> {
+                confirmed.add(aPath);
+                return aConfirm;
+            });
+        return cut.find(Collections.emptyList(), Arrays.asList(root.toPath()));
+    }
+
+    private File makeInstall(String aPath) throws IOException {
+        final File install = new File(root, aPath);
+        new File(install, "Game").mkdirs();
+        new File(install, "Bin64").mkdirs();
+        new File(install, "Game/Objects.pak").createNewFile();
+        new File(install, "Bin64/MWOClient.exe").createNewFile();
+        return install;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database.gamedata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lisoft.lsml.model.database.gamedata.GameVFS.GameFile;
+
+@SuppressWarnings("javadoc")
+public class GameVFSTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File gameDir;
+    private File objectsPak;
+    private File indexFile;
+
+    @Before
+    public void setup() throws IOException {
+        gameDir = folder.newFolder("MWO");
+        new File(gameDir, "Bin64").mkdirs();
+        new File(gameDir, "Bin64/MWOClient.exe").createNewFile();
+        objectsPak = new File(gameDir, "Game/Objects.pak");
+        objectsPak.getParentFile().mkdirs();
+        writePak(objectsPak, "Libs/Items/ItemStats.xml", "<ItemStats/>");
+        indexFile = new File(folder.getRoot(), "index/gamefiles.idx");
+    }
+
+    @Test
+    public void testOpenGameFileCaseInsensitive() throws Exception {
+        try (GameVFS cut = new GameVFS(gameDir, indexFile)) {
+            final GameFile gameFile = cut.openGameFile(new File("Game/libs/items/itemstats.XML"));
+            assertEquals("<ItemStats/>", new String(gameFile.stream.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(crcOf("<ItemStats/>"), gameFile.crc32);
+        }
+    }
+
+    @Test
+    public void testGetCrc32() throws Exception {
+        try (GameVFS cut = new GameVFS(gameDir, indexFile)) {
+            assertEquals(crcOf("<ItemStats/>"), cut.getCrc32(new File("Game/Libs/Items/ItemStats.xml")));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenGameFileMissing() throws Exception {
+        try (GameVFS cut = new GameVFS(gameDir, indexFile)) {
+            cut.openGameFile(new File("Game/Libs/Items/Nope.xml"));
+        }
+    }
+
+    @Test
+    public void testIndexPersisted() throws Exception {
+        try (GameVFS cut = new GameVFS(gameDir, indexFile)) {
+            cut.getCrc32(new File("Game/Libs/Items/ItemStats.xml"));
+        }
+        assertTrue(indexFile.isFile());
+
+        // The index is trusted as long as the archive looks the same, so the archive isn't opened.
+        final GameArchiveIndex index = GameArchiveIndex.load(indexFile);
+        assertTrue(index.get(objectsPak).isPresent());
+        assertEquals("Libs/Items/ItemStats.xml", index.get(objectsPak).get().get(0).name);
+    }
+
+    @Test
+    public void testIndexStaleOnChangedArchive() throws Exception {
+        try (GameVFS cut = new GameVFS(gameDir, indexFile)) {
+            cut.getCrc32(new File("Game/Libs/Items/ItemStats.xml"));
+        }
+
+        final long lastModified = objectsPak.lastModified();
+        writePak(objectsPak, "Libs/Items/ItemStats.xml", "<ItemStats>patched</ItemStats>");
+        objectsPak.setLastModified(lastModified + 10000);
+
+        assertFalse(GameArchiveIndex.load(indexFile).get(objectsPak).isPresent());
+        try (GameVFS cut = new GameVFS(gameDir, indexFile)) {
+            assertEquals(crcOf("<ItemStats>patched</ItemStats>"),
+                    cut.getCrc32(new File("Game/Libs/Items/ItemStats.xml")));
+        }
+    }
+
+    @Test
+    public void testCorruptIndexIgnored() throws Exception {
+        indexFile.getParentFile().mkdirs();
+        try (FileOutputStream fos = new FileOutputStream(indexFile)) {
+            fos.write("garbage".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (GameVFS cut = new GameVFS(gameDir, indexFile)) {
+            assertEquals(crcOf("<ItemStats/>"), cut.getCrc32(new File("Game/Libs/Items/ItemStats.xml")));
+        }
+        assertTrue(GameArchiveIndex.load(indexFile).get(objectsPak).isPresent());
+    }
+
+    private long crcOf(String aContents) {
+        final CRC32 crc = new CRC32();
+        crc.update(aContents.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private void writePak(File aPak, String aEntry, String aContents) throws IOException {
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(aPak))) {
+            zos.putNextEntry(new ZipEntry(aEntry));
+            zos.write(aContents.getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database.gamedata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("javadoc")
+public class LocalisationTest {
+    private static final String WORKBOOK = "<?xml version=\"1.0\"?>\n" //
+            + "<Workbook><Worksheet><Table>\n" //
+            + "<Row><Cell><Data>Key</Data></Cell><Cell><Data>English</Data></Cell></Row>\n" //
+            + "<Row><Cell><Data>Heat_Multiplier</Data></Cell><Cell><Data>Heat</Data></Cell></Row>\n" //
+            + "<Row><Cell><Data>weapon_longrange_additive</Data></Cell><Cell><Data>Range</Data></Cell></Row>\n" //
+            + "<Row><Cell><Data>ammo_longrange_longrange_maxrange_mult</Data></Cell><Cell><Data>Far</Data></Cell></Row>\n" //
+            + "<Row><Cell><Data>item_mkl</Data></Cell><Cell><Data>Mark One</Data></Cell></Row>\n" //
+            + "<Row><Cell><Data>empty</Data></Cell><Cell/></Row>\n" //
+            + "<Row><Cell><Data>lonely</Data></Cell></Row>\n" //
+            + "<Row><Cell/><Cell><Data>No key</Data></Cell></Row>\n" //
+            + "</Table></Worksheet></Workbook>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File gameDir;
+    private File cacheFile;
+
+    @Before
+    public void setup() throws IOException {
+        gameDir = folder.newFolder("MWO");
+        new File(gameDir, "Bin64").mkdirs();
+        new File(gameDir, "Bin64/MWOClient.exe").createNewFile();
+        writeWorkbook(WORKBOOK);
+        cacheFile = new File(folder.getRoot(), "localisation.dat");
+    }
+
+    @Test
+    public void testKey2String() throws Exception {
+        try (GameVFS gameVFS = new GameVFS(gameDir)) {
+            Localisation.initialize(gameVFS);
+        }
+        assertEquals("English", Localisation.key2string("KEY"));
+        assertEquals("Heat", Localisation.key2string("@heat_mult"));
+        assertEquals("Range", Localisation.key2string("weapon_maxrange_add"));
+        assertEquals("Mark One", Localisation.key2string("item_mk1"));
+        assertNull(Localisation.key2string("empty"));
+        assertEquals("Empty Description", Localisation.key2string("missing_desc"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKey2StringMissing() throws Exception {
+        try (GameVFS gameVFS = new GameVFS(gameDir)) {
+            Localisation.initialize(gameVFS);
+        }
+        Localisation.key2string("lonely");
+    }
+
+    @Test
+    public void testKey2StringRepeatedSuffixes() throws Exception {
+        try (GameVFS gameVFS = new GameVFS(gameDir)) {
+            Localisation.initialize(gameVFS);
+        }
+        // Every suffix in the run is shortened, not only every other one.
+        assertEquals("Far", Localisation.key2string("ammo_range_range_range_mult"));
+        assertEquals("Far", Localisation.key2string("AMMO_MAXRANGE_LONGRANGE_RANGE_MULTIPLIER"));
+    }
+
+    @Test
+    public void testCacheUsedUntilWorkbookChanges() throws Exception {
+        final long crc;
+        try (GameVFS gameVFS = new GameVFS(gameDir)) {
+            Localisation.initialize(gameVFS, cacheFile);
+            crc = gameVFS.getCrc32(Localisation.LOCALISATION_XML);
+        }
+        assertTrue(cacheFile.isFile());
+
+        final LocalisationTable cached = LocalisationTable.load(cacheFile, crc).get();
+        assertEquals(6, cached.size());
+        assertEquals("Heat", cached.get("@heat_mult"));
+        assertTrue(cached.contains("@empty"));
+        assertNull(cached.get("@empty"));
+        assertFalse(LocalisationTable.load(cacheFile, crc + 1).isPresent());
+
+        writeWorkbook(WORKBOOK.replace(">Heat<", ">Hot<"));
+        try (GameVFS gameVFS = new GameVFS(gameDir)) {
+            Localisation.initialize(gameVFS, cacheFile);
+        }
+        assertEquals("Hot", Localisation.key2string("heat_multiplier"));
+    }
+
+    private void writeWorkbook(String aContents) throws IOException {
+        final File pak = new File(gameDir, "Game/Objects.pak");
+        pak.getParentFile().mkdirs();
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(pak))) {
+            zos.putNextEntry(new ZipEntry("Localized/Languages/TheRealLoc.xml"));
+            zos.write(aContents.getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+    }
+}
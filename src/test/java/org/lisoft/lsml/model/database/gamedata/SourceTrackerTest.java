@@ -0,0 +1,164 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database.gamedata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lisoft.lsml.model.database.Database;
+
+@SuppressWarnings("javadoc")
+public class SourceTrackerTest {
+    private static final File GLOBAL = new File("Game/Libs/Global.xml");
+    private static final File MDF_A = new File("Game/Libs/a.mdf");
+    private static final File MDF_B = new File("Game/Libs/b.mdf");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File gameDir;
+    private GameVFS gameVFS;
+
+    @Before
+    public void setup() throws IOException {
+        gameDir = folder.newFolder("MWO");
+        new File(gameDir, "Bin64").mkdirs();
+        new File(gameDir, "Bin64/MWOClient.exe").createNewFile();
+        writePak("global", "a", "b");
+        gameVFS = new GameVFS(gameDir);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        gameVFS.close();
+    }
+
+    @Test
+    public void testNoPrevious() throws Exception {
+        final SourceTracker cut = new SourceTracker(gameVFS, globals(), null);
+        assertFalse(cut.isIncremental());
+        assertTrue(cut.isStale(SourceTracker.CHASSIS + "a"));
+    }
+
+    @Test
+    public void testRecord() throws Exception {
+        final SourceTracker cut = new SourceTracker(gameVFS, globals(), null);
+        final SourceTracker.Sources sources = cut.newSources();
+        sources.open(MDF_A);
+        sources.dependOn(MDF_B);
+        cut.record(SourceTracker.CHASSIS + "a", sources);
+
+        assertEquals(Arrays.asList(MDF_A.toString(), MDF_B.toString()),
+                cut.getSources().get(SourceTracker.CHASSIS + "a"));
+        assertEquals(gameVFS.getCrc32(MDF_A), cut.getChecksums().get(MDF_A.toString()).longValue());
+        assertEquals(gameVFS.getCrc32(GLOBAL), cut.getChecksums().get(GLOBAL.toString()).longValue());
+    }
+
+    @Test
+    public void testOnlyChangedEntitiesStale() throws Exception {
+        final Database previous = makePrevious();
+        gameVFS.close();
+        writePak("global", "a", "b changed");
+        gameVFS = new GameVFS(gameDir);
+
+        final SourceTracker cut = new SourceTracker(gameVFS, globals(), previous);
+        assertTrue(cut.isIncremental());
+        assertFalse(cut.isStale(SourceTracker.CHASSIS + "a"));
+        assertTrue(cut.isStale(SourceTracker.CHASSIS + "b"));
+        assertTrue(cut.isStale(SourceTracker.CHASSIS + "new"));
+
+        cut.reuse(SourceTracker.CHASSIS + "a");
+        assertEquals(Arrays.asList(MDF_A.toString()), cut.getSources().get(SourceTracker.CHASSIS + "a"));
+        assertEquals(previous.getChecksums().get(MDF_A.toString()), cut.getChecksums().get(MDF_A.toString()));
+    }
+
+    @Test
+    public void testGlobalChangeMakesEverythingStale() throws Exception {
+        final Database previous = makePrevious();
+        gameVFS.close();
+        writePak("global changed", "a", "b");
+        gameVFS = new GameVFS(gameDir);
+
+        final SourceTracker cut = new SourceTracker(gameVFS, globals(), previous);
+        assertFalse(cut.isIncremental());
+        assertNull(cut.getPrevious());
+        assertTrue(cut.isStale(SourceTracker.CHASSIS + "a"));
+    }
+
+    @Test
+    public void testPreviousWithoutSources() throws Exception {
+        final Database previous = new Database("1", new HashMap<>(globals()), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new HashMap<>());
+        assertFalse(new SourceTracker(gameVFS, globals(), previous).isIncremental());
+    }
+
+    private Map<String, Long> globals() throws IOException {
+        final Map<String, Long> ans = new HashMap<>();
+        ans.put(GLOBAL.toString(), gameVFS.getCrc32(GLOBAL));
+        return ans;
+    }
+
+    private Database makePrevious() throws IOException {
+        final SourceTracker tracker = new SourceTracker(gameVFS, globals(), null);
+        for (final File file : Arrays.asList(MDF_A, MDF_B)) {
+            final SourceTracker.Sources sources = tracker.newSources();
+            sources.open(file);
+            tracker.record(SourceTracker.CHASSIS + file.getName().substring(0, 1), sources);
+        }
+        return new Database("1", tracker.getChecksums(), tracker.getSources(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new HashMap<>());
+    }
+
+    private void writePak(String aGlobal, String aA, String aB) throws IOException {
+        final File pak = new File(gameDir, "Game/Objects.pak");
+        pak.getParentFile().mkdirs();
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(pak))) {
+            writeEntry(zos, "Libs/Global.xml", aGlobal);
+            writeEntry(zos, "Libs/a.mdf", aA);
+            writeEntry(zos, "Libs/b.mdf", aB);
+        }
+    }
+
+    private void writeEntry(ZipOutputStream aZos, String aName, String aContents) throws IOException {
+        aZos.putNextEntry(new ZipEntry(aName));
+        aZos.write(aContents.getBytes(StandardCharsets.UTF_8));
+        aZos.closeEntry();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.database.gamedata;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.lisoft.lsml.model.database.gamedata.GameVFS.GameFile;
+
+@SuppressWarnings("javadoc")
+public class XMLItemStatsTest {
+    private static final String MODULES = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" //
+            + "<ModuleList>\n" //
+            + "  <Module id=\"1\" name=\"Consumed\" CType=\"CAmmoTypeStats\"/>\n" //
+            + "  <Unknown id=\"2\"><Module id=\"3\"/></Unknown>\n" //
+            + "  <Internal id=\"4\" name=\"Kept\" Ctype=\"CInternalStats\"/>\n" //
+            + "</ModuleList>";
+
+    private static final String MIXED = "<WeaponList>\n" //
+            + "  <Weapon id=\"10\" name=\"AWeapon\"><WeaponStats/></Weapon>\n" //
+            + "  <Weapon id=\"11\" name=\"BWeapon\"/>\n" //
+            + "  <UpgradeType id=\"20\" name=\"AnUpgrade\"/>\n" //
+            + "  <OmniPod id=\"30\"/>\n" //
+            + "  <Mech id=\"40\" name=\"amech\"/>\n" //
+            + "</WeaponList>";
+
+    @Test
+    public void testAppendRecords() {
+        final XMLItemStats cut = new XMLItemStats();
+        cut.append(gameFile(MIXED));
+
+        assertEquals(2, cut.WeaponList.size());
+        assertEquals("AWeapon", cut.WeaponList.get(0).name);
+        assertEquals("BWeapon", cut.WeaponList.get(1).name);
+        assertEquals(1, cut.UpgradeTypeList.size());
+        assertEquals(1, cut.OmniPodList.size());
+        assertEquals(1, cut.MechList.size());
+        assertEquals("amech", cut.MechList.get(0).name);
+    }
+
+    @Test
+    public void testAppendAccumulates() {
+        final XMLItemStats cut = new XMLItemStats();
+        cut.append(gameFile(MIXED));
+        cut.append(gameFile(MODULES));
+        assertEquals(2, cut.WeaponList.size());
+        assertEquals(2, cut.ModuleList.size());
+    }
+
+    @Test
+    public void testAppendConsumedModulesNotKept() {
+        final XMLItemStats cut = new XMLItemStats();
+        cut.append(gameFile(MODULES), aModule -> "CAmmoTypeStats".equals(aModule.CType));
+
+        assertEquals(1, cut.ModuleList.size());
+        assertEquals("Kept", cut.ModuleList.get(0).name);
+        assertEquals("CInternalStats", cut.ModuleList.get(0).CType); // Ctype is aliased
+    }
+
+    private GameFile gameFile(String aXml) {
+        return new GameFile(new ByteArrayInputStream(aXml.getBytes(StandardCharsets.UTF_8)), 0, "test.xml");
+    }
+}
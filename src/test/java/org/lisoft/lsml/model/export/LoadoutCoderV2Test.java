@@ -36,6 +36,7 @@ import org.lisoft.lsml.model.loadout.DefaultLoadoutFactory;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.loadout.LoadoutFactory;
 import org.lisoft.lsml.model.loadout.LoadoutStandard;
+import org.lisoft.lsml.view_fx.LiSongMechLab;
 
 /**
  * A test suite for {@link LoadoutCoderV2}.
@@ -45,7 +46,8 @@ import org.lisoft.lsml.model.loadout.LoadoutStandard;
 @SuppressWarnings("javadoc")
 public class LoadoutCoderV2Test {
     private final LoadoutFactory loadoutFactory = new DefaultLoadoutFactory();
-    private final LoadoutCoderV2 cut = new LoadoutCoderV2(loadoutFactory);
+    private final LoadoutCoderV2 cut = new LoadoutCoderV2(loadoutFactory,
+            () -> LiSongMechLab.getDatabase().get().getIndex());
 
     /**
      * The coder shall be able to decode all stock mechs.
@@ -33,6 +33,7 @@ import org.lisoft.lsml.model.loadout.DefaultLoadoutFactory;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.loadout.LoadoutFactory;
 import org.lisoft.lsml.util.DecodingException;
+import org.lisoft.lsml.view_fx.LiSongMechLab;
 
 /**
  * Test suite for {@link LoadoutCoderV3}.
@@ -43,7 +44,8 @@ import org.lisoft.lsml.util.DecodingException;
 public class LoadoutCoderV3Test {
     private final LoadoutFactory loadoutFactory = new DefaultLoadoutFactory();
     private final ErrorReporter errorReporter = mock(ErrorReporter.class);
-    private final LoadoutCoderV3 cut = new LoadoutCoderV3(errorReporter, loadoutFactory);
+    private final LoadoutCoderV3 cut = new LoadoutCoderV3(errorReporter, loadoutFactory,
+            () -> LiSongMechLab.getDatabase().get().getIndex());
 
     // TODO test error reporting to the callback!
 
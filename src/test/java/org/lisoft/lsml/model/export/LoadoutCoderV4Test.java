@@ -39,6 +39,7 @@ import org.lisoft.lsml.model.database.ChassisDB;
 import org.lisoft.lsml.model.loadout.DefaultLoadoutFactory;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.loadout.LoadoutFactory;
+import org.lisoft.lsml.view_fx.LiSongMechLab;
 
 /**
  * Test suite for {@link LoadoutCoderV4}.
@@ -50,7 +51,8 @@ public class LoadoutCoderV4Test {
 
     private final LoadoutFactory loadoutFactory = new DefaultLoadoutFactory();
     private final ErrorReporter errorReporter = mock(ErrorReporter.class);
-    private final LoadoutCoderV4 cut = new LoadoutCoderV4(errorReporter, loadoutFactory);
+    private final LoadoutCoderV4 cut = new LoadoutCoderV4(errorReporter, loadoutFactory,
+            () -> LiSongMechLab.getDatabase().get().getIndex());
 
     /**
      * The coder shall be able to decode all stock 'Mechs.
@@ -33,6 +33,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.Loadout;
+import org.lisoft.lsml.model.loadout.ResolvedWeaponStats;
 import org.lisoft.lsml.model.modifiers.Modifier;
 import org.lisoft.lsml.util.Pair;
 import org.lisoft.lsml.util.TestHelpers;
@@ -50,6 +51,7 @@ public class MaxDpsGraphModelTest {
     public void setUp() {
         when(loadout.getAllModifiers()).thenReturn(modifiers);
         when(loadout.items(Weapon.class)).thenReturn(weapons);
+        when(loadout.getWeaponStats()).thenAnswer(aInvocation -> new ResolvedWeaponStats(weapons, modifiers));
         cut = new MaxDpsGraphModel(loadout);
     }
 
@@ -23,8 +23,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -42,6 +44,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.Loadout;
+import org.lisoft.lsml.model.loadout.ResolvedWeaponStats;
 import org.lisoft.lsml.model.metrics.MaxSustainedDPS;
 import org.lisoft.lsml.model.modifiers.Modifier;
 import org.lisoft.lsml.util.Pair;
@@ -63,6 +66,7 @@ public class SustainedDpsGraphModelTest {
     public void setUp() {
         when(loadout.getAllModifiers()).thenReturn(modifiers);
         when(loadout.items(Weapon.class)).thenReturn(weapons);
+        when(loadout.getWeaponStats()).thenAnswer(aInvocation -> new ResolvedWeaponStats(weapons, modifiers));
         cut = new SustainedDpsGraphModel(maxSustDPS, loadout);
     }
 
@@ -81,6 +85,8 @@ public class SustainedDpsGraphModelTest {
                 .thenAnswer(aInvocation -> rangeEff1.apply(aInvocation.getArgument(0)));
         when(w2.getRangeEffectiveness(anyDouble(), same(modifiers)))
                 .thenAnswer(aInvocation -> rangeEff2.apply(aInvocation.getArgument(0)));
+        stubBatchRangeEffectiveness(w1, rangeEff1);
+        stubBatchRangeEffectiveness(w2, rangeEff2);
 
         weapons.add(nonOffensive);
         weapons.add(w1);
@@ -159,4 +165,15 @@ public class SustainedDpsGraphModelTest {
     public void testGetYAxisLabel() {
         assertEquals("DPS", cut.getYAxisLabel());
     }
+
+    private void stubBatchRangeEffectiveness(Weapon aWeapon, Function<Double, Double> aRangeEff) {
+        doAnswer(aInvocation -> {
+            final double[] ranges = aInvocation.getArgument(0);
+            final double[] output = aInvocation.getArgument(2);
+            for (int i = 0; i < ranges.length; ++i) {
+                output[i] = aRangeEff.apply(ranges[i]);
+            }
+            return null;
+        }).when(aWeapon).getRangeEffectiveness(any(double[].class), same(modifiers), any(double[].class));
+    }
 }
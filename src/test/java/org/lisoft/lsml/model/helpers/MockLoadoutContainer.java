@@ -30,9 +30,11 @@ import org.lisoft.lsml.model.chassi.HardPointType;
 import org.lisoft.lsml.model.chassi.Location;
 import org.lisoft.lsml.model.chassi.MovementProfile;
 import org.lisoft.lsml.model.item.Internal;
+import org.lisoft.lsml.model.item.Weapon;
 import org.lisoft.lsml.model.loadout.ConfiguredComponent;
 import org.lisoft.lsml.model.loadout.Loadout;
 import org.lisoft.lsml.model.loadout.LoadoutStandard;
+import org.lisoft.lsml.model.loadout.ResolvedWeaponStats;
 import org.lisoft.lsml.model.loadout.WeaponGroups;
 import org.lisoft.lsml.model.modifiers.PilotSkills;
 import org.lisoft.lsml.model.upgrades.ArmourUpgrade;
@@ -87,6 +89,8 @@ public class MockLoadoutContainer {
         when(upgrades.getStructure()).thenReturn(structureUpgrade);
         when(upgrades.getArmour()).thenReturn(armourUpgrade);
         when(upgrades.getHeatSink()).thenReturn(heatSinkUpgrade);
+        when(loadout.getWeaponStats()).thenAnswer(
+                aInvocation -> new ResolvedWeaponStats(loadout.items(Weapon.class), loadout.getAllModifiers()));
 
         ira = mock(Component.class);
         irt = mock(Component.class);
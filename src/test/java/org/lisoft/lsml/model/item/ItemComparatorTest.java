@@ -170,7 +170,7 @@ public class ItemComparatorTest {
     @Test
     public void testJumpJets() {
         // Setup
-        final List<JumpJet> jumpJets = ItemDB.lookup(JumpJet.class);
+        final List<JumpJet> jumpJets = new ArrayList<>(ItemDB.lookup(JumpJet.class));
 
         // Execute
         jumpJets.sort(new ItemComparator(false));
@@ -187,7 +187,7 @@ public class ItemComparatorTest {
     @Test
     public void testJumpJetsPgi() {
         // Setup
-        final List<JumpJet> jumpJets = ItemDB.lookup(JumpJet.class);
+        final List<JumpJet> jumpJets = new ArrayList<>(ItemDB.lookup(JumpJet.class));
 
         // Execute
         jumpJets.sort(new ItemComparator(true));
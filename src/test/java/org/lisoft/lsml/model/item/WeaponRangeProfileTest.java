@@ -19,6 +19,7 @@
 //@formatter:on
 package org.lisoft.lsml.model.item;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -257,6 +258,23 @@ public class WeaponRangeProfileTest {
         assertShapeEquals(expected, cut.getPolygonTrainRanges(dx, noModifiers), 0.0);
     }
 
+    @Test
+    public void testGetPolygonTrainRangeArray() {
+        final List<RangeNode> profile = new ArrayList<>();
+        profile.add(new RangeNode(TestHelpers.rangeNode(0.0), InterpolationType.STEP, 0.25));
+        profile.add(new RangeNode(TestHelpers.rangeNode(100.0), InterpolationType.EXPONENTIAL, 0.5, 2.0));
+        profile.add(new RangeNode(TestHelpers.rangeNode(200.0), InterpolationType.LINEAR, 1.0));
+
+        final WeaponRangeProfile cut = new WeaponRangeProfile(profile);
+
+        // The step that coincides with a node is repeated after it, like the node itself.
+        assertArrayEquals(
+                new double[] { 0.0, 50.0, Math.nextDown(100.0), 100.0, 100.0, 150.0, 200.0, Math.nextUp(200.0) },
+                cut.getPolygonTrainRangeArray(50.0, noModifiers), 0.0);
+        assertArrayEquals(new double[] { 0.0, 50.0, 100.0, 110.0, 110.0, 150.0, 200.0, 220.0, 220.0 },
+                cut.getPolygonTrainRangeArray(50.0, modifersRange10Pct), 1E-9);
+    }
+
     /**
      * {@link WeaponRangeProfile#getPolygonTrainRanges} returns a series of range positions that can be used for drawing
      * the range profile as a polygon train.
@@ -404,6 +422,38 @@ public class WeaponRangeProfileTest {
         assertEquals(0.0, cut.rangeEffectiveness(scale * 500.0, modifersRange10Pct), TOLERANCE);
     }
 
+    @Test
+    public void testRangeEffectivenessBatch() {
+        final List<RangeNode> profile = new ArrayList<>();
+        profile.add(new RangeNode(TestHelpers.rangeNode(0.0), InterpolationType.STEP, 0.25));
+        profile.add(new RangeNode(TestHelpers.rangeNode(100.0), InterpolationType.EXPONENTIAL, 0.5, 2.0));
+        profile.add(new RangeNode(TestHelpers.rangeNode(200.0), InterpolationType.LINEAR, 1.5));
+        profile.add(new RangeNode(TestHelpers.rangeNode(300.0), InterpolationType.LINEAR, 1.0));
+        final Attribute attrSpread = new Attribute(1.0, ModifierDescription.SEL_ALL,
+                ModifierDescription.SPEC_WEAPON_SPREAD);
+
+        final WeaponRangeProfile cut = new WeaponRangeProfile(attrSpread, profile);
+
+        final double[] ranges = { -1.0, 0.0, 50.0, Math.nextDown(110.0), 110.0, 165.0, 220.0, 275.0, 330.0,
+                Math.nextUp(330.0), 1000.0 };
+        final double[] ans = new double[ranges.length];
+        cut.rangeEffectiveness(ranges, modifersRange10Pct, ans);
+
+        for (int i = 0; i < ranges.length; ++i) {
+            assertEquals(cut.rangeEffectiveness(ranges[i], modifersRange10Pct), ans[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testRangeEffectivenessBatchEmptyRange() {
+        final WeaponRangeProfile cut = new WeaponRangeProfile(new ArrayList<>());
+
+        final double[] ans = { 1.0, 1.0 };
+        cut.rangeEffectiveness(new double[] { 0.0, 100.0 }, noModifiers, ans);
+        assertEquals(0.0, ans[0], 0.0);
+        assertEquals(0.0, ans[1], 0.0);
+    }
+
     @Test
     public void testRangeEffectivenessSpreadLotsOfProjectiles() {
         // We don't want range affecting the result.
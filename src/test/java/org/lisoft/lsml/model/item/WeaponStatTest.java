@@ -0,0 +1,95 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.item;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.lisoft.lsml.model.modifiers.Modifier;
+
+@SuppressWarnings("javadoc")
+public class WeaponStatTest {
+    private final Collection<Modifier> modifiers = new ArrayList<>();
+    private final Weapon weapon = mock(Weapon.class);
+
+    @Before
+    public void setup() {
+        when(weapon.getDamagePerShot()).thenReturn(10.0);
+        when(weapon.getSecondsPerShot(modifiers)).thenReturn(4.0);
+        when(weapon.getMass()).thenReturn(7.0);
+        when(weapon.getHeat(modifiers)).thenReturn(5.0);
+        when(weapon.getSlots()).thenReturn(3);
+    }
+
+    @Test
+    public void testCached() {
+        assertSame(WeaponStat.of("d/s"), WeaponStat.of("d/s"));
+        assertSame(WeaponStat.DAMAGE_PER_SECOND, WeaponStat.of("d/s"));
+        assertEquals("d/hhs", WeaponStat.of("d/hhs").toString());
+    }
+
+    @Test
+    public void testEvaluate() {
+        assertEquals(10.0 / 4.0, WeaponStat.of("d/s").evaluate(weapon, modifiers), 0.0);
+        assertEquals(10.0 / (5.0 * 5.0 * 4.0), WeaponStat.of("d/hhs").evaluate(weapon, modifiers), 0.0);
+        assertEquals(7.0 * 3.0, WeaponStat.of("tc").evaluate(weapon, modifiers), 0.0);
+        assertEquals(1.0, WeaponStat.of("dsthc/dsthc").evaluate(weapon, modifiers), 0.0);
+    }
+
+    @Test
+    public void testEvaluateOnlyComputesUsedFactors() {
+        WeaponStat.of("d/hh").evaluate(weapon, modifiers);
+
+        verify(weapon, times(1)).getHeat(modifiers);
+        verify(weapon, never()).getSecondsPerShot(modifiers);
+        verify(weapon, never()).getMass();
+    }
+
+    @Test
+    public void testEvaluateResolvedFactors() {
+        assertEquals(WeaponStat.of("hs/dt").evaluate(weapon, modifiers),
+                WeaponStat.of("hs/dt").evaluate(10.0, 4.0, 7.0, 5.0, 3.0), 0.0);
+    }
+
+    @Test
+    public void testZeroOverZero() {
+        assertEquals(0.0, WeaponStat.of("h/h").evaluate(0.0, 1.0, 1.0, 0.0, 1.0), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownNominator() {
+        WeaponStat.of("dx");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDenominator() {
+        WeaponStat.of("d/s/h");
+    }
+}
@@ -26,10 +26,12 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.lisoft.lsml.model.chassi.ArmourSide;
 import org.lisoft.lsml.model.chassi.ComponentStandard;
 import org.lisoft.lsml.model.chassi.HardPoint;
 import org.lisoft.lsml.model.chassi.HardPointType;
@@ -281,6 +283,43 @@ public class ConfiguredComponentStandardTest extends ConfiguredComponentTest {
         assertEquals(cut, new ConfiguredComponentStandard(cut));
     }
 
+    @Test
+    public void testCopyCtorArmourTotal() {
+        final ConfiguredComponentStandard cut = makeDefaultCUT();
+        cut.setArmour(ArmourSide.ONLY, 10, false);
+
+        final ConfiguredComponentStandard copy = new ConfiguredComponentStandard(cut);
+        copy.setArmour(ArmourSide.ONLY, 4, false);
+
+        assertEquals(10, cut.getArmourTotal());
+        assertEquals(4, copy.getArmourTotal());
+    }
+
+    @Test
+    public void testCopyCtorIndependentItems() {
+        final Item item1 = mock(Item.class);
+        when(item1.getMass()).thenReturn(2.0);
+        final Item item2 = mock(Item.class);
+        when(item2.getMass()).thenReturn(3.0);
+
+        final ConfiguredComponentStandard cut = makeDefaultCUT();
+        cut.addItem(item1);
+        assertEquals(2.0, cut.getItemMass(), 0.0);
+
+        final ConfiguredComponentStandard copy = new ConfiguredComponentStandard(cut);
+        assertEquals(2.0, copy.getItemMass(), 0.0);
+
+        copy.addItem(item2);
+        assertEquals(Arrays.asList(item1, item2), copy.getItemsEquipped());
+        assertEquals(Arrays.asList(item1), cut.getItemsEquipped());
+        assertEquals(5.0, copy.getItemMass(), 0.0);
+        assertEquals(2.0, cut.getItemMass(), 0.0);
+
+        cut.removeItem(item1);
+        assertEquals(Arrays.asList(item1, item2), copy.getItemsEquipped());
+        assertTrue(cut.getItemsEquipped().isEmpty());
+    }
+
     @Test
     public void testGetHardPointCount() {
         when(stdInternal.getHardPointCount(HardPointType.ENERGY)).thenReturn(7);
@@ -263,6 +263,17 @@ public abstract class ConfiguredComponentTest {
         assertEquals(maxArmour / 2, cut.getArmourTotal());
     }
 
+    @Test
+    public final void testGetArmourTotal_AfterChanges() throws Exception {
+        location = Location.CenterTorso;
+        maxArmour = 4 * 10;
+        final ConfiguredComponent cut = makeDefaultCUT();
+        cut.setArmour(ArmourSide.FRONT, 20, manualArmour);
+        cut.setArmour(ArmourSide.BACK, 10, manualArmour);
+        cut.setArmour(ArmourSide.FRONT, 5, manualArmour);
+        assertEquals(15, cut.getArmourTotal());
+    }
+
     @Test
     public final void testGetEngineHeatSinks() throws Exception {
         final HeatSink fixed1 = Mockito.mock(HeatSink.class);
@@ -355,6 +366,23 @@ public abstract class ConfiguredComponentTest {
         assertEquals(17.0, cut.getItemMass(), 0.0);
     }
 
+    @Test
+    public final void testGetItemMass_AfterChanges() throws Exception {
+        final Item item1 = Mockito.mock(Item.class);
+        Mockito.when(item1.getMass()).thenReturn(5.0);
+        final Item item2 = Mockito.mock(Item.class);
+        Mockito.when(item2.getMass()).thenReturn(7.0);
+
+        final ConfiguredComponent cut = makeDefaultCUT();
+        assertEquals(0.0, cut.getItemMass(), 0.0);
+        cut.addItem(item1);
+        assertEquals(5.0, cut.getItemMass(), 0.0);
+        cut.addItem(item2);
+        assertEquals(12.0, cut.getItemMass(), 0.0);
+        cut.removeItem(item1);
+        assertEquals(7.0, cut.getItemMass(), 0.0);
+    }
+
     @Test
     public final void testGetItemsEquipped() throws Exception {
         final Item fixed1 = Mockito.mock(Item.class);
@@ -0,0 +1,365 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.loadout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.lisoft.lsml.application.ErrorReporter;
+import org.lisoft.lsml.command.CmdAddItem;
+import org.lisoft.lsml.command.CmdAddModule;
+import org.lisoft.lsml.command.CmdSetStructureType;
+import org.lisoft.lsml.messages.MessageDelivery;
+import org.lisoft.lsml.messages.NotificationMessage;
+import org.lisoft.lsml.messages.NotificationMessage.Severity;
+import org.lisoft.lsml.model.chassi.ArmourSide;
+import org.lisoft.lsml.model.chassi.ChassisStandard;
+import org.lisoft.lsml.model.chassi.ComponentOmniMech;
+import org.lisoft.lsml.model.chassi.ComponentStandard;
+import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.chassi.OmniPod;
+import org.lisoft.lsml.model.database.ItemDB;
+import org.lisoft.lsml.model.item.BallisticWeapon;
+import org.lisoft.lsml.model.item.Consumable;
+import org.lisoft.lsml.model.item.Item;
+import org.lisoft.lsml.model.item.Weapon;
+import org.lisoft.lsml.model.loadout.EquipResult.EquipResultType;
+import org.lisoft.lsml.model.upgrades.ArmourUpgrade;
+import org.lisoft.lsml.model.upgrades.StructureUpgrade;
+import org.lisoft.lsml.model.upgrades.UpgradesMutable;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+/**
+ * Test suite for {@link LoadoutBuilder}.
+ *
+ * @author Emily Björk
+ */
+@SuppressWarnings("javadoc")
+public class LoadoutBuilderTest {
+    private final LoadoutBuilder cut = new LoadoutBuilder();
+    private final ErrorReporter errorReporter = mock(ErrorReporter.class);
+    private final ChassisStandard chassis = mock(ChassisStandard.class);
+    private final UpgradesMutable upgrades = mock(UpgradesMutable.class);
+    private final ArmourUpgrade armourUpgrade = mock(ArmourUpgrade.class);
+    private final StructureUpgrade structureUpgrade = mock(StructureUpgrade.class);
+    private final ComponentStandard[] internals = new ComponentStandard[Location.values().length];
+
+    @Before
+    public void setup() {
+        // 5 tons of structure and 3 tons, or 96 points, of armour.
+        when(chassis.getMassMax()).thenReturn(8);
+        when(upgrades.getArmour()).thenReturn(armourUpgrade);
+        when(upgrades.getStructure()).thenReturn(structureUpgrade);
+        when(armourUpgrade.getArmourMass(anyInt()))
+                .thenAnswer(aInvocation -> (Integer) aInvocation.getArgument(0) / 32.0);
+        when(structureUpgrade.getStructureMass(chassis)).thenReturn(5.0);
+        for (final Location location : Location.values()) {
+            final ComponentStandard internal = mock(ComponentStandard.class);
+            when(internal.getLocation()).thenReturn(location);
+            when(internal.getArmourMax()).thenReturn(70);
+            internals[location.ordinal()] = internal;
+        }
+    }
+
+    /**
+     * Consumables and items are applied directly after the pushed commands of lower or equal priority.
+     */
+    @Test
+    public void testApplyAll_InterleavesPushedCommands() throws Exception {
+        final Loadout loadout = mock(Loadout.class);
+        final ConfiguredComponent component = mock(ConfiguredComponent.class);
+        final Item item = mock(Item.class);
+        final Consumable described = mock(Consumable.class);
+        final Consumable pushed = mock(Consumable.class);
+        final StructureUpgrade newStructure = mock(StructureUpgrade.class);
+        when(loadout.canEquipDirectly(item)).thenReturn(EquipResult.SUCCESS);
+        when(component.canEquip(item)).thenReturn(EquipResult.SUCCESS);
+        when(loadout.canAddModule(any(Consumable.class))).thenReturn(EquipResult.SUCCESS);
+
+        cut.addItem(loadout, component, item);
+        cut.addConsumable(loadout, described);
+        cut.push(new CmdAddModule(null, loadout, pushed));
+        cut.push(new CmdSetStructureType(upgrades, newStructure));
+        cut.applyAll();
+
+        final InOrder inOrder = inOrder(upgrades, loadout, component);
+        inOrder.verify(upgrades).setStructure(newStructure);
+        inOrder.verify(loadout).addModule(pushed);
+        inOrder.verify(loadout).addModule(described);
+        inOrder.verify(component).addItem(item);
+    }
+
+    @Test
+    public void testAddItem_LargeBoreDisablesToggles() throws Exception {
+        final Loadout loadout = mock(Loadout.class);
+        final ConfiguredComponentOmniMech component = mock(ConfiguredComponentOmniMech.class);
+        final Weapon weapon = mock(Weapon.class);
+        when(weapon.isLargeBore()).thenReturn(true);
+        when(loadout.canEquipDirectly(weapon)).thenReturn(EquipResult.SUCCESS);
+        when(component.canEquip(weapon)).thenReturn(EquipResult.SUCCESS);
+        when(component.getToggleState(ItemDB.LAA)).thenReturn(true);
+
+        cut.addItem(loadout, component, weapon);
+        cut.applyAll();
+
+        final InOrder inOrder = inOrder(component);
+        inOrder.verify(component).setToggleState(ItemDB.HA, false);
+        inOrder.verify(component).setToggleState(ItemDB.LAA, false);
+        inOrder.verify(component).addItem(weapon);
+    }
+
+    @Test
+    public void testAddItem_ManyGaussWarning() throws Exception {
+        final MessageDelivery delivery = mock(MessageDelivery.class);
+        final Loadout loadout = mock(Loadout.class);
+        final ConfiguredComponent component = mock(ConfiguredComponent.class);
+        final BallisticWeapon gauss = mock(BallisticWeapon.class);
+        when(gauss.getName()).thenReturn("GAUSS RIFLE");
+        when(loadout.canEquipDirectly(gauss)).thenReturn(EquipResult.SUCCESS);
+        when(component.canEquip(gauss)).thenReturn(EquipResult.SUCCESS);
+        when(loadout.items(BallisticWeapon.class)).thenReturn(Arrays.asList(gauss, gauss));
+
+        cut.addItem(delivery, loadout, component, gauss);
+        cut.applyAll();
+
+        verify(delivery).post(new NotificationMessage(Severity.WARNING, loadout, CmdAddItem.MANY_GAUSS_WARNING));
+        verify(component).addItem(gauss);
+    }
+
+    @Test
+    public void testAddItem_NotEquippable() throws Exception {
+        final Loadout loadout = mock(Loadout.class);
+        final ConfiguredComponent component = mock(ConfiguredComponent.class);
+        final Item item = mock(Item.class);
+        when(loadout.canEquipDirectly(item)).thenReturn(EquipResult.make(EquipResultType.TooHeavy));
+
+        cut.addItem(loadout, component, item);
+        cut.applyAll();
+        cut.reportErrors(loadout, errorReporter);
+
+        verify(component, never()).addItem(item);
+        final List<Throwable> errors = verifyErrors(loadout);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof EquipException);
+    }
+
+    @Test
+    public void testReportErrors_NoErrors() throws Exception {
+        final Loadout loadout = mock(Loadout.class);
+        final Consumable consumable = mock(Consumable.class);
+        when(loadout.canAddModule(consumable)).thenReturn(EquipResult.SUCCESS);
+
+        cut.addConsumable(loadout, consumable);
+        cut.applyAll();
+        cut.reportErrors(loadout, errorReporter);
+
+        verify(loadout).addModule(consumable);
+        verifyNoMoreInteractions(errorReporter);
+    }
+
+    /**
+     * Errors from both described parts and pushed commands are collected in the order they occurred.
+     */
+    @Test
+    public void testReportErrors_Collected() throws Exception {
+        final Loadout loadout = mock(Loadout.class);
+        final Consumable described = mock(Consumable.class);
+        final Consumable pushed = mock(Consumable.class);
+        when(loadout.canAddModule(any(Consumable.class))).thenReturn(EquipResult.make(EquipResultType.NotSupported));
+        final Throwable pushedError = new RuntimeException("pushed");
+
+        cut.addConsumable(loadout, described);
+        cut.push(new CmdAddModule(null, loadout, pushed));
+        cut.pushError(pushedError);
+        cut.applyAll();
+        cut.reportErrors(loadout, errorReporter);
+
+        verify(loadout, never()).addModule(any(Consumable.class));
+        final List<Throwable> errors = verifyErrors(loadout);
+        assertEquals(3, errors.size());
+        assertEquals(pushedError, errors.get(0));
+        assertTrue(errors.get(1) instanceof EquipException);
+        assertTrue(errors.get(2) instanceof EquipException);
+    }
+
+    @Test
+    public void testSetArmour_Direct() throws Exception {
+        final LoadoutStandard loadout = makeLoadout();
+        final ConfiguredComponent ct = loadout.getComponent(Location.CenterTorso);
+        final ConfiguredComponent la = loadout.getComponent(Location.LeftArm);
+
+        cut.setArmour(loadout, ct, ArmourSide.FRONT, 40, true);
+        cut.setArmour(loadout, ct, ArmourSide.BACK, 20, true);
+        cut.setArmour(loadout, la, ArmourSide.ONLY, 30, false);
+        cut.applyAll();
+        cut.reportErrors(loadout, errorReporter);
+
+        assertEquals(40, ct.getArmour(ArmourSide.FRONT));
+        assertEquals(20, ct.getArmour(ArmourSide.BACK));
+        assertTrue(ct.hasManualArmour());
+        assertEquals(30, la.getArmour(ArmourSide.ONLY));
+        assertFalse(la.hasManualArmour());
+        verifyNoMoreInteractions(errorReporter);
+    }
+
+    /**
+     * The armour is only set directly if every side stays valid at the highest value it takes, otherwise each value is
+     * set with a checked command like before.
+     */
+    @Test
+    public void testSetArmour_PeakOverComponentMax() throws Exception {
+        final LoadoutStandard loadout = makeLoadout();
+        final ConfiguredComponent ct = loadout.getComponent(Location.CenterTorso);
+
+        cut.setArmour(loadout, ct, ArmourSide.FRONT, 50, false);
+        cut.setArmour(loadout, ct, ArmourSide.BACK, 30, false);
+        cut.setArmour(loadout, ct, ArmourSide.FRONT, 10, false);
+        cut.applyAll();
+        cut.reportErrors(loadout, errorReporter);
+
+        // 50 + 30 is more than the max of 70 so the back armour couldn't be set.
+        assertEquals(10, ct.getArmour(ArmourSide.FRONT));
+        assertEquals(0, ct.getArmour(ArmourSide.BACK));
+        final List<Throwable> errors = verifyErrors(loadout);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof EquipException);
+    }
+
+    @Test
+    public void testSetArmour_TooHeavy() throws Exception {
+        final LoadoutStandard loadout = makeLoadout();
+        final ConfiguredComponent la = loadout.getComponent(Location.LeftArm);
+        final ConfiguredComponent ra = loadout.getComponent(Location.RightArm);
+
+        cut.setArmour(loadout, la, ArmourSide.ONLY, 60, false);
+        cut.setArmour(loadout, ra, ArmourSide.ONLY, 60, false);
+        cut.applyAll();
+        cut.reportErrors(loadout, errorReporter);
+
+        // Only 96 points fit so the second command fails.
+        assertEquals(60, la.getArmour(ArmourSide.ONLY));
+        assertEquals(0, ra.getArmour(ArmourSide.ONLY));
+        final List<Throwable> errors = verifyErrors(loadout);
+        assertEquals(1, errors.size());
+        assertEquals(EquipResultType.TooHeavy, ((EquipException) errors.get(0)).getResult().getType());
+    }
+
+    @Test
+    public void testSetOmniPod_Direct() throws Exception {
+        final LoadoutOmniMech loadout = mock(LoadoutOmniMech.class);
+        final ConfiguredComponent component = mock(ConfiguredComponent.class);
+        final OmniPod omniPod = mock(OmniPod.class);
+        doReturn(Arrays.asList(component)).when(loadout).getComponents();
+        when(component.getItemsEquipped()).thenReturn(Collections.emptyList());
+
+        cut.setOmniPod(loadout, omniPod);
+        cut.applyAll();
+
+        verify(loadout).setOmniPod(omniPod);
+    }
+
+    /**
+     * If there are items on the loadout, the omnipod is changed with a command that takes care of removing them.
+     */
+    @Test
+    public void testSetOmniPod_ItemsEquipped() throws Exception {
+        final LoadoutOmniMech loadout = mock(LoadoutOmniMech.class);
+        final ConfiguredComponentOmniMech component = mock(ConfiguredComponentOmniMech.class);
+        final ComponentOmniMech internal = mock(ComponentOmniMech.class);
+        final OmniPod omniPod = mock(OmniPod.class);
+        final Item item = mock(Item.class);
+        when(omniPod.getLocation()).thenReturn(Location.RightArm);
+        when(loadout.getComponent(Location.RightArm)).thenReturn(component);
+        doReturn(Arrays.asList(component)).when(loadout).getComponents();
+        when(component.getInternalComponent()).thenReturn(internal);
+        when(internal.getLocation()).thenReturn(Location.RightArm);
+        when(component.getItemsEquipped()).thenReturn(Arrays.asList(item));
+        when(component.getOmniPod()).thenReturn(mock(OmniPod.class));
+        when(component.canRemoveItem(item)).thenReturn(true);
+
+        cut.setOmniPod(loadout, omniPod);
+        cut.applyAll();
+
+        final InOrder inOrder = inOrder(component, loadout);
+        inOrder.verify(component).removeItem(item);
+        inOrder.verify(loadout).setOmniPod(omniPod);
+    }
+
+    @Test
+    public void testSetToggleState_Off() throws Exception {
+        final Loadout loadout = mock(Loadout.class);
+        final ConfiguredComponentOmniMech component = mock(ConfiguredComponentOmniMech.class);
+        when(component.getToggleState(ItemDB.LAA)).thenReturn(true);
+
+        cut.setToggleState(loadout, component, ItemDB.LAA, false);
+        cut.applyAll();
+
+        // The hand actuator can't be on without the lower arm actuator.
+        verify(component).setToggleState(ItemDB.HA, false);
+        verify(component).setToggleState(ItemDB.LAA, false);
+    }
+
+    @Test
+    public void testSetToggleState_Unchanged() throws Exception {
+        final Loadout loadout = mock(Loadout.class);
+        final ConfiguredComponentOmniMech component = mock(ConfiguredComponentOmniMech.class);
+        when(component.getToggleState(ItemDB.HA)).thenReturn(false);
+
+        cut.setToggleState(loadout, component, ItemDB.HA, false);
+        cut.applyAll();
+
+        verify(component, never()).setToggleState(any(Item.class), anyBoolean());
+    }
+
+    private LoadoutStandard makeLoadout() {
+        final ConfiguredComponentStandard[] components = new ConfiguredComponentStandard[Location.values().length];
+        for (final Location location : Location.values()) {
+            components[location.ordinal()] = new ConfiguredComponentStandard(internals[location.ordinal()], false);
+        }
+        return new LoadoutStandard(components, chassis, upgrades, mock(WeaponGroups.class));
+    }
+
+    private List<Throwable> verifyErrors(Loadout aLoadout) {
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<Throwable>> errors = ArgumentCaptor.forClass(List.class);
+        verify(errorReporter).error(isNull(), same(aLoadout), errors.capture());
+        return errors.getValue();
+    }
+}
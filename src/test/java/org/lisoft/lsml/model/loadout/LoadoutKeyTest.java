@@ -0,0 +1,162 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.loadout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.lisoft.lsml.model.chassi.ArmourSide;
+import org.lisoft.lsml.model.chassi.ChassisStandard;
+import org.lisoft.lsml.model.chassi.ComponentStandard;
+import org.lisoft.lsml.model.chassi.Location;
+import org.lisoft.lsml.model.item.Internal;
+import org.lisoft.lsml.model.item.Item;
+import org.lisoft.lsml.model.upgrades.UpgradesMutable;
+
+@SuppressWarnings("javadoc")
+public class LoadoutKeyTest {
+    private final ChassisStandard chassis = mock(ChassisStandard.class);
+    private final ComponentStandard[] internals = new ComponentStandard[Location.values().length];
+    private final UpgradesMutable upgrades = mock(UpgradesMutable.class);
+    private final Item item1 = mock(Item.class);
+    private final Item item2 = mock(Item.class);
+
+    @Before
+    public void setup() {
+        when(chassis.getShortName()).thenReturn("chassis");
+        when(item1.getId()).thenReturn(1001);
+        when(item2.getId()).thenReturn(1002);
+        for (final Location location : Location.values()) {
+            final ComponentStandard internal = mock(ComponentStandard.class);
+            when(internal.getLocation()).thenReturn(location);
+            internals[location.ordinal()] = internal;
+        }
+    }
+
+    @Test
+    public void testArmourChangesKey() {
+        final Loadout cut = makeLoadout();
+        final Loadout other = makeLoadout();
+        final LoadoutKey before = cut.getKey();
+
+        cut.getComponent(Location.CenterTorso).setArmour(ArmourSide.BACK, 10, true);
+
+        assertNotEquals(before, cut.getKey());
+        assertNotEquals(other.getKey(), cut.getKey());
+        assertNotEquals(other, cut);
+
+        other.getComponent(Location.CenterTorso).setArmour(ArmourSide.BACK, 10, true);
+        assertEquals(other.getKey(), cut.getKey());
+        assertEquals(other, cut);
+    }
+
+    @Test
+    public void testCachedUntilChanged() {
+        final Loadout cut = makeLoadout();
+        final LoadoutKey before = cut.getKey();
+        assertSame(before, cut.getKey());
+
+        cut.getComponent(Location.LeftArm).addItem(item1);
+        final LoadoutKey after = cut.getKey();
+        assertNotSame(before, after);
+        assertNotEquals(before, after);
+        assertSame(after, cut.getKey());
+
+        cut.getComponent(Location.LeftArm).removeItem(item1);
+        assertEquals(before, cut.getKey());
+        assertEquals(before.hashCode(), cut.getKey().hashCode());
+    }
+
+    @Test
+    public void testItemOrderIgnored() {
+        final Loadout cut = makeLoadout();
+        cut.getComponent(Location.LeftTorso).addItem(item1);
+        cut.getComponent(Location.LeftTorso).addItem(item2);
+        cut.getComponent(Location.LeftTorso).addItem(item1);
+
+        final Loadout other = makeLoadout();
+        other.getComponent(Location.LeftTorso).addItem(item2);
+        other.getComponent(Location.LeftTorso).addItem(item1);
+        other.getComponent(Location.LeftTorso).addItem(item1);
+
+        assertEquals(other.getKey(), cut.getKey());
+        assertEquals(other.getKey().hashCode(), cut.getKey().hashCode());
+        assertEquals(other, cut);
+        assertEquals(other.hashCode(), cut.hashCode());
+    }
+
+    @Test
+    public void testItemLocationMatters() {
+        final Loadout cut = makeLoadout();
+        cut.getComponent(Location.LeftTorso).addItem(item1);
+        final Loadout other = makeLoadout();
+        other.getComponent(Location.RightTorso).addItem(item1);
+
+        assertNotEquals(other.getKey(), cut.getKey());
+    }
+
+    @Test
+    public void testInternalWithSameMwoIdDiffers() {
+        // Engine side torsos reuse the id of the engine.
+        final Internal internal = mock(Internal.class);
+        when(internal.getId()).thenReturn(1001);
+
+        final Loadout cut = makeLoadout();
+        cut.getComponent(Location.LeftTorso).addItem(item1);
+        final Loadout other = makeLoadout();
+        other.getComponent(Location.LeftTorso).addItem(internal);
+
+        assertNotEquals(other.getKey(), cut.getKey());
+    }
+
+    @Test
+    public void testItemsWithDifferentMwoIdDiffer() {
+        final Loadout cut = makeLoadout();
+        cut.getComponent(Location.LeftTorso).addItem(item1);
+        final Loadout other = makeLoadout();
+        other.getComponent(Location.LeftTorso).addItem(item2);
+
+        assertNotEquals(other.getKey(), cut.getKey());
+    }
+
+    @Test
+    public void testNameNotPartOfKey() {
+        final Loadout cut = makeLoadout();
+        final Loadout other = makeLoadout();
+        other.setName("other");
+
+        assertEquals(other.getKey(), cut.getKey());
+        assertNotEquals(other, cut);
+    }
+
+    private Loadout makeLoadout() {
+        final ConfiguredComponentStandard[] components = new ConfiguredComponentStandard[Location.values().length];
+        for (final Location location : Location.values()) {
+            components[location.ordinal()] = new ConfiguredComponentStandard(internals[location.ordinal()], false);
+        }
+        return new LoadoutStandard(components, chassis, upgrades, mock(WeaponGroups.class));
+    }
+}
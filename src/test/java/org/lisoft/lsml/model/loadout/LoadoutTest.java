@@ -26,6 +26,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -44,6 +45,7 @@ import org.lisoft.lsml.model.chassi.HardPointType;
 import org.lisoft.lsml.model.chassi.Location;
 import org.lisoft.lsml.model.database.ItemDB;
 import org.lisoft.lsml.model.item.ActiveProbe;
+import org.lisoft.lsml.model.item.Consumable;
 import org.lisoft.lsml.model.item.Engine;
 import org.lisoft.lsml.model.item.HeatSink;
 import org.lisoft.lsml.model.item.Item;
@@ -463,6 +465,59 @@ public abstract class LoadoutTest {
         assertEquals(3, modifiers.size());
     }
 
+    @Test
+    public final void testGetModifierSnapshot() {
+        final Modifier modifier1 = mock(Modifier.class);
+        final Modifier modifier2 = mock(Modifier.class);
+        final ActiveProbe item1 = mock(ActiveProbe.class);
+        final ActiveProbe item2 = mock(ActiveProbe.class);
+        when(item1.getModifiers()).thenReturn(Arrays.asList(modifier1));
+        when(item2.getModifiers()).thenReturn(Arrays.asList(modifier2));
+        when(components[3].getItemsEquipped()).thenReturn(Arrays.asList(item1));
+
+        final Loadout cut = makeDefaultCUT();
+        final Collection<Modifier> before = cut.getModifierSnapshot();
+        assertSame(before, cut.getModifierSnapshot());
+        assertSame(before, cut.getAllModifiers());
+        assertTrue(before.contains(modifier1));
+
+        // Not seen until the component reports a change
+        when(components[3].getItemsEquipped()).thenReturn(Arrays.asList(item1, item2));
+        assertSame(before, cut.getModifierSnapshot());
+
+        when(components[3].getItemModifications()).thenReturn(1);
+        final Collection<Modifier> after = cut.getModifierSnapshot();
+        assertNotSame(before, after);
+        assertTrue(after.contains(modifier1));
+        assertTrue(after.contains(modifier2));
+        assertSame(after, cut.getModifierSnapshot());
+
+        cut.addModule(mock(Consumable.class));
+        assertNotSame(after, cut.getModifierSnapshot());
+    }
+
+    @Test
+    public final void testGetWeaponStats() {
+        final Weapon weapon = makeTestItem(0.0, 0, HardPointType.ENERGY, true, true, true, Weapon.class);
+        final Loadout cut = makeDefaultCUT();
+
+        final ResolvedWeaponStats before = cut.getWeaponStats();
+        assertSame(before, cut.getWeaponStats());
+        assertEquals(0, before.size());
+
+        when(components[3].getItemsEquipped()).thenReturn(Arrays.asList(weapon));
+        when(components[3].getItemModifications()).thenReturn(1);
+        final ResolvedWeaponStats after = cut.getWeaponStats();
+        assertEquals(1, after.size());
+        assertSame(weapon, after.getWeapon(0));
+        assertSame(cut.getModifierSnapshot(), after.getModifiers());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public final void testGetModifierSnapshotImmutable() {
+        makeDefaultCUT().getModifierSnapshot().add(mock(Modifier.class));
+    }
+
     @Test
     public final void testGetHardpointsCount() throws Exception {
         when(components[0].getHardPointCount(HardPointType.ENERGY)).thenReturn(2);
@@ -484,6 +539,25 @@ public abstract class LoadoutTest {
         assertEquals(components.length * 2, makeDefaultCUT().getItemsOfHardPointType(pointType));
     }
 
+    @Test
+    public final void testTotalsCachedUntilChanged() throws Exception {
+        when(components[0].getArmourTotal()).thenReturn(10);
+        when(components[1].getHardPointCount(HardPointType.ENERGY)).thenReturn(2);
+        final Loadout cut = makeDefaultCUT();
+        assertEquals(10, cut.getArmour());
+        assertEquals(2, cut.getHardpointsCount(HardPointType.ENERGY));
+
+        // Not seen until a component reports a change
+        when(components[0].getArmourTotal()).thenReturn(20);
+        when(components[1].getHardPointCount(HardPointType.ENERGY)).thenReturn(3);
+        assertEquals(10, cut.getArmour());
+        assertEquals(2, cut.getHardpointsCount(HardPointType.ENERGY));
+
+        when(components[0].getArmourModifications()).thenReturn(1);
+        assertEquals(20, cut.getArmour());
+        assertEquals(3, cut.getHardpointsCount(HardPointType.ENERGY));
+    }
+
     @Test
     public final void testGetJumpJetCount() throws Exception {
         final List<Item> empty = new ArrayList<>();
@@ -768,6 +842,47 @@ public abstract class LoadoutTest {
         assertTrue(ListArrayUtils.equalsUnordered(expected, ans));
     }
 
+    @Test
+    public final void testItems_SharedUntilChanged() {
+        final JumpJet jj = mock(JumpJet.class);
+        final List<Item> equipped = new ArrayList<>();
+        equipped.add(jj);
+        when(components[2].getItemsEquipped()).thenReturn(equipped);
+        final Loadout cut = makeDefaultCUT();
+
+        final Iterable<JumpJet> before = cut.items(JumpJet.class);
+        assertSame(before, cut.items(JumpJet.class));
+        assertEquals(1, cut.getJumpJetCount());
+
+        equipped.add(jj);
+        when(components[2].getItemModifications()).thenReturn(1);
+
+        final Iterable<JumpJet> after = cut.items(JumpJet.class);
+        assertNotSame(before, after);
+        assertTrue(ListArrayUtils.equalsUnordered(Arrays.asList(jj, jj), (List<JumpJet>) after));
+        assertEquals(2, cut.getJumpJetCount());
+    }
+
+    @Test
+    public final void testGetEquippability() throws Exception {
+        final Item item = makeTestItem(0.0, 0, HardPointType.NONE, true, true, true);
+        final Loadout cut = makeDefaultCUT();
+
+        final Equippability equippability = cut.getEquippability();
+        assertSame(equippability, cut.getEquippability());
+        assertEquals(cut.canEquipDirectly(item), equippability.canEquipDirectly(item));
+        assertEquals(cut.getCandidateLocationsForItem(item), equippability.getCandidateLocationsForItem(item));
+        assertEquals(EquipResult.SUCCESS, equippability.canEquip(item, Location.LeftArm));
+        verify(components[Location.LeftArm.ordinal()], times(1)).canEquip(item);
+
+        // Remembered until the loadout changes
+        equippability.canEquip(item, Location.LeftArm);
+        verify(components[Location.LeftArm.ordinal()], times(1)).canEquip(item);
+
+        when(components[Location.LeftArm.ordinal()].getArmourModifications()).thenReturn(1);
+        assertNotSame(equippability, cut.getEquippability());
+    }
+
     @Test
     public final void testToString() throws Exception {
         final Loadout cut = makeDefaultCUT();
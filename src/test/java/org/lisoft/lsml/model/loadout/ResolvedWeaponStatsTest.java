@@ -0,0 +1,98 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.loadout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.lisoft.lsml.model.item.EnergyWeapon;
+import org.lisoft.lsml.model.item.Weapon;
+import org.lisoft.lsml.model.item.WeaponStat;
+import org.lisoft.lsml.model.modifiers.Modifier;
+import org.lisoft.lsml.util.Pair;
+
+@SuppressWarnings("javadoc")
+public class ResolvedWeaponStatsTest {
+    private final Collection<Modifier> modifiers = new ArrayList<>();
+
+    @Test
+    public void testResolve() {
+        final EnergyWeapon laser = mock(EnergyWeapon.class);
+        when(laser.getDamagePerShot()).thenReturn(9.0);
+        when(laser.getCoolDown(modifiers)).thenReturn(3.0);
+        when(laser.getSecondsPerShot(modifiers)).thenReturn(4.0);
+        when(laser.getHeat(modifiers)).thenReturn(7.0);
+        when(laser.getDuration(modifiers)).thenReturn(1.0);
+        when(laser.getRangeMax(modifiers)).thenReturn(900.0);
+        when(laser.getRangeOptimal(modifiers)).thenReturn(new Pair<>(0.0, 450.0));
+        when(laser.getProjectileSpeed(modifiers)).thenReturn(Double.POSITIVE_INFINITY);
+        when(laser.getStat("d/s", modifiers)).thenReturn(2.25);
+        when(laser.getStat("d/h", modifiers)).thenReturn(9.0 / 7.0);
+        when(laser.getStat("h/s", modifiers)).thenReturn(1.75);
+        when(laser.getMass()).thenReturn(5.0);
+        when(laser.getSlots()).thenReturn(2);
+        final Weapon other = mock(Weapon.class);
+
+        final ResolvedWeaponStats cut = new ResolvedWeaponStats(Arrays.asList(laser, other, laser), modifiers);
+
+        assertSame(modifiers, cut.getModifiers());
+        assertEquals(2, cut.size());
+        final int i = cut.indexOf(laser);
+        assertSame(laser, cut.getWeapon(i));
+        assertEquals(2, cut.getCount(i));
+        assertEquals(1, cut.getCount(cut.indexOf(other)));
+        assertEquals(9.0, cut.getDamagePerShot(i), 0.0);
+        assertEquals(3.0, cut.getCoolDown(i), 0.0);
+        assertEquals(4.0, cut.getSecondsPerShot(i), 0.0);
+        assertEquals(7.0, cut.getHeat(i), 0.0);
+        assertEquals(1.0, cut.getDuration(i), 0.0);
+        assertEquals(900.0, cut.getRangeMax(i), 0.0);
+        assertEquals(0.0, cut.getRangeOptimalMin(i), 0.0);
+        assertEquals(450.0, cut.getRangeOptimalMax(i), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, cut.getProjectileSpeed(i), 0.0);
+        assertEquals(2.25, cut.getDamagePerSecond(i), 0.0);
+        assertEquals(2.25, cut.getDamagePerSecond(laser), 0.0);
+        assertEquals(9.0 / 7.0, cut.getDamagePerHeat(laser), 0.0);
+        assertEquals(1.75, cut.getHeatPerSecond(laser), 0.0);
+        assertEquals(9.0 * 5.0 / 4.0, cut.getStat(WeaponStat.of("dt/s"), i), 0.0);
+
+        // Resolved once, not once per instance
+        verify(laser, times(1)).getHeat(modifiers);
+    }
+
+    @Test
+    public void testUnknownWeaponFallsBack() {
+        final Weapon weapon = mock(Weapon.class);
+        when(weapon.getStat("d/s", modifiers)).thenReturn(3.0);
+        final ResolvedWeaponStats cut = new ResolvedWeaponStats(new ArrayList<>(), modifiers);
+
+        assertEquals(-1, cut.indexOf(weapon));
+        assertEquals(3.0, cut.getDamagePerSecond(weapon), 0.0);
+    }
+}
@@ -27,6 +27,8 @@ import java.util.Arrays;
 
 import org.junit.Test;
 
+import com.thoughtworks.xstream.XStream;
+
 /**
  * A test suite for {@link Attribute}.
  *
@@ -90,6 +92,21 @@ public class AttributeTest {
         assertFalse(a1.equals(new String("foo")));
     }
 
+    @Test
+    public void testReadResolve() {
+        final XStream xstream = new XStream();
+        xstream.allowTypesByWildcard(new String[] { "org.lisoft.lsml.**" });
+        final Attribute a1 = new Attribute(1.0, Arrays.asList("foo", "bar"), "baz");
+
+        final String xml = xstream.toXML(a1);
+        final Attribute a2 = (Attribute) xstream.fromXML(xml);
+
+        assertFalse(xml.contains("specifierSymbol"));
+        assertEquals(a1, a2);
+        assertEquals(a1.getSpecifierSymbol(), a2.getSpecifierSymbol());
+        assertEquals(a1.getSignature(), a2.getSignature());
+    }
+
     @Test
     public void testToString() {
         final double value = 3.15;
@@ -22,8 +22,6 @@ package org.lisoft.lsml.model.modifiers;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -149,10 +147,7 @@ public class ModifierDescriptionTest {
     }
 
     private Attribute makeAttribute(Collection<String> aSelectors, String aSpecifier) {
-        final Attribute atribute = mock(Attribute.class);
-        when(atribute.getSpecifier()).thenReturn(aSpecifier);
-        when(atribute.getSelectors()).thenReturn(aSelectors);
-        return atribute;
+        return new Attribute(0.0, aSelectors, aSpecifier);
     }
 
 }
@@ -0,0 +1,159 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.modifiers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * This class compares resolving {@link Attribute}s by looping over a list of modifiers with resolving them through a
+ * {@link ModifierSet}.
+ * <p>
+ * The modifiers model a quirk heavy 'mech: per weapon type cooldown, heat, range and velocity quirks, movement quirks,
+ * armour and structure quirks per location plus pilot skills. The attributes are those of a typical mixed loadout that
+ * a repaint of the weapon table and the summary would resolve.
+ *
+ * @author Emily Björk
+ */
+public class ModifierSetBenchmark {
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 15;
+    private static final int RESOLVES_PER_ITERATION = 2_000_000;
+
+    /**
+     * Runs the benchmark and prints the results to stdout.
+     *
+     * @param arg
+     *            Not used
+     */
+    public static void main(String[] arg) {
+        final List<Modifier> modifiers = makeQuirks();
+        final List<Attribute> attributes = makeAttributes();
+        final ModifierSet modifierSet = ModifierSet.of(modifiers);
+
+        System.out.println("Modifiers:  " + modifiers.size());
+        System.out.println("Attributes: " + attributes.size());
+
+        final double expected = sum(attributes, a -> a.value(modifiers));
+        if (expected != sum(attributes, a -> a.value(modifierSet))) {
+            throw new AssertionError("ModifierSet gives different results!");
+        }
+
+        final double loop = measure("Loop over modifiers", attributes, a -> a.value(modifiers));
+        final double compiled = measure("ModifierSet", attributes, a -> a.value(modifierSet));
+        System.out.println(String.format("Speedup: %.1fx", loop / compiled));
+    }
+
+    private static List<Attribute> makeAttributes() {
+        final List<Attribute> ans = new ArrayList<>();
+        final String[][] weapons = { { "energy", "islargelaser", "islaser" }, { "energy", "ismediumlaser", "islaser" },
+                { "energy", "isppc" }, { "ballistic", "isac10", "isautocannon" }, { "ballistic", "isgaussrifle" },
+                { "missile", "islrm15", "islrm" }, { "missile", "issrm6", "issrm" } };
+        for (final String[] weapon : weapons) {
+            for (final String specifier : new String[] { "cooldown", "heat", "range", "velocity", "duration",
+                    "minheatpenaltylevel" }) {
+                ans.add(new Attribute(10.0, Arrays.asList(weapon), specifier));
+            }
+        }
+        for (final List<String> selectors : Arrays.asList(ModifierDescription.SEL_MOVEMENT_MAX_SPEED,
+                ModifierDescription.SEL_MOVEMENT_TURN_RATE, ModifierDescription.SEL_HEAT_DISSIPATION,
+                ModifierDescription.SEL_HEAT_LIMIT, ModifierDescription.SEL_JUMPJETS)) {
+            ans.add(new Attribute(1.0, selectors));
+        }
+        for (final String specifier : new String[] { ModifierDescription.SPEC_MOVEMENT_PITCHSPEED,
+                ModifierDescription.SPEC_MOVEMENT_YAWSPEED, ModifierDescription.SPEC_MOVEMENT_YAWANGLE }) {
+            ans.add(new Attribute(1.0, ModifierDescription.SEL_MOVEMENT_TORSO, specifier));
+            ans.add(new Attribute(1.0, ModifierDescription.SEL_MOVEMENT_ARM, specifier));
+        }
+        for (final String location : new String[] { "hd", "ct", "lt", "rt", "la", "ra", "ll", "rl" }) {
+            ans.add(new Attribute(20.0, ModifierDescription.SEL_ARMOUR, location));
+            ans.add(new Attribute(20.0, ModifierDescription.SEL_STRUCTURE, location));
+        }
+        return ans;
+    }
+
+    private static List<Modifier> makeQuirks() {
+        final List<Modifier> ans = new ArrayList<>();
+        int key = 0;
+        for (final String selector : new String[] { "energy", "ballistic", "missile", "islaser", "isppc",
+                "isautocannon", "isgaussrifle", "islrm", "issrm", "islargelaser", "ismediumlaser" }) {
+            for (final String specifier : new String[] { "cooldown", "heat", "range", "velocity" }) {
+                ans.add(new Modifier(new ModifierDescription("q" + key, "q" + key++, Operation.MUL,
+                        Arrays.asList(selector), specifier, ModifierType.INDETERMINATE), 0.05));
+            }
+        }
+        for (final String location : new String[] { "hd", "ct", "lt", "rt", "la", "ra", "ll", "rl" }) {
+            ans.add(new Modifier(new ModifierDescription("q" + key, "q" + key++, Operation.ADD,
+                    ModifierDescription.SEL_ARMOUR, location, ModifierType.POSITIVE_GOOD), 10));
+            ans.add(new Modifier(new ModifierDescription("q" + key, "q" + key++, Operation.ADD,
+                    ModifierDescription.SEL_STRUCTURE, location, ModifierType.POSITIVE_GOOD), 10));
+        }
+        for (final List<String> selectors : Arrays.asList(ModifierDescription.SEL_MOVEMENT_MAX_SPEED,
+                ModifierDescription.SEL_MOVEMENT_TURN_RATE, ModifierDescription.SEL_HEAT_DISSIPATION,
+                ModifierDescription.SEL_HEAT_LIMIT, ModifierDescription.SEL_JUMPJETS)) {
+            ans.add(new Modifier(new ModifierDescription("s" + key, "s" + key++, Operation.MUL, selectors, null,
+                    ModifierType.POSITIVE_GOOD), 0.1));
+        }
+        for (final String specifier : new String[] { ModifierDescription.SPEC_MOVEMENT_PITCHSPEED,
+                ModifierDescription.SPEC_MOVEMENT_YAWSPEED, ModifierDescription.SPEC_MOVEMENT_YAWANGLE }) {
+            ans.add(new Modifier(new ModifierDescription("s" + key, "s" + key++, Operation.MUL,
+                    ModifierDescription.SEL_MOVEMENT_TORSO, specifier, ModifierType.POSITIVE_GOOD), 0.1));
+        }
+        ans.add(new Modifier(new ModifierDescription("s" + key, "s" + key++, Operation.MUL,
+                ModifierDescription.SEL_ALL_WEAPONS, ModifierDescription.SPEC_WEAPON_RANGE,
+                ModifierType.POSITIVE_GOOD), 0.05));
+        return ans;
+    }
+
+    private static double measure(String aName, List<Attribute> aAttributes, ToDoubleFunction<Attribute> aResolver) {
+        final int rounds = RESOLVES_PER_ITERATION / aAttributes.size();
+        double sink = 0;
+        for (int i = 0; i < WARMUP; ++i) {
+            for (int j = 0; j < rounds; ++j) {
+                sink += sum(aAttributes, aResolver);
+            }
+        }
+
+        final long[] times = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; ++i) {
+            final long start = System.nanoTime();
+            for (int j = 0; j < rounds; ++j) {
+                sink += sum(aAttributes, aResolver);
+            }
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        final double nsPerResolve = (double) times[ITERATIONS / 2] / (rounds * aAttributes.size());
+        System.out.println(String.format("%-30s median: %7.1f ns/attribute (%s)", aName, nsPerResolve,
+                sink > 0 ? "ok" : "?"));
+        return nsPerResolve;
+    }
+
+    private static double sum(Collection<Attribute> aAttributes, ToDoubleFunction<Attribute> aResolver) {
+        double ans = 0;
+        for (final Attribute attribute : aAttributes) {
+            ans += aResolver.applyAsDouble(attribute);
+        }
+        return ans;
+    }
+}
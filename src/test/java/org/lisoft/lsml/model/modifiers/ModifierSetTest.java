@@ -0,0 +1,142 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.modifiers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ModifierSetTest {
+    private static final String[] SELECTORS = { "all", "energy", "ballistic", "missile", "islargelaser",
+            "clanerppc", "speed", "torso", "armorresist" };
+    private static final String[] SPECIFIERS = { null, "all", "cooldown", "heat", "range", "yawspeed" };
+
+    @Test
+    public void testOf() {
+        final List<Modifier> modifiers = makeModifiers(new Random(1), 5);
+        final ModifierSet cut = ModifierSet.of(modifiers);
+
+        assertSame(cut, ModifierSet.of(cut));
+        assertSame(ModifierSet.EMPTY, ModifierSet.of(null));
+        assertSame(ModifierSet.EMPTY, ModifierSet.of(new ArrayList<>()));
+        assertEquals(modifiers, new ArrayList<>(cut));
+    }
+
+    @Test
+    public void testIdenticalToLoop() {
+        final Random rng = new Random(4711);
+        for (int i = 0; i < 200; ++i) {
+            final List<Modifier> modifiers = makeModifiers(rng, rng.nextInt(40));
+            final ModifierSet cut = ModifierSet.of(modifiers);
+            for (int j = 0; j < 50; ++j) {
+                final Attribute attribute = makeAttribute(rng);
+                final double expected = attribute.value(modifiers);
+                // Twice to check the cached totals too
+                assertEquals(expected, cut.value(attribute), 0.0);
+                assertEquals(expected, attribute.value(cut), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testModifierMatchingManySelectorsCountedOnce() {
+        final ModifierDescription description = new ModifierDescription("Weapon Heat", "weaponheat", Operation.MUL,
+                Arrays.asList("energy", "islargelaser"), "heat", ModifierType.NEGATIVE_GOOD);
+        final ModifierSet cut = ModifierSet.of(Arrays.asList(new Modifier(description, -0.1)));
+        final Attribute heat = new Attribute(10.0, Arrays.asList("energy", "islargelaser"), "heat");
+
+        assertEquals(9.0, cut.value(heat), 0.0);
+    }
+
+    @Test
+    public void testBaseValueIsNotCached() {
+        final ModifierDescription description = new ModifierDescription("Cooldown", "cooldown", Operation.ADD,
+                Arrays.asList("energy"), "cooldown", ModifierType.NEGATIVE_GOOD);
+        final ModifierSet cut = ModifierSet.of(Arrays.asList(new Modifier(description, 1.0)));
+        final Attribute cooldown = new Attribute(3.0, Arrays.asList("energy"), "cooldown");
+
+        assertEquals(4.0, cut.value(cooldown), 0.0);
+        cooldown.setBaseValue(5.0);
+        assertEquals(6.0, cut.value(cooldown), 0.0);
+        assertEquals(3.0, cut.value(new Attribute(2.0, Arrays.asList("energy"), "cooldown")), 0.0);
+    }
+
+    @Test
+    public void testSignature() {
+        final Attribute a = new Attribute(1.0, Arrays.asList("foo", "bar"), "baz");
+        final Attribute b = new Attribute(2.0, Arrays.asList("bar", "foo"), "baz");
+        final Attribute c = new Attribute(1.0, Arrays.asList("foo", "bar"), null);
+
+        assertEquals(a.getSignature(), b.getSignature());
+        assertTrue(a.getSignature() != c.getSignature());
+    }
+
+    /**
+     * Attributes that didn't get a signature because the signature table is full are resolved without caching.
+     */
+    @Test
+    public void testValueWithoutSignature() {
+        final ModifierDescription description = new ModifierDescription("cd", "cd", Operation.ADD,
+                Arrays.asList("energy"), "cooldown", ModifierType.NEGATIVE_GOOD);
+        final ModifierSet cut = ModifierSet.of(Arrays.asList(new Modifier(description, 1.0)));
+        final Attribute cooldown = spy(new Attribute(3.0, Arrays.asList("energy"), "cooldown"));
+        doReturn(ModifierSet.NO_SIGNATURE).when(cooldown).getSignature();
+
+        assertEquals(4.0, cut.value(cooldown), 0.0);
+        cooldown.setBaseValue(5.0);
+        assertEquals(6.0, cut.value(cooldown), 0.0);
+    }
+
+    private Attribute makeAttribute(Random aRng) {
+        return new Attribute(aRng.nextDouble() * 100, pickSelectors(aRng), SPECIFIERS[aRng.nextInt(SPECIFIERS.length)]);
+    }
+
+    private List<Modifier> makeModifiers(Random aRng, int aCount) {
+        final List<Modifier> ans = new ArrayList<>();
+        for (int i = 0; i < aCount; ++i) {
+            final ModifierDescription description = new ModifierDescription("m" + i, "m" + i,
+                    aRng.nextBoolean() ? Operation.ADD : Operation.MUL, pickSelectors(aRng),
+                    SPECIFIERS[aRng.nextInt(SPECIFIERS.length)], ModifierType.INDETERMINATE);
+            ans.add(new Modifier(description, aRng.nextDouble() - 0.5));
+        }
+        return ans;
+    }
+
+    private Collection<String> pickSelectors(Random aRng) {
+        final List<String> ans = new ArrayList<>();
+        final int count = 1 + aRng.nextInt(3);
+        for (int i = 0; i < count; ++i) {
+            // Skew away from "all" so that most modifiers are selective.
+            ans.add(SELECTORS[aRng.nextInt(4) == 0 ? 0 : 1 + aRng.nextInt(SELECTORS.length - 1)]);
+        }
+        return ans;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * @formatter:off
+ * Li Song Mechlab - A 'mech building tool for PGI's MechWarrior: Online.
+ * Copyright (C) 2013  Emily Björk
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+//@formatter:on
+package org.lisoft.lsml.model.modifiers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class SymbolSetTest {
+
+    @Test
+    public void testCanonical() {
+        final SymbolSet a = SymbolSet.of(Arrays.asList("Energy", "isLargeLaser"));
+        final SymbolSet b = SymbolSet.of(Arrays.asList("islargelaser", "energy", "ENERGY"));
+
+        assertSame(a, b);
+        assertEquals(2, a.size());
+        assertTrue(a.contains("energy"));
+        assertTrue(a.contains("islargelaser"));
+        assertFalse(a.contains("Energy"));
+        assertFalse(a.contains("symbolsettest_neverinterned"));
+        assertFalse(a.contains(null));
+    }
+
+    @Test
+    public void testEqualsOtherSets() {
+        final SymbolSet cut = SymbolSet.of(Arrays.asList("foo", "bar"));
+        final Set<String> expected = new HashSet<>(Arrays.asList("foo", "bar"));
+
+        assertEquals(expected, cut);
+        assertEquals(cut, expected);
+        assertEquals(expected.hashCode(), cut.hashCode());
+        assertEquals(expected, new HashSet<>(cut));
+    }
+
+    @Test
+    public void testEmpty() {
+        final SymbolSet cut = SymbolSet.of(Collections.emptyList());
+        assertTrue(cut.isEmpty());
+        assertFalse(cut.iterator().hasNext());
+        assertFalse(cut.intersects(SymbolSet.of(Arrays.asList("foo"))));
+    }
+
+    @Test
+    public void testManySymbols() {
+        // Enough symbols to span several words
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            names.add("symbolsettest_" + i);
+        }
+        final SymbolSet all = SymbolSet.of(names);
+        final SymbolSet first = SymbolSet.of(names.subList(0, 1));
+        final SymbolSet last = SymbolSet.of(names.subList(199, 200));
+        final SymbolSet other = SymbolSet.of(Arrays.asList("symbolsettest_other"));
+
+        assertEquals(200, all.size());
+        assertEquals(new HashSet<>(names), new HashSet<>(all));
+        assertTrue(all.intersects(first));
+        assertTrue(last.intersects(all));
+        assertFalse(first.intersects(last));
+        assertFalse(other.intersects(first));
+        assertFalse(other.intersects(last));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnmodifiable() {
+        SymbolSet.of(Arrays.asList("foo")).add("bar");
+    }
+}
@@ -135,6 +135,28 @@ public class CommandStackTest {
         Mockito.verifyNoMoreInteractions(a1);
     }
 
+    /**
+     * {@link CommandStack#clear()} shall forget both undoable and redoable commands without undoing them.
+     */
+    @Test
+    public final void testClear() throws Exception {
+        final Command a0 = Mockito.mock(Command.class);
+        final Command a1 = Mockito.mock(Command.class);
+        cut.pushAndApply(a0);
+        cut.pushAndApply(a1);
+        cut.undo();
+
+        cut.clear();
+
+        assertNull(cut.nextUndo());
+        assertNull(cut.nextRedo());
+        Mockito.verify(a0, Mockito.never()).undo();
+
+        final Command a2 = Mockito.mock(Command.class);
+        cut.pushAndApply(a2);
+        assertSame(a2, cut.nextUndo());
+    }
+
     @Test
     public final void testMaxDepth() throws Exception {
         // Setup
@@ -162,6 +184,27 @@ public class CommandStackTest {
         Mockito.verifyNoMoreInteractions(a0); // Undo not called
     }
 
+    @Test
+    public final void testMaxDepth_Wraparound() throws Exception {
+        cut = new CommandStack(3);
+        final Command[] commands = new Command[20];
+        for (int i = 0; i < commands.length; ++i) {
+            commands[i] = Mockito.mock(Command.class);
+            cut.pushAndApply(commands[i]);
+            cut.undo();
+            cut.redo();
+        }
+
+        assertSame(commands[19], cut.nextUndo());
+        cut.undo();
+        cut.undo();
+        assertSame(commands[17], cut.nextUndo());
+        assertSame(commands[18], cut.nextRedo());
+        cut.undo();
+        assertNull(cut.nextUndo());
+        assertSame(commands[17], cut.nextRedo());
+    }
+
     /**
      * {@link CommandStack#nextRedo()} shall return the {@link Command} that would be done if
      * {@link CommandStack#redo()} was called now.
@@ -20,6 +20,10 @@
 package org.lisoft.lsml.util;
 
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -32,6 +36,7 @@ import java.util.Collection;
 import java.util.List;
 
 import org.lisoft.lsml.application.ErrorReporter;
+import org.lisoft.lsml.model.database.DatabaseIndex;
 import org.lisoft.lsml.model.export.Base64LoadoutCoder;
 import org.lisoft.lsml.model.export.LoadoutCoderV2;
 import org.lisoft.lsml.model.export.LoadoutCoderV3;
@@ -46,6 +51,7 @@ import org.lisoft.lsml.model.loadout.LoadoutFactory;
 import org.lisoft.lsml.model.modifiers.Attribute;
 import org.lisoft.lsml.model.modifiers.Modifier;
 import org.lisoft.lsml.model.modifiers.ModifierDescription;
+import org.lisoft.lsml.view_fx.LiSongMechLab;
 
 import javafx.stage.Window;
 
@@ -72,14 +78,10 @@ public class TestHelpers {
     private final static Decoder base64Decoder = Base64.getDecoder();
 
     private static final LoadoutFactory loadoutFactory = new DefaultLoadoutFactory();
-    private static final LoadoutCoderV2 coderV2 = new LoadoutCoderV2(loadoutFactory);
-    private static final LoadoutCoderV3 coderV3 = new LoadoutCoderV3(errorCallback, loadoutFactory);
-    private static final LoadoutCoderV4 coderV4 = new LoadoutCoderV4(errorCallback, loadoutFactory);
-    private static final Base64LoadoutCoder coder = new Base64LoadoutCoder(base64Encoder, base64Decoder, coderV2,
-            coderV3, coderV4);
+    private static Base64LoadoutCoder coder;
 
     public static String encodeLSML(Loadout aLoadout) {
-        return coder.encodeLSML(aLoadout);
+        return getCoder().encodeLSML(aLoadout);
     }
 
     public static Weapon makeWeapon(final double zeroRange, final double minRange, final double longRange,
@@ -106,16 +108,35 @@ public class TestHelpers {
         final WeaponRangeProfile rangeProfile = new WeaponRangeProfile(nodes);
 
         when(weapon.getRangeProfile()).thenReturn(rangeProfile);
+        when(weapon.getRangeEffectiveness(anyDouble(), same(aModifiers))).thenAnswer(
+                aInvocation -> rangeProfile.rangeEffectiveness(aInvocation.getArgument(0), aModifiers));
+        doAnswer(aInvocation -> {
+            rangeProfile.rangeEffectiveness((double[]) aInvocation.getArgument(0), aModifiers,
+                    aInvocation.getArgument(2));
+            return null;
+        }).when(weapon).getRangeEffectiveness(any(double[].class), same(aModifiers), any(double[].class));
         when(weapon.getRangeMax(aModifiers)).thenReturn(maxRange);
         when(weapon.getStat("d/s", aModifiers)).thenReturn(dps);
         return weapon;
     }
 
     public static Loadout parse(String aLsmlLink) throws Exception {
-        return coder.parse(aLsmlLink);
+        return getCoder().parse(aLsmlLink);
     }
 
     public final static Attribute rangeNode(double aRange) {
         return new Attribute(aRange, ModifierDescription.SEL_ALL, ModifierDescription.SPEC_WEAPON_RANGE);
     }
+
+    private static synchronized Base64LoadoutCoder getCoder() {
+        // Created on first use as the coders need the database, most users of this class don't.
+        if (null == coder) {
+            final DatabaseIndex index = LiSongMechLab.getDatabase().get().getIndex();
+            final LoadoutCoderV2 coderV2 = new LoadoutCoderV2(loadoutFactory, () -> index);
+            final LoadoutCoderV3 coderV3 = new LoadoutCoderV3(errorCallback, loadoutFactory, () -> index);
+            final LoadoutCoderV4 coderV4 = new LoadoutCoderV4(errorCallback, loadoutFactory, () -> index);
+            coder = new Base64LoadoutCoder(base64Encoder, base64Decoder, coderV2, coderV3, coderV4);
+        }
+        return coder;
+    }
 }